@@ -7,7 +7,8 @@ DB_URL=jdbc:postgresql://localhost:5432/customer_registration
 DB_USERNAME=postgres
 DB_PASSWORD=password
 JWT_SECRET=90385881f4876e643cdf5fa2b28c1494469133ddf0e6aee2784eeab3f4f342e82b51ea0c
-JWT_EXPIRATION=86400000
+JWT_EXPIRATION=900000
+CARD_NUMBER_KEY=6e2f8a4c1b9d7305e8c2a6f4d1b3e970
 SERVER_PORT=8080
 EOF
 echo ".env berhasil dibuat."
@@ -29,10 +29,24 @@ $$ LANGUAGE plpgsql;
 DROP TABLE IF EXISTS customers CASCADE;
 DROP TABLE IF EXISTS alamat CASCADE;
 DROP TABLE IF EXISTS wali CASCADE;
+DROP TABLE IF EXISTS revoked_tokens CASCADE;
+DROP TABLE IF EXISTS refresh_tokens CASCADE;
+DROP TABLE IF EXISTS registration_jobs CASCADE;
+DROP TABLE IF EXISTS account_number_ranges CASCADE;
+DROP SEQUENCE IF EXISTS alamat_id_seq;
+DROP SEQUENCE IF EXISTS wali_id_seq;
+DROP SEQUENCE IF EXISTS customers_id_seq;
+
+-- Sequence id Customer/Alamat/Wali. INCREMENT BY harus sama dengan allocationSize di entity (pooled
+-- optimizer: satu nextval = 50 id di memory). Tanpa DEFAULT di kolom id: insert manual yang memakai
+-- nextval langsung bisa bentrok dengan blok id yang sedang dipakai aplikasi.
+CREATE SEQUENCE alamat_id_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE wali_id_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE customers_id_seq START WITH 1 INCREMENT BY 50;
 
 -- Create Alamat table
 CREATE TABLE alamat (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     nama_alamat VARCHAR(255) NOT NULL,
     provinsi VARCHAR(100) NOT NULL,
     kota VARCHAR(100) NOT NULL,
@@ -43,7 +57,7 @@ CREATE TABLE alamat (
 
 -- Create Wali table (OPTIONAL - bisa null)
 CREATE TABLE wali (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     jenis_wali VARCHAR(50) NOT NULL,
     nama_lengkap_wali VARCHAR(255) NOT NULL,
     pekerjaan_wali VARCHAR(100) NOT NULL,
@@ -53,7 +67,7 @@ CREATE TABLE wali (
 
 -- Create Customers table dengan field jenisKartu dan wali optional
 CREATE TABLE customers (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     nama_lengkap VARCHAR(255) NOT NULL,
     nik VARCHAR(16) NOT NULL UNIQUE,
     nama_ibu_kandung VARCHAR(255) NOT NULL,
@@ -72,7 +86,7 @@ CREATE TABLE customers (
     sumber_penghasilan VARCHAR(100) NOT NULL,
     rentang_gaji VARCHAR(50) NOT NULL,
     tujuan_pembuatan_rekening VARCHAR(255) NOT NULL,
-    kode_rekening INTEGER,
+    kode_rekening INTEGER UNIQUE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     -- email_verified BOOLEAN DEFAULT FALSE NOT NULL,
@@ -82,6 +96,9 @@ CREATE TABLE customers (
     account_locked_until TIMESTAMP, -- NULLABLE: hanya diisi jika akun terkunci
     -- END MODIFIKASI
     
+    -- Versi kredensial untuk JWT stateless principal (naik saat lock / ganti password)
+    credential_version BIGINT NOT NULL DEFAULT 0,
+    
     alamat_id BIGINT,
     wali_id BIGINT,
     
@@ -102,6 +119,75 @@ CREATE INDEX idx_customers_nik ON customers(nik);
 CREATE INDEX idx_customers_jenis_kartu ON customers(jenis_kartu);
 CREATE INDEX idx_customers_kartu_debit ON customers(nomor_kartu_debit_virtual);
 
+-- Create Revoked Tokens table (JWT yang di-logout sebelum exp, dihapus otomatis setelah expires_at)
+CREATE TABLE revoked_tokens (
+    jti VARCHAR(64) PRIMARY KEY,
+    subject VARCHAR(255),
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens(expires_at);
+
+-- Create Refresh Tokens table (hanya hash SHA-256, dirotasi setiap dipakai)
+CREATE TABLE refresh_tokens (
+    id BIGSERIAL PRIMARY KEY,
+    token_hash VARCHAR(64) NOT NULL UNIQUE,
+    family_id VARCHAR(36) NOT NULL,
+    customer_id BIGINT NOT NULL,
+    credential_version BIGINT NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP,
+    CONSTRAINT fk_refresh_tokens_customer FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_refresh_tokens_family ON refresh_tokens(family_id);
+CREATE INDEX idx_refresh_tokens_expires_at ON refresh_tokens(expires_at);
+
+-- Create Registration Jobs table (registrasi async; password tidak disimpan, hanya hasil/status)
+CREATE TABLE registration_jobs (
+    id VARCHAR(36) PRIMARY KEY,
+    status VARCHAR(16) NOT NULL,
+    customer_id BIGINT,
+    result TEXT,
+    error_message VARCHAR(500),
+    error_type VARCHAR(32),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    completed_at TIMESTAMP,
+    CONSTRAINT chk_registration_jobs_status CHECK (status IN ('PENDING', 'PROCESSING', 'COMPLETED', 'FAILED'))
+);
+
+CREATE INDEX idx_registration_jobs_status_updated_at ON registration_jobs(status, updated_at);
+CREATE INDEX idx_registration_jobs_created_at ON registration_jobs(created_at);
+
+-- Create Account Number Ranges table (hi/lo: setiap node menyewa blok kode rekening dari sini)
+-- bucket: "<prefix>-<YYMM>" untuk nomor bulanan, "<prefix>-X" untuk cadangan 6 digit
+CREATE TABLE account_number_ranges (
+    bucket VARCHAR(16) PRIMARY KEY,
+    next_value INTEGER NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+-- Migrasi database yang sudah berjalan:
+-- ALTER TABLE customers ADD CONSTRAINT uk_customers_kode_rekening UNIQUE (kode_rekening);
+
+-- Migrasi database yang sudah berjalan: kolom BIGSERIAL -> sequence pooled (INCREMENT BY 50).
+-- Sequence bawaan BIGSERIAL bernama <tabel>_id_seq, sama dengan sequenceName di entity.
+-- Jalankan saat aplikasi berhenti:
+-- BEGIN;
+-- ALTER TABLE alamat ALTER COLUMN id DROP DEFAULT;
+-- ALTER SEQUENCE alamat_id_seq INCREMENT BY 50;
+-- SELECT setval('alamat_id_seq', (SELECT COALESCE(MAX(id), 0) FROM alamat) + 50);
+-- ALTER TABLE wali ALTER COLUMN id DROP DEFAULT;
+-- ALTER SEQUENCE wali_id_seq INCREMENT BY 50;
+-- SELECT setval('wali_id_seq', (SELECT COALESCE(MAX(id), 0) FROM wali) + 50);
+-- ALTER TABLE customers ALTER COLUMN id DROP DEFAULT;
+-- ALTER SEQUENCE customers_id_seq INCREMENT BY 50;
+-- SELECT setval('customers_id_seq', (SELECT COALESCE(MAX(id), 0) FROM customers) + 50);
+-- COMMIT;
+
 -- Create trigger untuk updated_at customers
 -- Pastikan fungsi update_updated_at_column sudah dibuat sebelumnya
 CREATE TRIGGER trigger_customers_updated_at
@@ -0,0 +1,34 @@
+package com.reg.regis.security;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * JwtUtil dengan konfigurasi yang sama seperti application.properties
+ * (HS512, access token 15 menit), tanpa Spring context
+ */
+final class BenchmarkJwt {
+
+    static final String EMAIL = "benchmark.user@example.com";
+    static final long CUSTOMER_ID = 42L;
+    static final long CREDENTIAL_VERSION = 0L;
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(
+            "benchmark-secret-that-is-at-least-64-bytes-long-to-satisfy-the-hs512-key-size"
+                    .getBytes(StandardCharsets.UTF_8));
+
+    private BenchmarkJwt() {
+    }
+
+    static JwtUtil jwtUtil(boolean fastPath) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 900_000L);
+        ReflectionTestUtils.setField(jwtUtil, "issuer", "Customer-Registration-Service");
+        ReflectionTestUtils.setField(jwtUtil, "fastPathEnabled", fastPath);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
@@ -0,0 +1,99 @@
+package com.reg.regis.security;
+
+import com.reg.regis.repository.CustomerRepository;
+import com.reg.regis.repository.RevokedTokenRepository;
+import com.reg.regis.service.CachingUserDetailsService;
+import com.reg.regis.service.CredentialVersionRegistry;
+import com.reg.regis.service.CustomerUserDetailsService;
+import com.reg.regis.service.TokenRevocationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Satu request terautentikasi melewati JwtAuthFilter.
+ *
+ * Collaborator in-memory (cache, revocation, credential version) memakai
+ * class asli; hanya repository dan CustomerUserDetailsService yang di-mock,
+ * dan keduanya hanya tersentuh saat cache miss pertama.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthFilterBenchmark {
+
+    @Param({"true", "false"})
+    boolean tokenCache;
+
+    @Param({"true", "false"})
+    boolean statelessPrincipal;
+
+    private JwtAuthFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private final FilterChain chain = (req, res) -> { };
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwtUtil jwtUtil = BenchmarkJwt.jwtUtil(true);
+
+        CustomerUserDetailsService customerUserDetailsService = mock(CustomerUserDetailsService.class);
+        when(customerUserDetailsService.loadUserByUsername(BenchmarkJwt.EMAIL))
+                .thenReturn(new User(BenchmarkJwt.EMAIL, "hash", Collections.emptyList()));
+        CustomerRepository customerRepository = mock(CustomerRepository.class);
+        when(customerRepository.findCredentialVersionById(BenchmarkJwt.CUSTOMER_ID))
+                .thenReturn(Optional.of(BenchmarkJwt.CREDENTIAL_VERSION));
+
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(tokenCache, 10_000L, meterRegistry);
+        filter = new JwtAuthFilter(
+                jwtUtil,
+                new CachingUserDetailsService(customerUserDetailsService, true, 60L, 10_000L, meterRegistry),
+                verifiedTokenCache,
+                new CredentialVersionRegistry(customerRepository, 30L, 100_000L, meterRegistry),
+                new TokenRevocationService(mock(RevokedTokenRepository.class), jwtUtil, verifiedTokenCache, 100_000, meterRegistry));
+        ReflectionTestUtils.setField(filter, "statelessPrincipalEnabled", statelessPrincipal);
+
+        String token = jwtUtil.generateToken(BenchmarkJwt.EMAIL, BenchmarkJwt.CUSTOMER_ID, BenchmarkJwt.CREDENTIAL_VERSION);
+        request = new MockHttpServletRequest("GET", "/api/customers/profile");
+        request.addHeader("Authorization", "Bearer " + token);
+        request.setRemoteAddr("203.0.113.10");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Authentication doFilterInternal() throws Exception {
+        try {
+            filter.doFilterInternal(request, response, chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
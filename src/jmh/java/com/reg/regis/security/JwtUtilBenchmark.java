@@ -0,0 +1,72 @@
+package com.reg.regis.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Biaya generate dan verifikasi access token.
+ * Parameter fastPath membandingkan Hs512FastVerifier dengan parser jjwt.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Signer {
+        JwtUtil jwtUtil;
+
+        @Setup
+        public void setUp() {
+            jwtUtil = BenchmarkJwt.jwtUtil(true);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Verifier {
+        @Param({"true", "false"})
+        boolean fastPath;
+
+        JwtUtil jwtUtil;
+        String token;
+
+        @Setup
+        public void setUp() {
+            jwtUtil = BenchmarkJwt.jwtUtil(fastPath);
+            token = jwtUtil.generateToken(BenchmarkJwt.EMAIL, BenchmarkJwt.CUSTOMER_ID, BenchmarkJwt.CREDENTIAL_VERSION);
+        }
+    }
+
+    @Benchmark
+    public String generateToken(Signer state) {
+        return state.jwtUtil.generateToken(BenchmarkJwt.EMAIL, BenchmarkJwt.CUSTOMER_ID, BenchmarkJwt.CREDENTIAL_VERSION);
+    }
+
+    @Benchmark
+    public VerifiedToken verify(Verifier state) {
+        return state.jwtUtil.verify(state.token);
+    }
+
+    @Benchmark
+    public boolean validateToken(Verifier state) {
+        return state.jwtUtil.validateToken(state.token);
+    }
+
+    @Benchmark
+    public String getEmailFromToken(Verifier state) {
+        return state.jwtUtil.getEmailFromToken(state.token);
+    }
+}
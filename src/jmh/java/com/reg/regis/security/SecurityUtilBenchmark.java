@@ -0,0 +1,61 @@
+package com.reg.regis.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helper yang dipanggil di hampir setiap request (logging IP, sanitasi input)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecurityUtilBenchmark {
+
+    private MockHttpServletRequest directRequest;
+    private MockHttpServletRequest proxiedRequest;
+
+    @Setup
+    public void setUp() {
+        directRequest = new MockHttpServletRequest();
+        directRequest.setRemoteAddr("203.0.113.10");
+
+        // Di belakang load balancer: hop private dilewati sampai IP publik pertama
+        proxiedRequest = new MockHttpServletRequest();
+        proxiedRequest.addHeader("X-Forwarded-For", "10.0.0.12, 198.51.100.23, 172.16.0.4");
+        proxiedRequest.setRemoteAddr("10.0.0.2");
+    }
+
+    @Benchmark
+    public String clientIpDirect() {
+        return SecurityUtil.getClientIpAddress(directRequest);
+    }
+
+    @Benchmark
+    public String clientIpForwarded() {
+        return SecurityUtil.getClientIpAddress(proxiedRequest);
+    }
+
+    @Benchmark
+    public String sanitizePlainInput() {
+        return SecurityUtil.sanitizeInput("  Budi Santoso  ");
+    }
+
+    @Benchmark
+    public String sanitizeMarkupInput() {
+        return SecurityUtil.sanitizeInput("<script>alert('x')</script> Jl. Merdeka No. 1/2 \"RT 03\"");
+    }
+}
@@ -2,12 +2,14 @@ package com.reg.regis;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import io.github.cdimascio.dotenv.Dotenv;
 
 @SpringBootApplication
 @EnableTransactionManagement
+@EnableScheduling
 public class RegistrationAbsoluteApplication {
 
     public static void main(String[] args) {
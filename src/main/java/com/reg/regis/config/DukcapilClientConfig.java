@@ -1,26 +1,95 @@
 package com.reg.regis.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 
-import java.time.Duration;
-
+/**
+ * RestTemplate untuk Dukcapil Service di atas Apache HttpClient 5 dengan
+ * connection pool: koneksi keep-alive dipakai ulang antar request sehingga
+ * registrasi/verifikasi tidak membayar TCP (dan TLS) handshake setiap kali.
+ *
+ * Pool dipantau lewat metrik httpcomponents.httpclient.pool.* (tag
+ * httpclient=dukcapil): koneksi leased/available, pending dan batas max.
+ */
 @Configuration
 public class DukcapilClientConfig {
-    
+
+    static final String POOL_NAME = "dukcapil";
+
+    // Read/response timeout
     @Value("${app.dukcapil.timeout:10000}")
     private int timeout;
-    
+
+    @Value("${app.dukcapil.connect-timeout:3000}")
+    private int connectTimeout;
+
+    @Value("${app.dukcapil.pool.max-total:100}")
+    private int maxTotal;
+
+    @Value("${app.dukcapil.pool.max-per-route:50}")
+    private int maxPerRoute;
+
+    // Batas tunggu koneksi bebas saat pool penuh
+    @Value("${app.dukcapil.pool.acquire-timeout:2000}")
+    private int acquireTimeout;
+
+    @Value("${app.dukcapil.pool.idle-eviction:30000}")
+    private long idleEviction;
+
+    @Value("${app.dukcapil.pool.time-to-live:300000}")
+    private long timeToLive;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager dukcapilConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                        .setSocketTimeout(Timeout.ofMilliseconds(timeout))
+                        // Koneksi yang lama menganggur dicek dulu sebelum dipakai (server bisa sudah menutupnya)
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .setTimeToLive(TimeValue.ofMilliseconds(timeToLive))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME).bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient dukcapilHttpClient(PoolingHttpClientConnectionManager dukcapilConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(dukcapilConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(acquireTimeout))
+                        .setResponseTimeout(Timeout.ofMilliseconds(timeout))
+                        .build())
+                // Thread background menutup koneksi expired / idle lebih lama dari idle-eviction
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEviction))
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient dukcapilHttpClient) {
+        // Timeout sudah diatur di HttpClient (connect, response, acquire)
         return builder
-                // .setConnectTimeout(Duration.ofMillis(timeout))       // deprecated
-                // .setReadTimeout(Duration.ofMillis(timeout))          // deprecated
-                .connectTimeout(Duration.ofMillis(timeout))
-                .readTimeout(Duration.ofMillis(timeout))
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(dukcapilHttpClient))
                 .build();
     }
     
@@ -28,4 +97,4 @@ public class DukcapilClientConfig {
     public RestTemplateBuilder restTemplateBuilder() {
         return new RestTemplateBuilder();
     }
-}
\ No newline at end of file
+}
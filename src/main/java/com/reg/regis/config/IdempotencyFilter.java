@@ -0,0 +1,219 @@
+package com.reg.regis.config;
+
+import com.reg.regis.service.IdempotencyKeyConflictException;
+import com.reg.regis.service.IdempotencyService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Header Idempotency-Key untuk POST register dan login.
+ *
+ * Request pertama dengan sebuah key dijalankan normal dan response-nya
+ * (status, header termasuk Set-Cookie, body) disimpan oleh IdempotencyService
+ * jika 2xx atau ditandai IdempotencyService.markReplayable() oleh controller.
+ * Retry dengan key dan body yang sama mendapat response tersimpan dengan
+ * header Idempotent-Replayed: true. Request tanpa header tidak terpengaruh.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyService idempotencyService;
+    private final boolean enabled;
+    private final Set<String> paths;
+
+    public IdempotencyFilter(
+            IdempotencyService idempotencyService,
+            @Value("${app.idempotency.enabled:true}") boolean enabled,
+            @Value("${app.idempotency.paths:/auth/register,/auth/register/async,/auth/login}") Set<String> paths) {
+        this.idempotencyService = idempotencyService;
+        this.enabled = enabled;
+        this.paths = paths;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled
+                || !"POST".equals(request.getMethod())
+                || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || !paths.contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST,
+                    "Idempotency-Key harus 1-" + MAX_KEY_LENGTH + " karakter.");
+            return;
+        }
+
+        // Body dibaca sekali untuk fingerprint, lalu diputar ulang ke controller
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        HttpServletRequest cachedRequest = new CachedBodyRequest(request, body);
+        String scope = request.getMethod() + " " + request.getServletPath();
+
+        IdempotencyService.Result result;
+        try {
+            result = idempotencyService.execute(scope, key, idempotencyService.fingerprint(scope, body), () -> {
+                ContentCachingResponseWrapper capture = new ContentCachingResponseWrapper(response);
+                filterChain.doFilter(cachedRequest, capture);
+                IdempotencyService.StoredResponse stored = snapshot(cachedRequest, capture);
+                capture.copyBodyToResponse();
+                return stored;
+            });
+        } catch (IdempotencyKeyConflictException e) {
+            boolean mismatch = e.getReason() == IdempotencyKeyConflictException.Reason.MISMATCH;
+            writeError(response, mismatch ? 422 : HttpServletResponse.SC_CONFLICT, e.getMessage());
+            return;
+        } catch (IOException | ServletException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ServletException(e);
+        }
+
+        if (result.isReplayed()) {
+            replay(result.getResponse(), response);
+        }
+    }
+
+    private static IdempotencyService.StoredResponse snapshot(HttpServletRequest request,
+                                                              ContentCachingResponseWrapper capture) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : capture.getHeaderNames()) {
+            // Header CORS ditulis ulang oleh CorsFilter sesuai Origin request retry
+            if (!name.regionMatches(true, 0, "Access-Control-", 0, 15)) {
+                headers.put(name, new ArrayList<>(capture.getHeaders(name)));
+            }
+        }
+        if (capture.getContentType() != null) {
+            headers.put("Content-Type", List.of(capture.getContentType()));
+        }
+        boolean markedReplayable = Boolean.TRUE.equals(request.getAttribute(IdempotencyService.REPLAYABLE_ATTRIBUTE));
+        return new IdempotencyService.StoredResponse(capture.getStatus(), headers, capture.getContentAsByteArray(),
+                markedReplayable);
+    }
+
+    private static void replay(IdempotencyService.StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.getStatus());
+        stored.getHeaders().forEach((name, values) -> {
+            // set lalu add: header yang sudah ditulis filter lain (CORS, security) tidak dobel
+            for (int i = 0; i < values.size(); i++) {
+                if (i == 0) {
+                    response.setHeader(name, values.get(i));
+                } else {
+                    response.addHeader(name, values.get(i));
+                }
+            }
+        });
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.getBody().length);
+        response.getOutputStream().write(stored.getBody());
+    }
+
+    private static void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"success\": false, \"error\": \"" + message + "\", \"type\": \"idempotency_error\"}");
+    }
+
+    /**
+     * Request dengan body yang sudah dibaca ke memory
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // Body sudah di memory: semua data langsung tersedia
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
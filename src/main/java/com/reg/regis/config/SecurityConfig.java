@@ -1,5 +1,7 @@
 package com.reg.regis.config;
 
+import com.reg.regis.security.AdaptivePasswordEncoder;
+import com.reg.regis.security.AdminApiKeyFilter;
 import com.reg.regis.security.JwtAuthFilter;
 import com.reg.regis.service.CustomerUserDetailsService;
 
@@ -16,7 +18,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -36,8 +37,18 @@ public class SecurityConfig {
     @Value("${app.cors.allowed-origins}")
     private String allowedOrigins;
 
+    // Algoritma untuk hash baru: bcrypt atau argon2id (hash lama tetap bisa diverifikasi)
+    @Value("${app.security.password-hashing.algorithm:bcrypt}")
+    private String passwordHashingAlgorithm;
+
+    // Target waktu per hash untuk kalibrasi cost saat startup; 0 = tanpa kalibrasi
+    @Value("${app.security.password-hashing.target-ms:250}")
+    private long passwordHashingTargetMs;
+
     private final JwtAuthFilter jwtAuthFilter;
 
+    private final AdminApiKeyFilter adminApiKeyFilter;
+
     private final CustomerUserDetailsService userDetailsService;
 
     @Bean
@@ -53,11 +64,15 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
             // Public endpoints yang sudah ada
             .requestMatchers("/auth/register").permitAll()
+            .requestMatchers("/auth/register/**").permitAll() // Registrasi async: intake, status, SSE
             .requestMatchers("/auth/login").permitAll()
             .requestMatchers("/auth/check-password").permitAll()
             .requestMatchers("/auth/validate-nik").permitAll()
             .requestMatchers("/auth/health").permitAll()
             .requestMatchers("/auth/check-auth").permitAll()
+            .requestMatchers("/auth/refresh-token").permitAll() // Kredensialnya refresh token, bukan access token
+            .requestMatchers("/auth/logout").permitAll() // Access token boleh sudah expired saat logout
+            .requestMatchers("/.well-known/jwks.json").permitAll()
             .requestMatchers("/verification/**").permitAll()
             .requestMatchers("/actuator/**").permitAll()
             .requestMatchers("/metrics/**").permitAll()
@@ -77,15 +92,18 @@ public class SecurityConfig {
             .requestMatchers("/auth/profile").authenticated()
             .requestMatchers("/auth/stats").authenticated()
             .requestMatchers("/auth/me").authenticated()
-            .requestMatchers("/auth/refresh-token").authenticated()
             .requestMatchers("/auth/verify-email").authenticated()
             .requestMatchers("/protected-resource").authenticated()
             .requestMatchers("/api/**").authenticated()
             
+            // Endpoint operasional (import, purge cache): API key admin
+            .requestMatchers("/admin/**").hasRole(AdminApiKeyFilter.ADMIN_ROLE)
+            
             .anyRequest().authenticated()
         )
             .authenticationProvider(authenticationProvider())
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(adminApiKeyFilter, UsernamePasswordAuthenticationFilter.class)
             .headers(headers -> headers
                 .httpStrictTransportSecurity(hstsConfig -> hstsConfig
                     .maxAgeInSeconds(31536000) // 1 year
@@ -143,8 +161,8 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        // BCrypt with strength 12 for strong password hashing
-        return new BCryptPasswordEncoder(12);
+        // Argon2id / bcrypt berdampingan, cost dikalibrasi ke target latency per hash
+        return AdaptivePasswordEncoder.calibrated(passwordHashingAlgorithm, passwordHashingTargetMs);
     }
 
     @Bean
@@ -178,13 +196,16 @@ public class SecurityConfig {
             "Accept",
             "Origin",
             "Access-Control-Request-Method",
-            "Access-Control-Request-Headers"
+            "Access-Control-Request-Headers",
+            "Idempotency-Key",
+            "X-Admin-Api-Key"
         ));
 
         configuration.setExposedHeaders(Arrays.asList(
             "Access-Control-Allow-Origin",
             "Access-Control-Allow-Credentials",
-            "Authorization"
+            "Authorization",
+            "Idempotent-Replayed"
         ));
 
         configuration.setAllowCredentials(true);
@@ -0,0 +1,37 @@
+package com.reg.regis.controller;
+
+import com.reg.regis.service.DukcapilVerificationCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/cache")
+@Tag(name = "Admin Cache", description = "Operasi cache (header X-Admin-Api-Key wajib)")
+@RequiredArgsConstructor
+public class AdminCacheController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminCacheController.class);
+    private final DukcapilVerificationCache dukcapilVerificationCache;
+
+    /**
+     * Kosongkan cache hasil verifikasi Dukcapil, mis. setelah data kependudukan dikoreksi
+     */
+    @DeleteMapping("/dukcapil")
+    @Operation(summary = "Purge cache verifikasi Dukcapil", description = "Butuh header X-Admin-Api-Key.")
+    public ResponseEntity<?> purgeDukcapilCache() {
+        long purged = dukcapilVerificationCache.purge();
+        logger.info("Dukcapil verification cache purged ({} entries)", purged);
+        return ResponseEntity.ok(Map.of(
+            "cache", "dukcapilVerification",
+            "purged", purged
+        ));
+    }
+}
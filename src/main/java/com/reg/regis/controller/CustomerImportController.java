@@ -0,0 +1,99 @@
+package com.reg.regis.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reg.regis.service.CustomerImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/customers")
+@Tag(name = "Admin Customer Import", description = "Import massal customer untuk migrasi cabang (header X-Admin-Api-Key wajib)")
+public class CustomerImportController {
+
+    private final CustomerImportService customerImportService;
+
+    private final ObjectMapper objectMapper;
+
+    public CustomerImportController(CustomerImportService customerImportService, ObjectMapper objectMapper) {
+        this.customerImportService = customerImportService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Import customer dari body JSONL (satu RegistrationRequest per baris) atau CSV.
+     * Response application/x-ndjson: satu baris hasil per baris input, dikirim per
+     * batch, diakhiri baris {"summary": {...}}.
+     */
+    @PostMapping("/import")
+    @Operation(
+        summary = "Import massal customer",
+        description = "Body JSONL atau CSV (Content-Type text/csv atau ?format=csv). Setiap baris diverifikasi " +
+                     "Dukcapil dan dicek duplikat seperti /auth/register. Hasil per baris di-stream sebagai NDJSON. " +
+                     "Butuh header X-Admin-Api-Key."
+    )
+    public void importCustomers(
+            @Parameter(description = "jsonl atau csv; default dari Content-Type")
+            @RequestParam(required = false) String format,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        CustomerImportService.Format importFormat = resolveFormat(format, request.getContentType());
+        if (importFormat == null) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType("application/json");
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            objectMapper.writeValue(response.getWriter(),
+                    Map.of("error", "Format import tidak dikenal: " + format + " (jsonl atau csv)"));
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        PrintWriter writer = response.getWriter();
+
+        Reader body = new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8);
+        CustomerImportService.Summary summary = customerImportService.importCustomers(body, importFormat,
+                new CustomerImportService.Listener() {
+                    @Override
+                    public void onRow(CustomerImportService.RowResult result) throws IOException {
+                        writer.write(objectMapper.writeValueAsString(result));
+                        writer.write('\n');
+                    }
+
+                    @Override
+                    public void onBatchCompleted() {
+                        writer.flush();
+                    }
+                });
+
+        writer.write(objectMapper.writeValueAsString(Map.of("summary", summary)));
+        writer.write('\n');
+        writer.flush();
+    }
+
+    private static CustomerImportService.Format resolveFormat(String format, String contentType) {
+        if (format != null) {
+            return switch (format.trim().toLowerCase()) {
+                case "jsonl", "ndjson", "json" -> CustomerImportService.Format.JSONL;
+                case "csv" -> CustomerImportService.Format.CSV;
+                default -> null;
+            };
+        }
+        if (contentType != null && contentType.toLowerCase().startsWith("text/csv")) {
+            return CustomerImportService.Format.CSV;
+        }
+        return CustomerImportService.Format.JSONL;
+    }
+}
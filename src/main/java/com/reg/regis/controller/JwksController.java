@@ -0,0 +1,39 @@
+package com.reg.regis.controller;
+
+import com.reg.regis.security.JwtKeyRing;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+@Tag(name = "JWKS API", description = "Public key untuk verifikasi JWT oleh gateway dan service lain")
+@RequiredArgsConstructor
+public class JwksController {
+    
+    private final JwtKeyRing jwtKeyRing;
+    
+    /**
+     * JWK Set berisi public key ES256 yang masih diterima (kosong pada mode HS512)
+     */
+    @Operation(
+        summary = "JSON Web Key Set",
+        description = "Public key ES256 per kid; gateway/service lain memverifikasi token secara lokal tanpa memanggil service ini"
+    )
+    @ApiResponse(responseCode = "200", description = "JWK Set")
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        // Cache singkat: generasi key baru dipublikasikan sebelum dipakai signing
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+            .body(jwtKeyRing.jwks());
+    }
+}
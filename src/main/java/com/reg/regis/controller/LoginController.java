@@ -1,6 +1,11 @@
 package com.reg.regis.controller;
 
+import com.reg.regis.dto.response.AuthTokens;
 import com.reg.regis.model.Customer;
+import com.reg.regis.security.JwtAuthFilter;
+import com.reg.regis.security.VerifiedToken;
+import com.reg.regis.service.IdempotencyService;
+import com.reg.regis.service.PasswordHashingSaturatedException;
 import com.reg.regis.service.RegistrationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -18,6 +23,7 @@ import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.validation.annotation.Validated;
@@ -44,6 +50,12 @@ public class LoginController {
     @Value("${app.security.cookie.domain:}")
     private String cookieDomain;
     
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+    
+    @Value("${app.jwt.expiration}")
+    private long accessTokenExpirationMs;
+    
     /**
      * Customer login with secure cookie-based auth
      */
@@ -54,7 +66,8 @@ public class LoginController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Login berhasil"),
         @ApiResponse(responseCode = "400", description = "Email atau password salah"),
-        @ApiResponse(responseCode = "429", description = "Too many login attempts")
+        @ApiResponse(responseCode = "429", description = "Too many login attempts"),
+        @ApiResponse(responseCode = "503", description = "Server sibuk (pool hashing password penuh)")
     })
     @PostMapping("/login")
     public ResponseEntity<?> loginCustomer(
@@ -80,11 +93,16 @@ public class LoginController {
                 Cookie authCookie = createSecureAuthCookie("authToken", token);
                 response.addCookie(authCookie);
                 
+                // Refresh token opaque, hanya dikirim ke endpoint /auth
+                String refreshToken = registrationService.issueRefreshToken(customer);
+                response.addCookie(createRefreshCookie(refreshToken));
+                
                 Map<String, Object> responseData = new HashMap<>();
                 responseData.put("success", true);
                 responseData.put("message", "Login successful");
                 responseData.put("customer", buildCustomerResponse(customer));
                 responseData.put("token", token); // For Bearer token usage
+                responseData.put("refreshToken", refreshToken); // Untuk client non-browser
                 
                 return ResponseEntity.ok(responseData);
             }
@@ -94,13 +112,24 @@ public class LoginController {
                 "error", "Email atau password salah"
             ));
             
-        }catch (BadCredentialsException e) {
+        } catch (PasswordHashingSaturatedException e) {
+            // Pool hashing penuh: tolak cepat tanpa menghitung sebagai login gagal
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()
+                ));
+        } catch (BadCredentialsException e) {
             // ** MODIFIKASI UNTUK MAXIMUM LOGIN ATTEMP **
             String errorMessage = e.getMessage();
             HttpStatus status = HttpStatus.UNAUTHORIZED; // Default untuk kredensial salah
 
             if (errorMessage.contains("terkunci") || errorMessage.contains("Too many failed attempts")) {
                 status = HttpStatus.TOO_MANY_REQUESTS; // Gunakan 429 untuk akun terkunci
+            } else {
+                // Kredensial salah: retry dengan Idempotency-Key sama tidak dihitung gagal dua kali
+                IdempotencyService.markReplayable();
             }
             return ResponseEntity.status(status).body(Map.of(
                 "success", false,
@@ -135,7 +164,9 @@ public class LoginController {
         @Parameter(description = "JWT Token dari cookie") 
         @CookieValue(value = "authToken", required = false) String cookieToken,
         @Parameter(description = "JWT Token dari Authorization header")
-        @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        @RequestHeader(value = "Authorization", required = false) String authHeader,
+        @Parameter(hidden = true)
+        @RequestAttribute(value = JwtAuthFilter.VERIFIED_TOKEN_ATTRIBUTE, required = false) VerifiedToken verifiedToken) {
         String token = extractToken(authHeader, cookieToken);
 
         try {
@@ -143,7 +174,7 @@ public class LoginController {
                 return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
             }
             
-            String email = registrationService.getEmailFromToken(token);
+            String email = resolveEmail(token, verifiedToken);
             if (email == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Invalid token"));
             }
@@ -166,20 +197,40 @@ public class LoginController {
     }
     
     /**
-     * Secure logout - clear cookie
+     * Secure logout - revoke tokens and clear cookies
      */
     @Operation(
         summary = "Logout",
-        description = "Logout user dan hapus secure cookie"
+        description = "Logout user, revoke JWT token dan hapus secure cookie"
     )
     @ApiResponse(responseCode = "200", description = "Logout berhasil")
     @PostMapping("/logout")
-    public ResponseEntity<?> logout(HttpServletResponse response) {
-        // Clear the auth cookie securely
+    public ResponseEntity<?> logout(
+        @Parameter(description = "JWT Token dari cookie")
+        @CookieValue(value = "authToken", required = false) String cookieToken,
+        @Parameter(description = "JWT Token dari Authorization header")
+        @RequestHeader(value = "Authorization", required = false) String authHeader,
+        @Parameter(description = "Refresh token dari cookie")
+        @CookieValue(value = "refreshToken", required = false) String refreshCookie,
+        HttpServletResponse response) {
+        // Revoke token supaya salinannya tidak berlaku sampai exp
+        String token = extractToken(authHeader, cookieToken);
+        if (token != null && !token.isEmpty()) {
+            registrationService.revokeToken(token);
+        }
+        if (refreshCookie != null && !refreshCookie.isEmpty()) {
+            registrationService.revokeRefreshToken(refreshCookie);
+        }
+        
+        // Clear the auth cookies securely
         Cookie authCookie = createSecureAuthCookie("authToken", "");
         authCookie.setMaxAge(0); // Expire immediately
         response.addCookie(authCookie);
         
+        Cookie refreshTokenCookie = createRefreshCookie("");
+        refreshTokenCookie.setMaxAge(0);
+        response.addCookie(refreshTokenCookie);
+        
         return ResponseEntity.ok(Map.of(
             "success", true,
             "message", "Logout successful"
@@ -187,49 +238,48 @@ public class LoginController {
     }
     
     /**
-     * Refresh JWT token
+     * Rotate refresh token and issue a new short-lived access token
      */
     @Operation(
         summary = "Refresh JWT Token",
-        description = "Generate JWT token baru berdasarkan token yang masih valid"
+        description = "Tukar refresh token (cookie atau body) dengan access token baru; refresh token dirotasi setiap dipakai"
     )
-    @SecurityRequirement(name = "bearerAuth")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Token berhasil diperbarui"),
-        @ApiResponse(responseCode = "401", description = "Token tidak valid")
+        @ApiResponse(responseCode = "401", description = "Refresh token tidak valid, expired, atau sudah dipakai")
     })
     @PostMapping("/refresh-token")
     public ResponseEntity<?> refreshToken(
-        @Parameter(description = "JWT Token dari cookie")
-        @CookieValue(value = "authToken", required = false) String cookieToken,
-        @Parameter(description = "JWT Token dari Authorization header")
-        @RequestHeader(value = "Authorization", required = false) String authHeader,
+        @Parameter(description = "Refresh token dari cookie")
+        @CookieValue(value = "refreshToken", required = false) String refreshCookie,
+        @Parameter(description = "Request body dengan field 'refreshToken' (client non-browser)")
+        @RequestBody(required = false) Map<String, String> body,
         HttpServletResponse response) {
-        String token = extractToken(authHeader, cookieToken);
+        String refreshToken = refreshCookie;
+        if ((refreshToken == null || refreshToken.isEmpty()) && body != null) {
+            refreshToken = body.get("refreshToken");
+        }
 
         try {
-            if (token == null || token.isEmpty()) {
+            if (refreshToken == null || refreshToken.isEmpty()) {
                 return ResponseEntity.status(401).body(Map.of("error", "Token required"));
             }
             
-            String email = registrationService.getEmailFromToken(token);
-            if (email == null) {
-                return ResponseEntity.status(401).body(Map.of("error", "Invalid token"));
-            }
-            
-            // Generate new token
-            String newToken = registrationService.generateTokenForEmail(email);
+            AuthTokens tokens = registrationService.refreshTokens(refreshToken);
             
-            // Set new secure cookie
-            Cookie authCookie = createSecureAuthCookie("authToken", newToken);
-            response.addCookie(authCookie);
+            // Set new secure cookies
+            response.addCookie(createSecureAuthCookie("authToken", tokens.getAccessToken()));
+            response.addCookie(createRefreshCookie(tokens.getRefreshToken()));
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Token refreshed",
-                "token", newToken
+                "token", tokens.getAccessToken(),
+                "refreshToken", tokens.getRefreshToken()
             ));
             
+        } catch (BadCredentialsException e) {
+            return ResponseEntity.status(401).body(Map.of("error", "Invalid token"));
         } catch (Exception e) {
             return ResponseEntity.status(401).body(Map.of("error", "Token refresh failed"));
         }
@@ -281,7 +331,7 @@ public class LoginController {
         cookie.setHttpOnly(true); // Prevent XSS
         cookie.setSecure(cookieSecure); // HTTPS only in production
         cookie.setPath("/");
-        cookie.setMaxAge(24 * 60 * 60); // 24 hours
+        cookie.setMaxAge((int) (accessTokenExpirationMs / 1000)); // Sama dengan umur access token
         
         // Set domain only if specified in properties
         if (cookieDomain != null && !cookieDomain.isEmpty()) {
@@ -294,6 +344,16 @@ public class LoginController {
         return cookie;
     }
     
+    /**
+     * Cookie refresh token: HTTP-only dan hanya dikirim ke path /auth
+     */
+    private Cookie createRefreshCookie(String value) {
+        Cookie cookie = createSecureAuthCookie("refreshToken", value);
+        cookie.setPath((contextPath != null ? contextPath : "") + "/auth");
+        cookie.setMaxAge((int) (registrationService.getRefreshTokenExpirationMs() / 1000));
+        return cookie;
+    }
+    
     /**
      * Extract token from Bearer header or cookie
      */
@@ -304,6 +364,17 @@ public class LoginController {
         return cookieToken;
     }
     
+    /**
+     * Pakai claims yang sudah diverifikasi JwtAuthFilter (token dari header yang sama)
+     * agar token tidak di-parse ulang; fallback ke verifikasi biasa untuk token cookie.
+     */
+    private String resolveEmail(String token, VerifiedToken verifiedToken) {
+        if (verifiedToken != null && !verifiedToken.isExpired()) {
+            return verifiedToken.getSubject();
+        }
+        return registrationService.getEmailFromToken(token);
+    }
+    
     /**
      * Build secure customer response (no sensitive data)
      */
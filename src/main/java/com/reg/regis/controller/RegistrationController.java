@@ -3,6 +3,13 @@ package com.reg.regis.controller;
 import com.reg.regis.dto.request.RegistrationRequest;
 import com.reg.regis.dto.response.RegistrationResponse;
 import com.reg.regis.model.Customer;
+import com.reg.regis.model.RegistrationJob;
+import com.reg.regis.service.DukcapilUnavailableException;
+import com.reg.regis.service.IdempotencyService;
+import com.reg.regis.service.PasswordHashingSaturatedException;
+import com.reg.regis.service.RegistrationJobService;
+import com.reg.regis.service.RegistrationQueueFullException;
+import com.reg.regis.service.RegistrationRejectedException;
 import com.reg.regis.service.RegistrationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -16,8 +23,13 @@ import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -32,11 +44,20 @@ public class RegistrationController {
     
     @Value("${app.security.cookie.domain:}")
     private String cookieDomain;
+    
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+    
+    @Value("${app.jwt.expiration}")
+    private long accessTokenExpirationMs;
 
     private final RegistrationService registrationService;
+    
+    private final RegistrationJobService registrationJobService;
 
-    public RegistrationController(RegistrationService registrationService) {
+    public RegistrationController(RegistrationService registrationService, RegistrationJobService registrationJobService) {
         this.registrationService = registrationService;
+        this.registrationJobService = registrationJobService;
     }
     
     /**
@@ -54,6 +75,7 @@ public class RegistrationController {
         @ApiResponse(responseCode = "200", description = "Registrasi berhasil",
             content = @Content(schema = @Schema(implementation = RegistrationResponse.class))),
         @ApiResponse(responseCode = "400", description = "Validasi gagal atau data duplikat"),
+        @ApiResponse(responseCode = "503", description = "Server sibuk (pool hashing password penuh), Dukcapil atau database sementara tidak tersedia"),
         @ApiResponse(responseCode = "500", description = "Kesalahan sistem")
     })
     @PostMapping("/register")
@@ -62,13 +84,20 @@ public class RegistrationController {
         @Valid @RequestBody RegistrationRequest request, 
         HttpServletResponse response) {
         try {
-            RegistrationResponse registrationResponse = registrationService.registerCustomer(request);
-            String token = registrationService.authenticateCustomer(request.getEmail(), request.getPassword());
+            RegistrationService.Registration registration = registrationService.register(request);
+            RegistrationResponse registrationResponse = registration.getResponse();
+            
+            // Password baru saja di-hash: token diterbitkan langsung dari customer tersimpan
+            String token = registrationService.issueAccessToken(registration.getCustomer());
             
             // Set SECURE HTTP-only cookie
             Cookie authCookie = createSecureAuthCookie("authToken", token);
             response.addCookie(authCookie);
             
+            // Refresh token supaya session tetap jalan setelah access token (umur pendek) habis
+            String refreshToken = registrationService.issueRefreshToken(registration.getCustomer());
+            response.addCookie(createRefreshCookie(refreshToken));
+            
             Map<String, Object> responseData = new HashMap<>();
             responseData.put("success", true);
             responseData.put("message", "Registrasi berhasil! Data Anda telah terverifikasi dengan KTP Dukcapil.");
@@ -76,6 +105,41 @@ public class RegistrationController {
             
             return ResponseEntity.ok(responseData);
             
+        } catch (PasswordHashingSaturatedException e) {
+            // Pool hashing penuh: tolak cepat, client boleh retry
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of(
+                    "success", false,
+                    "error", e.getMessage(),
+                    "type", "server_busy"
+                ));
+        } catch (DukcapilUnavailableException e) {
+            // Circuit Dukcapil terbuka / bulkhead penuh: tolak cepat, client boleh retry
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of(
+                    "success", false,
+                    "error", e.getMessage(),
+                    "type", "dukcapil_unavailable"
+                ));
+        } catch (RegistrationRejectedException e) {
+            // Duplikat / data ditolak Dukcapil: retry dengan Idempotency-Key sama mendapat jawaban yang sama
+            IdempotencyService.markReplayable();
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage(),
+                "type", "validation_error"
+            ));
+        } catch (DataAccessException e) {
+            // Gangguan database sementara: client boleh retry
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of(
+                    "success", false,
+                    "error", "Terjadi kesalahan sistem. Silakan coba lagi.",
+                    "type", "system_error"
+                ));
         } catch (RuntimeException e) {
             // Return specific validation error
             return ResponseEntity.badRequest().body(Map.of(
@@ -92,6 +156,96 @@ public class RegistrationController {
         }
     }
     
+    /**
+     * Register customer secara asynchronous.
+     * Request divalidasi dan dicatat sebagai job, lalu diproses worker di
+     * belakang; thread HTTP tidak ikut menunggu Dukcapil. Hasil dipantau via
+     * GET /auth/register/{jobId} atau SSE /auth/register/{jobId}/events.
+     * Token tidak diterbitkan di sini: setelah COMPLETED client login biasa.
+     */
+    @Operation(
+        summary = "Register Customer Baru (Asynchronous)",
+        description = "Validasi request lalu kembalikan 202 dengan jobId; verifikasi Dukcapil dan pembuatan akun diproses di background"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Registrasi diterima dan masuk antrian"),
+        @ApiResponse(responseCode = "400", description = "Validasi gagal"),
+        @ApiResponse(responseCode = "503", description = "Antrian registrasi penuh")
+    })
+    @PostMapping("/register/async")
+    public ResponseEntity<?> registerCustomerAsync(
+        @Parameter(description = "Data registrasi customer lengkap") 
+        @Valid @RequestBody RegistrationRequest request) {
+        try {
+            RegistrationJob job = registrationJobService.submit(request);
+            String statusPath = (contextPath != null ? contextPath : "") + "/auth/register/" + job.getId();
+            
+            Map<String, Object> responseData = new HashMap<>();
+            responseData.put("success", true);
+            responseData.put("message", "Registrasi diterima dan sedang diproses.");
+            responseData.put("jobId", job.getId());
+            responseData.put("status", job.getStatus().name());
+            responseData.put("statusUrl", statusPath);
+            responseData.put("eventsUrl", statusPath + "/events");
+            
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, statusPath)
+                .body(responseData);
+            
+        } catch (RegistrationQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of(
+                    "success", false,
+                    "error", e.getMessage(),
+                    "type", "server_busy"
+                ));
+        }
+    }
+    
+    /**
+     * Status job registrasi asynchronous (polling)
+     */
+    @Operation(
+        summary = "Status Registrasi Asynchronous", 
+        description = "PENDING / PROCESSING / COMPLETED (dengan data rekening) / FAILED (dengan pesan error)"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Status job"),
+        @ApiResponse(responseCode = "404", description = "Job tidak ditemukan atau sudah kedaluwarsa")
+    })
+    @GetMapping("/register/{jobId}")
+    public ResponseEntity<?> getRegistrationJob(
+        @Parameter(description = "Job id dari POST /auth/register/async")
+        @PathVariable String jobId) {
+        return registrationJobService.findJob(jobId)
+            .<ResponseEntity<?>>map(job -> ResponseEntity.ok(registrationJobService.describe(job)))
+            .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "Job registrasi tidak ditemukan")));
+    }
+    
+    /**
+     * Status job registrasi asynchronous lewat Server-Sent Events.
+     * Event "registration" dikirim saat subscribe dan saat job selesai.
+     */
+    @Operation(
+        summary = "Event Registrasi Asynchronous (SSE)", 
+        description = "Stream text/event-stream berisi status job; koneksi ditutup setelah COMPLETED atau FAILED"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stream event dibuka"),
+        @ApiResponse(responseCode = "404", description = "Job tidak ditemukan atau sudah kedaluwarsa")
+    })
+    @GetMapping(value = "/register/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamRegistrationJob(
+        @Parameter(description = "Job id dari POST /auth/register/async")
+        @PathVariable String jobId) {
+        return registrationJobService.findJob(jobId)
+            .<ResponseEntity<?>>map(job -> ResponseEntity.ok(registrationJobService.subscribe(job)))
+            .orElseGet(() -> ResponseEntity.status(404)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("error", "Job registrasi tidak ditemukan")));
+    }
+    
     /**
      * Check password strength
      */
@@ -195,10 +349,7 @@ public class RegistrationController {
             "status", "OK",
             "service", "Customer Registration Service dengan Dukcapil Integration",
             "timestamp", System.currentTimeMillis(),
-            "dukcapilService", Map.of(
-                "url", stats.getDukcapilServiceUrl(),
-                "available", stats.isDukcapilServiceAvailable()
-            ),
+            "dukcapilService", dukcapilServiceStatus(stats),
             "statistics", Map.of(
                 "totalCustomers", stats.getTotalCustomers(),
                 "verifiedCustomers", stats.getVerifiedCustomers(),
@@ -206,6 +357,8 @@ public class RegistrationController {
             ),
             "endpoints", Map.of(
                 "register", "POST /auth/register",
+                "registerAsync", "POST /auth/register/async",
+                "registrationJob", "GET /auth/register/{jobId}",
                 "checkPassword", "POST /auth/check-password",
                 "validateNik", "POST /auth/validate-nik",
                 "verifyEmail", "POST /auth/verify-email",
@@ -216,6 +369,17 @@ public class RegistrationController {
         ));
     }
     
+    // url + available, ditambah status health monitor (UP/DEGRADED/DOWN, latency, error terakhir)
+    private static Map<String, Object> dukcapilServiceStatus(RegistrationService.RegistrationStats stats) {
+        Map<String, Object> dukcapil = new HashMap<>();
+        if (stats.getDukcapilHealth() != null) {
+            dukcapil.putAll(stats.getDukcapilHealth().toMap());
+        }
+        dukcapil.put("url", stats.getDukcapilServiceUrl());
+        dukcapil.put("available", stats.isDukcapilServiceAvailable());
+        return dukcapil;
+    }
+    
     /**
      * Get customer profile  
      */
@@ -327,7 +491,7 @@ public class RegistrationController {
         cookie.setHttpOnly(true); // Prevent XSS
         cookie.setSecure(cookieSecure); // HTTPS only in production
         cookie.setPath("/");
-        cookie.setMaxAge(24 * 60 * 60); // 24 hours
+        cookie.setMaxAge((int) (accessTokenExpirationMs / 1000)); // Sama dengan umur access token
         
         // Set domain only if specified in properties
         if (cookieDomain != null && !cookieDomain.isEmpty()) {
@@ -339,4 +503,14 @@ public class RegistrationController {
         
         return cookie;
     }
+    
+    /**
+     * Cookie refresh token: HTTP-only dan hanya dikirim ke path /auth
+     */
+    private Cookie createRefreshCookie(String value) {
+        Cookie cookie = createSecureAuthCookie("refreshToken", value);
+        cookie.setPath((contextPath != null ? contextPath : "") + "/auth");
+        cookie.setMaxAge((int) (registrationService.getRefreshTokenExpirationMs() / 1000));
+        return cookie;
+    }
 }
\ No newline at end of file
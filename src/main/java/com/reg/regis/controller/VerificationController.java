@@ -4,12 +4,16 @@ import com.reg.regis.dto.request.EmailVerificationRequest;
 import com.reg.regis.dto.request.NikVerificationRequest;
 import com.reg.regis.dto.request.PhoneVerificationRequest;
 import com.reg.regis.dto.response.VerificationResponse;
+import com.reg.regis.service.DukcapilHealthMonitor;
+import com.reg.regis.service.DukcapilUnavailableException;
 import com.reg.regis.service.VerificationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -41,6 +45,8 @@ public class VerificationController {
                 "data", response.getData() != null ? response.getData() : Map.of()
             ));
             
+        } catch (DukcapilUnavailableException e) {
+            return dukcapilUnavailable("valid", e);
         } catch (Exception e) {
             logger.error("Error in verifyNik: {}", e.getMessage());
             
@@ -123,6 +129,8 @@ public class VerificationController {
                     "NIK tidak terdaftar di database Dukcapil"
             ));
             
+        } catch (DukcapilUnavailableException e) {
+            return dukcapilUnavailable("registered", e);
         } catch (Exception e) {
             logger.error("Error in checkNik: {}", e.getMessage());
             
@@ -154,10 +162,14 @@ public class VerificationController {
      */
     @GetMapping("/health")
     public ResponseEntity<?> healthCheck() {
+        // Status Dukcapil dari health monitor (tanpa HTTP call ke Dukcapil)
+        DukcapilHealthMonitor.Health dukcapilHealth = verificationService.getDukcapilHealth();
+        
         return ResponseEntity.ok(Map.of(
             "status", "OK",
             "service", "Verification Service (Enhanced with tanggalLahir)",
             "timestamp", System.currentTimeMillis(),
+            "dukcapilService", dukcapilHealth != null ? dukcapilHealth.toMap() : Map.of("status", DukcapilHealthMonitor.Status.UNKNOWN.name()),
             "endpoints", Map.of(
                 "nikVerification", "POST /verification/nik (requires: nik, namaLengkap, tanggalLahir)",
                 "emailVerification", "POST /verification/email", 
@@ -167,4 +179,18 @@ public class VerificationController {
             )
         ));
     }
+
+    /**
+     * Circuit Dukcapil terbuka / bulkhead penuh: 503 + Retry-After, bukan "NIK tidak valid"
+     */
+    private ResponseEntity<?> dukcapilUnavailable(String resultField, DukcapilUnavailableException e) {
+        logger.warn("Dukcapil unavailable: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(Map.of(
+                resultField, false,
+                "message", e.getMessage(),
+                "type", "dukcapil_unavailable"
+            ));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.reg.regis.dto.response;
+
+/**
+ * Pasangan access token (JWT, umur pendek) dan refresh token (opaque, dirotasi)
+ */
+public class AuthTokens {
+    private final String accessToken;
+    private final String refreshToken;
+
+    public AuthTokens(String accessToken, String refreshToken) {
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+    }
+
+    // Getters
+    public String getAccessToken() { return accessToken; }
+    public String getRefreshToken() { return refreshToken; }
+}
@@ -0,0 +1,65 @@
+package com.reg.regis.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Penanda blok kode rekening yang sudah disewa (hi/lo).
+ *
+ * Satu baris per bucket (prefix jenis kartu + bulan). next_value adalah
+ * suffix pertama yang belum pernah diberikan ke node mana pun; node yang
+ * menyewa blok menaikkannya sebesar ukuran blok lalu membagikan nomor
+ * dari memory.
+ *
+ * Bucket baru selalu di-INSERT (Persistable), bukan merge: dua node yang
+ * membuat bucket yang sama bersamaan mendapat PK violation, bukan UPDATE
+ * diam-diam yang membagikan blok yang sama dua kali.
+ */
+@Entity
+@Table(name = "account_number_ranges")
+public class AccountNumberRange implements Persistable<String> {
+
+    @Id
+    @Column(name = "bucket", nullable = false, length = 16)
+    private String bucket;
+
+    @Column(name = "next_value", nullable = false)
+    private Integer nextValue;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Transient
+    private boolean newRange = true;
+
+    // Constructors
+    public AccountNumberRange() {}
+
+    public AccountNumberRange(String bucket, Integer nextValue) {
+        this.bucket = bucket;
+        this.nextValue = nextValue;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getBucket() { return bucket; }
+    public void setBucket(String bucket) { this.bucket = bucket; }
+
+    public Integer getNextValue() { return nextValue; }
+    public void setNextValue(Integer nextValue) { this.nextValue = nextValue; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    @Override
+    public String getId() { return bucket; }
+
+    @Override
+    public boolean isNew() { return newRange; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.newRange = false; }
+}
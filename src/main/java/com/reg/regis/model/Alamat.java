@@ -8,7 +8,8 @@ import jakarta.validation.constraints.NotBlank;
 public class Alamat {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alamat_id_seq")
+    @SequenceGenerator(name = "alamat_id_seq", sequenceName = "alamat_id_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank
@@ -11,8 +11,11 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @Table(name = "customers")
 public class Customer {
     
+    // Sequence + pooled optimizer (allocationSize = INCREMENT BY di database): id diketahui tanpa
+    // INSERT langsung, jadi insert bisa di-batch saat flush
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customers_id_seq")
+    @SequenceGenerator(name = "customers_id_seq", sequenceName = "customers_id_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Nama lengkap wajib diisi")
@@ -87,7 +90,7 @@ public class Customer {
     @Column(name = "tujuan_pembuatan_rekening", nullable = false)
     private String tujuanPembuatanRekening;
     
-    @Column(name = "kode_rekening")
+    @Column(name = "kode_rekening", unique = true)
     private Integer kodeRekening;
 
     @Column(name = "nomor_kartu_debit_virtual", unique = true)
@@ -109,6 +112,11 @@ public class Customer {
     @Column(name = "account_locked_until")
     private LocalDateTime accountLockedUntil; // Kapan akun akan dibuka
 
+    // CREDENTIAL VERSION - naik setiap akun dikunci / password berubah
+    @JsonIgnore
+    @Column(name = "credential_version")
+    private Long credentialVersion = 0L;
+
     @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
     @JoinColumn(name = "alamat_id")
     private Alamat alamat;
@@ -207,6 +215,14 @@ public class Customer {
     public Integer getFailedLoginAttempts() { return failedLoginAttempts; }
     public void setFailedLoginAttempts(Integer failedLoginAttempts) { this.failedLoginAttempts = failedLoginAttempts; }
 
+    public long getCredentialVersion() { return credentialVersion != null ? credentialVersion : 0L; }
+    public void setCredentialVersion(Long credentialVersion) { this.credentialVersion = credentialVersion; }
+
+    // helper untuk menaikkan versi kredensial (token lama jadi tidak berlaku)
+    public void incrementCredentialVersion() {
+        this.credentialVersion = getCredentialVersion() + 1;
+    }
+
     // helper untuk mengecek apakah akun terkunci
     public boolean isAccountLocked() {
         return accountLockedUntil != null && accountLockedUntil.isAfter(LocalDateTime.now());
@@ -0,0 +1,86 @@
+package com.reg.regis.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Refresh token opaque (hanya hash SHA-256 yang disimpan).
+ *
+ * Setiap rotasi membuat baris baru dalam family yang sama dan menandai baris
+ * lama sebagai terpakai (revoked_at). Token yang sudah terpakai lalu dikirim
+ * lagi berarti bocor, sehingga seluruh family di-revoke.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+    @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at")
+})
+public class RefreshToken {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+    
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+    
+    // Sengaja bukan relasi: rotasi tidak perlu load Customer beserta Alamat/Wali
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+    
+    @Column(name = "credential_version", nullable = false)
+    private Long credentialVersion;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+    
+    // Constructors
+    public RefreshToken() {}
+    
+    public RefreshToken(String tokenHash, String familyId, Long customerId, Long credentialVersion, LocalDateTime expiresAt) {
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
+        this.customerId = customerId;
+        this.credentialVersion = credentialVersion;
+        this.expiresAt = expiresAt;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public boolean isExpired() {
+        return expiresAt == null || !expiresAt.isAfter(LocalDateTime.now());
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getTokenHash() { return tokenHash; }
+    public void setTokenHash(String tokenHash) { this.tokenHash = tokenHash; }
+    
+    public String getFamilyId() { return familyId; }
+    public void setFamilyId(String familyId) { this.familyId = familyId; }
+    
+    public Long getCustomerId() { return customerId; }
+    public void setCustomerId(Long customerId) { this.customerId = customerId; }
+    
+    public Long getCredentialVersion() { return credentialVersion; }
+    public void setCredentialVersion(Long credentialVersion) { this.credentialVersion = credentialVersion; }
+    
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getRevokedAt() { return revokedAt; }
+    public void setRevokedAt(LocalDateTime revokedAt) { this.revokedAt = revokedAt; }
+}
@@ -0,0 +1,95 @@
+package com.reg.regis.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Job registrasi asynchronous (POST /auth/register/async).
+ *
+ * Baris dibuat saat request diterima (PENDING), lalu worker mengubahnya ke
+ * PROCESSING dan akhirnya COMPLETED (result berisi RegistrationResponse
+ * dalam JSON) atau FAILED (error_message + error_type). Data registrasi
+ * termasuk password tidak disimpan di sini, hanya dibawa task di memory.
+ */
+@Entity
+@Table(name = "registration_jobs", indexes = {
+    @Index(name = "idx_registration_jobs_status_updated_at", columnList = "status, updated_at"),
+    @Index(name = "idx_registration_jobs_created_at", columnList = "created_at")
+})
+public class RegistrationJob {
+    
+    public enum Status {
+        PENDING, PROCESSING, COMPLETED, FAILED
+    }
+    
+    @Id
+    @Column(name = "id", nullable = false, length = 36)
+    private String id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+    
+    @Column(name = "customer_id")
+    private Long customerId;
+    
+    @Column(name = "result", columnDefinition = "TEXT")
+    private String result;
+    
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+    
+    @Column(name = "error_type", length = 32)
+    private String errorType;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+    
+    // Constructors
+    public RegistrationJob() {}
+    
+    public RegistrationJob(String id) {
+        this.id = id;
+        this.status = Status.PENDING;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+    
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+    
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+    
+    public Long getCustomerId() { return customerId; }
+    public void setCustomerId(Long customerId) { this.customerId = customerId; }
+    
+    public String getResult() { return result; }
+    public void setResult(String result) { this.result = result; }
+    
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+    
+    public String getErrorType() { return errorType; }
+    public void setErrorType(String errorType) { this.errorType = errorType; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+}
@@ -0,0 +1,51 @@
+package com.reg.regis.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * JWT yang sudah di-revoke (logout) sebelum exp-nya lewat.
+ * Baris dihapus otomatis oleh TokenRevocationService setelah expires_at.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+    @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at")
+})
+public class RevokedToken {
+    
+    @Id
+    @Column(name = "jti", nullable = false, length = 64)
+    private String jti;
+    
+    @Column(name = "subject")
+    private String subject;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+    
+    // Constructors
+    public RevokedToken() {}
+    
+    public RevokedToken(String jti, String subject, LocalDateTime expiresAt) {
+        this.jti = jti;
+        this.subject = subject;
+        this.expiresAt = expiresAt;
+        this.revokedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public String getJti() { return jti; }
+    public void setJti(String jti) { this.jti = jti; }
+    
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+    
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+    
+    public LocalDateTime getRevokedAt() { return revokedAt; }
+    public void setRevokedAt(LocalDateTime revokedAt) { this.revokedAt = revokedAt; }
+}
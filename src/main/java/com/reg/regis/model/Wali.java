@@ -9,7 +9,8 @@ import jakarta.validation.constraints.Pattern;
 public class Wali {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wali_id_seq")
+    @SequenceGenerator(name = "wali_id_seq", sequenceName = "wali_id_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank
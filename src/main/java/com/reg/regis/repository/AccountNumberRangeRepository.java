@@ -0,0 +1,28 @@
+package com.reg.regis.repository;
+
+import com.reg.regis.model.AccountNumberRange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface AccountNumberRangeRepository extends JpaRepository<AccountNumberRange, String> {
+
+    // Sewa blok: UPDATE mengunci baris sampai transaksi selesai, jadi dua node tidak mendapat blok yang sama.
+    // 0 jika bucket belum ada atau sudah habis (next_value > last)
+    @Modifying
+    @Query("UPDATE AccountNumberRange r SET r.nextValue = r.nextValue + :size, r.updatedAt = :now " +
+           "WHERE r.bucket = :bucket AND r.nextValue <= :last")
+    int advance(@Param("bucket") String bucket,
+                @Param("size") int size,
+                @Param("last") int last,
+                @Param("now") LocalDateTime now);
+
+    @Query("SELECT r.nextValue FROM AccountNumberRange r WHERE r.bucket = :bucket")
+    Optional<Integer> findNextValue(@Param("bucket") String bucket);
+}
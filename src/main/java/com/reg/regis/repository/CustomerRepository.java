@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -21,6 +23,20 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     
     boolean existsByNomorTelepon(String nomorTelepon);
     
+    /**
+     * Cek duplikat email, nomor telepon, dan NIK dalam satu statement.
+     * Tiap kondisi OR memakai index-nya sendiri (LOWER(email), nomor_telepon, nik).
+     */
+    @Query("SELECT new com.reg.regis.repository.RegistrationConflicts(" +
+           "COUNT(CASE WHEN LOWER(c.email) = LOWER(:email) THEN 1 END), " +
+           "COUNT(CASE WHEN c.nomorTelepon = :nomorTelepon THEN 1 END), " +
+           "COUNT(CASE WHEN c.nik = :nik THEN 1 END)) " +
+           "FROM Customer c " +
+           "WHERE LOWER(c.email) = LOWER(:email) OR c.nomorTelepon = :nomorTelepon OR c.nik = :nik")
+    RegistrationConflicts findRegistrationConflicts(@Param("email") String email,
+                                                    @Param("nomorTelepon") String nomorTelepon,
+                                                    @Param("nik") String nik);
+    
     @Query("SELECT c FROM Customer c WHERE c.nik = :nik")
     Optional<Customer> findByNik(@Param("nik") String nik);
     
@@ -39,6 +55,10 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     boolean existsByKodeRekening(Integer kodeRekening);
     Optional<Customer> findByKodeRekening(Integer kodeRekening);
 
+    // Kode rekening di dalam blok yang baru disewa: dilewati allocator (nomor acak sebelum ada allocator)
+    @Query("SELECT c.kodeRekening FROM Customer c WHERE c.kodeRekening BETWEEN :from AND :to")
+    List<Integer> findKodeRekeningBetween(@Param("from") Integer from, @Param("to") Integer to);
+
     @Query("SELECT COUNT(c) FROM Customer c WHERE c.jenisKartu = :jenisKartu")
     long countByJenisKartu(@Param("jenisKartu") String jenisKartu);
     
@@ -46,4 +66,18 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     java.util.List<Customer> findByJenisKartu(@Param("jenisKartu") String jenisKartu);
 
     boolean existsByNomorKartuDebitVirtual(String nomorKartuDebitVirtual);
+
+    // Cek duplikat per batch untuk import massal (satu query per kolom unik)
+    @Query("SELECT LOWER(c.email) FROM Customer c WHERE LOWER(c.email) IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+    
+    @Query("SELECT c.nomorTelepon FROM Customer c WHERE c.nomorTelepon IN :nomorTelepon")
+    List<String> findExistingNomorTelepon(@Param("nomorTelepon") Collection<String> nomorTelepon);
+    
+    @Query("SELECT c.nik FROM Customer c WHERE c.nik IN :niks")
+    List<String> findExistingNiks(@Param("niks") Collection<String> niks);
+
+
+    @Query("SELECT COALESCE(c.credentialVersion, 0L) FROM Customer c WHERE c.id = :id")
+    Optional<Long> findCredentialVersionById(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.reg.regis.repository;
+
+/**
+ * Hasil probe duplikat registrasi: field mana yang sudah dipakai customer lain
+ */
+public class RegistrationConflicts {
+    private final boolean emailTaken;
+    private final boolean nomorTeleponTaken;
+    private final boolean nikTaken;
+
+    public RegistrationConflicts(boolean emailTaken, boolean nomorTeleponTaken, boolean nikTaken) {
+        this.emailTaken = emailTaken;
+        this.nomorTeleponTaken = nomorTeleponTaken;
+        this.nikTaken = nikTaken;
+    }
+
+    // Dipakai constructor expression JPQL (COUNT selalu Long, 0 jika tidak ada baris)
+    public RegistrationConflicts(Long emailMatches, Long nomorTeleponMatches, Long nikMatches) {
+        this(isPositive(emailMatches), isPositive(nomorTeleponMatches), isPositive(nikMatches));
+    }
+
+    public static RegistrationConflicts none() {
+        return new RegistrationConflicts(false, false, false);
+    }
+
+    private static boolean isPositive(Long count) {
+        return count != null && count > 0;
+    }
+
+    // Getters
+    public boolean isEmailTaken() { return emailTaken; }
+    public boolean isNomorTeleponTaken() { return nomorTeleponTaken; }
+    public boolean isNikTaken() { return nikTaken; }
+}
@@ -0,0 +1,58 @@
+package com.reg.regis.repository;
+
+import com.reg.regis.model.RegistrationJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RegistrationJobRepository extends JpaRepository<RegistrationJob, String> {
+    
+    // Conditional update: job yang sudah di-fail oleh sweeper tidak diproses lagi
+    @Transactional
+    @Modifying
+    @Query("UPDATE RegistrationJob j SET j.status = com.reg.regis.model.RegistrationJob.Status.PROCESSING, " +
+           "j.updatedAt = :now WHERE j.id = :id AND j.status = com.reg.regis.model.RegistrationJob.Status.PENDING")
+    int markProcessing(@Param("id") String id, @Param("now") LocalDateTime now);
+    
+    // Hasil worker juga menimpa FAILED dari sweeper (errorType 'stale'): job yang hanya
+    // lambat tetap melaporkan customer yang sudah dibuat
+    @Transactional
+    @Modifying
+    @Query("UPDATE RegistrationJob j SET j.status = :status, j.customerId = :customerId, j.result = :result, " +
+           "j.errorMessage = :errorMessage, j.errorType = :errorType, j.updatedAt = :now, j.completedAt = :now " +
+           "WHERE j.id = :id AND (j.status = com.reg.regis.model.RegistrationJob.Status.PROCESSING " +
+           "OR (j.status = com.reg.regis.model.RegistrationJob.Status.FAILED AND j.errorType = 'stale'))")
+    int finish(@Param("id") String id,
+               @Param("status") RegistrationJob.Status status,
+               @Param("customerId") Long customerId,
+               @Param("result") String result,
+               @Param("errorMessage") String errorMessage,
+               @Param("errorType") String errorType,
+               @Param("now") LocalDateTime now);
+    
+    // Job yang tidak selesai (mis. instance mati di tengah proses) ditandai gagal
+    @Transactional
+    @Modifying
+    @Query("UPDATE RegistrationJob j SET j.status = com.reg.regis.model.RegistrationJob.Status.FAILED, " +
+           "j.errorMessage = :errorMessage, j.errorType = 'stale', j.updatedAt = :now, j.completedAt = :now " +
+           "WHERE j.status IN (com.reg.regis.model.RegistrationJob.Status.PENDING, " +
+           "com.reg.regis.model.RegistrationJob.Status.PROCESSING) AND j.updatedAt < :cutoff")
+    int failStale(@Param("cutoff") LocalDateTime cutoff,
+                  @Param("errorMessage") String errorMessage,
+                  @Param("now") LocalDateTime now);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RegistrationJob j WHERE j.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+    
+    List<RegistrationJob> findByIdInAndStatusIn(Collection<String> ids, Collection<RegistrationJob.Status> statuses);
+}
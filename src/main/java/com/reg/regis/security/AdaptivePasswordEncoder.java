@@ -0,0 +1,161 @@
+package com.reg.regis.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Password encoder dengan Argon2id dan bcrypt berdampingan.
+ *
+ * - Hash baru diberi prefix {argon2} / {bcrypt} (DelegatingPasswordEncoder)
+ * - Hash lama tanpa prefix ($2a$...) tetap diverifikasi sebagai bcrypt
+ * - Cost dikalibrasi saat startup terhadap target latency per hash, jadi
+ *   pod kecil dan besar sama-sama mendapat cost maksimal yang masih masuk budget
+ * - upgradeEncoding() true untuk hash tanpa prefix, algoritma lain, atau
+ *   cost di bawah hasil kalibrasi; dipakai untuk rehash saat login berhasil
+ */
+public class AdaptivePasswordEncoder implements PasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptivePasswordEncoder.class);
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+
+    // Batas aman: cost tidak pernah di bawah nilai minimum walau CPU lambat
+    static final int BCRYPT_MIN_STRENGTH = 10;
+    static final int BCRYPT_MAX_STRENGTH = 16;
+    static final int BCRYPT_DEFAULT_STRENGTH = 12;
+
+    // Argon2id: memory dan parallelism tetap (OWASP: m=19 MiB, p=1), iterasi yang dikalibrasi
+    static final int ARGON2_SALT_LENGTH = 16;
+    static final int ARGON2_HASH_LENGTH = 32;
+    static final int ARGON2_PARALLELISM = 1;
+    static final int ARGON2_MEMORY_KIB = 19 * 1024;
+    static final int ARGON2_MIN_ITERATIONS = 2;
+    static final int ARGON2_MAX_ITERATIONS = 10;
+
+    private static final int CALIBRATION_SAMPLES = 3;
+    private static final String CALIBRATION_PASSWORD = "Calibration@Password123";
+
+    private final String idForEncode;
+    private final int bcryptStrength;
+    private final int argon2Iterations;
+    private final DelegatingPasswordEncoder delegate;
+
+    AdaptivePasswordEncoder(String algorithm, int bcryptStrength, int argon2Iterations) {
+        this.idForEncode = normalizeAlgorithm(algorithm);
+        this.bcryptStrength = bcryptStrength;
+        this.argon2Iterations = argon2Iterations;
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt);
+        encoders.put(ARGON2, argon2(argon2Iterations));
+
+        this.delegate = new DelegatingPasswordEncoder(idForEncode, encoders);
+        // Hash lama disimpan tanpa prefix {id}
+        this.delegate.setDefaultPasswordEncoderForMatches(bcrypt);
+    }
+
+    /**
+     * Buat encoder dengan cost hasil kalibrasi terhadap target latency.
+     * targetMs <= 0 mematikan kalibrasi (bcrypt 12 / Argon2id t=2).
+     */
+    public static AdaptivePasswordEncoder calibrated(String algorithm, long targetMs) {
+        String id = normalizeAlgorithm(algorithm);
+        int strength = BCRYPT_DEFAULT_STRENGTH;
+        int iterations = ARGON2_MIN_ITERATIONS;
+
+        if (targetMs > 0) {
+            if (ARGON2.equals(id)) {
+                iterations = calibrateArgon2Iterations(targetMs);
+            } else {
+                strength = calibrateBcryptStrength(targetMs);
+            }
+        }
+
+        AdaptivePasswordEncoder encoder = new AdaptivePasswordEncoder(id, strength, iterations);
+        logger.info("Password encoder: {} (bcrypt strength {}, argon2id m={}KiB t={} p={}), target {} ms",
+                id, strength, ARGON2_MEMORY_KIB, iterations, ARGON2_PARALLELISM, targetMs);
+        return encoder;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public String getIdForEncode() { return idForEncode; }
+    public int getBcryptStrength() { return bcryptStrength; }
+    public int getArgon2Iterations() { return argon2Iterations; }
+
+    /**
+     * Cost bcrypt naik 1 = waktu 2x. Ukur di strength minimum, lalu ambil
+     * strength terbesar yang perkiraan waktunya masih <= target.
+     */
+    static int calibrateBcryptStrength(long targetMs) {
+        double baseMs = measureMs(new BCryptPasswordEncoder(BCRYPT_MIN_STRENGTH));
+        int extra = (int) Math.floor(Math.log(targetMs / Math.max(baseMs, 0.001)) / Math.log(2));
+        return clamp(BCRYPT_MIN_STRENGTH + extra, BCRYPT_MIN_STRENGTH, BCRYPT_MAX_STRENGTH);
+    }
+
+    /**
+     * Waktu Argon2 kira-kira linear terhadap jumlah iterasi
+     */
+    static int calibrateArgon2Iterations(long targetMs) {
+        double baseMs = measureMs(argon2(ARGON2_MIN_ITERATIONS));
+        double perIterationMs = Math.max(baseMs / ARGON2_MIN_ITERATIONS, 0.001);
+        return clamp((int) Math.floor(targetMs / perIterationMs), ARGON2_MIN_ITERATIONS, ARGON2_MAX_ITERATIONS);
+    }
+
+    private static Argon2PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(ARGON2_SALT_LENGTH, ARGON2_HASH_LENGTH, ARGON2_PARALLELISM,
+                ARGON2_MEMORY_KIB, iterations);
+    }
+
+    /**
+     * Median beberapa encode setelah satu warm-up
+     */
+    private static double measureMs(PasswordEncoder encoder) {
+        encoder.encode(CALIBRATION_PASSWORD);
+        double[] samples = new double[CALIBRATION_SAMPLES];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            encoder.encode(CALIBRATION_PASSWORD);
+            samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+    private static String normalizeAlgorithm(String algorithm) {
+        if (algorithm != null && algorithm.trim().toLowerCase().startsWith(ARGON2)) {
+            return ARGON2;
+        }
+        return BCRYPT;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,72 @@
+package com.reg.regis.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Autentikasi endpoint /admin/** dengan API key operasional (header X-Admin-Api-Key).
+ *
+ * Key yang cocok memberi ROLE_ADMIN; SecurityConfig mewajibkan role itu untuk
+ * /admin/**. Jika app.admin.api-key kosong, endpoint admin tidak bisa diakses.
+ */
+@Component
+public class AdminApiKeyFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminApiKeyFilter.class);
+
+    public static final String API_KEY_HEADER = "X-Admin-Api-Key";
+    public static final String ADMIN_ROLE = "ADMIN";
+
+    @Value("${app.admin.api-key:}")
+    private String apiKey;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !request.getServletPath().startsWith("/admin/");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String provided = request.getHeader(API_KEY_HEADER);
+
+        if (provided != null && apiKey != null && !apiKey.isBlank()) {
+            // Bandingkan digest supaya waktu pembandingan tidak bergantung panjang/isi key
+            if (MessageDigest.isEqual(sha256(provided), sha256(apiKey))) {
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        "admin", null, List.of(new SimpleGrantedAuthority("ROLE_" + ADMIN_ROLE)));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            } else {
+                log.warn("Invalid admin API key for {} {}", request.getMethod(), request.getServletPath());
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
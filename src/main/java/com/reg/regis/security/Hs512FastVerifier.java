@@ -0,0 +1,442 @@
+package com.reg.regis.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Verifier khusus untuk bentuk token yang dihasilkan {@link JwtUtil#generateToken}:
+ * header {"alg":"HS512"} dan payload JSON datar berisi string/angka.
+ *
+ * - HMAC-SHA512 dihitung dengan Mac per thread (tanpa Mac.getInstance per request)
+ * - Input, signature dan payload di-decode ke buffer per thread
+ * - Payload di-scan satu kali tanpa membangun Map claims; iss/aud/type
+ *   dibandingkan langsung pada byte
+ *
+ * Hasil: {@link VerifiedToken} jika valid, {@link #REJECTED} jika pasti tidak
+ * valid, atau null jika bentuk token di luar jalur cepat (fallback ke jjwt).
+ */
+final class Hs512FastVerifier {
+
+    /**
+     * Penanda token pasti tidak valid (dibandingkan dengan identitas, ==)
+     */
+    static final VerifiedToken REJECTED = new VerifiedToken(null, null, null, null);
+
+    // base64url("{\"alg\":\"HS512\"}") persis seperti yang ditulis jjwt
+    private static final String HS512_HEADER = "eyJhbGciOiJIUzUxMiJ9";
+    private static final int SIGNATURE_BYTES = 64;
+    private static final int SIGNATURE_CHARS = 86;
+    private static final int MAX_LONG_DIGITS = 18;
+
+    // Bit per claim yang dikenali (juga untuk deteksi duplikat)
+    private static final int F_SUB = 1;
+    private static final int F_EXP = 1 << 1;
+    private static final int F_NBF = 1 << 2;
+    private static final int F_IAT = 1 << 3;
+    private static final int F_ISS = 1 << 4;
+    private static final int F_AUD = 1 << 5;
+    private static final int F_JTI = 1 << 6;
+    private static final int F_TYPE = 1 << 7;
+    private static final int F_CID = 1 << 8;
+    private static final int F_VER = 1 << 9;
+
+    private static final byte[] KEY_SUB = ascii("sub");
+    private static final byte[] KEY_EXP = ascii("exp");
+    private static final byte[] KEY_NBF = ascii("nbf");
+    private static final byte[] KEY_IAT = ascii("iat");
+    private static final byte[] KEY_ISS = ascii("iss");
+    private static final byte[] KEY_AUD = ascii("aud");
+    private static final byte[] KEY_JTI = ascii("jti");
+    private static final byte[] KEY_TYPE = ascii("type");
+    private static final byte[] KEY_CID = ascii(JwtUtil.CLAIM_CUSTOMER_ID);
+    private static final byte[] KEY_VER = ascii(JwtUtil.CLAIM_CREDENTIAL_VERSION);
+    private static final byte[] ACCESS_TOKEN = ascii("access_token");
+
+    private static final int[] BASE64URL = new int[128];
+    static {
+        Arrays.fill(BASE64URL, -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private final SecretKeySpec key;
+    private final byte[] expectedIssuer;
+    private final byte[] expectedAudience;
+    private final ThreadLocal<Scratch> scratch;
+
+    Hs512FastVerifier(byte[] keyBytes, String issuer, String audience) {
+        this.key = new SecretKeySpec(keyBytes, "HmacSHA512");
+        this.expectedIssuer = issuer != null ? issuer.getBytes(StandardCharsets.UTF_8) : null;
+        this.expectedAudience = audience.getBytes(StandardCharsets.UTF_8);
+        this.scratch = ThreadLocal.withInitial(this::newScratch);
+    }
+
+    VerifiedToken verify(String token) {
+        if (token == null || expectedIssuer == null) {
+            return null;
+        }
+
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (firstDot != HS512_HEADER.length() || secondDot < 0
+                || token.indexOf('.', secondDot + 1) >= 0
+                || !token.startsWith(HS512_HEADER)) {
+            return null; // Bentuk lain: biarkan jjwt yang memutuskan
+        }
+        if (token.length() - secondDot - 1 != SIGNATURE_CHARS) {
+            return REJECTED;
+        }
+
+        Scratch s = scratch.get();
+
+        // 1. Signature: HMAC atas ASCII header.payload, bandingkan constant-time
+        byte[] signingInput = s.ensureInput(secondDot);
+        for (int i = 0; i < secondDot; i++) {
+            char c = token.charAt(i);
+            if (c >= 128) {
+                return null;
+            }
+            signingInput[i] = (byte) c;
+        }
+        if (decodeBase64Url(token, secondDot + 1, token.length(), s.actualSignature) != SIGNATURE_BYTES) {
+            return null;
+        }
+        try {
+            s.mac.update(signingInput, 0, secondDot);
+            s.mac.doFinal(s.expectedSignature, 0);
+        } catch (GeneralSecurityException | IllegalStateException e) {
+            s.mac.reset();
+            return null;
+        }
+        if (!constantTimeEquals(s.expectedSignature, s.actualSignature)) {
+            return REJECTED;
+        }
+
+        // 2. Payload: decode ke buffer lalu scan sekali
+        byte[] payload = s.ensurePayload(((secondDot - firstDot - 1) * 3) / 4 + 3);
+        int payloadLength = decodeBase64Url(token, firstDot + 1, secondDot, payload);
+        if (payloadLength < 0) {
+            return null;
+        }
+        return scanClaims(payload, payloadLength);
+    }
+
+    private VerifiedToken scanClaims(byte[] json, int length) {
+        String subject = null;
+        String jti = null;
+        long exp = 0;
+        long nbf = 0;
+        long iat = 0;
+        Long customerId = null;
+        Long credentialVersion = null;
+        boolean issuerOk = false;
+        boolean audienceOk = false;
+        boolean typeOk = false;
+        int seen = 0;
+
+        int pos = skipWhitespace(json, 0, length);
+        if (pos >= length || json[pos] != '{') {
+            return null;
+        }
+        pos = skipWhitespace(json, pos + 1, length);
+        if (pos < length && json[pos] == '}') {
+            return null;
+        }
+
+        while (true) {
+            // Key
+            if (pos >= length || json[pos] != '"') {
+                return null;
+            }
+            int keyStart = pos + 1;
+            int keyEnd = endOfString(json, keyStart, length);
+            if (keyEnd < 0) {
+                return null;
+            }
+            pos = skipWhitespace(json, keyEnd + 1, length);
+            if (pos >= length || json[pos] != ':') {
+                return null;
+            }
+            pos = skipWhitespace(json, pos + 1, length);
+            if (pos >= length) {
+                return null;
+            }
+
+            int field = fieldOf(json, keyStart, keyEnd);
+            if (field != 0) {
+                if ((seen & field) != 0) {
+                    return null; // Duplicate claim: serahkan ke jjwt
+                }
+                seen |= field;
+            }
+
+            // Value
+            byte first = json[pos];
+            if (first == '"') {
+                int valueStart = pos + 1;
+                int valueEnd = endOfString(json, valueStart, length);
+                if (valueEnd < 0) {
+                    return null;
+                }
+                switch (field) {
+                    case F_SUB -> subject = new String(json, valueStart, valueEnd - valueStart, StandardCharsets.UTF_8);
+                    case F_JTI -> jti = new String(json, valueStart, valueEnd - valueStart, StandardCharsets.UTF_8);
+                    case F_ISS -> issuerOk = regionEquals(json, valueStart, valueEnd, expectedIssuer);
+                    case F_AUD -> audienceOk = regionEquals(json, valueStart, valueEnd, expectedAudience);
+                    case F_TYPE -> typeOk = regionEquals(json, valueStart, valueEnd, ACCESS_TOKEN);
+                    case 0 -> { }
+                    default -> { return null; } // Angka yang ditulis sebagai string
+                }
+                pos = valueEnd + 1;
+            } else if (first == '-' || (first >= '0' && first <= '9')) {
+                int numberEnd = pos;
+                boolean negative = first == '-';
+                if (negative) {
+                    numberEnd++;
+                }
+                long value = 0;
+                int digits = 0;
+                while (numberEnd < length && json[numberEnd] >= '0' && json[numberEnd] <= '9') {
+                    value = value * 10 + (json[numberEnd] - '0');
+                    numberEnd++;
+                    digits++;
+                }
+                if (digits == 0 || digits > MAX_LONG_DIGITS) {
+                    return null;
+                }
+                if (numberEnd < length && (json[numberEnd] == '.' || json[numberEnd] == 'e' || json[numberEnd] == 'E')) {
+                    if (field != 0) {
+                        return null;
+                    }
+                    // Claim lain berupa pecahan: lewati
+                    while (numberEnd < length && isNumberChar(json[numberEnd])) {
+                        numberEnd++;
+                    }
+                }
+                if (negative) {
+                    value = -value;
+                }
+                switch (field) {
+                    case F_EXP -> exp = value;
+                    case F_NBF -> nbf = value;
+                    case F_IAT -> iat = value;
+                    case F_CID -> customerId = value;
+                    case F_VER -> credentialVersion = value;
+                    case 0 -> { }
+                    default -> { return null; }
+                }
+                pos = numberEnd;
+            } else if (field == 0 && matchesLiteral(json, pos, length)) {
+                pos += json[pos] == 'f' ? 5 : 4;
+            } else {
+                return null; // Object/array atau tipe tak terduga
+            }
+
+            pos = skipWhitespace(json, pos, length);
+            if (pos >= length) {
+                return null;
+            }
+            if (json[pos] == ',') {
+                pos = skipWhitespace(json, pos + 1, length);
+                continue;
+            }
+            if (json[pos] == '}') {
+                pos = skipWhitespace(json, pos + 1, length);
+                break;
+            }
+            return null;
+        }
+        if (pos != length || (seen & F_EXP) == 0) {
+            return null;
+        }
+
+        // 3. Claims: sama dengan aturan jjwt (tanpa clock skew)
+        long now = System.currentTimeMillis();
+        if (!issuerOk || !audienceOk) {
+            return REJECTED;
+        }
+        if (now > exp * 1000L) {
+            return REJECTED;
+        }
+        if ((seen & F_NBF) != 0 && now < nbf * 1000L) {
+            return REJECTED;
+        }
+        if (!typeOk) {
+            return REJECTED;
+        }
+
+        return new VerifiedToken(
+                subject,
+                new Date(exp * 1000L),
+                "access_token",
+                (seen & F_IAT) != 0 ? new Date(iat * 1000L) : null,
+                customerId,
+                credentialVersion,
+                jti);
+    }
+
+    private static int fieldOf(byte[] json, int start, int end) {
+        int length = end - start;
+        if (length == 3) {
+            if (regionEquals(json, start, end, KEY_SUB)) return F_SUB;
+            if (regionEquals(json, start, end, KEY_EXP)) return F_EXP;
+            if (regionEquals(json, start, end, KEY_NBF)) return F_NBF;
+            if (regionEquals(json, start, end, KEY_IAT)) return F_IAT;
+            if (regionEquals(json, start, end, KEY_ISS)) return F_ISS;
+            if (regionEquals(json, start, end, KEY_AUD)) return F_AUD;
+            if (regionEquals(json, start, end, KEY_JTI)) return F_JTI;
+            if (regionEquals(json, start, end, KEY_CID)) return F_CID;
+            if (regionEquals(json, start, end, KEY_VER)) return F_VER;
+        } else if (length == 4 && regionEquals(json, start, end, KEY_TYPE)) {
+            return F_TYPE;
+        }
+        return 0;
+    }
+
+    /**
+     * Index tanda kutip penutup; -1 jika ada escape (fallback ke jjwt) atau tidak tertutup
+     */
+    private static int endOfString(byte[] json, int start, int length) {
+        for (int i = start; i < length; i++) {
+            byte b = json[i];
+            if (b == '"') {
+                return i;
+            }
+            if (b == '\\' || (b >= 0 && b < 0x20)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matchesLiteral(byte[] json, int pos, int length) {
+        return regionStartsWith(json, pos, length, "true")
+                || regionStartsWith(json, pos, length, "false")
+                || regionStartsWith(json, pos, length, "null");
+    }
+
+    private static boolean regionStartsWith(byte[] json, int pos, int length, String literal) {
+        if (pos + literal.length() > length) {
+            return false;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (json[pos + i] != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNumberChar(byte b) {
+        return (b >= '0' && b <= '9') || b == '.' || b == 'e' || b == 'E' || b == '+' || b == '-';
+    }
+
+    private static boolean regionEquals(byte[] json, int start, int end, byte[] expected) {
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (json[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(byte[] json, int pos, int length) {
+        while (pos < length && (json[pos] == ' ' || json[pos] == '\n' || json[pos] == '\r' || json[pos] == '\t')) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean constantTimeEquals(byte[] a, byte[] b) {
+        int diff = 0;
+        for (int i = 0; i < SIGNATURE_BYTES; i++) {
+            diff |= a[i] ^ b[i];
+        }
+        return diff == 0;
+    }
+
+    /**
+     * Decode base64url tanpa padding dari token[start, end) ke out.
+     * Mengembalikan jumlah byte, atau -1 jika karakter/panjang tidak valid.
+     */
+    private static int decodeBase64Url(String token, int start, int end, byte[] out) {
+        int length = end - start;
+        if (length % 4 == 1) {
+            return -1;
+        }
+        int outputLength = (length * 3) / 4;
+        if (outputLength > out.length) {
+            return -1;
+        }
+
+        int o = 0;
+        int buffer = 0;
+        int bits = 0;
+        for (int i = start; i < end; i++) {
+            char c = token.charAt(i);
+            int value = c < 128 ? BASE64URL[c] : -1;
+            if (value < 0) {
+                return -1;
+            }
+            buffer = (buffer << 6) | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                out[o++] = (byte) (buffer >> bits);
+            }
+        }
+        return o;
+    }
+
+    private Scratch newScratch() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA512");
+            mac.init(key);
+            return new Scratch(mac);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA512 not available", e);
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Buffer per thread; tumbuh sesuai token terbesar yang pernah dilihat
+     */
+    private static final class Scratch {
+        private final Mac mac;
+        private final byte[] expectedSignature = new byte[SIGNATURE_BYTES];
+        private final byte[] actualSignature = new byte[SIGNATURE_BYTES];
+        private byte[] input = new byte[512];
+        private byte[] payload = new byte[384];
+
+        private Scratch(Mac mac) {
+            this.mac = mac;
+        }
+
+        private byte[] ensureInput(int size) {
+            if (input.length < size) {
+                input = new byte[Math.max(size, input.length * 2)];
+            }
+            return input;
+        }
+
+        private byte[] ensurePayload(int size) {
+            if (payload.length < size) {
+                payload = new byte[Math.max(size, payload.length * 2)];
+            }
+            return payload;
+        }
+    }
+}
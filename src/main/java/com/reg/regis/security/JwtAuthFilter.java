@@ -1,6 +1,8 @@
 package com.reg.regis.security;
 
-import com.reg.regis.service.CustomerUserDetailsService;
+import com.reg.regis.service.CredentialVersionRegistry;
+import com.reg.regis.service.TokenRevocationService;
+import com.reg.regis.service.CachingUserDetailsService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,13 +11,16 @@ import lombok.RequiredArgsConstructor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
+import java.util.Collections;
 
 @Component
 @RequiredArgsConstructor
@@ -24,25 +29,48 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     // Ganti nama dari 'logger' ke 'log' untuk menghindari field shadowing
     private static final Logger log = LoggerFactory.getLogger(JwtAuthFilter.class);
     
+    /**
+     * Request attribute berisi {@link VerifiedToken} hasil verifikasi filter ini
+     */
+    public static final String VERIFIED_TOKEN_ATTRIBUTE = "com.reg.regis.security.JwtAuthFilter.VERIFIED_TOKEN";
+    
     private final JwtUtil jwtUtil;
-    private final CustomerUserDetailsService userDetailsService;
+    private final CachingUserDetailsService userDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final CredentialVersionRegistry credentialVersionRegistry;
+    private final TokenRevocationService tokenRevocationService;
+    
+    // Opt-in: bangun principal dari claims (cid + ver) tanpa load Customer per request
+    @Value("${app.jwt.stateless-principal.enabled:false}")
+    private boolean statelessPrincipalEnabled;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
         String authHeader = request.getHeader("Authorization");
-        String token = null;
         String email = null;
+        VerifiedToken verifiedToken = null;
 
         try {
             // Extract token from Authorization header
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                token = authHeader.substring(7);
+                String token = authHeader.substring(7);
                 
-                // Validate token format and extract email
-                if (jwtUtil.validateToken(token)) {
-                    email = jwtUtil.getEmailFromToken(token);
+                // Cache hit: lewati HMAC + JSON parse; miss: verifikasi sekali lalu simpan
+                verifiedToken = verifiedTokenCache.get(token);
+                if (verifiedToken == null) {
+                    verifiedToken = jwtUtil.verify(token);
+                    verifiedTokenCache.put(token, verifiedToken);
+                }
+                
+                // Revocation dicek di luar cache (Bloom filter + set di memory, tanpa I/O)
+                if (verifiedToken != null && tokenRevocationService.isRevoked(verifiedToken)) {
+                    log.warn("Revoked JWT token received from IP: {}", getClientIpAddress(request));
+                    verifiedToken = null;
+                } else if (verifiedToken != null) {
+                    email = verifiedToken.getSubject();
+                    request.setAttribute(VERIFIED_TOKEN_ATTRIBUTE, verifiedToken);
                 } else {
                     log.warn("Invalid JWT token received from IP: {}", getClientIpAddress(request));
                 }
@@ -50,37 +78,10 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
             // If we have a valid email and no existing authentication
             if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                try {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-                    
-                    if (userDetails != null) {
-                        // Double-check token validity and user match
-                        if (jwtUtil.validateToken(token) && email.equals(userDetails.getUsername())) {
-                            
-                            // Check if account is enabled and not locked
-                            if (userDetails.isEnabled() && userDetails.isAccountNonLocked()) {
-                                UsernamePasswordAuthenticationToken authToken = 
-                                    new UsernamePasswordAuthenticationToken(
-                                        userDetails, 
-                                        null, 
-                                        userDetails.getAuthorities()
-                                    );
-                                
-                                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                                SecurityContextHolder.getContext().setAuthentication(authToken);
-                                
-                                log.debug("Successfully authenticated user: {}", email);
-                            } else {
-                                log.warn("Account disabled or locked for user: {}", email);
-                            }
-                        } else {
-                            log.warn("Token validation failed for user: {}", email);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.warn("Authentication failed for email {}: {}", email, e.getMessage());
-                    // Clear any partial authentication
-                    SecurityContextHolder.clearContext();
+                if (statelessPrincipalEnabled && verifiedToken.hasCredentialClaims()) {
+                    authenticateFromClaims(verifiedToken, request);
+                } else {
+                    authenticateFromUserDetails(email, request);
                 }
             }
         } catch (Exception e) {
@@ -92,6 +93,65 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Load user dari database dan pastikan akun aktif serta tidak terkunci
+     */
+    private void authenticateFromUserDetails(String email, HttpServletRequest request) {
+        try {
+            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+            
+            if (userDetails != null) {
+                // Token sudah diverifikasi di atas, cukup pastikan user cocok
+                if (email.equals(userDetails.getUsername())) {
+                    
+                    // Check if account is enabled and not locked
+                    if (userDetails.isEnabled() && userDetails.isAccountNonLocked()) {
+                        UsernamePasswordAuthenticationToken authToken = 
+                            new UsernamePasswordAuthenticationToken(
+                                userDetails, 
+                                null, 
+                                userDetails.getAuthorities()
+                            );
+                        
+                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        SecurityContextHolder.getContext().setAuthentication(authToken);
+                        
+                        log.debug("Successfully authenticated user: {}", email);
+                    } else {
+                        log.warn("Account disabled or locked for user: {}", email);
+                    }
+                } else {
+                    log.warn("Token validation failed for user: {}", email);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Authentication failed for email {}: {}", email, e.getMessage());
+            // Clear any partial authentication
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * Stateless principal: token sudah terverifikasi, cukup pastikan versi
+     * kredensial (lock / password) di token masih yang terbaru
+     */
+    private void authenticateFromClaims(VerifiedToken verifiedToken, HttpServletRequest request) {
+        String email = verifiedToken.getSubject();
+        
+        if (!credentialVersionRegistry.isCurrent(verifiedToken.getCustomerId(), verifiedToken.getCredentialVersion())) {
+            log.warn("Credential version changed (locked or password changed) for user: {}", email);
+            return;
+        }
+        
+        UserDetails principal = new User(email, "", Collections.emptyList());
+        UsernamePasswordAuthenticationToken authToken =
+            new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+        
+        log.debug("Successfully authenticated user from token claims: {}", email);
+    }
+
     /**
      * Skip JWT processing for public endpoints
      */
@@ -108,7 +168,9 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                path.equals("/auth/validate-nik") ||
                path.equals("/auth/health") ||
                path.equals("/auth/check-auth") ||
+               path.equals("/auth/refresh-token") ||
                path.startsWith("/verification/") ||
+               path.equals("/.well-known/jwks.json") ||
                path.equals("/actuator/health") ||
                path.equals("/error");
     }
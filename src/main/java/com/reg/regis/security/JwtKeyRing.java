@@ -0,0 +1,240 @@
+package com.reg.regis.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Kumpulan key ES256 (P-256) per key id untuk mode signing asimetris.
+ *
+ * Key dibaca dari app.jwt.signing.key-dir:
+ * - {kid}.public.pem  : public key X.509 (wajib), dipublikasikan di JWKS
+ * - {kid}.private.pem : private key PKCS#8 (opsional), hanya untuk signing
+ *
+ * Rotasi tanpa restart: taruh public key generasi baru di semua replica
+ * (mulai diterima), lalu private key-nya (mulai dipakai signing), lalu hapus
+ * generasi lama setelah token terakhirnya expired. Direktori dibaca ulang
+ * secara berkala.
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private static final String PUBLIC_SUFFIX = ".public.pem";
+    private static final String PRIVATE_SUFFIX = ".private.pem";
+    private static final int P256_COORDINATE_BYTES = 32;
+
+    private final boolean enabled;
+    private final String keyDir;
+    private final String activeKid;
+
+    // Snapshot immutable, diganti utuh saat reload
+    private volatile Map<String, KeyGeneration> generations = Collections.emptyMap();
+
+    public JwtKeyRing(
+            @Value("${app.jwt.signing.algorithm:HS512}") String algorithm,
+            @Value("${app.jwt.signing.key-dir:}") String keyDir,
+            @Value("${app.jwt.signing.active-kid:}") String activeKid) {
+        this.enabled = "ES256".equalsIgnoreCase(algorithm);
+        this.keyDir = keyDir;
+        this.activeKid = activeKid;
+
+        if (enabled) {
+            if (keyDir == null || keyDir.isBlank()) {
+                // Hanya untuk development: token tidak bisa diverifikasi replica lain
+                logger.warn("ES256 signing enabled without 'app.jwt.signing.key-dir'; using an ephemeral key pair");
+                KeyGeneration ephemeral = generateEphemeral("ephemeral-" + UUID.randomUUID());
+                this.generations = Map.of(ephemeral.getKid(), ephemeral);
+            } else {
+                reload();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Baca ulang direktori key. Jika gagal, key yang sudah dimuat tetap dipakai.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.signing.reload-interval-ms:60000}")
+    public void reload() {
+        if (!enabled || keyDir == null || keyDir.isBlank()) {
+            return;
+        }
+
+        try {
+            Map<String, KeyGeneration> loaded = loadFrom(Paths.get(keyDir));
+            if (loaded.isEmpty()) {
+                logger.error("No ES256 public keys found in {}", keyDir);
+                return;
+            }
+            if (!loaded.keySet().equals(generations.keySet())) {
+                logger.info("Loaded JWT signing key generations: {}", loaded.keySet());
+            }
+            this.generations = loaded;
+        } catch (Exception e) {
+            logger.error("Failed to load JWT signing keys from {}: {}", keyDir, e.getMessage());
+        }
+    }
+
+    /**
+     * Key yang dipakai untuk signing token baru: active-kid jika diset,
+     * jika tidak kid terbesar (urutan leksikografis) yang punya private key.
+     */
+    public KeyGeneration activeSigningKey() {
+        Map<String, KeyGeneration> current = generations;
+
+        if (activeKid != null && !activeKid.isBlank()) {
+            KeyGeneration configured = current.get(activeKid);
+            if (configured != null && configured.getPrivateKey() != null) {
+                return configured;
+            }
+            logger.warn("Configured active kid '{}' has no private key, falling back to newest generation", activeKid);
+        }
+
+        KeyGeneration newest = null;
+        for (KeyGeneration generation : current.values()) {
+            if (generation.getPrivateKey() != null
+                    && (newest == null || generation.getKid().compareTo(newest.getKid()) > 0)) {
+                newest = generation;
+            }
+        }
+        if (newest == null) {
+            throw new IllegalStateException("No ES256 private key available for JWT signing");
+        }
+        return newest;
+    }
+
+    /**
+     * Public key untuk kid di header token, null jika tidak dikenal
+     */
+    public PublicKey publicKey(String kid) {
+        if (kid == null) {
+            return null;
+        }
+        KeyGeneration generation = generations.get(kid);
+        return generation != null ? generation.getPublicKey() : null;
+    }
+
+    /**
+     * JWK Set (RFC 7517) berisi semua public key yang masih diterima
+     */
+    public Map<String, Object> jwks() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        for (KeyGeneration generation : generations.values()) {
+            ECPublicKey publicKey = (ECPublicKey) generation.getPublicKey();
+
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("use", "sig");
+            jwk.put("alg", "ES256");
+            jwk.put("kid", generation.getKid());
+            jwk.put("x", base64Url(publicKey.getW().getAffineX()));
+            jwk.put("y", base64Url(publicKey.getW().getAffineY()));
+            keys.add(jwk);
+        }
+        return Map.of("keys", keys);
+    }
+
+    private static Map<String, KeyGeneration> loadFrom(Path dir) throws IOException, GeneralSecurityException {
+        KeyFactory keyFactory = KeyFactory.getInstance("EC");
+        Map<String, KeyGeneration> loaded = new TreeMap<>();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + PUBLIC_SUFFIX)) {
+            for (Path publicFile : files) {
+                String fileName = publicFile.getFileName().toString();
+                String kid = fileName.substring(0, fileName.length() - PUBLIC_SUFFIX.length());
+
+                PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(readPem(publicFile)));
+
+                PrivateKey privateKey = null;
+                Path privateFile = dir.resolve(kid + PRIVATE_SUFFIX);
+                if (Files.exists(privateFile)) {
+                    privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(readPem(privateFile)));
+                }
+
+                loaded.put(kid, new KeyGeneration(kid, publicKey, privateKey));
+            }
+        }
+        return Collections.unmodifiableMap(loaded);
+    }
+
+    private static byte[] readPem(Path file) throws IOException {
+        String pem = Files.readString(file, StandardCharsets.US_ASCII);
+        String base64 = pem.replaceAll("-----(BEGIN|END) [A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+
+    private static KeyGeneration generateEphemeral(String kid) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair keyPair = generator.generateKeyPair();
+            return new KeyGeneration(kid, keyPair.getPublic(), keyPair.getPrivate());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to generate ES256 key pair", e);
+        }
+    }
+
+    /**
+     * Koordinat EC sebagai unsigned big-endian 32 byte, base64url tanpa padding
+     */
+    private static String base64Url(BigInteger coordinate) {
+        byte[] bytes = coordinate.toByteArray();
+        byte[] fixed = new byte[P256_COORDINATE_BYTES];
+        int copy = Math.min(bytes.length, P256_COORDINATE_BYTES);
+        System.arraycopy(bytes, bytes.length - copy, fixed, P256_COORDINATE_BYTES - copy, copy);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+
+    /**
+     * Satu generasi key: kid, public key dan (opsional) private key
+     */
+    public static final class KeyGeneration {
+        private final String kid;
+        private final PublicKey publicKey;
+        private final PrivateKey privateKey;
+
+        KeyGeneration(String kid, PublicKey publicKey, PrivateKey privateKey) {
+            this.kid = kid;
+            this.publicKey = publicKey;
+            this.privateKey = privateKey;
+        }
+
+        public String getKid() { return kid; }
+        public PublicKey getPublicKey() { return publicKey; }
+        public PrivateKey getPrivateKey() { return privateKey; }
+    }
+}
@@ -4,12 +4,16 @@ import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders; // Import this for Base64 decoding
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import java.security.Key;
 import java.util.Date;
+import java.util.Objects;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
@@ -25,14 +29,105 @@ public class JwtUtil {
     @Value("${spring.application.name:Customer-Registration-Service}")
     private String issuer;
     
+    // HS512 (shared secret, default) atau ES256 (key pair per kid, public key di JWKS)
+    @Value("${app.jwt.signing.algorithm:HS512}")
+    private String signingAlgorithm;
+    
+    private final JwtKeyRing keyRing;
+    
+    // Jalur cepat HS512 untuk bentuk token milik sendiri; jjwt tetap fallback
+    @Value("${app.jwt.fast-path.enabled:true}")
+    private boolean fastPathEnabled = true;
+    
     private static final String AUDIENCE = "customer-app";
     
+    // Claim untuk stateless principal
+    static final String CLAIM_CUSTOMER_ID = "cid";
+    static final String CLAIM_CREDENTIAL_VERSION = "ver";
+    
+    // Key dan parser dibangun sekali, bukan per request (Base64 decode + HMAC key setup)
+    private volatile SigningMaterial signingMaterial;
+    
+    /**
+     * HS512 only (tanpa key ring)
+     */
+    public JwtUtil() {
+        this(null);
+    }
+    
+    @Autowired
+    public JwtUtil(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+    
+    /**
+     * Build signing key and parsers at startup so a bad secret fails fast
+     * instead of on the first authenticated request.
+     */
+    @PostConstruct
+    public void init() {
+        signingMaterial();
+    }
+    
     /**
      * Retrieves the signing key for JWT.
      * The 'secret' property is expected to be a Base64 encoded string.
      * It must decode to at least 64 bytes (512 bits) for HS512.
      */
     private Key getSigningKey() {
+        return signingMaterial().key;
+    }
+    
+    /**
+     * Returns the cached key/parsers, rebuilding them only when the configured
+     * secret or issuer differs from the one they were built with.
+     */
+    private SigningMaterial signingMaterial() {
+        SigningMaterial current = this.signingMaterial;
+        boolean asymmetric = isAsymmetric();
+        if (current == null || !current.matches(secret, issuer, asymmetric)) {
+            current = asymmetric ? buildAsymmetricSigningMaterial() : buildSigningMaterial();
+            this.signingMaterial = current;
+        }
+        return current;
+    }
+    
+    private boolean isAsymmetric() {
+        return "ES256".equalsIgnoreCase(signingAlgorithm) && keyRing != null && keyRing.isEnabled();
+    }
+    
+    /**
+     * ES256: parser memilih public key berdasarkan kid di header, sehingga
+     * beberapa generasi key bisa diterima bersamaan selama rotasi
+     */
+    private SigningMaterial buildAsymmetricSigningMaterial() {
+        SigningKeyResolver resolver = new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                if (!SignatureAlgorithm.ES256.getValue().equals(header.getAlgorithm())) {
+                    throw new UnsupportedJwtException("Unexpected JWT algorithm: " + header.getAlgorithm());
+                }
+                Key publicKey = keyRing.publicKey(header.getKeyId());
+                if (publicKey == null) {
+                    throw new SignatureException("Unknown JWT key id: " + header.getKeyId());
+                }
+                return publicKey;
+            }
+        };
+        
+        JwtParser parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(resolver)
+                .requireIssuer(issuer)
+                .requireAudience(AUDIENCE)
+                .build();
+        JwtParser signatureOnlyParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(resolver)
+                .build();
+        
+        return new SigningMaterial(secret, issuer, true, null, parser, signatureOnlyParser, null);
+    }
+    
+    private SigningMaterial buildSigningMaterial() {
         if (secret == null || secret.isEmpty()) {
             logger.error("JWT secret is null or empty. Please configure 'app.jwt.secret' in application.properties.");
             throw new IllegalStateException("JWT secret cannot be empty. Please configure 'app.jwt.secret' with a Base64 encoded key.");
@@ -50,8 +145,24 @@ public class JwtUtil {
             }
             
             // Create an HMAC-SHA key from the decoded bytes.
-            return Keys.hmacShaKeyFor(keyBytes);
+            Key key = Keys.hmacShaKeyFor(keyBytes);
+            
+            // JwtParser immutable dan thread-safe, aman dipakai bersama
+            JwtParser parser = Jwts.parserBuilder()
+                    .setSigningKey(key)
+                    .requireIssuer(issuer)
+                    .requireAudience(AUDIENCE)
+                    .build();
+            JwtParser signatureOnlyParser = Jwts.parserBuilder()
+                    .setSigningKey(key)
+                    .build();
+            
+            Hs512FastVerifier fastVerifier = new Hs512FastVerifier(keyBytes, issuer, AUDIENCE);
+            
+            return new SigningMaterial(secret, issuer, false, key, parser, signatureOnlyParser, fastVerifier);
             
+        } catch (IllegalStateException e) {
+            throw e;
         } catch (IllegalArgumentException e) {
             // This catches errors if the 'secret' string is not a valid Base64 format.
             logger.error("Invalid Base64 string provided for 'app.jwt.secret'. Please ensure it's a valid Base64 encoded key: {}", e.getMessage());
@@ -68,19 +179,44 @@ public class JwtUtil {
      * Generate JWT token with enhanced security
      */
     public String generateToken(String email) {
+        return generateToken(email, null, null);
+    }
+    
+    /**
+     * Generate JWT token yang juga membawa customer id dan versi kredensial,
+     * sehingga JwtAuthFilter bisa membangun principal tanpa query database
+     */
+    public String generateToken(String email, Long customerId, Long credentialVersion) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
         
         try {
-            return Jwts.builder()
+            JwtBuilder builder = Jwts.builder()
+                    .setId(UUID.randomUUID().toString()) // jti untuk revocation saat logout
                     .setSubject(email)
                     .setIssuer(issuer)
                     .setAudience(AUDIENCE)
                     .setIssuedAt(now)
                     .setExpiration(expiryDate)
                     .setNotBefore(now) // Token not valid before current time
-                    .claim("type", "access_token")
-                    .signWith(getSigningKey(), SignatureAlgorithm.HS512) // Use HS512 for better security
+                    .claim("type", "access_token");
+            
+            if (customerId != null && credentialVersion != null) {
+                builder.claim(CLAIM_CUSTOMER_ID, customerId)
+                       .claim(CLAIM_CREDENTIAL_VERSION, credentialVersion);
+            }
+            
+            SigningMaterial material = signingMaterial();
+            if (material.asymmetric) {
+                JwtKeyRing.KeyGeneration signingKey = keyRing.activeSigningKey();
+                return builder
+                        .setHeaderParam(JwsHeader.KEY_ID, signingKey.getKid())
+                        .signWith(signingKey.getPrivateKey(), SignatureAlgorithm.ES256)
+                        .compact();
+            }
+            
+            return builder
+                    .signWith(material.key, SignatureAlgorithm.HS512) // Use HS512 for better security
                     .compact();
         } catch (Exception e) {
             logger.error("Error generating JWT token for email: {}", email, e);
@@ -89,29 +225,46 @@ public class JwtUtil {
     }
     
     /**
-     * Extract email from token with comprehensive validation
+     * Verify token sekali (signature, issuer, audience, expiry, type) dan
+     * kembalikan claims yang sudah terverifikasi. Null jika token tidak valid.
      */
-    public String getEmailFromToken(String token) {
+    public VerifiedToken verify(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .requireIssuer(issuer)
-                    .requireAudience(AUDIENCE)
-                    .build()
+            SigningMaterial material = signingMaterial();
+            
+            if (fastPathEnabled && material.fastVerifier != null) {
+                VerifiedToken fast = material.fastVerifier.verify(token);
+                if (fast == Hs512FastVerifier.REJECTED) {
+                    logger.debug("JWT rejected by HS512 fast path");
+                    return null;
+                }
+                if (fast != null) {
+                    return fast;
+                }
+                // null: bentuk token tidak biasa, lanjut ke jjwt
+            }
+            
+            Claims claims = material.parser
                     .parseClaimsJws(token)
                     .getBody();
             
-            // Additional validation
             String tokenType = claims.get("type", String.class);
             if (!"access_token".equals(tokenType)) {
                 logger.warn("Invalid token type: {}", tokenType);
                 return null;
             }
             
-            return claims.getSubject();
+            return new VerifiedToken(
+                    claims.getSubject(),
+                    claims.getExpiration(),
+                    tokenType,
+                    claims.getIssuedAt(),
+                    claims.get(CLAIM_CUSTOMER_ID, Long.class),
+                    claims.get(CLAIM_CREDENTIAL_VERSION, Long.class),
+                    claims.getId());
             
         } catch (ExpiredJwtException e) {
-            logger.warn("JWT token expired: {}", e.getMessage());
+            logger.debug("JWT token expired: {}", e.getMessage());
             return null;
         } catch (UnsupportedJwtException e) {
             logger.warn("Unsupported JWT token: {}", e.getMessage());
@@ -126,29 +279,26 @@ public class JwtUtil {
             logger.warn("JWT claims string is empty or invalid: {}", e.getMessage());
             return null;
         } catch (Exception e) {
-            logger.error("Unexpected error extracting email from JWT: {}", e.getMessage());
+            logger.error("Unexpected error verifying JWT: {}", e.getMessage());
             return null;
         }
     }
     
+    /**
+     * Extract email from token with comprehensive validation
+     */
+    public String getEmailFromToken(String token) {
+        VerifiedToken verified = verify(token);
+        return verified != null ? verified.getSubject() : null;
+    }
+    
     /**
      * Comprehensive token validation
      */
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .requireIssuer(issuer)
-                    .requireAudience(AUDIENCE)
-                    .build()
-                    .parseClaimsJws(token);
-            
-            // Additional checks
-            if (isTokenExpired(token)) {
-                logger.debug("Token is expired");
-                return false;
-            }
-            
+            // parseClaimsJws sudah menolak token expired, tidak perlu parse ulang
+            signingMaterial().parser.parseClaimsJws(token);
             return true;
             
         } catch (ExpiredJwtException e) {
@@ -177,9 +327,7 @@ public class JwtUtil {
      */
     public boolean isTokenExpired(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
+            Claims claims = signingMaterial().signatureOnlyParser
                     .parseClaimsJws(token)
                     .getBody();
             
@@ -196,9 +344,7 @@ public class JwtUtil {
      */
     public Date getExpirationDateFromToken(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
+            Claims claims = signingMaterial().signatureOnlyParser
                     .parseClaimsJws(token)
                     .getBody();
             
@@ -215,11 +361,41 @@ public class JwtUtil {
      */
     public boolean validateTokenForUser(String token, String email) {
         try {
-            String tokenEmail = getEmailFromToken(token);
-            return email.equals(tokenEmail) && validateToken(token);
+            VerifiedToken verified = verify(token);
+            return verified != null && email.equals(verified.getSubject());
         } catch (Exception e) {
             logger.warn("Error validating token for user {}: {}", email, e.getMessage());
             return false;
         }
     }
+    
+    /**
+     * Key dan parser yang sudah dibangun untuk kombinasi secret/issuer tertentu
+     */
+    private static final class SigningMaterial {
+        private final String secret;
+        private final String issuer;
+        private final boolean asymmetric;
+        private final Key key; // Null untuk ES256 (key dipilih per kid)
+        private final JwtParser parser;
+        private final JwtParser signatureOnlyParser;
+        private final Hs512FastVerifier fastVerifier; // Null untuk ES256
+        
+        private SigningMaterial(String secret, String issuer, boolean asymmetric, Key key,
+                                JwtParser parser, JwtParser signatureOnlyParser, Hs512FastVerifier fastVerifier) {
+            this.secret = secret;
+            this.issuer = issuer;
+            this.asymmetric = asymmetric;
+            this.key = key;
+            this.parser = parser;
+            this.signatureOnlyParser = signatureOnlyParser;
+            this.fastVerifier = fastVerifier;
+        }
+        
+        private boolean matches(String secret, String issuer, boolean asymmetric) {
+            return this.asymmetric == asymmetric
+                    && Objects.equals(this.secret, secret)
+                    && Objects.equals(this.issuer, issuer);
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package com.reg.regis.security;
+
+import java.util.Date;
+
+/**
+ * Immutable result of a single successful JWT verification.
+ * Dibuat oleh {@link JwtUtil#verify(String)} sehingga filter dan controller
+ * tidak perlu mem-parse ulang token yang sama.
+ */
+public final class VerifiedToken {
+
+    private final String subject;
+    private final Date expiration;
+    private final String type;
+    private final Date issuedAt;
+    private final Long customerId;
+    private final Long credentialVersion;
+    private final String tokenId;
+
+    public VerifiedToken(String subject, Date expiration, String type, Date issuedAt) {
+        this(subject, expiration, type, issuedAt, null, null);
+    }
+
+    public VerifiedToken(String subject, Date expiration, String type, Date issuedAt,
+                         Long customerId, Long credentialVersion) {
+        this(subject, expiration, type, issuedAt, customerId, credentialVersion, null);
+    }
+
+    public VerifiedToken(String subject, Date expiration, String type, Date issuedAt,
+                         Long customerId, Long credentialVersion, String tokenId) {
+        this.subject = subject;
+        this.expiration = expiration != null ? new Date(expiration.getTime()) : null;
+        this.type = type;
+        this.issuedAt = issuedAt != null ? new Date(issuedAt.getTime()) : null;
+        this.customerId = customerId;
+        this.credentialVersion = credentialVersion;
+        this.tokenId = tokenId;
+    }
+
+    public String getSubject() { return subject; }
+    public Date getExpiration() { return expiration != null ? new Date(expiration.getTime()) : null; }
+    public String getType() { return type; }
+    public Date getIssuedAt() { return issuedAt != null ? new Date(issuedAt.getTime()) : null; }
+    public Long getCustomerId() { return customerId; }
+    public Long getCredentialVersion() { return credentialVersion; }
+    /** Claim jti, dipakai untuk revocation (null untuk token lama tanpa jti) */
+    public String getTokenId() { return tokenId; }
+
+    /**
+     * True jika token membawa claim cid + ver (bisa dipakai untuk stateless principal)
+     */
+    public boolean hasCredentialClaims() {
+        return customerId != null && credentialVersion != null;
+    }
+
+    /**
+     * Expiry sebagai epoch millis (tanpa alokasi Date baru)
+     */
+    public long getExpirationMillis() {
+        return expiration != null ? expiration.getTime() : 0L;
+    }
+
+    public boolean isExpired() {
+        return expiration == null || expiration.getTime() <= System.currentTimeMillis();
+    }
+}
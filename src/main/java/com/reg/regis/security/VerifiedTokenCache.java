@@ -0,0 +1,123 @@
+package com.reg.regis.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache hasil verifikasi JWT yang berhasil, supaya token yang sama
+ * (dikirim SPA berkali-kali per session) tidak diverifikasi ulang HMAC-nya.
+ *
+ * - Key adalah SHA-256 dari token, raw token tidak disimpan di memory
+ * - Entry hidup sampai claim exp token itu sendiri
+ * - Hanya token yang lolos verifikasi yang masuk cache, jadi flood token acak
+ *   tidak bisa mengisi cache; ukuran dibatasi dan admission TinyLFU Caffeine
+ *   menjaga entry yang sering dipakai
+ * - Revocation/lockout tetap dicek di luar cache (lihat JwtAuthFilter)
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final boolean enabled;
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(
+            @Value("${app.jwt.cache.enabled:true}") boolean enabled,
+            @Value("${app.jwt.cache.max-size:10000}") long maxSize,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+
+        // cache_gets{result=hit|miss}, cache_evictions, cache_size di /actuator/prometheus
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwtVerification");
+    }
+
+    /**
+     * Ambil claims terverifikasi untuk token ini, null jika belum ada/expired
+     */
+    public VerifiedToken get(String token) {
+        if (!enabled || token == null) {
+            return null;
+        }
+
+        VerifiedToken cached = cache.getIfPresent(digest(token));
+        if (cached != null && cached.isExpired()) {
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Simpan hasil verifikasi yang berhasil (dan belum expired)
+     */
+    public void put(String token, VerifiedToken verifiedToken) {
+        if (!enabled || token == null || verifiedToken == null || verifiedToken.isExpired()) {
+            return;
+        }
+        cache.put(digest(token), verifiedToken);
+    }
+
+    /**
+     * Buang satu token dari cache (mis. saat token di-revoke)
+     */
+    public void invalidate(String token) {
+        if (token != null) {
+            cache.invalidate(digest(token));
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 wajib tersedia di setiap JVM
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Expire entry tepat pada exp token
+     */
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long remainingMillis = value.getExpirationMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
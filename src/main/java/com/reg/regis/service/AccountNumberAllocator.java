@@ -0,0 +1,212 @@
+package com.reg.regis.service;
+
+import com.reg.regis.repository.CustomerRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pembagi kode rekening dengan blok yang disewa dari database (hi/lo).
+ *
+ * Format tetap [Prefix][YYMM][4 digit]: prefix per jenis kartu, suffix
+ * 1000-9999 per bulan. Setiap node menyewa blok suffix (block-size) dari
+ * tabel account_number_ranges lalu membagikannya dari memory, jadi jalur
+ * registrasi tidak lagi menebak acak dan mengecek existsByKodeRekening.
+ * Jika suffix bulan ini habis, nomor diambil dari cadangan [Prefix][6 digit]
+ * (format fallback lama), juga per blok.
+ *
+ * Bucket baru dimulai dari suffix terkecil. Kode rekening lama (acak,
+ * sebelum allocator dipakai) yang jatuh di dalam blok yang disewa dibaca
+ * sekali per blok dan dilewati, jadi bulan deploy tidak langsung habis
+ * hanya karena ada nomor lama di dekat 9999.
+ *
+ * Nomor di blok yang belum terpakai saat node berhenti tidak dipakai ulang.
+ * Unique constraint kode_rekening tetap menjadi pengaman terakhir.
+ */
+@Service
+public class AccountNumberAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountNumberAllocator.class);
+
+    private static final int MONTHLY_FIRST = 1000;
+    private static final int MONTHLY_LAST = 9999;
+    private static final int OVERFLOW_FIRST = 100000;
+    private static final int OVERFLOW_LAST = 999999;
+
+    private final NumberBlockLeaser blockLeaser;
+    private final CustomerRepository customerRepository;
+    private final int blockSize;
+
+    // Blok aktif per prefix jenis kartu
+    private final Map<Integer, Block> blocks = new ConcurrentHashMap<>();
+
+    private final Counter monthlyLeases;
+    private final Counter overflowLeases;
+    private final Counter monthlyExhausted;
+    private final Counter overflowExhausted;
+
+    public AccountNumberAllocator(
+            NumberBlockLeaser blockLeaser,
+            CustomerRepository customerRepository,
+            @Value("${app.account-number.block-size:20}") int blockSize,
+            MeterRegistry meterRegistry) {
+        this.blockLeaser = blockLeaser;
+        this.customerRepository = customerRepository;
+        this.blockSize = Math.max(1, blockSize);
+
+        this.monthlyLeases = leaseCounter(meterRegistry, "monthly");
+        this.overflowLeases = leaseCounter(meterRegistry, "overflow");
+        this.monthlyExhausted = exhaustedCounter(meterRegistry, "monthly");
+        this.overflowExhausted = exhaustedCounter(meterRegistry, "overflow");
+        Gauge.builder("account.number.block.remaining", blocks, map -> map.values().stream().mapToInt(Block::remaining).sum())
+                .description("Kode rekening yang masih tersisa di blok memory node ini")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Prefix kode rekening per jenis kartu (default Silver)
+     */
+    static int prefixFor(String jenisKartu) {
+        if (jenisKartu == null || jenisKartu.trim().isEmpty()) {
+            jenisKartu = "Silver";
+        }
+        return switch (jenisKartu) {
+            case "Silver" -> 10;
+            case "Gold" -> 20;
+            case "Platinum" -> 30;
+            case "Batik Air" -> 40;
+            default -> 10; // Default Silver
+        };
+    }
+
+    /**
+     * Kode rekening berikutnya untuk jenis kartu; DB hanya disentuh saat blok habis
+     */
+    public int next(String jenisKartu) {
+        int prefix = prefixFor(jenisKartu);
+        Block block = blocks.computeIfAbsent(prefix, Block::new);
+
+        synchronized (block) {
+            LocalDate today = LocalDate.now();
+            int yearMonth = (today.getYear() % 100) * 100 + today.getMonthValue();
+            if (block.yearMonth != yearMonth) {
+                block.startMonth(yearMonth);
+            }
+            int code;
+            do {
+                if (block.next > block.last) {
+                    refill(block);
+                }
+                int suffix = block.next++;
+                code = block.overflow ? overflowCode(prefix, suffix) : monthlyCode(prefix, block.yearMonth, suffix);
+            } while (block.taken.contains(code));
+            return code;
+        }
+    }
+
+    private void refill(Block block) {
+        int prefix = block.prefix;
+        if (!block.overflow) {
+            String bucket = prefix + "-" + String.format("%04d", block.yearMonth);
+            int[] range = blockLeaser.lease(bucket, blockSize, MONTHLY_LAST, () -> MONTHLY_FIRST);
+            if (range != null) {
+                monthlyLeases.increment();
+                block.assign(range, existingCodes(monthlyCode(prefix, block.yearMonth, range[0]),
+                        monthlyCode(prefix, block.yearMonth, range[1])));
+                return;
+            }
+            monthlyExhausted.increment();
+            logger.warn("Account number range {} exhausted, switching to overflow range", bucket);
+            block.overflow = true;
+        }
+
+        String bucket = prefix + "-X";
+        int[] range = blockLeaser.lease(bucket, blockSize, OVERFLOW_LAST, () -> OVERFLOW_FIRST);
+        if (range == null) {
+            overflowExhausted.increment();
+            logger.error("Account number overflow range {} exhausted", bucket);
+            throw new IllegalStateException("Kode rekening untuk prefix " + prefix + " sudah habis. Hubungi administrator.");
+        }
+        overflowLeases.increment();
+        block.assign(range, existingCodes(overflowCode(prefix, range[0]), overflowCode(prefix, range[1])));
+    }
+
+    /**
+     * Kode rekening yang sudah dipakai di dalam blok [firstCode..lastCode];
+     * satu range scan di index unique kode_rekening per blok yang disewa
+     */
+    private Set<Integer> existingCodes(int firstCode, int lastCode) {
+        return new HashSet<>(customerRepository.findKodeRekeningBetween(firstCode, lastCode));
+    }
+
+    // Sama dengan format lama: prefix (2) + YYMM (4) + suffix (4), dibatasi ke rentang Integer
+    private static int monthlyCode(int prefix, int yearMonth, int suffix) {
+        long accountCode = (long) prefix * 100000000L + (long) yearMonth * 10000L + suffix;
+        return (int) (accountCode % Integer.MAX_VALUE);
+    }
+
+    // Format cadangan: prefix + 6 digit
+    private static int overflowCode(int prefix, int suffix) {
+        return prefix * 1000000 + suffix;
+    }
+
+    private static Counter leaseCounter(MeterRegistry meterRegistry, String range) {
+        return Counter.builder("account.number.blocks.leased")
+                .description("Blok kode rekening yang disewa dari database")
+                .tag("range", range)
+                .register(meterRegistry);
+    }
+
+    private static Counter exhaustedCounter(MeterRegistry meterRegistry, String range) {
+        return Counter.builder("account.number.range.exhausted")
+                .description("Rentang kode rekening yang habis (monthly: pindah ke overflow)")
+                .tag("range", range)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Blok suffix aktif untuk satu prefix; diakses di bawah lock objek ini
+     */
+    private static final class Block {
+        private final int prefix;
+        private int yearMonth = -1;
+        private boolean overflow;
+        private int next = 1;
+        private int last = 0;
+        private Set<Integer> taken = Set.of();
+
+        private Block(int prefix) {
+            this.prefix = prefix;
+        }
+
+        private void startMonth(int yearMonth) {
+            this.yearMonth = yearMonth;
+            this.overflow = false;
+            this.next = 1;
+            this.last = 0;
+            this.taken = Set.of();
+        }
+
+        private void assign(int[] range, Set<Integer> taken) {
+            this.next = range[0];
+            this.last = range[1];
+            this.taken = taken;
+        }
+
+        private synchronized int remaining() {
+            return Math.max(0, last - next + 1);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.reg.regis.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Cache UserDetails di depan CustomerUserDetailsService untuk JwtAuthFilter.
+ *
+ * Tanpa cache, setiap request terautentikasi me-load ulang Customer lengkap
+ * (termasuk join eager Alamat/Wali) hanya untuk email, hash password dan
+ * status lock. Entry dibuang saat akun dikunci, saat login berhasil mereset
+ * counter, atau saat password berubah; TTL membatasi staleness antar replica.
+ *
+ * Tidak dipakai oleh DaoAuthenticationProvider: provider tersebut menghapus
+ * credentials setelah autentikasi, yang akan merusak objek yang di-cache.
+ */
+@Service
+public class CachingUserDetailsService implements UserDetailsService {
+
+    private final CustomerUserDetailsService delegate;
+    private final boolean enabled;
+    private final Cache<String, UserDetails> cache;
+
+    public CachingUserDetailsService(
+            CustomerUserDetailsService delegate,
+            @Value("${app.security.user-cache.enabled:true}") boolean enabled,
+            @Value("${app.security.user-cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${app.security.user-cache.max-size:10000}") long maxSize,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        // cache_gets{result=hit|miss}, cache_evictions, cache_size di /actuator/prometheus
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        if (!enabled || email == null) {
+            return delegate.loadUserByUsername(email);
+        }
+        // User tidak ditemukan tidak di-cache (exception diteruskan ke caller)
+        return cache.get(normalize(email), delegate::loadUserByUsername);
+    }
+
+    /**
+     * Buang cache untuk email ini (lock, reset counter, ganti password).
+     * Entry dibuang sekarang dan sekali lagi setelah commit, supaya request
+     * yang me-load di tengah transaksi tidak menyimpan row lama sampai TTL.
+     */
+    public void evict(String email) {
+        if (email == null) {
+            return;
+        }
+        String key = normalize(email);
+        cache.invalidate(key);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(key);
+                }
+            });
+        }
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,201 @@
+package com.reg.regis.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Nomor kartu debit virtual 16 digit: [BIN 4][nomor akun 11][Luhn 1].
+ *
+ * Nomor akun berasal dari counter per BIN (blok disewa lewat
+ * NumberBlockLeaser) yang diacak dengan permutasi Feistel ber-key atas
+ * ruang 0..10^11-1. Karena permutasi adalah bijeksi, counter berbeda selalu
+ * menghasilkan nomor berbeda tanpa cek ke database, tetapi nomor yang
+ * berurutan tidak terlihat berurutan. Digit terakhir adalah check digit Luhn.
+ *
+ * Key (app.card-number.key) harus sama di semua node dan tidak boleh
+ * diganti setelah kartu diterbitkan: key lain berarti permutasi lain dan
+ * nomor bisa bentrok dengan kartu lama.
+ */
+@Service
+public class CardNumberGenerator {
+
+    // 11 digit nomor akun
+    static final long ACCOUNT_SPACE = 100_000_000_000L;
+
+    // Feistel biner 2 x 19 bit (2^38 >= 10^11); hasil di luar ruang di-enkripsi ulang (cycle walking)
+    private static final int HALF_BITS = 19;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    private static final int ROUNDS = 8;
+    private static final int MIN_KEY_LENGTH = 16;
+
+    private final NumberBlockLeaser blockLeaser;
+    private final int blockSize;
+    private final long[] roundKeys = new long[ROUNDS];
+
+    // Blok counter aktif per BIN
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    private final Counter blocksLeased;
+
+    public CardNumberGenerator(
+            NumberBlockLeaser blockLeaser,
+            @Value("${app.card-number.key}") String key,
+            @Value("${app.card-number.block-size:50}") int blockSize,
+            MeterRegistry meterRegistry) {
+        if (key == null || key.length() < MIN_KEY_LENGTH) {
+            throw new IllegalStateException("app.card-number.key minimal " + MIN_KEY_LENGTH + " karakter");
+        }
+        this.blockLeaser = blockLeaser;
+        this.blockSize = Math.max(1, blockSize);
+        deriveRoundKeys(key);
+
+        this.blocksLeased = Counter.builder("card.number.blocks.leased")
+                .description("Blok counter nomor kartu yang disewa dari database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * BIN (4 digit pertama) per jenis kartu
+     */
+    static String binFor(String jenisKartu) {
+        if (jenisKartu == null) {
+            return "4101";
+        }
+        return switch (jenisKartu) {
+            case "Silver" -> "4101";      // 4101 xxxx xxxx xxxx
+            case "Gold" -> "4102";        // 4102 xxxx xxxx xxxx
+            case "Platinum" -> "4103";    // 4103 xxxx xxxx xxxx
+            case "Batik Air" -> "4104";   // 4104 xxxx xxxx xxxx
+            case "GPN" -> "4105";         // 4105 xxxx xxxx xxxx
+            default -> "4101";            // Default Silver
+        };
+    }
+
+    /**
+     * Nomor kartu berikutnya, format xxxx xxxx xxxx xxxx
+     */
+    public String next(String jenisKartu) {
+        String bin = binFor(jenisKartu);
+        return format(bin, permute(nextCounter(bin)));
+    }
+
+    private long nextCounter(String bin) {
+        Block block = blocks.computeIfAbsent(bin, key -> new Block());
+        synchronized (block) {
+            if (block.next > block.last) {
+                // Batas atas menyisakan ruang untuk next_value + blockSize di kolom INTEGER
+                int[] range = blockLeaser.lease("card-" + bin, blockSize, Integer.MAX_VALUE - blockSize - 1, () -> 0);
+                if (range == null) {
+                    throw new IllegalStateException("Nomor kartu untuk BIN " + bin + " sudah habis. Hubungi administrator.");
+                }
+                blocksLeased.increment();
+                block.next = range[0];
+                block.last = range[1];
+            }
+            return block.next++;
+        }
+    }
+
+    /**
+     * Permutasi ber-key atas [0, ACCOUNT_SPACE): Feistel 38 bit dengan cycle walking
+     */
+    long permute(long counter) {
+        if (counter < 0 || counter >= ACCOUNT_SPACE) {
+            throw new IllegalArgumentException("Counter di luar ruang nomor akun: " + counter);
+        }
+        long value = counter;
+        do {
+            value = feistel(value);
+        } while (value >= ACCOUNT_SPACE);
+        return value;
+    }
+
+    private long feistel(long value) {
+        long left = value >>> HALF_BITS;
+        long right = value & HALF_MASK;
+        for (int round = 0; round < ROUNDS; round++) {
+            long mixed = left ^ (mix(right ^ roundKeys[round]) & HALF_MASK);
+            left = right;
+            right = mixed;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    // Finalizer SplitMix64: difusi penuh 64 bit
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private void deriveRoundKeys(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-512").digest(key.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            for (int round = 0; round < ROUNDS; round++) {
+                roundKeys[round] = buffer.getLong();
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-512 not available", e);
+        }
+    }
+
+    static String format(String bin, long accountNumber) {
+        String digits = bin + String.format("%011d", accountNumber);
+        digits = digits + luhnCheckDigit(digits);
+        return digits.substring(0, 4) + " " +
+               digits.substring(4, 8) + " " +
+               digits.substring(8, 12) + " " +
+               digits.substring(12, 16);
+    }
+
+    /**
+     * Check digit Luhn untuk payload (tanpa check digit)
+     */
+    static int luhnCheckDigit(String payload) {
+        int sum = 0;
+        boolean doubleIt = true; // digit paling kanan payload digandakan
+        for (int i = payload.length() - 1; i >= 0; i--) {
+            int digit = payload.charAt(i) - '0';
+            if (doubleIt) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubleIt = !doubleIt;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    /**
+     * Validasi Luhn nomor kartu (spasi diabaikan)
+     */
+    static boolean isLuhnValid(String cardNumber) {
+        String digits = cardNumber.replace(" ", "");
+        if (digits.length() < 2 || !digits.chars().allMatch(Character::isDigit)) {
+            return false;
+        }
+        int checkDigit = digits.charAt(digits.length() - 1) - '0';
+        return luhnCheckDigit(digits.substring(0, digits.length() - 1)) == checkDigit;
+    }
+
+    /**
+     * Counter aktif satu BIN; diakses di bawah lock objek ini
+     */
+    private static final class Block {
+        private long next = 1;
+        private long last = 0;
+    }
+}
@@ -0,0 +1,79 @@
+package com.reg.regis.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.reg.regis.repository.CustomerRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Tabel versi kredensial (lock/password) per customer di memory.
+ *
+ * Dipakai JwtAuthFilter pada mode stateless principal: token membawa claim
+ * versi kredensial, dan selama versi di token sama dengan versi di sini,
+ * principal dibangun langsung dari claims tanpa query ke database.
+ *
+ * Versi dinaikkan saat akun dikunci atau password berubah. Entry di-refresh
+ * dari database setelah TTL singkat agar replica lain juga melihat perubahan.
+ */
+@Service
+public class CredentialVersionRegistry {
+
+    private final LoadingCache<Long, Optional<Long>> versions;
+
+    public CredentialVersionRegistry(
+            CustomerRepository customerRepository,
+            @Value("${app.jwt.stateless-principal.version-ttl-seconds:30}") long ttlSeconds,
+            @Value("${app.jwt.stateless-principal.max-size:100000}") long maxSize,
+            MeterRegistry meterRegistry) {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                // PK lookup satu kolom, tanpa join Alamat/Wali
+                .build(customerRepository::findCredentialVersionById);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "credentialVersion");
+    }
+
+    /**
+     * True jika versi di token masih versi kredensial terbaru customer
+     */
+    public boolean isCurrent(Long customerId, Long tokenVersion) {
+        if (customerId == null || tokenVersion == null) {
+            return false;
+        }
+        Optional<Long> current = versions.get(customerId);
+        return current != null && current.isPresent() && current.get().equals(tokenVersion);
+    }
+
+    /**
+     * Dipanggil setelah versi kredensial berubah (lock, ganti password).
+     * Entry dibuang sekarang dan sekali lagi setelah commit, supaya request
+     * yang membaca di tengah transaksi tidak menyimpan versi lama.
+     */
+    public void onCredentialsChanged(Long customerId) {
+        if (customerId == null) {
+            return;
+        }
+        versions.invalidate(customerId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.invalidate(customerId);
+                }
+            });
+        }
+    }
+}
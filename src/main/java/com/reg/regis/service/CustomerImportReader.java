@@ -0,0 +1,222 @@
+package com.reg.regis.service;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.reg.regis.dto.request.RegistrationRequest;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Pembaca file import customer baris demi baris (tanpa memuat seluruh file).
+ *
+ * - JSONL: satu objek RegistrationRequest per baris
+ * - CSV  : baris pertama header; kolom alamat/wali memakai nama bertitik
+ *          (alamat.kota, wali.namaLengkapWali), field kosong dianggap null
+ *
+ * Kolom/field opsional passwordHash berisi hash dari sistem asal
+ * ({bcrypt}..., {argon2}... atau $2a$...) sehingga password tidak perlu
+ * di-hash ulang.
+ */
+final class CustomerImportReader implements Closeable {
+
+    static final String PASSWORD_HASH_FIELD = "passwordHash";
+
+    private final BufferedReader reader;
+    private final CustomerImportService.Format format;
+    private final ObjectMapper objectMapper;
+
+    private int lineNumber;
+    private int recordStartLine;
+    private List<String> header;
+
+    CustomerImportReader(Reader reader, CustomerImportService.Format format, ObjectMapper objectMapper) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Baris berikutnya, atau null di akhir file
+     */
+    Row next() throws IOException {
+        return format == CustomerImportService.Format.JSONL ? nextJsonLine() : nextCsvRecord();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Row nextJsonLine() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while (line.isBlank());
+
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            return Row.failed(lineNumber, "Format JSON tidak valid");
+        }
+        if (!(node instanceof ObjectNode object)) {
+            return Row.failed(lineNumber, "Baris harus berupa objek JSON");
+        }
+        return toRow(lineNumber, object);
+    }
+
+    private Row nextCsvRecord() throws IOException {
+        if (header == null) {
+            List<String> names = readCsvRecord();
+            if (names == null) {
+                return null;
+            }
+            // BOM UTF-8 dari Excel
+            if (!names.isEmpty() && names.get(0).startsWith("\uFEFF")) {
+                names.set(0, names.get(0).substring(1));
+            }
+            header = names.stream().map(String::trim).collect(Collectors.toList());
+        }
+
+        List<String> values = readCsvRecord();
+        if (values == null) {
+            return null;
+        }
+        // Record dengan field multi-baris dilaporkan dengan baris awalnya
+        int recordLine = recordStartLine;
+        if (values.size() != header.size()) {
+            return Row.failed(recordLine, "Jumlah kolom (" + values.size() + ") tidak sesuai header (" + header.size() + ")");
+        }
+
+        ObjectNode object = objectMapper.createObjectNode();
+        for (int i = 0; i < header.size(); i++) {
+            String value = values.get(i);
+            if (value.isEmpty()) {
+                continue;
+            }
+            String name = header.get(i);
+            int dot = name.indexOf('.');
+            if (dot > 0) {
+                ObjectNode parent = object.has(name.substring(0, dot))
+                        ? (ObjectNode) object.get(name.substring(0, dot))
+                        : object.putObject(name.substring(0, dot));
+                parent.put(name.substring(dot + 1), value);
+            } else {
+                object.put(name, value);
+            }
+        }
+        return toRow(recordLine, object);
+    }
+
+    /**
+     * Satu record CSV (RFC 4180: field ber-quote boleh berisi koma, "" dan
+     * baris baru). Baris kosong dilewati. Null di akhir file.
+     */
+    private List<String> readCsvRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        int c;
+
+        while ((c = reader.read()) != -1) {
+            if (!any) {
+                recordStartLine = ++lineNumber;
+                any = true;
+            }
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r') {
+                // CRLF: \n berikutnya yang mengakhiri record
+            } else if (c == '\n') {
+                if (fields.isEmpty() && field.length() == 0) {
+                    any = false;
+                    continue;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+
+        if (!any || (fields.isEmpty() && field.length() == 0)) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private Row toRow(int line, ObjectNode object) {
+        JsonNode hash = object.remove(PASSWORD_HASH_FIELD);
+        String passwordHash = hash != null && hash.isTextual() && !hash.asText().isBlank() ? hash.asText() : null;
+
+        try {
+            RegistrationRequest request = objectMapper.treeToValue(object, RegistrationRequest.class);
+            return new Row(line, request, passwordHash, null);
+        } catch (JsonMappingException e) {
+            String field = e.getPath().stream()
+                    .map(reference -> reference.getFieldName() != null ? reference.getFieldName() : String.valueOf(reference.getIndex()))
+                    .collect(Collectors.joining("."));
+            return Row.failed(line, field.isEmpty() ? "Format data tidak valid" : "Format data tidak valid pada field " + field);
+        } catch (IOException | IllegalArgumentException e) {
+            return Row.failed(line, "Format data tidak valid");
+        }
+    }
+
+    /**
+     * Satu baris input: request hasil parsing atau pesan error parsing
+     */
+    static final class Row {
+        private final int line;
+        private final RegistrationRequest request;
+        private final String passwordHash;
+        private final String error;
+
+        Row(int line, RegistrationRequest request, String passwordHash, String error) {
+            this.line = line;
+            this.request = request;
+            this.passwordHash = passwordHash;
+            this.error = error;
+        }
+
+        static Row failed(int line, String error) {
+            return new Row(line, null, null, error);
+        }
+
+        int getLine() { return line; }
+        RegistrationRequest getRequest() { return request; }
+        String getPasswordHash() { return passwordHash; }
+        String getError() { return error; }
+    }
+}
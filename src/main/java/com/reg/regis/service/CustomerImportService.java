@@ -0,0 +1,580 @@
+package com.reg.regis.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reg.regis.dto.request.RegistrationRequest;
+import com.reg.regis.dto.response.DukcapilResponseDto;
+import com.reg.regis.model.Customer;
+import com.reg.regis.repository.CustomerRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Import massal customer (migrasi cabang) dari JSONL atau CSV.
+ *
+ * File dibaca bertahap dan diproses per batch:
+ * 1. Validasi bean RegistrationRequest (sama dengan /auth/register) dan
+ *    duplikat di dalam file
+ * 2. Duplikat email / nomor telepon / NIK di database: satu query per kolom
+ * 3. Verifikasi Dukcapil paralel (dibatasi dukcapil-concurrency, maksimal
+ *    separuh bulkhead Dukcapil supaya registrasi online tetap dapat slot),
+ *    disusul hashing password paralel sebanyak thread pool hashing; baris yang
+ *    membawa passwordHash dari sistem asal tidak di-hash ulang.
+ *    Dukcapil yang menolak sementara (circuit terbuka / bulkhead penuh) bukan
+ *    kegagalan baris: baris diulang dengan backoff, dan jika tetap tidak
+ *    tersedia import dihentikan (baris yang belum terverifikasi "skipped")
+ * 4. Kode rekening (AccountNumberAllocator) dan nomor kartu (CardNumberGenerator)
+ * 5. Alamat, Wali, Customer disimpan dalam satu transaksi; Hibernate mengirim
+ *    insert sebagai JDBC batch (id dari sequence pooled);
+ *    jika batch ditolak (mis. bentrok dengan registrasi online), baris
+ *    di-insert satu per satu supaya hanya baris bermasalah yang gagal
+ *
+ * Hasil per baris dikirim ke Listener segera setelah batch-nya selesai.
+ */
+@Service
+public class CustomerImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerImportService.class);
+
+    public enum Format { JSONL, CSV }
+
+    // Hash dalam format DelegatingPasswordEncoder atau bcrypt lama tanpa prefix
+    private static final Pattern ENCODED_PASSWORD =
+            Pattern.compile("^(\\{(bcrypt|argon2)}\\S+|\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53})$");
+
+    private static final String DUKCAPIL_UNAVAILABLE_MESSAGE = "Dukcapil service tidak tersedia. Silakan coba lagi nanti.";
+
+    private final CustomerRepository customerRepository;
+    private final DukcapilClientService dukcapilClientService;
+    private final PasswordHashingService passwordHashingService;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final CardNumberGenerator cardNumberGenerator;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final int dukcapilConcurrency;
+    private final int dukcapilMaxAttempts;
+    private final long dukcapilMaxBackoffMs;
+
+    private final Counter rowsCreated;
+    private final Counter rowsFailed;
+    private final Counter rowsSkipped;
+    private final Counter dukcapilRetries;
+    private final Timer batchTimer;
+
+    public CustomerImportService(
+            CustomerRepository customerRepository,
+            DukcapilClientService dukcapilClientService,
+            PasswordHashingService passwordHashingService,
+            AccountNumberAllocator accountNumberAllocator,
+            CardNumberGenerator cardNumberGenerator,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            Validator validator,
+            @Value("${app.admin.import.batch-size:500}") int batchSize,
+            @Value("${app.admin.import.dukcapil-concurrency:8}") int dukcapilConcurrency,
+            @Value("${app.admin.import.dukcapil-max-attempts:5}") int dukcapilMaxAttempts,
+            @Value("${app.admin.import.dukcapil-max-backoff-ms:30000}") long dukcapilMaxBackoffMs,
+            @Value("${app.dukcapil.bulkhead.max-concurrent:20}") int dukcapilBulkheadSize,
+            MeterRegistry meterRegistry) {
+        this.customerRepository = customerRepository;
+        this.dukcapilClientService = dukcapilClientService;
+        this.passwordHashingService = passwordHashingService;
+        this.accountNumberAllocator = accountNumberAllocator;
+        this.cardNumberGenerator = cardNumberGenerator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Kolom tak dikenal di file import diabaikan, bukan menggagalkan baris
+        this.objectMapper = objectMapper.copy().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.validator = validator;
+        this.batchSize = Math.max(1, batchSize);
+        // Import tidak boleh memenuhi bulkhead: separuh slot tetap untuk registrasi online
+        int importShare = Math.max(1, dukcapilBulkheadSize / 2);
+        this.dukcapilConcurrency = Math.min(Math.max(1, dukcapilConcurrency), importShare);
+        if (this.dukcapilConcurrency < dukcapilConcurrency) {
+            logger.warn("app.admin.import.dukcapil-concurrency={} capped to {} (half of Dukcapil bulkhead {})",
+                    dukcapilConcurrency, this.dukcapilConcurrency, dukcapilBulkheadSize);
+        }
+        this.dukcapilMaxAttempts = Math.max(1, dukcapilMaxAttempts);
+        this.dukcapilMaxBackoffMs = Math.max(0, dukcapilMaxBackoffMs);
+
+        this.rowsCreated = Counter.builder("customer.import.rows")
+                .description("Baris import customer per hasil")
+                .tag("outcome", "created")
+                .register(meterRegistry);
+        this.rowsFailed = Counter.builder("customer.import.rows")
+                .description("Baris import customer per hasil")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.rowsSkipped = Counter.builder("customer.import.rows")
+                .description("Baris import customer per hasil")
+                .tag("outcome", "skipped")
+                .register(meterRegistry);
+        this.dukcapilRetries = Counter.builder("customer.import.dukcapil.retries")
+                .description("Verifikasi Dukcapil import yang diulang karena Dukcapil menolak sementara")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("customer.import.batch.duration")
+                .description("Waktu proses satu batch import (validasi sampai insert)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Import seluruh isi input; hasil tiap baris dikirim ke listener per batch
+     */
+    public Summary importCustomers(Reader input, Format format, Listener listener) throws IOException {
+        long startedAt = System.nanoTime();
+        ImportState state = new ImportState();
+
+        try (CustomerImportReader reader = new CustomerImportReader(input, format, objectMapper);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CustomerImportReader.Row> batch = new ArrayList<>(batchSize);
+            CustomerImportReader.Row row;
+            while (state.abortReason == null && (row = reader.next()) != null) {
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    processBatch(batch, state, executor, listener);
+                    batch.clear();
+                }
+            }
+            if (state.abortReason == null && !batch.isEmpty()) {
+                processBatch(batch, state, executor, listener);
+            }
+        }
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        if (state.abortReason != null) {
+            logger.warn("Customer import aborted after {} rows ({} created, {} failed, {} skipped): {}",
+                    state.total, state.created, state.failed, state.skipped, state.abortReason);
+        } else {
+            logger.info("Customer import finished: {} rows, {} created, {} failed in {} ms",
+                    state.total, state.created, state.failed, durationMs);
+        }
+        return new Summary(state.total, state.created, state.failed, state.skipped, state.abortReason, durationMs);
+    }
+
+    private void processBatch(List<CustomerImportReader.Row> rows, ImportState state,
+                              ExecutorService executor, Listener listener) throws IOException {
+        long startedAt = System.nanoTime();
+        List<Pending> batch = rows.stream().map(Pending::new).collect(Collectors.toList());
+
+        validate(batch, state);
+        rejectExisting(live(batch));
+        verifyAndHash(live(batch), executor);
+        abortIfDukcapilUnavailable(batch, state);
+        assignAccountNumbers(live(batch));
+        insert(live(batch));
+
+        batchTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+
+        for (Pending pending : batch) {
+            state.total++;
+            if (pending.skipped) {
+                state.skipped++;
+                rowsSkipped.increment();
+            } else if (pending.error == null) {
+                state.created++;
+                rowsCreated.increment();
+            } else {
+                state.failed++;
+                rowsFailed.increment();
+            }
+            listener.onRow(pending.toResult());
+        }
+        listener.onBatchCompleted();
+    }
+
+    /**
+     * Validasi bean (sama dengan @Valid di controller) dan duplikat di dalam file
+     */
+    private void validate(List<Pending> batch, ImportState state) {
+        for (Pending pending : batch) {
+            CustomerImportReader.Row row = pending.row;
+            if (row.getError() != null) {
+                pending.error = row.getError();
+                continue;
+            }
+
+            RegistrationRequest request = row.getRequest();
+            boolean preHashed = row.getPasswordHash() != null;
+            if (preHashed && !ENCODED_PASSWORD.matcher(row.getPasswordHash()).matches()) {
+                pending.error = "passwordHash tidak dikenali (harus {bcrypt}, {argon2} atau $2a$)";
+                continue;
+            }
+
+            String violations = validator.validate(request).stream()
+                    .filter(violation -> !(preHashed && "password".equals(violation.getPropertyPath().toString())))
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            if (!violations.isEmpty()) {
+                pending.error = violations;
+                continue;
+            }
+
+            if (!state.emails.add(request.getEmail().toLowerCase())) {
+                pending.error = "Email " + request.getEmail() + " muncul lebih dari sekali di file import.";
+            } else if (!state.nomorTelepon.add(request.getNomorTelepon())) {
+                pending.error = "Nomor telepon " + request.getNomorTelepon() + " muncul lebih dari sekali di file import.";
+            } else if (!state.niks.add(request.getNik())) {
+                pending.error = "NIK " + request.getNik() + " muncul lebih dari sekali di file import.";
+            }
+        }
+    }
+
+    /**
+     * Duplikat terhadap customer yang sudah terdaftar, satu query per kolom untuk satu batch
+     */
+    private void rejectExisting(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Set<String> emails = new HashSet<>(customerRepository.findExistingEmails(
+                collect(batch, p -> p.request().getEmail().toLowerCase())));
+        Set<String> nomorTelepon = new HashSet<>(customerRepository.findExistingNomorTelepon(
+                collect(batch, p -> p.request().getNomorTelepon())));
+        Set<String> niks = new HashSet<>(customerRepository.findExistingNiks(
+                collect(batch, p -> p.request().getNik())));
+
+        for (Pending pending : batch) {
+            RegistrationRequest request = pending.request();
+            if (emails.contains(request.getEmail().toLowerCase())) {
+                pending.error = RegistrationService.emailTaken(request).getMessage();
+            } else if (nomorTelepon.contains(request.getNomorTelepon())) {
+                pending.error = RegistrationService.nomorTeleponTaken(request).getMessage();
+            } else if (niks.contains(request.getNik())) {
+                pending.error = RegistrationService.nikTaken(request).getMessage();
+            }
+        }
+    }
+
+    /**
+     * Verifikasi Dukcapil lalu hashing per baris di virtual thread;
+     * semaphore membatasi panggilan Dukcapil dan hashing yang berjalan bersamaan
+     */
+    private void verifyAndHash(List<Pending> batch, ExecutorService executor) {
+        Semaphore dukcapilPermits = new Semaphore(dukcapilConcurrency);
+        Semaphore hashingPermits = new Semaphore(Math.max(1, passwordHashingService.getParallelism()));
+        AtomicBoolean dukcapilGaveUp = new AtomicBoolean();
+
+        CompletableFuture<?>[] tasks = batch.stream()
+                .map(pending -> CompletableFuture.runAsync(
+                        () -> verifyAndHash(pending, dukcapilPermits, hashingPermits, dukcapilGaveUp), executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(tasks).join();
+    }
+
+    private void verifyAndHash(Pending pending, Semaphore dukcapilPermits, Semaphore hashingPermits,
+                               AtomicBoolean dukcapilGaveUp) {
+        RegistrationRequest request = pending.request();
+        try {
+            DukcapilResponseDto response = verifyWithRetry(request, dukcapilPermits, dukcapilGaveUp);
+            if (response == null || !response.isValid()) {
+                pending.error = "Verifikasi Dukcapil gagal: " + (response != null ? response.getMessage() : "tidak ada response");
+                return;
+            }
+            pending.dukcapilResponse = response;
+
+            if (pending.row.getPasswordHash() != null) {
+                pending.encodedPassword = pending.row.getPasswordHash();
+                return;
+            }
+            hashingPermits.acquire();
+            try {
+                pending.encodedPassword = passwordHashingService.encode(request.getPassword());
+            } finally {
+                hashingPermits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.error = "Import dihentikan";
+        } catch (DukcapilUnavailableException e) {
+            // Belum diverifikasi, bukan ditolak: baris ini harus diulang
+            pending.skipped = true;
+            pending.error = e.getMessage();
+        } catch (RuntimeException e) {
+            pending.error = e.getMessage();
+        }
+    }
+
+    /**
+     * Panggilan Dukcapil yang ditolak sementara (circuit terbuka / bulkhead penuh)
+     * diulang setelah Retry-After (maksimal dukcapil-max-backoff-ms, dengan jitter)
+     * sampai dukcapil-max-attempts. Begitu satu baris menyerah, baris lain di
+     * batch berhenti mencoba supaya Dukcapil tidak terus dibebani.
+     *
+     * @throws DukcapilUnavailableException jika Dukcapil tetap tidak tersedia
+     */
+    private DukcapilResponseDto verifyWithRetry(RegistrationRequest request, Semaphore dukcapilPermits,
+                                                AtomicBoolean dukcapilGaveUp) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            if (dukcapilGaveUp.get()) {
+                throw new DukcapilUnavailableException(DUKCAPIL_UNAVAILABLE_MESSAGE, 1);
+            }
+            long retryAfterSeconds;
+            dukcapilPermits.acquire();
+            try {
+                return dukcapilClientService.verifyNikNameAndBirthDate(
+                        request.getNik(), request.getNamaLengkap(), request.getTanggalLahir());
+            } catch (DukcapilUnavailableException e) {
+                if (attempt >= dukcapilMaxAttempts) {
+                    dukcapilGaveUp.set(true);
+                    throw e;
+                }
+                retryAfterSeconds = e.getRetryAfterSeconds();
+            } finally {
+                dukcapilPermits.release();
+            }
+            dukcapilRetries.increment();
+            long backoffMs = Math.min(TimeUnit.SECONDS.toMillis(retryAfterSeconds), dukcapilMaxBackoffMs);
+            // Jitter: baris yang ditolak bersamaan tidak kembali bersamaan
+            Thread.sleep(backoffMs / 2 + ThreadLocalRandom.current().nextLong(backoffMs / 2 + 1));
+        }
+    }
+
+    /**
+     * Dukcapil tetap tidak tersedia setelah retry: baris lain di batch yang
+     * sudah terverifikasi tetap disimpan, lalu import berhenti. Import bisa
+     * diulang mulai baris skipped pertama (baris yang sudah dibuat akan
+     * ditolak sebagai duplikat).
+     */
+    private void abortIfDukcapilUnavailable(List<Pending> batch, ImportState state) {
+        batch.stream()
+                .filter(pending -> pending.skipped)
+                .mapToInt(pending -> pending.row.getLine())
+                .min()
+                .ifPresent(line -> state.abortReason = "Dukcapil tidak tersedia; import dihentikan. "
+                        + "Ulangi import mulai baris " + line + ".");
+    }
+
+    /**
+     * Kode rekening (jika tidak diisi) dari AccountNumberAllocator dan nomor
+     * kartu debit virtual dari CardNumberGenerator; keduanya unik tanpa cek DB
+     */
+    private void assignAccountNumbers(List<Pending> batch) {
+        for (Pending pending : batch) {
+            RegistrationRequest request = pending.request();
+            pending.jenisKartu = request.getJenisKartu() != null ? request.getJenisKartu() : "Silver";
+            try {
+                if (request.getKodeRekening() == null) {
+                    request.setKodeRekening(accountNumberAllocator.next(pending.jenisKartu));
+                }
+                pending.nomorKartuDebitVirtual = cardNumberGenerator.next(pending.jenisKartu);
+            } catch (RuntimeException e) {
+                pending.error = e.getMessage();
+            }
+        }
+    }
+
+    /**
+     * Insert satu batch dalam satu transaksi; jika gagal, ulangi per baris
+     */
+    private void insert(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertRows(batch));
+            return;
+        } catch (DataAccessException e) {
+            logger.warn("Customer import batch of {} rows rejected ({}), retrying row by row",
+                    batch.size(), e.getMostSpecificCause().getMessage());
+        }
+
+        for (Pending pending : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertRows(List.of(pending)));
+            } catch (DataIntegrityViolationException e) {
+                pending.customerId = null;
+                pending.error = RegistrationService.translateUniqueViolation(e, pending.request()).getMessage();
+            } catch (DataAccessException e) {
+                pending.customerId = null;
+                pending.error = "Gagal menyimpan customer: " + e.getMostSpecificCause().getMessage();
+            }
+        }
+    }
+
+    /**
+     * Simpan lewat JPA; id dari sequence pooled sehingga Hibernate mengirim
+     * insert alamat, wali dan customer sebagai JDBC batch saat flush
+     */
+    private void insertRows(List<Pending> rows) {
+        List<Customer> customers = new ArrayList<>(rows.size());
+        for (Pending pending : rows) {
+            // Entity baru setiap percobaan: entity dari transaksi yang di-rollback sudah membawa id
+            pending.customer = RegistrationService.buildCustomer(pending.request(), pending.dukcapilResponse,
+                    pending.encodedPassword, pending.jenisKartu, pending.nomorKartuDebitVirtual);
+            customers.add(pending.customer);
+        }
+        customerRepository.saveAll(customers);
+        customerRepository.flush();
+
+        for (Pending pending : rows) {
+            pending.customerId = pending.customer.getId();
+        }
+    }
+
+    private static List<Pending> live(List<Pending> batch) {
+        return batch.stream().filter(p -> p.error == null).collect(Collectors.toList());
+    }
+
+    private static <T> Collection<T> collect(List<Pending> batch, Function<Pending, T> value) {
+        return batch.stream().map(value).collect(Collectors.toSet());
+    }
+
+    /**
+     * Penerima hasil import; dipanggil dari thread yang memanggil importCustomers
+     */
+    public interface Listener {
+        void onRow(RowResult result) throws IOException;
+
+        default void onBatchCompleted() throws IOException {
+        }
+    }
+
+    /**
+     * State satu import: duplikat di dalam file dan hitungan hasil
+     */
+    private static final class ImportState {
+        private final Set<String> emails = new HashSet<>();
+        private final Set<String> nomorTelepon = new HashSet<>();
+        private final Set<String> niks = new HashSet<>();
+        private long total;
+        private long created;
+        private long failed;
+        private long skipped;
+        private String abortReason;
+    }
+
+    /**
+     * Satu baris yang sedang diproses
+     */
+    private static final class Pending {
+        private final CustomerImportReader.Row row;
+        private String error;
+        private boolean skipped;
+        private DukcapilResponseDto dukcapilResponse;
+        private String encodedPassword;
+        private String jenisKartu;
+        private String nomorKartuDebitVirtual;
+        private Customer customer;
+        private Long customerId;
+
+        private Pending(CustomerImportReader.Row row) {
+            this.row = row;
+        }
+
+        private RegistrationRequest request() {
+            return row.getRequest();
+        }
+
+        private RowResult toResult() {
+            RegistrationRequest request = row.getRequest();
+            String email = request != null ? request.getEmail() : null;
+            if (skipped) {
+                return new RowResult(row.getLine(), "skipped", email, null, null, null, error);
+            }
+            if (error != null) {
+                return new RowResult(row.getLine(), "failed", email, null, null, null, error);
+            }
+            return new RowResult(row.getLine(), "created", email, customerId,
+                    String.valueOf(customer.getKodeRekening()), customer.getNomorKartuDebitVirtual(), null);
+        }
+    }
+
+    /**
+     * Hasil satu baris import (satu baris JSON di response)
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static final class RowResult {
+        private final int line;
+        private final String status;
+        private final String email;
+        private final Long customerId;
+        private final String kodeRekening;
+        private final String nomorKartuDebitVirtual;
+        private final String error;
+
+        public RowResult(int line, String status, String email, Long customerId,
+                         String kodeRekening, String nomorKartuDebitVirtual, String error) {
+            this.line = line;
+            this.status = status;
+            this.email = email;
+            this.customerId = customerId;
+            this.kodeRekening = kodeRekening;
+            this.nomorKartuDebitVirtual = nomorKartuDebitVirtual;
+            this.error = error;
+        }
+
+        public int getLine() { return line; }
+        public String getStatus() { return status; }
+        public String getEmail() { return email; }
+        public Long getCustomerId() { return customerId; }
+        public String getKodeRekening() { return kodeRekening; }
+        public String getNomorKartuDebitVirtual() { return nomorKartuDebitVirtual; }
+        public String getError() { return error; }
+    }
+
+    /**
+     * Ringkasan import (baris terakhir response); abortReason diisi jika
+     * import dihentikan sebelum semua baris diproses
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static final class Summary {
+        private final long total;
+        private final long created;
+        private final long failed;
+        private final long skipped;
+        private final String abortReason;
+        private final long durationMs;
+
+        public Summary(long total, long created, long failed, long skipped, String abortReason, long durationMs) {
+            this.total = total;
+            this.created = created;
+            this.failed = failed;
+            this.skipped = skipped;
+            this.abortReason = abortReason;
+            this.durationMs = durationMs;
+        }
+
+        public long getTotal() { return total; }
+        public long getCreated() { return created; }
+        public long getFailed() { return failed; }
+        public long getSkipped() { return skipped; }
+        public String getAbortReason() { return abortReason; }
+        public long getDurationMs() { return durationMs; }
+        public long getRowsPerSecond() { return durationMs > 0 ? total * 1000 / durationMs : total; }
+    }
+}
@@ -27,6 +27,10 @@ public class CustomerUserDetailsService implements UserDetailsService {
         return new org.springframework.security.core.userdetails.User(
                 customer.getEmail(),
                 customer.getPassword(), // Password yang sudah di-hash
+                true,
+                true,
+                true,
+                !customer.isAccountLocked(), // Akun terkunci karena percobaan login gagal
                 Collections.emptyList() // Ganti dengan daftar GrantedAuthority jika ada peran
         );
     }
@@ -0,0 +1,280 @@
+package com.reg.regis.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker + bulkhead untuk panggilan HTTP ke Dukcapil Service.
+ *
+ * - CLOSED: hasil window-size panggilan terakhir dicatat; jika minimal
+ *   minimum-calls tercatat dan rasio gagal atau rasio lambat
+ *   (>= slow-call-threshold-ms) mencapai ambang, circuit OPEN
+ * - OPEN: panggilan ditolak langsung (DukcapilUnavailableException) selama
+ *   open-duration-ms, tanpa menunggu timeout HTTP
+ * - HALF_OPEN: sesudahnya hanya half-open-calls panggilan percobaan yang
+ *   dikirim; semuanya sukses dan cepat = CLOSED, satu gagal/lambat = OPEN lagi
+ *
+ * Bulkhead membatasi panggilan Dukcapil yang berjalan bersamaan
+ * (max-concurrent); yang tidak mendapat slot dalam max-wait-ms ditolak,
+ * sehingga Dukcapil yang lambat tidak menahan semua thread Tomcat.
+ *
+ * 4xx selain 429 dihitung sukses: Dukcapil menjawab, hanya datanya ditolak.
+ */
+@Component
+public class DukcapilCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(DukcapilCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final String OPEN_MESSAGE = "Dukcapil Service sedang tidak stabil. Silakan coba lagi beberapa saat lagi.";
+    private static final String BULKHEAD_MESSAGE = "Terlalu banyak verifikasi Dukcapil yang sedang berjalan. Silakan coba lagi beberapa saat lagi.";
+
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallThresholdMs;
+    private final int slowCallRateThreshold;
+    private final long openDurationMs;
+    private final int halfOpenCalls;
+    private final int maxConcurrent;
+    private final long maxWaitMs;
+
+    private final Semaphore bulkhead;
+
+    // Window hasil panggilan (ring buffer); semua state di bawah lock objek ini
+    private final boolean[] failedWindow;
+    private final boolean[] slowWindow;
+    private int windowIndex;
+    private int recordedCalls;
+    private int failedCalls;
+    private int slowCalls;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openUntil;
+    private int halfOpenIssued;
+    private int halfOpenSucceeded;
+
+    private final Counter successCalls;
+    private final Counter failureCalls;
+    private final Counter slowCallsCounter;
+    private final Counter rejectedOpen;
+    private final Counter rejectedBulkhead;
+
+    public DukcapilCircuitBreaker(
+            @Value("${app.dukcapil.circuit.window-size:20}") int windowSize,
+            @Value("${app.dukcapil.circuit.minimum-calls:10}") int minimumCalls,
+            @Value("${app.dukcapil.circuit.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${app.dukcapil.circuit.slow-call-threshold-ms:3000}") long slowCallThresholdMs,
+            @Value("${app.dukcapil.circuit.slow-call-rate-threshold:50}") int slowCallRateThreshold,
+            @Value("${app.dukcapil.circuit.open-duration-ms:30000}") long openDurationMs,
+            @Value("${app.dukcapil.circuit.half-open-calls:3}") int halfOpenCalls,
+            @Value("${app.dukcapil.bulkhead.max-concurrent:20}") int maxConcurrent,
+            @Value("${app.dukcapil.bulkhead.max-wait-ms:100}") long maxWaitMs,
+            MeterRegistry meterRegistry) {
+        int size = Math.max(1, windowSize);
+        this.failedWindow = new boolean[size];
+        this.slowWindow = new boolean[size];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, size));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallThresholdMs = slowCallThresholdMs;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openDurationMs = openDurationMs;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxWaitMs = maxWaitMs;
+        this.bulkhead = new Semaphore(this.maxConcurrent);
+
+        // dukcapil.circuit.state{state=...} bernilai 1 untuk state saat ini
+        for (State value : State.values()) {
+            Gauge.builder("dukcapil.circuit.state", this, breaker -> breaker.getState() == value ? 1 : 0)
+                    .description("State circuit breaker Dukcapil")
+                    .tag("state", value.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("dukcapil.bulkhead.in.flight", this, DukcapilCircuitBreaker::getInFlight)
+                .description("Panggilan Dukcapil yang sedang berjalan")
+                .register(meterRegistry);
+        this.successCalls = callCounter(meterRegistry, "success");
+        this.failureCalls = callCounter(meterRegistry, "failure");
+        this.slowCallsCounter = Counter.builder("dukcapil.calls.slow")
+                .description("Panggilan Dukcapil lebih lambat dari slow-call-threshold-ms")
+                .register(meterRegistry);
+        this.rejectedOpen = rejectedCounter(meterRegistry, "circuit_open");
+        this.rejectedBulkhead = rejectedCounter(meterRegistry, "bulkhead_full");
+    }
+
+    /**
+     * Jalankan panggilan Dukcapil di bawah circuit breaker dan bulkhead.
+     * Exception dari call dilempar ulang apa adanya setelah dicatat.
+     *
+     * @throws DukcapilUnavailableException jika ditolak tanpa dikirim
+     */
+    public <T> T execute(Supplier<T> call) {
+        acquirePermission();
+
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            releaseHalfOpenPermit();
+            rejectedBulkhead.increment();
+            throw new DukcapilUnavailableException(BULKHEAD_MESSAGE, 1);
+        }
+
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            onComplete(elapsedMs(start), false);
+            return result;
+        } catch (RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                // Dibatalkan pemanggil (mis. registrasi sudah ditolak), bukan hasil Dukcapil
+                releaseHalfOpenPermit();
+            } else {
+                onComplete(elapsedMs(start), isFailure(e));
+            }
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * State saat ini; OPEN yang sudah melewati open-duration dilaporkan
+     * HALF_OPEN (panggilan berikutnya menjadi percobaan)
+     */
+    public State getState() {
+        State current = state;
+        if (current == State.OPEN && System.currentTimeMillis() >= openUntil) {
+            return State.HALF_OPEN;
+        }
+        return current;
+    }
+
+    public int getInFlight() {
+        return maxConcurrent - bulkhead.availablePermits();
+    }
+
+    private synchronized void acquirePermission() {
+        if (state == State.OPEN) {
+            long remainingMs = openUntil - System.currentTimeMillis();
+            if (remainingMs > 0) {
+                rejectedOpen.increment();
+                throw new DukcapilUnavailableException(OPEN_MESSAGE, TimeUnit.MILLISECONDS.toSeconds(remainingMs + 999));
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenIssued >= halfOpenCalls) {
+                // Kuota percobaan sedang dipakai; tunggu hasilnya
+                rejectedOpen.increment();
+                throw new DukcapilUnavailableException(OPEN_MESSAGE, 1);
+            }
+            halfOpenIssued++;
+        }
+    }
+
+    private synchronized void releaseHalfOpenPermit() {
+        if (state == State.HALF_OPEN && halfOpenIssued > 0) {
+            halfOpenIssued--;
+        }
+    }
+
+    private synchronized void onComplete(long latencyMs, boolean failure) {
+        boolean slow = latencyMs >= slowCallThresholdMs;
+        (failure ? failureCalls : successCalls).increment();
+        if (slow) {
+            slowCallsCounter.increment();
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (failure || slow) {
+                transitionTo(State.OPEN);
+            } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // Panggilan yang dimulai sebelum circuit terbuka
+            return;
+        }
+
+        if (recordedCalls == failedWindow.length) {
+            failedCalls -= failedWindow[windowIndex] ? 1 : 0;
+            slowCalls -= slowWindow[windowIndex] ? 1 : 0;
+        } else {
+            recordedCalls++;
+        }
+        failedWindow[windowIndex] = failure;
+        slowWindow[windowIndex] = slow;
+        failedCalls += failure ? 1 : 0;
+        slowCalls += slow ? 1 : 0;
+        windowIndex = (windowIndex + 1) % failedWindow.length;
+
+        if (recordedCalls >= minimumCalls
+                && (failedCalls * 100 >= failureRateThreshold * recordedCalls
+                    || slowCalls * 100 >= slowCallRateThreshold * recordedCalls)) {
+            logger.warn("❌ Dukcapil circuit OPEN: {}/{} failed, {}/{} slow", failedCalls, recordedCalls, slowCalls, recordedCalls);
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State next) {
+        if (next == State.OPEN) {
+            openUntil = System.currentTimeMillis() + openDurationMs;
+        } else if (next == State.HALF_OPEN) {
+            halfOpenIssued = 0;
+            halfOpenSucceeded = 0;
+        } else {
+            // CLOSED: mulai window baru
+            recordedCalls = 0;
+            failedCalls = 0;
+            slowCalls = 0;
+            windowIndex = 0;
+        }
+        if (state != next) {
+            logger.info("Dukcapil circuit {} -> {}", state, next);
+        }
+        state = next;
+    }
+
+    static boolean isFailure(RuntimeException e) {
+        return !(e instanceof HttpClientErrorException clientError)
+                || clientError.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static Counter callCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("dukcapil.calls")
+                .description("Panggilan Dukcapil lewat circuit breaker per hasil")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("dukcapil.calls.rejected")
+                .description("Panggilan Dukcapil yang ditolak tanpa dikirim")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -19,13 +19,21 @@ import org.slf4j.LoggerFactory;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
 public class DukcapilClientService {
 
     private static final Logger logger = LoggerFactory.getLogger(DukcapilClientService.class);
+    private static final String UNREACHABLE_MESSAGE = "Dukcapil Service tidak dapat diakses. Silakan coba lagi nanti.";
+    // Kira-kira satu interval probe health monitor
+    private static final long UNAVAILABLE_RETRY_AFTER_SECONDS = 10;
     private final RestTemplate restTemplate;
+    private final DukcapilVerificationCache verificationCache;
+    private final DukcapilHealthMonitor healthMonitor;
+    private final DukcapilCircuitBreaker circuitBreaker;
+    private final DukcapilRequestCoalescer requestCoalescer;
 
     @Value("${app.dukcapil.base-url}")
     private String dukcapilBaseUrl;
@@ -37,9 +45,33 @@ public class DukcapilClientService {
     private String checkNikEndpoint;
 
     /**
-     * Verifikasi NIK, nama lengkap, dan tanggal lahir via Dukcapil Service
+     * Verifikasi NIK, nama lengkap, dan tanggal lahir via Dukcapil Service.
+     * Jawaban Dukcapil disimpan sebentar di DukcapilVerificationCache sehingga
+     * /verification/nik lalu /auth/register hanya memanggil Dukcapil sekali;
+     * panggilan identik yang bersamaan digabung lewat DukcapilRequestCoalescer.
+     *
+     * Hanya jawaban Dukcapil yang dikembalikan sebagai DTO (valid / data ditolak);
+     * timeout, 5xx dan 429 dilempar sebagai DukcapilUnavailableException
+     * supaya tidak dilaporkan sebagai data tidak valid.
      */
     public DukcapilResponseDto verifyNikNameAndBirthDate(String nik, String namaLengkap, LocalDate tanggalLahir) {
+        String cacheKey = verificationCache.key(nik, namaLengkap, tanggalLahir);
+        DukcapilResponseDto cached = verificationCache.get(cacheKey);
+        if (cached != null) {
+            logger.debug("📦 Dukcapil verification served from cache: valid={}", cached.isValid());
+            return cached;
+        }
+
+        // Panggilan identik yang sedang berjalan digabung (single-flight)
+        String flightKey = requestCoalescer.key("verify-nik", nik,
+            namaLengkap != null ? DukcapilVerificationCache.normalizeName(namaLengkap) : null,
+            tanggalLahir != null ? tanggalLahir.toString() : null);
+        return requestCoalescer.execute("verify-nik", flightKey,
+            () -> callVerifyNik(nik, namaLengkap, tanggalLahir, cacheKey));
+    }
+
+    private DukcapilResponseDto callVerifyNik(String nik, String namaLengkap, LocalDate tanggalLahir, String cacheKey) {
+        long start = System.nanoTime();
         try {
             String url = dukcapilBaseUrl + verifyNikEndpoint;
 
@@ -62,46 +94,71 @@ public class DukcapilClientService {
                 namaLengkap, 
                 tanggalLahir);
 
-            // Make HTTP call
-            ResponseEntity<DukcapilResponseDto> response = restTemplate.exchange(
+            // Make HTTP call (circuit breaker + bulkhead)
+            ResponseEntity<DukcapilResponseDto> response = circuitBreaker.execute(() -> restTemplate.exchange(
                 url,
                 HttpMethod.POST,
                 entity,
                 DukcapilResponseDto.class
-            );
+            ));
+            healthMonitor.recordSuccess(elapsedMs(start));
 
             DukcapilResponseDto responseBody = response.getBody();
             logger.debug("📥 Response from Dukcapil: valid={}", 
                 responseBody != null ? responseBody.isValid() : "null");
 
             if (responseBody != null) {
+                verificationCache.put(cacheKey, responseBody);
                 return responseBody;
             } else {
                 return new DukcapilResponseDto(false, "Tidak ada response dari Dukcapil Service");
             }
 
+        } catch (DukcapilUnavailableException e) {
+            // Ditolak cepat tanpa HTTP call; pemanggil menjawab 503 + Retry-After
+            logger.warn("⛔ Dukcapil call rejected: {}", e.getMessage());
+            throw e;
+
         } catch (ResourceAccessException e) {
+            // Dukcapil tidak menjawab: bukan berarti data tidak valid, pemanggil boleh retry
+            recordFailure(start, e);
             logger.error("❌ Dukcapil Service tidak dapat diakses: {}", e.getMessage());
-            return new DukcapilResponseDto(false, "Dukcapil Service tidak dapat diakses. Pastikan service berjalan di " + dukcapilBaseUrl);
+            throw new DukcapilUnavailableException(UNREACHABLE_MESSAGE, UNAVAILABLE_RETRY_AFTER_SECONDS);
 
         } catch (HttpClientErrorException e) {
+            recordFailure(start, e);
             logger.error("❌ Client error dari Dukcapil Service: {}", e.getMessage());
-            return new DukcapilResponseDto(false, "Error validasi dari Dukcapil Service: " + e.getResponseBodyAsString());
+            if (e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                throw new DukcapilUnavailableException(UNREACHABLE_MESSAGE, UNAVAILABLE_RETRY_AFTER_SECONDS);
+            }
+            DukcapilResponseDto rejected = new DukcapilResponseDto(false, "Error validasi dari Dukcapil Service: " + e.getResponseBodyAsString());
+            // Penolakan data oleh Dukcapil ikut di-cache (TTL negatif)
+            verificationCache.put(cacheKey, rejected);
+            return rejected;
 
         } catch (HttpServerErrorException e) {
+            recordFailure(start, e);
             logger.error("❌ Server error dari Dukcapil Service: {}", e.getMessage());
-            return new DukcapilResponseDto(false, "Dukcapil Service mengalami error internal");
+            throw new DukcapilUnavailableException("Dukcapil Service mengalami error internal. Silakan coba lagi nanti.",
+                UNAVAILABLE_RETRY_AFTER_SECONDS);
 
         } catch (Exception e) {
+            recordFailure(start, e);
             logger.error("❌ Unexpected error calling Dukcapil Service: {}", e.getMessage());
-            return new DukcapilResponseDto(false, "Terjadi kesalahan saat menghubungi Dukcapil Service: " + e.getMessage());
+            throw new DukcapilUnavailableException(UNREACHABLE_MESSAGE, UNAVAILABLE_RETRY_AFTER_SECONDS);
         }
     }
 
     /**
-     * Check apakah NIK exists di Dukcapil
+     * Check apakah NIK exists di Dukcapil; pengecekan NIK yang sama yang
+     * sedang berjalan digabung (single-flight)
      */
     public boolean isNikExists(String nik) {
+        return requestCoalescer.execute("check-nik", requestCoalescer.key("check-nik", nik), () -> callCheckNik(nik));
+    }
+
+    private boolean callCheckNik(String nik) {
+        long start = System.nanoTime();
         try {
             String url = dukcapilBaseUrl + checkNikEndpoint;
 
@@ -117,13 +174,14 @@ public class DukcapilClientService {
 
             logger.debug("🌐 Checking NIK existence: {}", url);
 
-            // Make HTTP call
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+            // Make HTTP call (circuit breaker + bulkhead)
+            ResponseEntity<Map<String, Object>> response = circuitBreaker.execute(() -> restTemplate.exchange(
                 url,
                 HttpMethod.POST,
                 entity,
                 new ParameterizedTypeReference<Map<String, Object>>() {}
-            );
+            ));
+            healthMonitor.recordSuccess(elapsedMs(start));
 
             Map<String, Object> responseBody = response.getBody();
             if (responseBody != null && responseBody.containsKey("exists")) {
@@ -132,33 +190,51 @@ public class DukcapilClientService {
 
             return false;
 
+        } catch (DukcapilUnavailableException e) {
+            // Bukan berarti NIK tidak ada: jangan dijawab false
+            logger.warn("⛔ Dukcapil call rejected: {}", e.getMessage());
+            throw e;
+
         } catch (Exception e) {
+            recordFailure(start, e);
             logger.error("❌ Error checking NIK existence: {}", e.getMessage());
             return false;
         }
     }
 
     /**
-     * Get Dukcapil Service health status
+     * Status Dukcapil Service dari DukcapilHealthMonitor (tanpa HTTP call)
      */
     public boolean isDukcapilServiceHealthy() {
-        try {
-            String url = dukcapilBaseUrl + "/health";
-
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                null, // No request body for GET
-                new ParameterizedTypeReference<Map<String, Object>>() {}
-            );
-            Map<String, Object> body = response.getBody();
+        return healthMonitor.isAvailable();
+    }
 
-            return body != null && "OK".equals(body.get("status"));
+    /**
+     * Snapshot status Dukcapil: UP/DEGRADED/DOWN, latency dan error terakhir
+     */
+    public DukcapilHealthMonitor.Health getHealth() {
+        return healthMonitor.current();
+    }
 
-        } catch (Exception e) {
-            logger.error("❌ Dukcapil Service health check failed: {}", e.getMessage());
-            return false;
+    /**
+     * Hasil panggilan gagal untuk health monitor. 4xx berarti Dukcapil
+     * menjawab (hanya datanya ditolak), kecuali 429.
+     */
+    private void recordFailure(long startNanos, Exception e) {
+        if (Thread.currentThread().isInterrupted()) {
+            // Dibatalkan pemanggil, tidak mengatakan apa pun tentang Dukcapil
+            return;
         }
+        long latencyMs = elapsedMs(startNanos);
+        if (e instanceof RuntimeException runtime && !DukcapilCircuitBreaker.isFailure(runtime)) {
+            healthMonitor.recordSuccess(latencyMs);
+        } else {
+            healthMonitor.recordFailure(latencyMs, e.getMessage());
+        }
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
     }
 
     /**
@@ -0,0 +1,217 @@
+package com.reg.regis.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Status kesehatan Dukcapil Service yang dipublikasikan secara atomik.
+ *
+ * Probe GET /health berjalan terjadwal di virtual thread sendiri, jadi
+ * registrasi, /auth/health dan /verification/* cukup membaca state terakhir
+ * (O(1)) tanpa HTTP call. State juga diperbarui dari hasil panggilan
+ * Dukcapil sungguhan (lihat DukcapilClientService):
+ * - UP: jawaban terakhir sukses dan cepat
+ * - DEGRADED: jawaban lambat (> degraded-latency-ms) atau gagal kurang dari
+ *   failure-threshold kali berturut-turut
+ * - DOWN: gagal failure-threshold kali berturut-turut; registrasi ditolak
+ *   langsung sampai probe berikutnya sukses
+ * - UNKNOWN: belum ada probe/panggilan sejak startup (dianggap tersedia)
+ *
+ * Snapshot juga membawa state DukcapilCircuitBreaker saat dibaca.
+ */
+@Service
+public class DukcapilHealthMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DukcapilHealthMonitor.class);
+
+    public enum Status { UNKNOWN, UP, DEGRADED, DOWN }
+
+    private final RestTemplate restTemplate;
+    private final DukcapilCircuitBreaker circuitBreaker;
+    private final String dukcapilBaseUrl;
+    private final long degradedLatencyMs;
+    private final int failureThreshold;
+
+    private final AtomicReference<Health> state = new AtomicReference<>(Health.UNKNOWN);
+    private final AtomicBoolean probeInFlight = new AtomicBoolean();
+
+    public DukcapilHealthMonitor(
+            RestTemplate restTemplate,
+            DukcapilCircuitBreaker circuitBreaker,
+            @Value("${app.dukcapil.base-url}") String dukcapilBaseUrl,
+            @Value("${app.dukcapil.health.degraded-latency-ms:2000}") long degradedLatencyMs,
+            @Value("${app.dukcapil.health.failure-threshold:3}") int failureThreshold,
+            MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.dukcapilBaseUrl = dukcapilBaseUrl;
+        this.degradedLatencyMs = degradedLatencyMs;
+        this.failureThreshold = Math.max(1, failureThreshold);
+
+        // dukcapil.health{status=...} bernilai 1 untuk status saat ini, 0 untuk lainnya
+        for (Status status : Status.values()) {
+            Gauge.builder("dukcapil.health", state, s -> s.get().getStatus() == status ? 1 : 0)
+                    .description("Status kesehatan Dukcapil Service")
+                    .tag("status", status.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("dukcapil.health.latency", state, s -> s.get().getLastLatencyMs())
+                .description("Latency jawaban Dukcapil terakhir (probe atau panggilan sungguhan)")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Jadwalkan probe; scheduler tidak pernah menunggu HTTP call. Jika probe
+     * sebelumnya masih berjalan (Dukcapil lambat), interval ini dilewati.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.dukcapil.health.interval-ms:10000}")
+    public void scheduleProbe() {
+        if (!probeInFlight.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofVirtual().name("dukcapil-health-probe").start(() -> {
+            try {
+                probe();
+            } finally {
+                probeInFlight.set(false);
+            }
+        });
+    }
+
+    /**
+     * GET {base-url}/health; sehat jika body berisi status "OK".
+     * Tidak lewat circuit breaker: probe tetap jalan saat circuit OPEN.
+     */
+    void probe() {
+        long start = System.nanoTime();
+        try {
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+                dukcapilBaseUrl + "/health",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<Map<String, Object>>() {}
+            );
+            Map<String, Object> body = response.getBody();
+            if (body != null && "OK".equals(body.get("status"))) {
+                recordSuccess(elapsedMs(start));
+            } else {
+                recordFailure(elapsedMs(start), "Health status: " + (body != null ? body.get("status") : "tidak ada response"));
+            }
+        } catch (Exception e) {
+            recordFailure(elapsedMs(start), e.getMessage());
+        }
+    }
+
+    /**
+     * Dukcapil menjawab (probe atau panggilan sungguhan)
+     */
+    public void recordSuccess(long latencyMs) {
+        long now = System.currentTimeMillis();
+        publish(state.updateAndGet(previous -> new Health(
+                latencyMs > degradedLatencyMs ? Status.DEGRADED : Status.UP,
+                latencyMs, previous.getLastError(), now, 0)));
+    }
+
+    /**
+     * Dukcapil tidak dapat diakses, timeout, atau 5xx
+     */
+    public void recordFailure(long latencyMs, String error) {
+        long now = System.currentTimeMillis();
+        publish(state.updateAndGet(previous -> {
+            int failures = previous.getConsecutiveFailures() + 1;
+            return new Health(failures >= failureThreshold ? Status.DOWN : Status.DEGRADED,
+                    latencyMs, error, now, failures);
+        }));
+    }
+
+    public Health current() {
+        return state.get().withCircuitState(circuitBreaker.getState());
+    }
+
+    /**
+     * Registrasi hanya ditolak saat DOWN
+     */
+    public boolean isAvailable() {
+        return state.get().getStatus() != Status.DOWN;
+    }
+
+    private void publish(Health health) {
+        if (health.getStatus() == Status.DOWN && health.getConsecutiveFailures() == failureThreshold) {
+            logger.warn("❌ Dukcapil Service DOWN after {} consecutive failures: {}", failureThreshold, health.getLastError());
+        }
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Snapshot status (immutable)
+     */
+    public static final class Health {
+        static final Health UNKNOWN = new Health(Status.UNKNOWN, 0, null, 0, 0);
+
+        private final Status status;
+        private final long lastLatencyMs;
+        private final String lastError;
+        private final long lastCheckedAt;
+        private final int consecutiveFailures;
+        private final DukcapilCircuitBreaker.State circuitState;
+
+        public Health(Status status, long lastLatencyMs, String lastError, long lastCheckedAt, int consecutiveFailures) {
+            this(status, lastLatencyMs, lastError, lastCheckedAt, consecutiveFailures, null);
+        }
+
+        private Health(Status status, long lastLatencyMs, String lastError, long lastCheckedAt, int consecutiveFailures,
+                       DukcapilCircuitBreaker.State circuitState) {
+            this.status = status;
+            this.lastLatencyMs = lastLatencyMs;
+            this.lastError = lastError;
+            this.lastCheckedAt = lastCheckedAt;
+            this.consecutiveFailures = consecutiveFailures;
+            this.circuitState = circuitState;
+        }
+
+        Health withCircuitState(DukcapilCircuitBreaker.State circuitState) {
+            return new Health(status, lastLatencyMs, lastError, lastCheckedAt, consecutiveFailures, circuitState);
+        }
+
+        public Status getStatus() { return status; }
+        public long getLastLatencyMs() { return lastLatencyMs; }
+        public String getLastError() { return lastError; }
+        public long getLastCheckedAt() { return lastCheckedAt; }
+        public int getConsecutiveFailures() { return consecutiveFailures; }
+        public DukcapilCircuitBreaker.State getCircuitState() { return circuitState; }
+
+        /**
+         * Untuk response health endpoint (lastError/circuitState bisa null)
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("status", status.name());
+            map.put("lastLatencyMs", lastLatencyMs);
+            map.put("lastError", lastError);
+            map.put("lastCheckedAt", lastCheckedAt);
+            map.put("consecutiveFailures", consecutiveFailures);
+            map.put("circuitState", circuitState != null ? circuitState.name() : null);
+            return map;
+        }
+    }
+}
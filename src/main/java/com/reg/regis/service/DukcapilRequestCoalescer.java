@@ -0,0 +1,181 @@
+package com.reg.regis.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight untuk panggilan Dukcapil yang identik.
+ *
+ * Double-click, retry client dan /verification/nik yang tumpang tindih
+ * dengan /auth/register menghasilkan panggilan bersamaan dengan input sama.
+ * Pemanggil pertama (leader) mengirim HTTP call di thread-nya sendiri;
+ * pemanggil lain dengan key yang sama selama call itu berjalan menunggu
+ * future yang sama, maksimal max-wait-ms. Entry dihapus begitu call selesai,
+ * jadi tidak ada hasil basi (caching tetap urusan DukcapilVerificationCache).
+ *
+ * - Key = HMAC-SHA256 (secret acak per instance) atas operasi dan input;
+ *   NIK mentah tidak disimpan di memory
+ * - Exception dari leader diteruskan ke semua pemanggil yang menunggu
+ * - Leader yang dibatalkan (thread di-interrupt) tidak membagikan hasilnya;
+ *   pemanggil yang menunggu mengulang call sendiri
+ * - Waktu tunggu habis = DukcapilUnavailableException (503 + Retry-After)
+ */
+@Component
+public class DukcapilRequestCoalescer {
+
+    private static final String WAIT_TIMEOUT_MESSAGE = "Verifikasi Dukcapil yang sama masih berjalan. Silakan coba lagi beberapa saat lagi.";
+
+    private final boolean enabled;
+    private final long maxWaitMs;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final byte[] keySecret = new byte[32];
+
+    private final MeterRegistry meterRegistry;
+
+    public DukcapilRequestCoalescer(
+            @Value("${app.dukcapil.coalescing.enabled:true}") boolean enabled,
+            @Value("${app.dukcapil.coalescing.max-wait-ms:15000}") long maxWaitMs,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxWaitMs = maxWaitMs;
+        this.meterRegistry = meterRegistry;
+        new SecureRandom().nextBytes(keySecret);
+
+        Gauge.builder("dukcapil.calls.in.flight.keys", inFlight, Map::size)
+                .description("Key panggilan Dukcapil yang sedang berjalan (single-flight)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Key single-flight untuk operasi + input; null jika coalescing nonaktif
+     * atau input tidak lengkap (panggilan tidak digabung)
+     */
+    public String key(String operation, String... parts) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(keySecret, "HmacSHA256"));
+            mac.update(operation.getBytes(StandardCharsets.UTF_8));
+            for (String part : parts) {
+                if (part == null) {
+                    return null;
+                }
+                mac.update((byte) '\n');
+                mac.update(part.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            // HmacSHA256 wajib tersedia di setiap JVM
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    /**
+     * Jalankan call, atau ikut menunggu call yang sedang berjalan untuk key yang sama.
+     *
+     * @throws DukcapilUnavailableException jika call leader tidak selesai dalam max-wait-ms
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, String key, Supplier<T> call) {
+        if (key == null) {
+            return call.get();
+        }
+
+        while (true) {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+            if (existing == null) {
+                return lead(key, future, call);
+            }
+            coalescedCounter(operation).increment();
+            try {
+                return (T) await(existing);
+            } catch (LeaderCancelledException e) {
+                // Hasil leader tidak berlaku untuk pemanggil ini; ulangi
+            }
+        }
+    }
+
+    private <T> T lead(String key, CompletableFuture<Object> future, Supplier<T> call) {
+        try {
+            T result = call.get();
+            share(key, future, result, null);
+            return result;
+        } catch (RuntimeException | Error e) {
+            share(key, future, null, e);
+            throw e;
+        }
+    }
+
+    private void share(String key, CompletableFuture<Object> future, Object result, Throwable error) {
+        inFlight.remove(key, future);
+        if (Thread.currentThread().isInterrupted()) {
+            // Leader dibatalkan di tengah jalan: hasil/error-nya akibat interrupt
+            future.completeExceptionally(new LeaderCancelledException());
+        } else if (error != null) {
+            future.completeExceptionally(error);
+        } else {
+            future.complete(result);
+        }
+    }
+
+    int inFlightKeys() {
+        return inFlight.size();
+    }
+
+    private Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof LeaderCancelledException cancelled) {
+                throw cancelled;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            throw new DukcapilUnavailableException(WAIT_TIMEOUT_MESSAGE, 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DukcapilUnavailableException(WAIT_TIMEOUT_MESSAGE, 1);
+        }
+    }
+
+    private static final class LeaderCancelledException extends RuntimeException {
+        LeaderCancelledException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private Counter coalescedCounter(String operation) {
+        return Counter.builder("dukcapil.calls.coalesced")
+                .description("Panggilan Dukcapil yang ikut menunggu call identik yang sedang berjalan")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,20 @@
+package com.reg.regis.service;
+
+/**
+ * Panggilan Dukcapil ditolak tanpa dikirim: circuit breaker terbuka,
+ * bulkhead penuh, atau health monitor menyatakan DOWN.
+ * Controller menerjemahkannya menjadi 503 + Retry-After.
+ */
+public class DukcapilUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public DukcapilUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
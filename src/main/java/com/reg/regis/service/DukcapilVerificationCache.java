@@ -0,0 +1,168 @@
+package com.reg.regis.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.reg.regis.dto.response.DukcapilResponseDto;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Cache singkat hasil verifikasi Dukcapil (NIK + nama + tanggal lahir).
+ *
+ * Alur onboarding memanggil POST /verification/nik lalu beberapa detik
+ * kemudian POST /auth/register dengan data yang sama; hit di sini
+ * menghemat panggilan Dukcapil kedua.
+ *
+ * - Key = HMAC-SHA256 (secret acak per instance) atas NIK, nama yang
+ *   dinormalisasi dan tanggal lahir; NIK mentah tidak disimpan di memory
+ * - Jawaban positif dan negatif punya TTL berbeda; error koneksi/5xx
+ *   tidak pernah masuk cache (lihat DukcapilClientService)
+ * - Ukuran dibatasi max-size; dapat dikosongkan lewat DELETE /admin/cache/dukcapil
+ */
+@Component
+public class DukcapilVerificationCache {
+
+    private final boolean enabled;
+    private final Duration positiveTtl;
+    private final Duration negativeTtl;
+    private final Cache<String, DukcapilResponseDto> cache;
+    private final byte[] keySecret = new byte[32];
+
+    private final Counter positiveStores;
+    private final Counter negativeStores;
+
+    public DukcapilVerificationCache(
+            @Value("${app.dukcapil.cache.enabled:true}") boolean enabled,
+            @Value("${app.dukcapil.cache.max-size:10000}") long maxSize,
+            @Value("${app.dukcapil.cache.positive-ttl-seconds:600}") long positiveTtlSeconds,
+            @Value("${app.dukcapil.cache.negative-ttl-seconds:60}") long negativeTtlSeconds,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.positiveTtl = Duration.ofSeconds(positiveTtlSeconds);
+        this.negativeTtl = Duration.ofSeconds(negativeTtlSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ResultExpiry())
+                .recordStats()
+                .build();
+        new SecureRandom().nextBytes(keySecret);
+
+        // cache_gets{result=hit|miss}, cache_evictions, cache_size di /actuator/prometheus
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "dukcapilVerification");
+        this.positiveStores = Counter.builder("dukcapil.verification.cache.stores")
+                .description("Hasil verifikasi Dukcapil yang disimpan di cache")
+                .tag("result", "positive")
+                .register(meterRegistry);
+        this.negativeStores = Counter.builder("dukcapil.verification.cache.stores")
+                .description("Hasil verifikasi Dukcapil yang disimpan di cache")
+                .tag("result", "negative")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Key cache untuk input verifikasi; null jika cache nonaktif atau input tidak lengkap
+     */
+    public String key(String nik, String namaLengkap, LocalDate tanggalLahir) {
+        if (!enabled || nik == null || namaLengkap == null || tanggalLahir == null) {
+            return null;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(keySecret, "HmacSHA256"));
+            mac.update(nik.trim().getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) '\n');
+            mac.update(normalizeName(namaLengkap).getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) '\n');
+            mac.update(tanggalLahir.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            // HmacSHA256 wajib tersedia di setiap JVM
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    /**
+     * Hasil tersimpan untuk key ini, null jika belum ada/expired
+     */
+    public DukcapilResponseDto get(String key) {
+        if (key == null) {
+            return null;
+        }
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Simpan jawaban Dukcapil (valid atau tidak). Data disalin supaya
+     * pemanggil tidak bisa mengubah entry yang dibagi antar request.
+     */
+    public void put(String key, DukcapilResponseDto response) {
+        if (key == null || response == null) {
+            return;
+        }
+        DukcapilResponseDto copy = new DukcapilResponseDto(response.isValid(), response.getMessage());
+        copy.setTimestamp(response.getTimestamp());
+        copy.setService(response.getService());
+        if (response.getData() != null) {
+            copy.setData(Collections.unmodifiableMap(new HashMap<>(response.getData())));
+        }
+        cache.put(key, copy);
+        (copy.isValid() ? positiveStores : negativeStores).increment();
+    }
+
+    /**
+     * Kosongkan cache, mengembalikan jumlah entry sebelum dibuang
+     */
+    public long purge() {
+        long size = cache.estimatedSize();
+        cache.invalidateAll();
+        return size;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    // Spasi berlebih dan huruf besar/kecil tidak membedakan nama
+    static String normalizeName(String namaLengkap) {
+        return namaLengkap.trim().replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * TTL per entry: positif lebih lama dari negatif
+     */
+    private final class ResultExpiry implements Expiry<String, DukcapilResponseDto> {
+
+        @Override
+        public long expireAfterCreate(String key, DukcapilResponseDto value, long currentTime) {
+            return (value.isValid() ? positiveTtl : negativeTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, DukcapilResponseDto value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, DukcapilResponseDto value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.reg.regis.service;
+
+/**
+ * Idempotency-Key tidak bisa dipakai untuk request ini:
+ * - MISMATCH: key sama tapi isi request berbeda (422)
+ * - IN_FLIGHT: request pertama dengan key ini belum selesai dalam batas tunggu (409)
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    public enum Reason {
+        MISMATCH, IN_FLIGHT
+    }
+
+    private final Reason reason;
+
+    public IdempotencyKeyConflictException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
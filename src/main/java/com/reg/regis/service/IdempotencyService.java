@@ -0,0 +1,245 @@
+package com.reg.regis.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Store hasil request per Idempotency-Key (in-flight dan selesai) di memory.
+ *
+ * - Request pertama dengan sebuah key dijalankan; hasilnya disimpan sampai TTL
+ * - Duplikat yang datang bersamaan menunggu hasil request pertama
+ * - Retry yang terlambat langsung mendapat hasil tersimpan (tanpa Dukcapil,
+ *   cek duplikat, maupun hashing password)
+ * - Key yang sama dengan isi request berbeda ditolak
+ * - Hanya hasil 2xx dan penolakan yang pasti sama jika diulang (ditandai
+ *   controller lewat {@link #markReplayable()}, mis. data duplikat atau
+ *   data ditolak Dukcapil) yang disimpan; 5xx dan 4xx lain (gangguan
+ *   sementara) dijalankan ulang saat retry
+ *
+ * Store dibatasi maximum-size; key dan fingerprint request hanya disimpan
+ * sebagai hash (fingerprint = HMAC dengan secret acak per instance, karena
+ * body login/register berisi password).
+ */
+@Service
+public class IdempotencyService {
+
+    /**
+     * Atribut request: response non-2xx ini boleh di-replay untuk retry dengan key yang sama
+     */
+    public static final String REPLAYABLE_ATTRIBUTE = IdempotencyService.class.getName() + ".REPLAYABLE";
+
+    private static final String MISMATCH_MESSAGE = "Idempotency-Key sudah dipakai untuk request dengan isi berbeda.";
+    private static final String IN_FLIGHT_MESSAGE = "Request dengan Idempotency-Key yang sama masih diproses. Silakan coba lagi.";
+
+    private final Cache<String, Entry> entries;
+    private final long maxWaitMs;
+    private final byte[] fingerprintKey = new byte[32];
+
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter conflicts;
+
+    public IdempotencyService(
+            @Value("${app.idempotency.ttl-seconds:900}") long ttlSeconds,
+            @Value("${app.idempotency.max-size:10000}") long maxSize,
+            @Value("${app.idempotency.max-wait-ms:15000}") long maxWaitMs,
+            MeterRegistry meterRegistry) {
+        this.maxWaitMs = maxWaitMs;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        new SecureRandom().nextBytes(fingerprintKey);
+
+        meterRegistry.gaugeMapSize("idempotency.store.size", Collections.emptyList(), entries.asMap());
+        this.executed = Counter.builder("idempotency.requests")
+                .description("Request dengan Idempotency-Key per hasil")
+                .tag("outcome", "executed")
+                .register(meterRegistry);
+        this.replayed = Counter.builder("idempotency.requests")
+                .description("Request dengan Idempotency-Key per hasil")
+                .tag("outcome", "replayed")
+                .register(meterRegistry);
+        this.conflicts = Counter.builder("idempotency.requests")
+                .description("Request dengan Idempotency-Key per hasil")
+                .tag("outcome", "conflict")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Jalankan action sekali per (scope, key). Duplikat mendapat hasil yang sama.
+     *
+     * @param scope       endpoint, mis. "POST /auth/register"
+     * @param key         nilai header Idempotency-Key
+     * @param fingerprint fingerprint isi request, lihat {@link #fingerprint(String, byte[])}
+     */
+    public Result execute(String scope, String key, String fingerprint, Callable<StoredResponse> action) throws Exception {
+        String storeKey = sha256(scope + "\n" + key);
+        ConcurrentMap<String, Entry> map = entries.asMap();
+
+        while (true) {
+            Entry mine = new Entry(fingerprint);
+            Entry existing = map.putIfAbsent(storeKey, mine);
+
+            if (existing == null) {
+                return new Result(run(map, storeKey, mine, action), false);
+            }
+
+            if (!MessageDigest.isEqual(existing.fingerprint.getBytes(StandardCharsets.US_ASCII),
+                    fingerprint.getBytes(StandardCharsets.US_ASCII))) {
+                conflicts.increment();
+                throw new IdempotencyKeyConflictException(IdempotencyKeyConflictException.Reason.MISMATCH, MISMATCH_MESSAGE);
+            }
+
+            try {
+                StoredResponse stored = existing.response.get(maxWaitMs, TimeUnit.MILLISECONDS);
+                replayed.increment();
+                return new Result(stored, true);
+            } catch (TimeoutException e) {
+                conflicts.increment();
+                throw new IdempotencyKeyConflictException(IdempotencyKeyConflictException.Reason.IN_FLIGHT, IN_FLIGHT_MESSAGE);
+            } catch (ExecutionException e) {
+                // Request pertama gagal dengan exception dan entry-nya sudah dibuang: coba jalankan sendiri
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdempotencyKeyConflictException(IdempotencyKeyConflictException.Reason.IN_FLIGHT, IN_FLIGHT_MESSAGE);
+            }
+        }
+    }
+
+    /**
+     * Tandai response request saat ini (non-2xx) sebagai hasil yang pasti sama
+     * jika request diulang, sehingga disimpan untuk retry. Tanpa request
+     * context (mis. dipanggil di luar HTTP request) tidak melakukan apa pun.
+     */
+    public static void markReplayable() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(REPLAYABLE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /**
+     * HMAC-SHA256 atas scope dan body request
+     */
+    public String fingerprint(String scope, byte[] body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(fingerprintKey, "HmacSHA256"));
+            mac.update(scope.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) '\n');
+            mac.update(body);
+            return HexFormat.of().formatHex(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            // HmacSHA256 wajib tersedia di setiap JVM
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private StoredResponse run(ConcurrentMap<String, Entry> map, String storeKey, Entry mine,
+                               Callable<StoredResponse> action) throws Exception {
+        StoredResponse response;
+        try {
+            response = action.call();
+        } catch (Exception | Error e) {
+            map.remove(storeKey, mine);
+            mine.response.completeExceptionally(e);
+            throw e;
+        }
+
+        executed.increment();
+        if (!response.isReplayable()) {
+            // Gangguan sementara (server sibuk, Dukcapil/database down, dsb.): retry berikutnya dijalankan ulang
+            map.remove(storeKey, mine);
+        }
+        mine.response.complete(response);
+        return response;
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * Response HTTP yang disimpan: status, header (termasuk Set-Cookie) dan body.
+     * replayable: 2xx, atau non-2xx yang ditandai {@link #markReplayable()}
+     */
+    public static final class StoredResponse {
+        private final int status;
+        private final Map<String, List<String>> headers;
+        private final byte[] body;
+        private final boolean replayable;
+
+        public StoredResponse(int status, Map<String, List<String>> headers, byte[] body) {
+            this(status, headers, body, false);
+        }
+
+        public StoredResponse(int status, Map<String, List<String>> headers, byte[] body, boolean markedReplayable) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+            this.replayable = (status >= 200 && status < 300) || (markedReplayable && status < 500);
+        }
+
+        public int getStatus() { return status; }
+        public Map<String, List<String>> getHeaders() { return headers; }
+        public byte[] getBody() { return body; }
+        public boolean isReplayable() { return replayable; }
+    }
+
+    /**
+     * Hasil execute: response dan apakah response ini hasil replay
+     */
+    public static final class Result {
+        private final StoredResponse response;
+        private final boolean replayed;
+
+        public Result(StoredResponse response, boolean replayed) {
+            this.response = response;
+            this.replayed = replayed;
+        }
+
+        public StoredResponse getResponse() { return response; }
+        public boolean isReplayed() { return replayed; }
+    }
+}
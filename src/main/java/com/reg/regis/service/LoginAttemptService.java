@@ -22,6 +22,10 @@ public class LoginAttemptService {
 
     private final CustomerRepository customerRepository;
 
+    private final CredentialVersionRegistry credentialVersionRegistry;
+
+    private final CachingUserDetailsService userDetailsCache;
+
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public Customer recordFailedLoginAttempt(String email) {
         Optional<Customer> customerOpt = customerRepository.findByEmailIgnoreCase(email);
@@ -34,12 +38,47 @@ public class LoginAttemptService {
         Customer customer = customerOpt.get();
         customer.setFailedLoginAttempts(customer.getFailedLoginAttempts() + 1);
 
+        boolean locked = false;
         if (customer.getFailedLoginAttempts() >= MAX_LOGIN_ATTEMPTS) {
             customer.setAccountLockedUntil(LocalDateTime.now().plusMinutes(LOCKOUT_DURATION_MINUTES));
             customer.setFailedLoginAttempts(0); // Reset attempts setelah dikunci
+            customer.incrementCredentialVersion(); // Token yang sudah terbit jadi tidak berlaku
+            locked = true;
+        }
+
+        Customer saved = customerRepository.save(customer); // Simpan perubahan di transaksi baru
+
+        if (locked) {
+            credentialVersionRegistry.onCredentialsChanged(customer.getId());
+            userDetailsCache.evict(customer.getEmail()); // Filter langsung melihat status terkunci
+        }
+        return saved;
+    }
+
+    /**
+     * Login berhasil: reset counter/lock dan simpan hash hasil upgrade dalam
+     * transaksi singkat, setelah verifikasi password selesai di luar transaksi.
+     * Hash hanya diganti jika password tidak berubah sejak diverifikasi.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void recordSuccessfulLogin(Long customerId, String verifiedHash, String upgradedHash) {
+        Optional<Customer> customerOpt = customerRepository.findById(customerId);
+        if (customerOpt.isEmpty()) {
+            return;
         }
 
-        return customerRepository.save(customer); // Simpan perubahan di transaksi baru
+        Customer customer = customerOpt.get();
+        boolean wasLocked = customer.getAccountLockedUntil() != null;
+        customer.setFailedLoginAttempts(0);
+        customer.setAccountLockedUntil(null);
+        if (upgradedHash != null && verifiedHash.equals(customer.getPassword())) {
+            customer.setPassword(upgradedHash);
+        }
+        customerRepository.save(customer);
+
+        if (wasLocked) {
+            userDetailsCache.evict(customer.getEmail()); // Status lock lama jangan tertahan di cache
+        }
     }
 
     public int getMaxLoginAttempts() {
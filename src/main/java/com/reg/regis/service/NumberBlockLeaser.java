@@ -0,0 +1,75 @@
+package com.reg.regis.service;
+
+import com.reg.regis.model.AccountNumberRange;
+import com.reg.regis.repository.AccountNumberRangeRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.function.IntSupplier;
+
+/**
+ * Sewa blok nomor (hi/lo) dari tabel account_number_ranges.
+ *
+ * Dipakai AccountNumberAllocator (kode rekening) dan CardNumberGenerator
+ * (counter per BIN). Setiap sewa berjalan di transaksi sendiri; UPDATE
+ * bersyarat mengunci baris bucket sehingga dua node tidak pernah mendapat
+ * blok yang sama.
+ */
+@Component
+public class NumberBlockLeaser {
+
+    private static final Logger logger = LoggerFactory.getLogger(NumberBlockLeaser.class);
+
+    private static final int LEASE_ATTEMPTS = 3;
+
+    private final AccountNumberRangeRepository rangeRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public NumberBlockLeaser(AccountNumberRangeRepository rangeRepository, PlatformTransactionManager transactionManager) {
+        this.rangeRepository = rangeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Sewa maksimal blockSize nomor berurutan dari bucket, dibatasi last.
+     * Bucket yang belum ada dibuat mulai dari startIfNew (dipanggil di dalam
+     * transaksi sewa). Null jika bucket sudah habis.
+     *
+     * @return {pertama, terakhir} inklusif
+     */
+    int[] lease(String bucket, int blockSize, int last, IntSupplier startIfNew) {
+        for (int attempt = 1; attempt <= LEASE_ATTEMPTS; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    if (rangeRepository.advance(bucket, blockSize, last, LocalDateTime.now()) == 1) {
+                        int end = rangeRepository.findNextValue(bucket).orElseThrow();
+                        return new int[] {end - blockSize, Math.min(end - 1, last)};
+                    }
+                    if (rangeRepository.existsById(bucket)) {
+                        return null;
+                    }
+
+                    int start = startIfNew.getAsInt();
+                    if (start > last) {
+                        rangeRepository.saveAndFlush(new AccountNumberRange(bucket, start));
+                        return null;
+                    }
+                    rangeRepository.saveAndFlush(new AccountNumberRange(bucket, start + blockSize));
+                    return new int[] {start, Math.min(start + blockSize - 1, last)};
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Node lain membuat bucket yang sama bersamaan; ulangi lewat UPDATE
+                logger.debug("Concurrent creation of number range {}, retrying", bucket);
+            }
+        }
+        throw new IllegalStateException("Gagal menyewa blok nomor " + bucket + ". Silakan coba lagi.");
+    }
+}
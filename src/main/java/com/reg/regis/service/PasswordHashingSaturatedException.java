@@ -0,0 +1,12 @@
+package com.reg.regis.service;
+
+/**
+ * Pool hashing password penuh (antrian penuh atau menunggu terlalu lama).
+ * Controller menerjemahkannya menjadi 503 + Retry-After.
+ */
+public class PasswordHashingSaturatedException extends RuntimeException {
+
+    public PasswordHashingSaturatedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,158 @@
+package com.reg.regis.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashing password (encode / matches) di thread pool terpisah.
+ *
+ * BCrypt memakan CPU ratusan milidetik per panggilan. Dengan pool sendiri
+ * (default = jumlah CPU) dan antrian terbatas, burst login tidak lagi
+ * menghabiskan CPU yang juga dibutuhkan endpoint ringan. Jika antrian penuh
+ * atau menunggu melebihi max-wait, request langsung ditolak dengan
+ * PasswordHashingSaturatedException (503) daripada ikut mengantri.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private static final String SATURATED_MESSAGE = "Server sedang sibuk. Silakan coba lagi beberapa saat lagi.";
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitMs;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+
+    public PasswordHashingService(
+            PasswordEncoder passwordEncoder,
+            @Value("${app.security.password-hashing.threads:0}") int threads,
+            @Value("${app.security.password-hashing.queue-capacity:32}") int queueCapacity,
+            @Value("${app.security.password-hashing.max-wait-ms:5000}") long maxWaitMs,
+            MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.maxWaitMs = maxWaitMs;
+
+        // 0 = satu thread per CPU yang terlihat oleh JVM (mengikuti limit container)
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        meterRegistry.gauge("password.hashing.queue.depth", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount);
+        this.encodeTimer = Timer.builder("password.hashing.duration")
+                .description("Waktu CPU hashing password")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hashing.duration")
+                .description("Waktu CPU hashing password")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("password.hashing.queue.wait")
+                .description("Waktu tunggu di antrian sebelum hashing dimulai")
+                .register(meterRegistry);
+        this.rejectedQueueFull = Counter.builder("password.hashing.rejected")
+                .description("Permintaan hashing yang ditolak")
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        this.rejectedTimeout = Counter.builder("password.hashing.rejected")
+                .description("Permintaan hashing yang ditolak")
+                .tag("reason", "timeout")
+                .register(meterRegistry);
+
+        logger.info("Password hashing pool: {} threads, queue capacity {}", poolSize, queueCapacity);
+    }
+
+    public String encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword), encodeTimer);
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    /**
+     * True jika hash perlu dibuat ulang (algoritma atau cost lama).
+     * Murah: hanya membaca prefix dan parameter hash, tidak lewat pool.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Jumlah thread hashing; batas wajar untuk hashing paralel dari satu caller (mis. import massal)
+     */
+    public int getParallelism() {
+        return executor.getCorePoolSize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T submit(Callable<T> hashing, Timer timer) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(hashing);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedQueueFull.increment();
+            throw new PasswordHashingSaturatedException(SATURATED_MESSAGE);
+        }
+
+        try {
+            return future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Task yang masih di antrian tidak akan dijalankan lagi
+            future.cancel(false);
+            rejectedTimeout.increment();
+            throw new PasswordHashingSaturatedException(SATURATED_MESSAGE);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingSaturatedException(SATURATED_MESSAGE);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.reg.regis.service;
+
+import com.reg.regis.model.Customer;
+import com.reg.regis.model.RefreshToken;
+import com.reg.regis.repository.CustomerRepository;
+import com.reg.regis.repository.RefreshTokenRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Refresh token opaque yang dirotasi setiap dipakai.
+ *
+ * - Token mentah hanya dikirim ke client; database menyimpan SHA-256-nya
+ * - Setiap rotasi menandai token lama terpakai dan menerbitkan token baru
+ *   dalam family yang sama
+ * - Token terpakai yang dikirim ulang (reuse) me-revoke seluruh family,
+ *   sehingga pencuri dan pemilik asli sama-sama harus login ulang
+ * - Token juga ditolak jika akun terkunci atau versi kredensial berubah
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+    private static final String INVALID_MESSAGE = "Refresh token tidak valid atau sudah kedaluwarsa.";
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final CustomerRepository customerRepository;
+    private final long refreshExpirationMs;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private final Counter rotations;
+    private final Counter reuseDetected;
+
+    public RefreshTokenService(
+            RefreshTokenRepository refreshTokenRepository,
+            CustomerRepository customerRepository,
+            @Value("${app.jwt.refresh-token.expiration-ms:604800000}") long refreshExpirationMs,
+            MeterRegistry meterRegistry) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.customerRepository = customerRepository;
+        this.refreshExpirationMs = refreshExpirationMs;
+        this.rotations = Counter.builder("jwt.refresh.rotations")
+                .description("Refresh token yang berhasil dirotasi")
+                .register(meterRegistry);
+        this.reuseDetected = Counter.builder("jwt.refresh.reuse.detected")
+                .description("Refresh token terpakai yang dikirim ulang (family di-revoke)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Terbitkan refresh token baru (family baru) setelah login berhasil
+     */
+    @Transactional
+    public String issue(Customer customer) {
+        return issue(customer.getId(), customer.getCredentialVersion(), UUID.randomUUID().toString());
+    }
+
+    /**
+     * Pakai refresh token: tandai terpakai dan terbitkan penggantinya.
+     * Revocation family karena reuse tetap di-commit walaupun exception dilempar.
+     */
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public Rotation rotate(String rawToken) {
+        if (rawToken == null || rawToken.isEmpty()) {
+            throw new BadCredentialsException(INVALID_MESSAGE);
+        }
+
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new BadCredentialsException(INVALID_MESSAGE));
+        LocalDateTime now = LocalDateTime.now();
+
+        if (current.getRevokedAt() == null && current.isExpired()) {
+            throw new BadCredentialsException(INVALID_MESSAGE);
+        }
+
+        if (current.getRevokedAt() != null || refreshTokenRepository.markUsed(current.getId(), now) == 0) {
+            // Token sudah pernah dipakai (atau sedang dipakai request lain): anggap bocor
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            reuseDetected.increment();
+            logger.warn("Refresh token reuse detected for customer id {}, family revoked", current.getCustomerId());
+            throw new BadCredentialsException(INVALID_MESSAGE);
+        }
+
+        Customer customer = customerRepository.findById(current.getCustomerId())
+                .orElseThrow(() -> new BadCredentialsException(INVALID_MESSAGE));
+
+        if (customer.isAccountLocked() || customer.getCredentialVersion() != current.getCredentialVersion()) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            throw new BadCredentialsException(INVALID_MESSAGE);
+        }
+
+        String next = issue(customer.getId(), customer.getCredentialVersion(), current.getFamilyId());
+        rotations.increment();
+        return new Rotation(customer, next);
+    }
+
+    /**
+     * Revoke seluruh family dari refresh token ini (logout)
+     */
+    @Transactional
+    public boolean revoke(String rawToken) {
+        if (rawToken == null || rawToken.isEmpty()) {
+            return false;
+        }
+        Optional<RefreshToken> token = refreshTokenRepository.findByTokenHash(hash(rawToken));
+        token.ifPresent(t -> refreshTokenRepository.revokeFamily(t.getFamilyId(), LocalDateTime.now()));
+        return token.isPresent();
+    }
+
+    /**
+     * Hapus baris yang sudah expired supaya tabel tetap kecil
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.refresh-token.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        try {
+            int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+            if (deleted > 0) {
+                logger.debug("Purged {} expired refresh tokens", deleted);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to purge expired refresh tokens: {}", e.getMessage());
+        }
+    }
+
+    public long getRefreshExpirationMs() {
+        return refreshExpirationMs;
+    }
+
+    private String issue(Long customerId, long credentialVersion, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime expiresAt = LocalDateTime.now().plusNanos(refreshExpirationMs * 1_000_000L);
+        refreshTokenRepository.save(new RefreshToken(hash(rawToken), familyId, customerId, credentialVersion, expiresAt));
+        return rawToken;
+    }
+
+    static String hash(String rawToken) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 wajib tersedia di setiap JVM
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Hasil rotasi: customer pemilik token dan refresh token pengganti
+     */
+    public static final class Rotation {
+        private final Customer customer;
+        private final String refreshToken;
+
+        public Rotation(Customer customer, String refreshToken) {
+            this.customer = customer;
+            this.refreshToken = refreshToken;
+        }
+
+        public Customer getCustomer() { return customer; }
+        public String getRefreshToken() { return refreshToken; }
+    }
+}
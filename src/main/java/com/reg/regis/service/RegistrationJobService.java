@@ -0,0 +1,342 @@
+package com.reg.regis.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reg.regis.dto.request.RegistrationRequest;
+import com.reg.regis.model.RegistrationJob;
+import com.reg.regis.repository.RegistrationJobRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registrasi asynchronous: request diterima, dicatat di registration_jobs,
+ * lalu diproses worker pool (verifikasi Dukcapil, hashing, simpan customer).
+ *
+ * Thread HTTP dan koneksi database tidak ikut menunggu Dukcapil, jadi
+ * throughput intake tidak turun saat Dukcapil lambat. Client memantau hasil
+ * lewat GET /auth/register/{jobId} atau SSE /auth/register/{jobId}/events.
+ *
+ * Antrian worker terbatas: jika penuh, request ditolak dengan
+ * RegistrationQueueFullException (503) daripada menumpuk di memory.
+ */
+@Service
+public class RegistrationJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrationJobService.class);
+
+    static final String EVENT_NAME = "registration";
+    private static final String QUEUE_FULL_MESSAGE = "Antrian registrasi sedang penuh. Silakan coba lagi beberapa saat lagi.";
+    private static final String STALE_MESSAGE = "Registrasi terputus sebelum selesai. Silakan ulangi registrasi.";
+    private static final Set<RegistrationJob.Status> FINISHED =
+            EnumSet.of(RegistrationJob.Status.COMPLETED, RegistrationJob.Status.FAILED);
+
+    private final RegistrationJobRepository registrationJobRepository;
+    private final RegistrationService registrationService;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor executor;
+    private final long sseTimeoutMs;
+    private final long staleAfterMs;
+    private final long retentionMs;
+
+    // Emitter SSE yang menunggu hasil, per job id
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    private final Timer processingTimer;
+    private final Counter completed;
+    private final Counter failed;
+    private final Counter rejected;
+
+    public RegistrationJobService(
+            RegistrationJobRepository registrationJobRepository,
+            RegistrationService registrationService,
+            ObjectMapper objectMapper,
+            @Value("${app.registration.async.threads:8}") int threads,
+            @Value("${app.registration.async.queue-capacity:200}") int queueCapacity,
+            @Value("${app.registration.async.sse-timeout-ms:60000}") long sseTimeoutMs,
+            @Value("${app.registration.async.stale-after-ms:300000}") long staleAfterMs,
+            @Value("${app.registration.async.retention-ms:86400000}") long retentionMs,
+            MeterRegistry meterRegistry) {
+        this.registrationJobRepository = registrationJobRepository;
+        this.registrationService = registrationService;
+        this.objectMapper = objectMapper;
+        this.sseTimeoutMs = sseTimeoutMs;
+        this.staleAfterMs = staleAfterMs;
+        this.retentionMs = retentionMs;
+
+        int poolSize = Math.max(1, threads);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "registration-worker-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        meterRegistry.gauge("registration.async.queue.depth", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("registration.async.active", executor, ThreadPoolExecutor::getActiveCount);
+        this.processingTimer = Timer.builder("registration.async.duration")
+                .description("Waktu proses job registrasi oleh worker")
+                .register(meterRegistry);
+        this.completed = Counter.builder("registration.async.jobs")
+                .description("Job registrasi asynchronous per hasil")
+                .tag("outcome", "completed")
+                .register(meterRegistry);
+        this.failed = Counter.builder("registration.async.jobs")
+                .description("Job registrasi asynchronous per hasil")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("registration.async.jobs")
+                .description("Job registrasi asynchronous per hasil")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+
+        logger.info("Registration worker pool: {} threads, queue capacity {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * Catat job baru (PENDING) dan serahkan ke worker pool
+     */
+    public RegistrationJob submit(RegistrationRequest request) {
+        RegistrationJob job = registrationJobRepository.save(new RegistrationJob(UUID.randomUUID().toString()));
+        String jobId = job.getId();
+
+        try {
+            executor.execute(() -> process(jobId, request));
+        } catch (RejectedExecutionException e) {
+            registrationJobRepository.deleteById(jobId);
+            rejected.increment();
+            throw new RegistrationQueueFullException(QUEUE_FULL_MESSAGE);
+        }
+        return job;
+    }
+
+    public Optional<RegistrationJob> findJob(String jobId) {
+        return registrationJobRepository.findById(jobId);
+    }
+
+    /**
+     * Status job dalam bentuk response API (dipakai polling dan SSE)
+     */
+    public Map<String, Object> describe(RegistrationJob job) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("jobId", job.getId());
+        view.put("status", job.getStatus().name());
+        view.put("createdAt", job.getCreatedAt());
+        view.put("completedAt", job.getCompletedAt());
+
+        if (job.getStatus() == RegistrationJob.Status.COMPLETED) {
+            view.put("success", true);
+            view.put("message", "Registrasi berhasil! Data Anda telah terverifikasi dengan KTP Dukcapil. Silakan login.");
+            view.put("data", readResult(job.getResult()));
+        } else if (job.getStatus() == RegistrationJob.Status.FAILED) {
+            view.put("success", false);
+            view.put("error", job.getErrorMessage());
+            view.put("type", job.getErrorType());
+        }
+        return view;
+    }
+
+    /**
+     * Daftarkan emitter SSE untuk job. Status saat ini langsung dikirim;
+     * jika job sudah selesai, emitter langsung ditutup.
+     */
+    public SseEmitter subscribe(RegistrationJob job) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        String jobId = job.getId();
+
+        if (job.isFinished()) {
+            sendAndComplete(emitter, job);
+            return emitter;
+        }
+
+        subscribers.computeIfAbsent(jobId, id -> ConcurrentHashMap.newKeySet()).add(emitter);
+        emitter.onCompletion(() -> unsubscribe(jobId, emitter));
+        emitter.onTimeout(() -> unsubscribe(jobId, emitter));
+        emitter.onError(error -> unsubscribe(jobId, emitter));
+
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(describe(job)));
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(jobId, emitter);
+            return emitter;
+        }
+
+        // Job bisa selesai di antara findJob dan pendaftaran emitter di atas
+        registrationJobRepository.findById(jobId)
+                .filter(RegistrationJob::isFinished)
+                .ifPresent(this::publish);
+        return emitter;
+    }
+
+    /**
+     * Dijalankan worker: PENDING -> PROCESSING -> COMPLETED / FAILED
+     */
+    void process(String jobId, RegistrationRequest request) {
+        if (registrationJobRepository.markProcessing(jobId, LocalDateTime.now()) == 0) {
+            // Sudah di-fail oleh sweeper atau dihapus
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        RegistrationJob.Status status;
+        Long customerId = null;
+        String result = null;
+        String errorMessage = null;
+        String errorType = null;
+
+        try {
+            RegistrationService.Registration registration = registrationService.register(request);
+            status = RegistrationJob.Status.COMPLETED;
+            customerId = registration.getCustomer().getId();
+            result = objectMapper.writeValueAsString(registration.getResponse());
+        } catch (PasswordHashingSaturatedException e) {
+            status = RegistrationJob.Status.FAILED;
+            errorMessage = e.getMessage();
+            errorType = "server_busy";
+        } catch (DukcapilUnavailableException e) {
+            status = RegistrationJob.Status.FAILED;
+            errorMessage = e.getMessage();
+            errorType = "dukcapil_unavailable";
+        } catch (JsonProcessingException e) {
+            // Customer sudah tersimpan; hanya ringkasan hasil yang tidak bisa dibuat
+            logger.error("Failed to serialize registration result for job {}: {}", jobId, e.getMessage());
+            status = RegistrationJob.Status.COMPLETED;
+        } catch (RegistrationRejectedException e) {
+            status = RegistrationJob.Status.FAILED;
+            errorMessage = truncate(e.getMessage());
+            errorType = "validation_error";
+        } catch (Exception e) {
+            // Database, bug, dsb.: bukan kesalahan data registrasi
+            logger.error("Registration job {} failed: {}", jobId, e.getMessage(), e);
+            status = RegistrationJob.Status.FAILED;
+            errorMessage = truncate("Terjadi kesalahan sistem: " + e.getMessage());
+            errorType = "system_error";
+        } finally {
+            processingTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+
+        (status == RegistrationJob.Status.COMPLETED ? completed : failed).increment();
+        if (registrationJobRepository.finish(jobId, status, customerId, result, errorMessage, errorType,
+                LocalDateTime.now()) == 0) {
+            logger.warn("Registration job {} was removed before the worker finished it", jobId);
+        }
+
+        if (subscribers.containsKey(jobId)) {
+            registrationJobRepository.findById(jobId).ifPresent(this::publish);
+        }
+    }
+
+    /**
+     * Emitter SSE yang job-nya diselesaikan instance lain diberi hasilnya.
+     * Hanya query jika ada subscriber di instance ini.
+     */
+    @Scheduled(fixedDelayString = "${app.registration.async.sweep-interval-ms:1000}")
+    public void sweep() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            registrationJobRepository.findByIdInAndStatusIn(subscribers.keySet(), FINISHED)
+                    .forEach(this::publish);
+        } catch (Exception e) {
+            logger.warn("Registration job sweep failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Housekeeping (skala menit, bukan setiap sweep):
+     * - job PENDING/PROCESSING yang macet (instance mati) ditandai FAILED;
+     *   worker yang ternyata hanya lambat tetap bisa menimpa status ini
+     * - job lama dihapus setelah retention
+     */
+    @Scheduled(fixedDelayString = "${app.registration.async.housekeeping-interval-ms:60000}",
+               initialDelayString = "${app.registration.async.housekeeping-interval-ms:60000}")
+    public void housekeeping() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int stale = registrationJobRepository.failStale(
+                    now.minusNanos(staleAfterMs * 1_000_000L), STALE_MESSAGE, now);
+            if (stale > 0) {
+                logger.warn("Marked {} stale registration jobs as failed", stale);
+            }
+            registrationJobRepository.deleteCreatedBefore(now.minusNanos(retentionMs * 1_000_000L));
+        } catch (Exception e) {
+            logger.warn("Registration job housekeeping failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void publish(RegistrationJob job) {
+        Set<SseEmitter> emitters = subscribers.remove(job.getId());
+        if (emitters != null) {
+            emitters.forEach(emitter -> sendAndComplete(emitter, job));
+        }
+    }
+
+    private void sendAndComplete(SseEmitter emitter, RegistrationJob job) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(describe(job)));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // Client sudah menutup koneksi
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void unsubscribe(String jobId, SseEmitter emitter) {
+        subscribers.computeIfPresent(jobId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private Map<String, Object> readResult(String result) {
+        if (result == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(result, new TypeReference<Map<String, Object>>() {});
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
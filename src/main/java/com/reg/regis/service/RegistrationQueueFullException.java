@@ -0,0 +1,12 @@
+package com.reg.regis.service;
+
+/**
+ * Antrian job registrasi asynchronous penuh.
+ * Controller menerjemahkannya menjadi 503 + Retry-After.
+ */
+public class RegistrationQueueFullException extends RuntimeException {
+
+    public RegistrationQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package com.reg.regis.service;
+
+/**
+ * Registrasi ditolak karena datanya: email/nomor telepon/NIK sudah terdaftar
+ * atau verifikasi Dukcapil gagal. Dibedakan dari RuntimeException lain
+ * (database, bug) supaya hanya penolakan ini yang dilaporkan sebagai
+ * validation_error.
+ */
+public class RegistrationRejectedException extends RuntimeException {
+
+    public RegistrationRejectedException(String message) {
+        super(message);
+    }
+}
@@ -1,25 +1,33 @@
 package com.reg.regis.service;
 
 import com.reg.regis.dto.request.RegistrationRequest;
+import com.reg.regis.dto.response.AuthTokens;
 import com.reg.regis.dto.response.DukcapilResponseDto;
 import com.reg.regis.dto.response.RegistrationResponse;
 import com.reg.regis.model.Customer;
 import com.reg.regis.model.Alamat;
 import com.reg.regis.model.Wali;
 import com.reg.regis.repository.CustomerRepository;
+import com.reg.regis.repository.RegistrationConflicts;
 import com.reg.regis.security.JwtUtil;
 
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 import java.util.Map;
-import java.security.SecureRandom;
-import java.time.LocalDateTime;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Service
 @RequiredArgsConstructor
@@ -29,180 +37,103 @@ public class RegistrationService {
 
     private final CustomerRepository customerRepository;
 
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
 
     private final JwtUtil jwtUtil;
 
     private final DukcapilClientService dukcapilClientService;
 
-    // Static random untuk thread safety
-    private static final SecureRandom RANDOM = new SecureRandom();
+    private final TokenRevocationService tokenRevocationService;
+
+    private final RefreshTokenService refreshTokenService;
+
+    private final AccountNumberAllocator accountNumberAllocator;
+
+    private final CardNumberGenerator cardNumberGenerator;
+
+    // Cek registrasi yang blocking I/O (Dukcapil, database) dijalankan paralel di virtual thread
+    private final ExecutorService registrationCheckExecutor = Executors.newVirtualThreadPerTaskExecutor();
     
     /**
-     * Generate nomor kartu debit virtual 16 digit dengan format standar kartu
-     * Format: xxxx xxxx xxxx xxxx
+     * Registrasi customer baru, hanya mengembalikan response untuk client
      */
-    private String generateNomorKartuDebitVirtual(String jenisKartu) {
-        // Prefix berdasarkan jenis kartu (4 digit pertama)
-        String prefix = switch (jenisKartu) {
-            case "Silver" -> "4101";      // 4101 xxxx xxxx xxxx
-            case "Gold" -> "4102";        // 4102 xxxx xxxx xxxx  
-            case "Platinum" -> "4103";    // 4103 xxxx xxxx xxxx
-            case "Batik Air" -> "4104";   // 4104 xxxx xxxx xxxx
-            case "GPN" -> "4105";         // 4105 xxxx xxxx xxxx
-            default -> "4101";            // Default Silver
-        };
-        
-        // Generate 12 digit sisanya (random)
-        long random12Digit = (long)(RANDOM.nextDouble() * 1000000000000L);
-        String random12DigitStr = String.format("%012d", random12Digit);
-        
-        // Gabungkan jadi 16 digit
-        String cardNumber = prefix + random12DigitStr;
-        
-        // Format dengan spasi: xxxx xxxx xxxx xxxx
-        return formatCardNumber(cardNumber);
+    public RegistrationResponse registerCustomer(RegistrationRequest request) {
+        return register(request).getResponse();
     }
     
     /**
-     * Format 16 digit menjadi xxxx xxxx xxxx xxxx
+     * Registrasi customer baru.
+     *
+     * Verifikasi Dukcapil dan cek duplikat lokal tidak saling bergantung,
+     * jadi keduanya dijalankan bersamaan; penolakan pertama langsung
+     * dilempar dan cek lainnya dibatalkan (thread-nya di-interrupt, jadi
+     * panggilan Dukcapil yang sudah tidak berguna ikut berhenti). Transaksi hanya dibuka oleh save()
+     * di akhir (Customer + Alamat + Wali via cascade), bukan selama
+     * menunggu Dukcapil.
+     *
+     * Customer yang tersimpan ikut dikembalikan supaya caller bisa langsung
+     * menerbitkan token tanpa login ulang (tanpa BCrypt matches kedua).
      */
-    private String formatCardNumber(String cardNumber) {
-        if (cardNumber.length() != 16) {
-            throw new IllegalArgumentException("Card number must be 16 digits");
-        }
+    public Registration register(RegistrationRequest request) {
+        // 1-5. DUKCAPIL (HEALTH + VERIFIKASI) DAN CEK DUPLIKAT SECARA PARALEL
+        CompletionService<Object> checks = new ExecutorCompletionService<>(registrationCheckExecutor);
+        Future<Object> dukcapilCheck = checks.submit(() -> verifyWithDukcapil(request));
+        Future<Object> duplicateCheck = checks.submit(() -> {
+            checkDuplicates(request);
+            return null;
+        });
         
-        return cardNumber.substring(0, 4) + " " + 
-               cardNumber.substring(4, 8) + " " + 
-               cardNumber.substring(8, 12) + " " + 
-               cardNumber.substring(12, 16);
-    }
-    
-    /**
-     * Generate nomor kartu debit virtual dengan collision detection
-     */
-    private String generateUniqueNomorKartuDebitVirtual(String jenisKartu) {
-        String nomorKartu = generateNomorKartuDebitVirtual(jenisKartu);
+        awaitAllOrFirstFailure(checks, dukcapilCheck, duplicateCheck);
+        DukcapilResponseDto dukcapilResponse = (DukcapilResponseDto) dukcapilCheck.resultNow();
         
-        // Check collision dan retry maksimal 5 kali
-        int attempts = 0;
-        while (customerRepository.existsByNomorKartuDebitVirtual(nomorKartu) && attempts < 5) {
-            nomorKartu = generateNomorKartuDebitVirtual(jenisKartu);
-            attempts++;
-        }
+        // 6. SET JENIS KARTU DAN AUTO-GENERATE KODE REKENING
+        String jenisKartu = request.getJenisKartu() != null ? request.getJenisKartu() : "Silver";
         
-        return nomorKartu;
-    }
-    
-    /**
-     * Generate kode rekening berdasarkan jenis kartu
-     * Format: [Prefix][YYMM][Random4Digit]
-     */
-    private Integer generateKodeRekening(String jenisKartu) {
-        if (jenisKartu == null || jenisKartu.trim().isEmpty()) {
-            jenisKartu = "Silver"; // Default
-        }
-        
-        // Prefix berdasarkan jenis kartu
-        int prefix = switch (jenisKartu) {
-            case "Silver" -> 10;
-            case "Gold" -> 20;
-            case "Platinum" -> 30;
-            case "Batik Air" -> 40;
-            default -> 10; // Default Silver
-        };
+        if (request.getKodeRekening() == null) {
+            request.setKodeRekening(accountNumberAllocator.next(jenisKartu));
+        }
         
-        // Year-Month (YYMM format)
-        LocalDateTime now = LocalDateTime.now();
-        int year = now.getYear() % 100; // Last 2 digits of year
-        int month = now.getMonthValue();
-        int yearMonth = year * 100 + month; // Format: YYMM
+        // 7. AUTO-GENERATE NOMOR KARTU DEBIT VIRTUAL
+        String nomorKartuDebitVirtual = cardNumberGenerator.next(jenisKartu);
         
-        // Random 4 digits (1000-9999)
-        int random4Digit = 1000 + RANDOM.nextInt(9000);
+        // 8-10. BUAT CUSTOMER (DATA KTP DUKCAPIL + FORM), ALAMAT, DAN WALI
+        String encodedPassword = passwordHashingService.encode(request.getPassword());
+        Customer customer = buildCustomer(request, dukcapilResponse, encodedPassword, jenisKartu, nomorKartuDebitVirtual);
         
-        // Gabungkan: prefix (2) + yearMonth (4) + random (4) = 10 digits
-        long accountCode = (long) prefix * 100000000L + (long) yearMonth * 10000L + random4Digit;
+        Customer savedCustomer;
+        try {
+            savedCustomer = customerRepository.save(customer);
+        } catch (DataIntegrityViolationException e) {
+            if (!isCardNumberCollision(e)) {
+                throw translateUniqueViolation(e, request);
+            }
+            // Nomor kartu acak bentrok: generate ulang sekali (entity baru, id entity gagal tidak dipakai)
+            Customer retry = buildCustomer(request, dukcapilResponse, encodedPassword, jenisKartu,
+                cardNumberGenerator.next(jenisKartu));
+            try {
+                savedCustomer = customerRepository.save(retry);
+            } catch (DataIntegrityViolationException again) {
+                throw translateUniqueViolation(again, request);
+            }
+        }
         
-        return (int) (accountCode % Integer.MAX_VALUE);
+        // Return response DTO dengan data yang diminta
+        RegistrationResponse registrationResponse = new RegistrationResponse(
+            savedCustomer.getJenisKartu(),
+            savedCustomer.getNamaLengkap(),
+            String.valueOf(savedCustomer.getKodeRekening()),
+            savedCustomer.getTipeAkun(), // ✅ Ini akan jadi jenisTabungan
+            savedCustomer.getNomorKartuDebitVirtual()
+        );
+        return new Registration(savedCustomer, registrationResponse);
     }
     
     /**
-     * Generate kode rekening dengan collision detection
+     * Susun Customer + Alamat + Wali dari request dan data KTP Dukcapil.
+     * Dipakai registrasi online dan import massal (CustomerImportService).
      */
-    private Integer generateUniqueKodeRekening(String jenisKartu) {
-        Integer kodeRekening = generateKodeRekening(jenisKartu);
-        
-        // Check collision dan retry maksimal 5 kali
-        int attempts = 0;
-        while (customerRepository.existsByKodeRekening(kodeRekening) && attempts < 5) {
-            kodeRekening = generateKodeRekening(jenisKartu);
-            attempts++;
-        }
-        
-        // Jika masih collision setelah 5 kali, generate simple random
-        if (customerRepository.existsByKodeRekening(kodeRekening)) {
-            int prefix = switch (jenisKartu) {
-                case "Silver" -> 10;
-                case "Gold" -> 20;
-                case "Platinum" -> 30;
-                case "Batik Air" -> 40;
-                default -> 10;
-            };
-            
-            // Simple format: prefix + 6 random digits
-            int randomNumber = 100000 + RANDOM.nextInt(900000);
-            kodeRekening = prefix * 1000000 + randomNumber;
-        }
-        
-        return kodeRekening;
-    }
-    
-    @Transactional
-    public RegistrationResponse registerCustomer(RegistrationRequest request) {
-        // 1. CHECK DUKCAPIL SERVICE AVAILABILITY
-        if (!dukcapilClientService.isDukcapilServiceHealthy()) {
-            throw new RuntimeException("Dukcapil service tidak tersedia. Silakan coba lagi nanti.");
-        }
-        
-        // 2. VALIDASI NIK, NAMA, DAN TANGGAL LAHIR VIA DUKCAPIL SERVICE
-        DukcapilResponseDto dukcapilResponse = dukcapilClientService.verifyNikNameAndBirthDate(
-            request.getNik(), 
-            request.getNamaLengkap(),
-            request.getTanggalLahir()
-        );
-        
-        if (!dukcapilResponse.isValid()) {
-            throw new RuntimeException("Verifikasi Dukcapil gagal: " + dukcapilResponse.getMessage());
-        }
-        
-        // 3. VALIDASI EMAIL TIDAK BOLEH DUPLIKAT
-        if (customerRepository.existsByEmailIgnoreCase(request.getEmail())) {
-            throw new RuntimeException("Email " + request.getEmail() + " sudah terdaftar. Gunakan email lain.");
-        }
-        
-        // 4. VALIDASI NOMOR TELEPON TIDAK BOLEH DUPLIKAT
-        if (customerRepository.existsByNomorTelepon(request.getNomorTelepon())) {
-            throw new RuntimeException("Nomor telepon " + request.getNomorTelepon() + " sudah terdaftar. Gunakan nomor lain.");
-        }
-        
-        // 5. VALIDASI NIK BELUM PERNAH DIGUNAKAN UNTUK REGISTRASI
-        if (customerRepository.existsByNik(request.getNik())) {
-            throw new RuntimeException("NIK " + request.getNik() + " sudah pernah digunakan untuk registrasi.");
-        }
-        
-        // 6. SET JENIS KARTU DAN AUTO-GENERATE KODE REKENING
-        String jenisKartu = request.getJenisKartu() != null ? request.getJenisKartu() : "Silver";
-        
-        if (request.getKodeRekening() == null) {
-            Integer generatedCode = generateUniqueKodeRekening(jenisKartu);
-            request.setKodeRekening(generatedCode);
-        }
-        
-        // 7. AUTO-GENERATE NOMOR KARTU DEBIT VIRTUAL
-        String nomorKartuDebitVirtual = generateUniqueNomorKartuDebitVirtual(jenisKartu);
-        
-        // 8. BUAT CUSTOMER BARU DENGAN DATA DARI DUKCAPIL
+    static Customer buildCustomer(RegistrationRequest request, DukcapilResponseDto dukcapilResponse,
+                                  String encodedPassword, String jenisKartu, String nomorKartuDebitVirtual) {
         Customer customer = new Customer();
         Map<String, Object> ktpData = dukcapilResponse.getData();
         
@@ -210,7 +141,7 @@ public class RegistrationService {
         if (ktpData != null) {
             customer.setNamaLengkap((String) ktpData.get("namaLengkap"));
             customer.setTempatLahir((String) ktpData.get("tempatLahir"));
-            
+        
             // Parse tanggal lahir
             String tanggalLahirStr = (String) ktpData.get("tanggalLahir");
             if (tanggalLahirStr != null) {
@@ -218,7 +149,7 @@ public class RegistrationService {
             } else {
                 customer.setTanggalLahir(request.getTanggalLahir());
             }
-            
+        
             customer.setJenisKelamin((String) ktpData.get("jenisKelamin"));
             customer.setAgama((String) ktpData.get("agama"));
         } else {
@@ -235,7 +166,7 @@ public class RegistrationService {
         customer.setNamaIbuKandung(request.getNamaIbuKandung());
         customer.setNomorTelepon(request.getNomorTelepon());
         customer.setEmail(request.getEmail().toLowerCase());
-        customer.setPassword(passwordEncoder.encode(request.getPassword()));
+        customer.setPassword(encodedPassword);
         customer.setTipeAkun(request.getTipeAkun());
         customer.setStatusPernikahan(request.getStatusPernikahan());
         customer.setPekerjaan(request.getPekerjaan());
@@ -273,16 +204,141 @@ public class RegistrationService {
         customer.setAlamat(alamat);
         customer.setWali(wali);  // Bisa null
         
-        Customer savedCustomer = customerRepository.save(customer);
+        return customer;
+    }
+    
+    /**
+     * Cek ketersediaan Dukcapil (state health monitor, tanpa HTTP call) lalu
+     * validasi NIK, nama, dan tanggal lahir
+     */
+    private DukcapilResponseDto verifyWithDukcapil(RegistrationRequest request) {
+        if (!dukcapilClientService.isDukcapilServiceHealthy()) {
+            // Retry setelah kira-kira satu interval probe health monitor
+            throw new DukcapilUnavailableException("Dukcapil service tidak tersedia. Silakan coba lagi nanti.", 10);
+        }
         
-        // Return response DTO dengan data yang diminta
-        return new RegistrationResponse(
-            savedCustomer.getJenisKartu(),
-            savedCustomer.getNamaLengkap(),
-            String.valueOf(savedCustomer.getKodeRekening()),
-            savedCustomer.getTipeAkun(), // ✅ Ini akan jadi jenisTabungan
-            savedCustomer.getNomorKartuDebitVirtual()
+        DukcapilResponseDto dukcapilResponse = dukcapilClientService.verifyNikNameAndBirthDate(
+            request.getNik(), 
+            request.getNamaLengkap(),
+            request.getTanggalLahir()
         );
+        
+        if (!dukcapilResponse.isValid()) {
+            throw new RegistrationRejectedException("Verifikasi Dukcapil gagal: " + dukcapilResponse.getMessage());
+        }
+        return dukcapilResponse;
+    }
+    
+    /**
+     * Email, nomor telepon, dan NIK tidak boleh sudah terdaftar (satu query)
+     */
+    private void checkDuplicates(RegistrationRequest request) {
+        RegistrationConflicts conflicts = customerRepository.findRegistrationConflicts(
+            request.getEmail(),
+            request.getNomorTelepon(),
+            request.getNik()
+        );
+        
+        if (conflicts.isEmailTaken()) {
+            throw emailTaken(request);
+        }
+        
+        if (conflicts.isNomorTeleponTaken()) {
+            throw nomorTeleponTaken(request);
+        }
+        
+        if (conflicts.isNikTaken()) {
+            throw nikTaken(request);
+        }
+    }
+    
+    /**
+     * Registrasi bersamaan dengan data yang sama bisa lolos probe duplikat;
+     * unique constraint di database yang memutuskan, pesannya disamakan
+     * dengan hasil probe
+     */
+    static RuntimeException translateUniqueViolation(DataIntegrityViolationException e, RegistrationRequest request) {
+        String detail = violationDetail(e);
+        
+        if (detail.contains("email")) {
+            return emailTaken(request);
+        }
+        if (detail.contains("nomor_telepon")) {
+            return nomorTeleponTaken(request);
+        }
+        if (detail.contains("nomor_kartu_debit_virtual")) {
+            return new RegistrationRejectedException("Nomor kartu debit virtual bentrok. Silakan coba lagi.");
+        }
+        if (detail.contains("kode_rekening")) {
+            return new RegistrationRejectedException("Kode rekening " + request.getKodeRekening() + " sudah digunakan.");
+        }
+        if (detail.contains("nik")) {
+            return nikTaken(request);
+        }
+        return new RegistrationRejectedException("Registrasi gagal karena data duplikat. Silakan coba lagi.");
+    }
+    
+    static boolean isCardNumberCollision(DataIntegrityViolationException e) {
+        return violationDetail(e).contains("nomor_kartu_debit_virtual");
+    }
+    
+    private static String violationDetail(DataIntegrityViolationException e) {
+        String detail = String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        if (e.getCause() instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+            detail = violation.getConstraintName() + " " + detail;
+        }
+        return detail.toLowerCase();
+    }
+    
+    static RuntimeException emailTaken(RegistrationRequest request) {
+        return new RegistrationRejectedException("Email " + request.getEmail() + " sudah terdaftar. Gunakan email lain.");
+    }
+    
+    static RuntimeException nomorTeleponTaken(RegistrationRequest request) {
+        return new RegistrationRejectedException("Nomor telepon " + request.getNomorTelepon() + " sudah terdaftar. Gunakan nomor lain.");
+    }
+    
+    static RuntimeException nikTaken(RegistrationRequest request) {
+        return new RegistrationRejectedException("NIK " + request.getNik() + " sudah pernah digunakan untuk registrasi.");
+    }
+    
+    /**
+     * Tunggu semua cek selesai, kecuali ada yang gagal: exception pertama
+     * langsung dilempar ulang (tanpa wrapper ExecutionException) dan cek
+     * yang masih berjalan dibatalkan.
+     */
+    private static void awaitAllOrFirstFailure(CompletionService<Object> completed, Future<?>... checks) {
+        try {
+            for (int i = 0; i < checks.length; i++) {
+                Future<Object> check = completed.take();
+                if (check.state() == Future.State.FAILED) {
+                    cancelAll(checks);
+                    Throwable error = check.exceptionNow();
+                    if (error instanceof RuntimeException cause) {
+                        throw cause;
+                    }
+                    if (error instanceof Error fatal) {
+                        throw fatal;
+                    }
+                    throw new RuntimeException(error);
+                }
+            }
+        } catch (InterruptedException e) {
+            cancelAll(checks);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Registrasi dibatalkan", e);
+        }
+    }
+    
+    private static void cancelAll(Future<?>... checks) {
+        for (Future<?> check : checks) {
+            check.cancel(true);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        registrationCheckExecutor.shutdownNow();
     }
     
     // NEW: Method untuk check kode rekening exists (untuk repository)
@@ -308,7 +364,11 @@ public class RegistrationService {
     // @Transactional(propagation = Propagation.REQUIRES_NEW)
     // private Customer recordFailedLoginAttempt(String email) { ... }
     
-    @Transactional
+    /**
+     * Tanpa transaksi: customer dibaca (koneksi langsung dilepas), hash
+     * diverifikasi tanpa memegang koneksi Hikari, lalu reset counter/rehash
+     * ditulis di transaksi singkat LoginAttemptService.
+     */
     public String authenticateCustomer(String email, String password) {
         Optional<Customer> customerOpt = customerRepository.findByEmailIgnoreCase(email);
         
@@ -327,12 +387,14 @@ public class RegistrationService {
                     loginAttemptService.getLockoutDurationMinutes() + " menit."); // Menggunakan durasi dari LoginAttemptService
         }
 
-        if (passwordEncoder.matches(password, customer.getPassword())) {
-            // Authentication successful: reset failed login attempts
-            customer.setFailedLoginAttempts(0);
-            customer.setAccountLockedUntil(null);
-            customerRepository.save(customer); // Simpan perubahan berhasil
-            return jwtUtil.generateToken(customer.getEmail());
+        if (passwordHashingService.matches(password, customer.getPassword())) {
+            // Authentication successful: reset failed login attempts (hanya jika ada yang berubah)
+            String upgradedHash = upgradedHash(customer.getPassword(), password);
+            if (!Integer.valueOf(0).equals(customer.getFailedLoginAttempts())
+                    || customer.getAccountLockedUntil() != null || upgradedHash != null) {
+                loginAttemptService.recordSuccessfulLogin(customer.getId(), customer.getPassword(), upgradedHash);
+            }
+            return jwtUtil.generateToken(customer.getEmail(), customer.getId(), customer.getCredentialVersion());
         } else {
             // Authentication failed: rekam percobaan gagal melalui LoginAttemptService
             // START MODIFIKASI: Panggil melalui loginAttemptService
@@ -350,6 +412,23 @@ public class RegistrationService {
         }
     }
     
+    /**
+     * Password mentah hanya tersedia saat login: manfaatkan untuk memindahkan
+     * hash lama (tanpa prefix, algoritma lain, atau cost lebih rendah) ke
+     * parameter saat ini. Null jika hash sudah terbaru atau pool hashing penuh.
+     */
+    private String upgradedHash(String currentHash, String rawPassword) {
+        if (!passwordHashingService.needsRehash(currentHash)) {
+            return null;
+        }
+        try {
+            return passwordHashingService.encode(rawPassword);
+        } catch (PasswordHashingSaturatedException e) {
+            // Login tetap berhasil; upgrade dicoba lagi di login berikutnya
+            return null;
+        }
+    }
+    
     public Optional<Customer> getCustomerByEmail(String email) {
         return customerRepository.findByEmailIgnoreCase(email);
     }
@@ -473,12 +552,65 @@ public class RegistrationService {
     
     public String getEmailFromToken(String token) {
         try {
-            return jwtUtil.getEmailFromToken(token);
+            String email = jwtUtil.getEmailFromToken(token);
+            if (email != null && tokenRevocationService.isTokenRevoked(token)) {
+                return null; // Token sudah di-logout
+            }
+            return email;
         } catch (Exception e) {
             return null;
         }
     }
     
+    /**
+     * Terbitkan access token untuk customer yang identitasnya sudah pasti
+     * (baru saja diregistrasi), tanpa verifikasi password ulang
+     */
+    public String issueAccessToken(Customer customer) {
+        return jwtUtil.generateToken(customer.getEmail(), customer.getId(), customer.getCredentialVersion());
+    }
+    
+    /**
+     * Terbitkan refresh token (opaque, dirotasi) untuk customer yang baru login
+     */
+    public String issueRefreshToken(Customer customer) {
+        return refreshTokenService.issue(customer);
+    }
+    
+    /**
+     * Rotasi refresh token dan terbitkan access token baru.
+     * Melempar BadCredentialsException jika token tidak valid atau sudah dipakai.
+     */
+    public AuthTokens refreshTokens(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        Customer customer = rotation.getCustomer();
+        String accessToken = jwtUtil.generateToken(customer.getEmail(), customer.getId(), customer.getCredentialVersion());
+        return new AuthTokens(accessToken, rotation.getRefreshToken());
+    }
+    
+    public boolean revokeRefreshToken(String refreshToken) {
+        try {
+            return refreshTokenService.revoke(refreshToken);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+    
+    public long getRefreshTokenExpirationMs() {
+        return refreshTokenService.getRefreshExpirationMs();
+    }
+    
+    /**
+     * Revoke token saat logout agar salinan token tidak bisa dipakai lagi
+     */
+    public boolean revokeToken(String token) {
+        try {
+            return tokenRevocationService.revokeToken(token);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+    
     public boolean validateToken(String token) {
         return jwtUtil.validateToken(token);
     }
@@ -487,20 +619,35 @@ public class RegistrationService {
         return jwtUtil.generateToken(email);
     }
     
+    /**
+     * Generate token baru dengan membawa ulang claim customer id + versi kredensial
+     */
+    public String generateTokenForCustomer(String email, Long customerId, Long credentialVersion) {
+        return jwtUtil.generateToken(email, customerId, credentialVersion);
+    }
+    
     public static class RegistrationStats {
         private final long totalCustomers;
         private final long verifiedCustomers;
         private final double verificationRate;
         private final boolean dukcapilServiceAvailable;
         private final String dukcapilServiceUrl;
+        private final DukcapilHealthMonitor.Health dukcapilHealth;
         
         public RegistrationStats(long totalCustomers, long verifiedCustomers, double verificationRate, 
                                boolean dukcapilServiceAvailable, String dukcapilServiceUrl) {
+            this(totalCustomers, verifiedCustomers, verificationRate, dukcapilServiceAvailable, dukcapilServiceUrl, null);
+        }
+        
+        public RegistrationStats(long totalCustomers, long verifiedCustomers, double verificationRate, 
+                               boolean dukcapilServiceAvailable, String dukcapilServiceUrl,
+                               DukcapilHealthMonitor.Health dukcapilHealth) {
             this.totalCustomers = totalCustomers;
             this.verifiedCustomers = verifiedCustomers;
             this.verificationRate = verificationRate;
             this.dukcapilServiceAvailable = dukcapilServiceAvailable;
             this.dukcapilServiceUrl = dukcapilServiceUrl;
+            this.dukcapilHealth = dukcapilHealth;
         }
         
         public long getTotalCustomers() { return totalCustomers; }
@@ -508,6 +655,7 @@ public class RegistrationService {
         public double getVerificationRate() { return verificationRate; }
         public boolean isDukcapilServiceAvailable() { return dukcapilServiceAvailable; }
         public String getDukcapilServiceUrl() { return dukcapilServiceUrl; }
+        public DukcapilHealthMonitor.Health getDukcapilHealth() { return dukcapilHealth; }
     }    
     
     public RegistrationStats getRegistrationStats() {
@@ -515,10 +663,27 @@ public class RegistrationService {
         long verifiedCustomers = 0;
         double verificationRate = totalCustomers > 0 ? 
             (double) verifiedCustomers / totalCustomers * 100 : 0;
+        // State terakhir dari DukcapilHealthMonitor, bukan HTTP call
         boolean dukcapilAvailable = dukcapilClientService.isDukcapilServiceHealthy();
         String dukcapilUrl = dukcapilClientService.getDukcapilBaseUrl();
             
         return new RegistrationStats(totalCustomers, verifiedCustomers, verificationRate, 
-                                   dukcapilAvailable, dukcapilUrl);
+                                   dukcapilAvailable, dukcapilUrl, dukcapilClientService.getHealth());
+    }
+    
+    /**
+     * Hasil registrasi: customer yang tersimpan dan response untuk client
+     */
+    public static final class Registration {
+        private final Customer customer;
+        private final RegistrationResponse response;
+        
+        public Registration(Customer customer, RegistrationResponse response) {
+            this.customer = customer;
+            this.response = response;
+        }
+        
+        public Customer getCustomer() { return customer; }
+        public RegistrationResponse getResponse() { return response; }
     }
 }
\ No newline at end of file
@@ -0,0 +1,269 @@
+package com.reg.regis.service;
+
+import com.reg.regis.model.RevokedToken;
+import com.reg.regis.repository.RevokedTokenRepository;
+import com.reg.regis.security.JwtUtil;
+import com.reg.regis.security.VerifiedToken;
+import com.reg.regis.security.VerifiedTokenCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Revocation JWT (logout) tanpa query database per request.
+ *
+ * - Sumber kebenaran: tabel revoked_tokens (jti + expires_at)
+ * - Di memory: Bloom filter + map jti -> exp. Bloom filter menjawab
+ *   "pasti belum di-revoke" untuk hampir semua request; hanya kalau Bloom
+ *   filter bilang "mungkin" baru map exact dicek (tetap tanpa I/O)
+ * - Entry dibuang dari map dan tabel setelah exp token lewat, lalu Bloom
+ *   filter dibangun ulang dari map sehingga ukurannya tetap kecil
+ * - Refresh berkala dari tabel supaya revoke di replica lain ikut terlihat
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final int expectedEntries;
+
+    // jti -> exp (epoch millis)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private volatile BloomFilter bloomFilter;
+
+    private final Counter bloomPositives;
+    private final Counter bloomFalsePositives;
+
+    public TokenRevocationService(
+            RevokedTokenRepository revokedTokenRepository,
+            JwtUtil jwtUtil,
+            VerifiedTokenCache verifiedTokenCache,
+            @Value("${app.jwt.revocation.expected-entries:100000}") int expectedEntries,
+            MeterRegistry meterRegistry) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.jwtUtil = jwtUtil;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.expectedEntries = Math.max(1, expectedEntries);
+        this.bloomFilter = new BloomFilter(this.expectedEntries, FALSE_POSITIVE_RATE);
+
+        meterRegistry.gauge("jwt.revocation.size", revoked, Map::size);
+        this.bloomPositives = Counter.builder("jwt.revocation.bloom.positives")
+                .description("Lookup yang lolos Bloom filter dan dicek ke set exact")
+                .register(meterRegistry);
+        this.bloomFalsePositives = Counter.builder("jwt.revocation.bloom.false.positives")
+                .description("Lookup yang lolos Bloom filter tapi tidak di-revoke")
+                .register(meterRegistry);
+    }
+
+    /**
+     * True jika token ini sudah di-revoke dan belum expired. Tanpa I/O.
+     */
+    public boolean isRevoked(VerifiedToken verifiedToken) {
+        if (verifiedToken == null) {
+            return false;
+        }
+        return isRevoked(verifiedToken.getTokenId());
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !bloomFilter.mightContain(jti)) {
+            return false;
+        }
+        bloomPositives.increment();
+
+        Long expiresAt = revoked.get(jti);
+        if (expiresAt != null && expiresAt > System.currentTimeMillis()) {
+            return true;
+        }
+        bloomFalsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Cek revocation untuk raw token (jalur cookie yang tidak lewat JwtAuthFilter)
+     */
+    public boolean isTokenRevoked(String token) {
+        VerifiedToken verifiedToken = resolve(token);
+        return verifiedToken != null && isRevoked(verifiedToken);
+    }
+
+    /**
+     * Revoke token (logout). Token invalid/expired tidak perlu disimpan.
+     *
+     * @return true jika token berhasil di-revoke
+     */
+    public boolean revokeToken(String token) {
+        VerifiedToken verifiedToken = resolve(token);
+        if (verifiedToken == null || verifiedToken.getTokenId() == null || verifiedToken.isExpired()) {
+            return false;
+        }
+
+        String jti = verifiedToken.getTokenId();
+        long expiresAt = verifiedToken.getExpirationMillis();
+
+        revokedTokenRepository.save(new RevokedToken(jti, verifiedToken.getSubject(), toLocalDateTime(expiresAt)));
+        remember(jti, expiresAt);
+        verifiedTokenCache.invalidate(token);
+
+        logger.info("JWT revoked for user: {}", verifiedToken.getSubject());
+        return true;
+    }
+
+    /**
+     * Sinkron dengan tabel (revoke dari replica lain) dan buang entry expired.
+     * Jalan sekali saat startup lalu berkala.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.jwt.revocation.refresh-interval-ms:30000}")
+    public void refresh() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int deleted = revokedTokenRepository.deleteExpired(now);
+
+            for (RevokedToken row : revokedTokenRepository.findActive(now)) {
+                revoked.putIfAbsent(row.getJti(), toEpochMillis(row.getExpiresAt()));
+            }
+
+            prune();
+
+            if (deleted > 0) {
+                logger.debug("Pruned {} expired revoked tokens", deleted);
+            }
+        } catch (Exception e) {
+            // Set di memory tetap dipakai; coba lagi di interval berikutnya
+            logger.warn("Failed to refresh revoked tokens: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Buang entry yang exp-nya sudah lewat lalu bangun ulang Bloom filter
+     */
+    void prune() {
+        long now = System.currentTimeMillis();
+        synchronized (writeLock) {
+            revoked.values().removeIf(expiresAt -> expiresAt <= now);
+
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revoked.size() * 2), FALSE_POSITIVE_RATE);
+            revoked.keySet().forEach(rebuilt::put);
+            this.bloomFilter = rebuilt;
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    private void remember(String jti, long expiresAt) {
+        synchronized (writeLock) {
+            revoked.put(jti, expiresAt);
+            bloomFilter.put(jti);
+        }
+    }
+
+    private VerifiedToken resolve(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        VerifiedToken verifiedToken = verifiedTokenCache.get(token);
+        if (verifiedToken == null) {
+            verifiedToken = jwtUtil.verify(token);
+            verifiedTokenCache.put(token, verifiedToken);
+        }
+        return verifiedToken;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Bloom filter sederhana (double hashing di atas hash 64-bit FNV-1a).
+     * Thread-safe untuk put/mightContain bersamaan; tidak mendukung delete,
+     * karena itu dibangun ulang saat prune.
+     */
+    private static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final int bitCount;
+        private final int hashCount;
+
+        private BloomFilter(int expectedEntries, double falsePositiveRate) {
+            long optimalBits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bitCount = (int) Math.max(64, Math.min(Integer.MAX_VALUE - 63, optimalBits));
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * Math.log(2)));
+            this.bits = new AtomicLongArray((bitCount + 63) / 64);
+        }
+
+        private void put(String value) {
+            long hash = hash64(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                int index = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+                setBit(index);
+            }
+        }
+
+        private boolean mightContain(String value) {
+            long hash = hash64(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                int index = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+                if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void setBit(int index) {
+            int word = index >>> 6;
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    return;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+
+        private static long hash64(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            // Finalizer (murmur3 fmix64) supaya bit atas/bawah tercampur rata
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
@@ -55,6 +55,9 @@ public class VerificationService {
                 );
             }
             
+        } catch (DukcapilUnavailableException e) {
+            // Controller menjawab 503 + Retry-After, bukan "NIK tidak valid"
+            throw e;
         } catch (Exception e) {
             System.err.println("💥 Error in NIK verification: " + e.getMessage());
             return new VerificationResponse(
@@ -154,6 +157,13 @@ public class VerificationService {
         return dukcapilClientService.isNikExists(nik);
     }
     
+    /**
+     * Status Dukcapil Service terakhir (O(1), tanpa HTTP call)
+     */
+    public DukcapilHealthMonitor.Health getDukcapilHealth() {
+        return dukcapilClientService.getHealth();
+    }
+    
     /**
      * Get verification statistics
      */
@@ -167,13 +177,17 @@ public class VerificationService {
         double verificationRate = totalCustomers > 0 ? 
             (double) verifiedCustomers / totalCustomers * 100 : 0;
         
-        // Dukcapil service health
+        // Dukcapil service health: state terakhir dari DukcapilHealthMonitor, bukan HTTP call
         boolean dukcapilHealthy = dukcapilClientService.isDukcapilServiceHealthy();
+        DukcapilHealthMonitor.Health dukcapilHealth = dukcapilClientService.getHealth();
         
         stats.put("totalCustomers", totalCustomers);
         stats.put("verifiedCustomers", verifiedCustomers);
         stats.put("verificationRate", Math.round(verificationRate * 100.0) / 100.0);
         stats.put("dukcapilServiceHealthy", dukcapilHealthy);
+        if (dukcapilHealth != null) {
+            stats.put("dukcapilServiceStatus", dukcapilHealth.toMap());
+        }
         stats.put("dukcapilServiceUrl", dukcapilClientService.getDukcapilBaseUrl());
         stats.put("timestamp", System.currentTimeMillis());
         
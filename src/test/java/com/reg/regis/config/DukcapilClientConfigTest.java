@@ -0,0 +1,128 @@
+package com.reg.regis.config;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RestTemplate Dukcapil diuji terhadap HTTP server lokal sungguhan
+ */
+class DukcapilClientConfigTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private HttpServer server;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/health", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "{\"status\":\"OK\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        DukcapilClientConfig config = new DukcapilClientConfig();
+        ReflectionTestUtils.setField(config, "timeout", 5000);
+        ReflectionTestUtils.setField(config, "connectTimeout", 1000);
+        ReflectionTestUtils.setField(config, "maxTotal", 10);
+        ReflectionTestUtils.setField(config, "maxPerRoute", 1);
+        ReflectionTestUtils.setField(config, "acquireTimeout", 200);
+        ReflectionTestUtils.setField(config, "idleEviction", 30000L);
+        ReflectionTestUtils.setField(config, "timeToLive", 300000L);
+        connectionManager = config.dukcapilConnectionManager(meterRegistry);
+        httpClient = config.dukcapilHttpClient(connectionManager);
+        restTemplate = config.restTemplate(new RestTemplateBuilder(), httpClient);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void sequentialCalls_ReuseOneKeepAliveConnection() {
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertEquals("{\"status\":\"OK\"}", restTemplate.getForObject(baseUrl + "/health", String.class));
+        }
+
+        // Then - satu koneksi TCP untuk semua request, kembali ke pool setelah dipakai
+        assertEquals(1, clientPorts.size());
+        assertEquals(1.0, poolGauge("httpcomponents.httpclient.pool.total.connections", "available"));
+        assertEquals(0.0, poolGauge("httpcomponents.httpclient.pool.total.connections", "leased"));
+        assertEquals(10.0, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", DukcapilClientConfig.POOL_NAME).gauge().value());
+    }
+
+    @Test
+    void poolExhausted_FailsAfterAcquireTimeout() throws Exception {
+        // Given - satu-satunya koneksi per route sedang dipakai request lambat
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> slow = executor.submit(() -> restTemplate.getForObject(baseUrl + "/slow", String.class));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (connectionManager.getTotalStats().getLeased() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1.0, poolGauge("httpcomponents.httpclient.pool.total.connections", "leased"));
+
+        // When & Then - tidak menunggu read timeout (5 detik), gagal setelah acquire-timeout
+        long start = System.nanoTime();
+        assertThrows(ResourceAccessException.class, () -> restTemplate.getForObject(baseUrl + "/health", String.class));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 3000);
+
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    private double poolGauge(String name, String state) {
+        return meterRegistry.get(name)
+                .tag("httpclient", DukcapilClientConfig.POOL_NAME)
+                .tag("state", state)
+                .gauge().value();
+    }
+}
@@ -0,0 +1,239 @@
+package com.reg.regis.config;
+
+import com.reg.regis.controller.RegistrationController;
+import com.reg.regis.dto.response.RegistrationResponse;
+import com.reg.regis.model.Customer;
+import com.reg.regis.service.DukcapilUnavailableException;
+import com.reg.regis.service.IdempotencyService;
+import com.reg.regis.service.RegistrationJobService;
+import com.reg.regis.service.RegistrationRejectedException;
+import com.reg.regis.service.RegistrationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+class IdempotencyFilterTest {
+
+    private final IdempotencyFilter filter = new IdempotencyFilter(
+            new IdempotencyService(900, 100, 5_000L, new SimpleMeterRegistry()),
+            true, Set.of("/auth/register", "/auth/login"));
+
+    private final AtomicInteger handled = new AtomicInteger();
+
+    // Controller palsu: baca body, set cookie, tulis JSON
+    private final FilterChain chain = (request, response) -> {
+        handled.incrementAndGet();
+        String body = StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8);
+        HttpServletResponse http = (HttpServletResponse) response;
+        http.addCookie(new Cookie("authToken", "token-" + handled.get()));
+        http.setStatus(200);
+        http.setContentType("application/json");
+        http.getWriter().write("{\"echo\":" + body + "}");
+    };
+
+    @Test
+    void retryWithSameKey_ReplaysStoredResponseAndCookies() throws Exception {
+        // When
+        MockHttpServletResponse first = perform("/auth/register", "key-1", "{\"nik\":\"1\"}");
+        MockHttpServletResponse retry = perform("/auth/register", "key-1", "{\"nik\":\"1\"}");
+
+        // Then
+        assertEquals(1, handled.get());
+        assertEquals("{\"echo\":{\"nik\":\"1\"}}", first.getContentAsString());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals(200, retry.getStatus());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertTrue(retry.getHeader("Set-Cookie").contains("authToken=token-1"));
+    }
+
+    @Test
+    void sameKeyDifferentBody_Returns422() throws Exception {
+        // When
+        perform("/auth/register", "key-1", "{\"nik\":\"1\"}");
+        MockHttpServletResponse other = perform("/auth/register", "key-1", "{\"nik\":\"2\"}");
+
+        // Then
+        assertEquals(422, other.getStatus());
+        assertTrue(other.getContentAsString().contains("idempotency_error"));
+        assertEquals(1, handled.get());
+    }
+
+    @Test
+    void requestWithoutKeyOrOnOtherPath_IsNotCached() throws Exception {
+        // When
+        perform("/auth/register", null, "{}");
+        perform("/auth/register", null, "{}");
+        perform("/auth/check-password", "key-1", "{}");
+        perform("/auth/check-password", "key-1", "{}");
+
+        // Then
+        assertEquals(4, handled.get());
+    }
+
+    @Test
+    void overlongKey_Returns400() throws Exception {
+        // When
+        MockHttpServletResponse response = perform("/auth/login", "k".repeat(256), "{}");
+
+        // Then
+        assertEquals(400, response.getStatus());
+        assertEquals(0, handled.get());
+    }
+
+    @Test
+    void cachedBody_NonBlockingReadListener_ReceivesWholeBody() throws Exception {
+        // Given - controller yang membaca body lewat ReadListener (async I/O)
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/register");
+        request.setServletPath("/auth/register");
+        request.setContent("{\"nik\":\"1\"}".getBytes(StandardCharsets.UTF_8));
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-1");
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        AtomicBoolean allDataRead = new AtomicBoolean();
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            ServletInputStream input = req.getInputStream();
+            input.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    byte[] buffer = new byte[4];
+                    int read;
+                    while (input.isReady() && (read = input.read(buffer)) != -1) {
+                        received.write(buffer, 0, read);
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allDataRead.set(true);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    fail(t);
+                }
+            });
+        });
+
+        // Then
+        assertEquals("{\"nik\":\"1\"}", received.toString(StandardCharsets.UTF_8));
+        assertTrue(allDataRead.get());
+    }
+
+    @Test
+    void register_DukcapilOutageThenRetryWithSameKey_RunsRegistrationAgain() throws Exception {
+        // Given - request pertama kena Dukcapil down, retry setelah Dukcapil pulih
+        RegistrationService registrationService = mock(RegistrationService.class);
+        Customer customer = new Customer();
+        customer.setId(1L);
+        when(registrationService.register(any()))
+                .thenThrow(new DukcapilUnavailableException("Dukcapil Service tidak dapat diakses. Silakan coba lagi nanti.", 10))
+                .thenReturn(new RegistrationService.Registration(customer,
+                        new RegistrationResponse("Silver", "John Doe", "1025010001", "Tabungan", "4101 2345 6789 0123")));
+        when(registrationService.issueAccessToken(customer)).thenReturn("access-token");
+        when(registrationService.issueRefreshToken(customer)).thenReturn("refresh-token");
+        MockMvc mockMvc = registrationMockMvc(registrationService);
+
+        // When
+        MvcResult outage = mockMvc.perform(registerRequest("key-1")).andReturn();
+        MvcResult retry = mockMvc.perform(registerRequest("key-1")).andReturn();
+
+        // Then - hasil 503 tidak disimpan, retry benar-benar dijalankan
+        assertEquals(503, outage.getResponse().getStatus());
+        assertEquals(200, retry.getResponse().getStatus());
+        assertNull(retry.getResponse().getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        verify(registrationService, times(2)).register(any());
+    }
+
+    @Test
+    void register_RejectedDataOrTransientError_OnlyRejectionIsReplayed() throws Exception {
+        // Given
+        RegistrationService registrationService = mock(RegistrationService.class);
+        when(registrationService.register(any()))
+                .thenThrow(new DataAccessResourceFailureException("Connection is not available"))
+                .thenThrow(new RuntimeException("Unexpected"))
+                .thenThrow(new RegistrationRejectedException("Email john@example.com sudah terdaftar. Gunakan email lain."));
+        MockMvc mockMvc = registrationMockMvc(registrationService);
+
+        // When
+        MvcResult databaseDown = mockMvc.perform(registerRequest("key-1")).andReturn();
+        MvcResult unexpected = mockMvc.perform(registerRequest("key-1")).andReturn();
+        MvcResult rejected = mockMvc.perform(registerRequest("key-1")).andReturn();
+        MvcResult replay = mockMvc.perform(registerRequest("key-1")).andReturn();
+
+        // Then - hanya penolakan data (deterministik) yang di-replay
+        assertEquals(503, databaseDown.getResponse().getStatus());
+        assertEquals(400, unexpected.getResponse().getStatus());
+        assertEquals(400, rejected.getResponse().getStatus());
+        assertEquals("true", replay.getResponse().getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(rejected.getResponse().getContentAsString(), replay.getResponse().getContentAsString());
+        verify(registrationService, times(3)).register(any());
+    }
+
+    private MockMvc registrationMockMvc(RegistrationService registrationService) {
+        RegistrationController controller = new RegistrationController(registrationService, mock(RegistrationJobService.class));
+        ReflectionTestUtils.setField(controller, "cookieDomain", "");
+        ReflectionTestUtils.setField(controller, "contextPath", "");
+        ReflectionTestUtils.setField(controller, "accessTokenExpirationMs", 900_000L);
+        return MockMvcBuilders.standaloneSetup(controller)
+                .addPlaceholderValue("app.cors.allowed-origins", "http://localhost:3000")
+                .addFilters(filter)
+                .build();
+    }
+
+    private static MockHttpServletRequestBuilder registerRequest(String key) {
+        String body = "{\"namaLengkap\":\"John Doe\",\"nik\":\"1234567890123456\",\"namaIbuKandung\":\"Ibu\","
+                + "\"nomorTelepon\":\"081234567890\",\"email\":\"john@example.com\",\"password\":\"Password123!\","
+                + "\"tipeAkun\":\"Tabungan\",\"tempatLahir\":\"Jakarta\",\"tanggalLahir\":\"1990-01-01\","
+                + "\"jenisKelamin\":\"Laki-laki\",\"agama\":\"Islam\",\"statusPernikahan\":\"Belum Kawin\","
+                + "\"pekerjaan\":\"Karyawan\",\"sumberPenghasilan\":\"Gaji\",\"rentangGaji\":\"5-10 juta\","
+                + "\"tujuanPembuatanRekening\":\"Tabungan\",\"alamat\":{\"namaAlamat\":\"Jl. Sudirman No. 1\","
+                + "\"provinsi\":\"DKI Jakarta\",\"kota\":\"Jakarta Pusat\",\"kecamatan\":\"Menteng\","
+                + "\"kelurahan\":\"Menteng\",\"kodePos\":\"10310\"}}";
+        return post("/auth/register")
+                .servletPath("/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+                .content(body);
+    }
+
+    private MockHttpServletResponse perform(String path, String key, String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setServletPath(path);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
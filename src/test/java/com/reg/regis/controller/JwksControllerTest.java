@@ -0,0 +1,41 @@
+package com.reg.regis.controller;
+
+import com.reg.regis.security.JwtKeyRing;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwksControllerTest {
+
+    @Mock
+    private JwtKeyRing jwtKeyRing;
+
+    @InjectMocks
+    private JwksController jwksController;
+
+    @Test
+    void testJwks_ReturnsKeySetWithCacheHeader() {
+        // Given
+        Map<String, Object> jwks = Map.of("keys", List.of(Map.of("kid", "2026-01")));
+        when(jwtKeyRing.jwks()).thenReturn(jwks);
+
+        // When
+        ResponseEntity<Map<String, Object>> responseEntity = jwksController.jwks();
+
+        // Then
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(jwks, responseEntity.getBody());
+        assertTrue(responseEntity.getHeaders().getCacheControl().contains("max-age=300"));
+    }
+}
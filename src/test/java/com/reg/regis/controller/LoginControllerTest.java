@@ -1,7 +1,9 @@
 package com.reg.regis.controller;
 
+import com.reg.regis.dto.response.AuthTokens;
 import com.reg.regis.model.Alamat;
 import com.reg.regis.model.Customer;
+import com.reg.regis.service.PasswordHashingSaturatedException;
 import com.reg.regis.service.RegistrationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -44,6 +46,7 @@ class LoginControllerTest {
         loginController = new LoginController(registrationService);
         ReflectionTestUtils.setField(loginController, "cookieSecure", false);
         ReflectionTestUtils.setField(loginController, "cookieDomain", "");
+        ReflectionTestUtils.setField(loginController, "accessTokenExpirationMs", 900000L);
     }
 
     @Test
@@ -64,6 +67,7 @@ class LoginControllerTest {
 
         when(registrationService.authenticateCustomer(email, password)).thenReturn(token);
         when(registrationService.getCustomerByEmail(email)).thenReturn(Optional.of(customer));
+        when(registrationService.issueRefreshToken(customer)).thenReturn("refresh-token");
 
         // When
         ResponseEntity<?> responseEntity = loginController.loginCustomer(loginRequest, request, response);
@@ -78,7 +82,8 @@ class LoginControllerTest {
         assertTrue((Boolean) body.get("success"));
         assertEquals("Login successful", body.get("message"));
         assertEquals(token, body.get("token"));
-        verify(response).addCookie(any());
+        assertEquals("refresh-token", body.get("refreshToken"));
+        verify(response, times(2)).addCookie(any()); // access + refresh cookie
     }
 
     @Test
@@ -122,6 +127,25 @@ class LoginControllerTest {
         assertEquals(HttpStatus.TOO_MANY_REQUESTS, responseEntity.getStatusCode());
     }
 
+    @Test
+    void testLoginCustomer_PasswordHashingSaturated_Returns503() {
+        // Given
+        LoginController.LoginRequest loginRequest = new LoginController.LoginRequest();
+        loginRequest.setEmail("test@example.com");
+        loginRequest.setPassword("password");
+
+        when(registrationService.authenticateCustomer(anyString(), anyString()))
+            .thenThrow(new PasswordHashingSaturatedException("Server sedang sibuk. Silakan coba lagi beberapa saat lagi."));
+
+        // When
+        ResponseEntity<?> responseEntity = loginController.loginCustomer(loginRequest, request, response);
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, responseEntity.getStatusCode());
+        assertEquals("1", responseEntity.getHeaders().getFirst("Retry-After"));
+        verify(registrationService, never()).getCustomerByEmail(anyString());
+    }
+
     @Test
     void testGetCurrentUser_Success() {
         // Given
@@ -136,7 +160,7 @@ class LoginControllerTest {
         when(registrationService.getCustomerByEmail(email)).thenReturn(Optional.of(customer));
 
         // When
-        ResponseEntity<?> responseEntity = loginController.getCurrentUser(token, null);
+        ResponseEntity<?> responseEntity = loginController.getCurrentUser(token, null, null);
 
         // Then
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
@@ -156,7 +180,7 @@ class LoginControllerTest {
         when(registrationService.getEmailFromToken(invalidToken)).thenReturn(null);
 
         // When
-        ResponseEntity<?> responseEntity = loginController.getCurrentUser(invalidToken, null);
+        ResponseEntity<?> responseEntity = loginController.getCurrentUser(invalidToken, null, null);
 
         // Then
         assertEquals(HttpStatus.UNAUTHORIZED, responseEntity.getStatusCode());
@@ -168,10 +192,22 @@ class LoginControllerTest {
         assertEquals("Invalid token", body.get("error"));
     }
 
+    @Test
+    void testLogout_WithToken_RevokesToken() {
+        // When
+        ResponseEntity<?> responseEntity = loginController.logout(null, "Bearer header-token", "refresh-cookie", response);
+
+        // Then
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        verify(registrationService).revokeToken("header-token");
+        verify(registrationService).revokeRefreshToken("refresh-cookie");
+        verify(response, times(2)).addCookie(any()); // access + refresh cookie dihapus
+    }
+
     @Test
     void testLogout_Success() {
         // When
-        ResponseEntity<?> responseEntity = loginController.logout(response);
+        ResponseEntity<?> responseEntity = loginController.logout(null, null, null, response);
 
         // Then
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
@@ -182,21 +218,19 @@ class LoginControllerTest {
         assertNotNull(body);
         assertTrue((Boolean) body.get("success"));
         assertEquals("Logout successful", body.get("message"));
-        verify(response).addCookie(any());
+        verify(response, times(2)).addCookie(any());
+        verify(registrationService, never()).revokeToken(any());
+        verify(registrationService, never()).revokeRefreshToken(any());
     }
 
     @Test
     void testRefreshToken_Success() {
         // Given
-        String oldToken = "old-token";
-        String newToken = "new-token";
-        String email = "test@example.com";
-
-        when(registrationService.getEmailFromToken(oldToken)).thenReturn(email);
-        when(registrationService.generateTokenForEmail(email)).thenReturn(newToken);
+        when(registrationService.refreshTokens("old-refresh-token"))
+            .thenReturn(new AuthTokens("new-access-token", "new-refresh-token"));
 
         // When
-        ResponseEntity<?> responseEntity = loginController.refreshToken(oldToken, null, response);
+        ResponseEntity<?> responseEntity = loginController.refreshToken("old-refresh-token", null, response);
 
         // Then
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
@@ -206,8 +240,10 @@ class LoginControllerTest {
         
         assertNotNull(body);
         assertTrue((Boolean) body.get("success"));
-        assertEquals(newToken, body.get("token"));
-        verify(response).addCookie(any());
+        assertEquals("Token refreshed", body.get("message"));
+        assertEquals("new-access-token", body.get("token"));
+        assertEquals("new-refresh-token", body.get("refreshToken"));
+        verify(response, times(2)).addCookie(any(Cookie.class));
     }
 
     @Test
@@ -374,7 +410,7 @@ class LoginControllerTest {
     @Test
     void testGetCurrentUser_NoToken() {
         // When
-        ResponseEntity<?> responseEntity = loginController.getCurrentUser(null, null);
+        ResponseEntity<?> responseEntity = loginController.getCurrentUser(null, null, null);
 
         // Then
         assertEquals(HttpStatus.UNAUTHORIZED, responseEntity.getStatusCode());
@@ -389,7 +425,7 @@ class LoginControllerTest {
     @Test
     void testGetCurrentUser_EmptyToken() {
         // When
-        ResponseEntity<?> responseEntity = loginController.getCurrentUser("", null);
+        ResponseEntity<?> responseEntity = loginController.getCurrentUser("", null, null);
 
         // Then
         assertEquals(HttpStatus.UNAUTHORIZED, responseEntity.getStatusCode());
@@ -411,7 +447,7 @@ class LoginControllerTest {
         when(registrationService.getCustomerByEmail(email)).thenReturn(Optional.empty());
 
         // When
-        ResponseEntity<?> responseEntity = loginController.getCurrentUser(token, null);
+        ResponseEntity<?> responseEntity = loginController.getCurrentUser(token, null, null);
 
         // Then
         assertEquals(HttpStatus.UNAUTHORIZED, responseEntity.getStatusCode());
@@ -432,7 +468,7 @@ class LoginControllerTest {
             .thenThrow(new RuntimeException("Token parsing error"));
 
         // When
-        ResponseEntity<?> responseEntity = loginController.getCurrentUser(token, null);
+        ResponseEntity<?> responseEntity = loginController.getCurrentUser(token, null, null);
 
         // Then
         assertEquals(HttpStatus.UNAUTHORIZED, responseEntity.getStatusCode());
@@ -459,7 +495,7 @@ class LoginControllerTest {
         when(registrationService.getCustomerByEmail(email)).thenReturn(Optional.of(customer));
 
         // When
-        ResponseEntity<?> responseEntity = loginController.getCurrentUser(null, authHeader);
+        ResponseEntity<?> responseEntity = loginController.getCurrentUser(null, authHeader, null);
 
         // Then
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
@@ -473,6 +509,7 @@ class LoginControllerTest {
 
     @Test
     void testRefreshToken_NoToken() {
+
         // When
         ResponseEntity<?> responseEntity = loginController.refreshToken(null, null, response);
 
@@ -484,17 +521,17 @@ class LoginControllerTest {
         
         assertNotNull(body);
         assertEquals("Token required", body.get("error"));
+        verify(registrationService, never()).refreshTokens(any());
     }
 
     @Test
     void testRefreshToken_InvalidToken() {
         // Given
-        String invalidToken = "invalid-token";
-
-        when(registrationService.getEmailFromToken(invalidToken)).thenReturn(null);
+        when(registrationService.refreshTokens("invalid-refresh-token"))
+            .thenThrow(new BadCredentialsException("Refresh token tidak valid atau sudah kedaluwarsa."));
 
         // When
-        ResponseEntity<?> responseEntity = loginController.refreshToken(invalidToken, null, response);
+        ResponseEntity<?> responseEntity = loginController.refreshToken("invalid-refresh-token", null, response);
 
         // Then
         assertEquals(HttpStatus.UNAUTHORIZED, responseEntity.getStatusCode());
@@ -504,18 +541,17 @@ class LoginControllerTest {
         
         assertNotNull(body);
         assertEquals("Invalid token", body.get("error"));
+        verify(response, never()).addCookie(any());
     }
 
     @Test
     void testRefreshToken_Exception() {
         // Given
-        String token = "valid-token";
-
-        when(registrationService.getEmailFromToken(token))
+        when(registrationService.refreshTokens("refresh-token"))
             .thenThrow(new RuntimeException("Service error"));
 
         // When
-        ResponseEntity<?> responseEntity = loginController.refreshToken(token, null, response);
+        ResponseEntity<?> responseEntity = loginController.refreshToken("refresh-token", null, response);
 
         // Then
         assertEquals(HttpStatus.UNAUTHORIZED, responseEntity.getStatusCode());
@@ -680,7 +716,7 @@ class LoginControllerTest {
         assertTrue(result.isHttpOnly());
         assertEquals("example.com", result.getDomain());
         assertEquals("/", result.getPath());
-        assertEquals(24 * 60 * 60, result.getMaxAge()); // 24 hours
+        assertEquals(15 * 60, result.getMaxAge()); // = app.jwt.expiration
     }
 
     @Test
@@ -700,7 +736,7 @@ class LoginControllerTest {
         assertTrue(result.isHttpOnly());
         assertNull(result.getDomain()); // Domain not set
         assertEquals("/", result.getPath());
-        assertEquals(24 * 60 * 60, result.getMaxAge());
+        assertEquals(15 * 60, result.getMaxAge());
     }
 
     @Test
@@ -743,11 +779,10 @@ class LoginControllerTest {
 
     @Test
     void testRefreshToken_TokenNullOrEmpty_Null() {
-        // Given - token is null
-        String token = null;
+        // Given - body without refreshToken
 
         // When
-        ResponseEntity<?> responseEntity = loginController.refreshToken(token, null, response);
+        ResponseEntity<?> responseEntity = loginController.refreshToken(null, Map.of(), response);
 
         // Then
         assertEquals(HttpStatus.UNAUTHORIZED, responseEntity.getStatusCode());
@@ -762,10 +797,9 @@ class LoginControllerTest {
     @Test
     void testRefreshToken_TokenNullOrEmpty_Empty() {
         // Given - token is empty
-        String token = "";
 
         // When
-        ResponseEntity<?> responseEntity = loginController.refreshToken(token, null, response);
+        ResponseEntity<?> responseEntity = loginController.refreshToken("", null, response);
 
         // Then
         assertEquals(HttpStatus.UNAUTHORIZED, responseEntity.getStatusCode());
@@ -778,15 +812,13 @@ class LoginControllerTest {
     }
 
     @Test
-    void testRefreshToken_EmailNull() {
-        // Given
-        String token = "valid-token";
-        
-        // Mock getEmailFromToken to return null
-        when(registrationService.getEmailFromToken(token)).thenReturn(null);
+    void testRefreshToken_ReusedToken() {
+        // Given - token lama sudah dirotasi (reuse)
+        when(registrationService.refreshTokens("used-refresh-token"))
+            .thenThrow(new BadCredentialsException("Refresh token tidak valid atau sudah kedaluwarsa."));
 
         // When
-        ResponseEntity<?> responseEntity = loginController.refreshToken(token, null, response);
+        ResponseEntity<?> responseEntity = loginController.refreshToken("used-refresh-token", null, response);
 
         // Then
         assertEquals(HttpStatus.UNAUTHORIZED, responseEntity.getStatusCode());
@@ -799,17 +831,13 @@ class LoginControllerTest {
     }
 
     @Test
-    void testRefreshToken_SuccessPath() {
+    void testRefreshToken_FromRequestBody() {
         // Given
-        String oldToken = "old-token";
-        String newToken = "new-token";
-        String email = "test@example.com";
-
-        when(registrationService.getEmailFromToken(oldToken)).thenReturn(email);
-        when(registrationService.generateTokenForEmail(email)).thenReturn(newToken);
+        when(registrationService.refreshTokens("old-refresh-token"))
+            .thenReturn(new AuthTokens("new-access-token", "new-refresh-token"));
 
         // When
-        ResponseEntity<?> responseEntity = loginController.refreshToken(oldToken, null, response);
+        ResponseEntity<?> responseEntity = loginController.refreshToken(null, Map.of("refreshToken", "old-refresh-token"), response);
 
         // Then
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
@@ -820,23 +848,19 @@ class LoginControllerTest {
         assertNotNull(body);
         assertTrue((Boolean) body.get("success"));
         assertEquals("Token refreshed", body.get("message"));
-        assertEquals(newToken, body.get("token"));
-        
-        // Verify cookie was set
-        verify(response).addCookie(any(Cookie.class));
+        assertEquals("new-access-token", body.get("token"));
+        assertEquals("new-refresh-token", body.get("refreshToken"));
+        verify(response, times(2)).addCookie(any(Cookie.class));
     }
 
     @Test
     void testRefreshToken_ExceptionHandling() {
         // Given
-        String token = "valid-token";
-        
-        // Mock to throw exception
-        when(registrationService.getEmailFromToken(token))
+        when(registrationService.refreshTokens("refresh-token"))
             .thenThrow(new RuntimeException("Service error"));
 
         // When
-        ResponseEntity<?> responseEntity = loginController.refreshToken(token, null, response);
+        ResponseEntity<?> responseEntity = loginController.refreshToken("refresh-token", null, response);
 
         // Then
         assertEquals(HttpStatus.UNAUTHORIZED, responseEntity.getStatusCode());
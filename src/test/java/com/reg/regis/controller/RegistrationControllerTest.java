@@ -5,6 +5,10 @@ import com.reg.regis.dto.response.RegistrationResponse;
 import com.reg.regis.model.Customer;
 import com.reg.regis.model.Wali;
 import com.reg.regis.model.Alamat;
+import com.reg.regis.model.RegistrationJob;
+import com.reg.regis.service.PasswordHashingSaturatedException;
+import com.reg.regis.service.RegistrationJobService;
+import com.reg.regis.service.RegistrationQueueFullException;
 import com.reg.regis.service.RegistrationService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
@@ -33,6 +37,9 @@ class RegistrationControllerTest {
     @Mock
     private RegistrationService registrationService;
 
+    @Mock
+    private RegistrationJobService registrationJobService;
+
     @InjectMocks
     private RegistrationController registrationController;
 
@@ -74,10 +81,10 @@ class RegistrationControllerTest {
             "Silver", "John Doe", "12345678", "PERSONAL", "4101 2345 6789 0123"
         );
 
-        when(registrationService.registerCustomer(any(RegistrationRequest.class)))
-            .thenReturn(registrationResponse);
-        when(registrationService.authenticateCustomer(anyString(), anyString()))
-            .thenReturn("jwt-token");
+        when(registrationService.register(any(RegistrationRequest.class)))
+            .thenReturn(new RegistrationService.Registration(customer, registrationResponse));
+        when(registrationService.issueAccessToken(customer)).thenReturn("jwt-token");
+        when(registrationService.issueRefreshToken(customer)).thenReturn("refresh-token");
 
         ResponseEntity<?> result = registrationController.registerCustomer(registrationRequest, response);
 
@@ -85,13 +92,72 @@ class RegistrationControllerTest {
         Map<String, Object> body = (Map<String, Object>) result.getBody();
         assertTrue((Boolean) body.get("success"));
         
-        verify(registrationService).registerCustomer(any(RegistrationRequest.class));
-        verify(registrationService).authenticateCustomer("john@example.com", "password123");
+        verify(registrationService).register(any(RegistrationRequest.class));
+        verify(registrationService).issueAccessToken(customer);
+        // Token diterbitkan dari customer hasil registrasi, tanpa login (BCrypt) ulang
+        verify(registrationService, never()).authenticateCustomer(anyString(), anyString());
+        verify(registrationService, never()).getCustomerByEmail(anyString());
+    }
+
+    @Test
+    void testRegisterCustomer_PasswordHashingSaturated_Returns503() {
+        when(registrationService.register(any(RegistrationRequest.class)))
+            .thenThrow(new PasswordHashingSaturatedException("Server sedang sibuk. Silakan coba lagi beberapa saat lagi."));
+
+        ResponseEntity<?> result = registrationController.registerCustomer(registrationRequest, response);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, result.getStatusCode());
+        assertEquals("1", result.getHeaders().getFirst("Retry-After"));
+        Map<String, Object> body = (Map<String, Object>) result.getBody();
+        assertEquals("server_busy", body.get("type"));
+    }
+
+    @Test
+    void testRegisterCustomerAsync_Returns202WithJobLocation() {
+        ReflectionTestUtils.setField(registrationController, "contextPath", "/api");
+        RegistrationJob job = new RegistrationJob("job-123");
+        when(registrationJobService.submit(registrationRequest)).thenReturn(job);
+
+        ResponseEntity<?> result = registrationController.registerCustomerAsync(registrationRequest);
+
+        assertEquals(HttpStatus.ACCEPTED, result.getStatusCode());
+        assertEquals("/api/auth/register/job-123", result.getHeaders().getLocation().toString());
+        Map<String, Object> body = (Map<String, Object>) result.getBody();
+        assertEquals("job-123", body.get("jobId"));
+        assertEquals("PENDING", body.get("status"));
+        assertEquals("/api/auth/register/job-123/events", body.get("eventsUrl"));
+        verify(registrationService, never()).register(any());
+    }
+
+    @Test
+    void testRegisterCustomerAsync_QueueFull_Returns503() {
+        when(registrationJobService.submit(registrationRequest))
+            .thenThrow(new RegistrationQueueFullException("Antrian registrasi sedang penuh."));
+
+        ResponseEntity<?> result = registrationController.registerCustomerAsync(registrationRequest);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, result.getStatusCode());
+        assertEquals("1", result.getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    void testGetRegistrationJob_KnownAndUnknown() {
+        RegistrationJob job = new RegistrationJob("job-123");
+        when(registrationJobService.findJob("job-123")).thenReturn(Optional.of(job));
+        when(registrationJobService.describe(job)).thenReturn(Map.of("jobId", "job-123", "status", "PENDING"));
+        when(registrationJobService.findJob("missing")).thenReturn(Optional.empty());
+
+        ResponseEntity<?> found = registrationController.getRegistrationJob("job-123");
+        ResponseEntity<?> missing = registrationController.getRegistrationJob("missing");
+
+        assertEquals(HttpStatus.OK, found.getStatusCode());
+        assertEquals("PENDING", ((Map<String, Object>) found.getBody()).get("status"));
+        assertEquals(HttpStatus.NOT_FOUND, missing.getStatusCode());
     }
 
     @Test
     void testRegisterCustomer_ValidationError() {
-        when(registrationService.registerCustomer(any(RegistrationRequest.class)))
+        when(registrationService.register(any(RegistrationRequest.class)))
             .thenThrow(new RuntimeException("Email sudah terdaftar"));
 
         ResponseEntity<?> result = registrationController.registerCustomer(registrationRequest, response);
@@ -326,7 +392,7 @@ class RegistrationControllerTest {
     @Test
     void testRegisterCustomer_ServiceException() {
         // Test for general service exception (masuk ke RuntimeException catch)
-        when(registrationService.registerCustomer(any(RegistrationRequest.class)))
+        when(registrationService.register(any(RegistrationRequest.class)))
             .thenThrow(new IllegalStateException("Service unavailable"));
 
         ResponseEntity<?> result = registrationController.registerCustomer(registrationRequest, response);
@@ -464,6 +530,7 @@ class RegistrationControllerTest {
         // Setup controller dengan cookieDomain tidak kosong
         ReflectionTestUtils.setField(registrationController, "cookieDomain", "example.com");
         ReflectionTestUtils.setField(registrationController, "cookieSecure", true);
+        ReflectionTestUtils.setField(registrationController, "accessTokenExpirationMs", 900000L);
 
         // Test menggunakan reflection untuk method private
         Object result = ReflectionTestUtils.invokeMethod(
@@ -477,7 +544,7 @@ class RegistrationControllerTest {
         assertTrue(cookie.isHttpOnly());
         assertTrue(cookie.getSecure());
         assertEquals("/", cookie.getPath());
-        assertEquals(24 * 60 * 60, cookie.getMaxAge());
+        assertEquals(15 * 60, cookie.getMaxAge()); // = app.jwt.expiration
     }
 
     @Test
@@ -485,6 +552,7 @@ class RegistrationControllerTest {
         // Setup controller dengan cookieDomain kosong
         ReflectionTestUtils.setField(registrationController, "cookieDomain", "");
         ReflectionTestUtils.setField(registrationController, "cookieSecure", false);
+        ReflectionTestUtils.setField(registrationController, "accessTokenExpirationMs", 900000L);
 
         // Test menggunakan reflection untuk method private
         Object result = ReflectionTestUtils.invokeMethod(
@@ -498,7 +566,7 @@ class RegistrationControllerTest {
         assertTrue(cookie.isHttpOnly());
         assertFalse(cookie.getSecure());
         assertEquals("/", cookie.getPath());
-        assertEquals(24 * 60 * 60, cookie.getMaxAge());
+        assertEquals(15 * 60, cookie.getMaxAge()); // = app.jwt.expiration
     }
 
     @Test
@@ -591,7 +659,7 @@ class RegistrationControllerTest {
     @Test
     void testRegisterCustomer_RuntimeExceptionSystemError() {
         // Given - Mock RuntimeException dengan message khusus untuk trigger system error
-        when(registrationService.registerCustomer(any(RegistrationRequest.class)))
+        when(registrationService.register(any(RegistrationRequest.class)))
             .thenThrow(new RuntimeException("Terjadi kesalahan sistem: Database connection timeout"));
 
         // When
@@ -617,10 +685,10 @@ class RegistrationControllerTest {
         );
         String token = "jwt-token-67890";
 
-        when(registrationService.registerCustomer(any(RegistrationRequest.class)))
-            .thenReturn(registrationResponse);
-        when(registrationService.authenticateCustomer(anyString(), anyString()))
-            .thenReturn(token);
+        when(registrationService.register(any(RegistrationRequest.class)))
+            .thenReturn(new RegistrationService.Registration(customer, registrationResponse));
+        when(registrationService.issueAccessToken(customer)).thenReturn(token);
+        when(registrationService.issueRefreshToken(customer)).thenReturn("refresh-token");
 
         // When
         ResponseEntity<?> result = registrationController.registerCustomer(registrationRequest, response);
@@ -640,8 +708,9 @@ class RegistrationControllerTest {
         assertNotNull(response.getCookies());
         assertTrue(response.getCookies().length > 0);
         
-        verify(registrationService).registerCustomer(any(RegistrationRequest.class));
-        verify(registrationService).authenticateCustomer(registrationRequest.getEmail(), registrationRequest.getPassword());
+        verify(registrationService).register(any(RegistrationRequest.class));
+        verify(registrationService).issueAccessToken(customer);
+        verify(registrationService).issueRefreshToken(customer);
     }
 
     @Test
@@ -708,7 +777,7 @@ class RegistrationControllerTest {
     void testRegisterCustomer_GeneralExceptionFromService() {
         // Given - Mock service method yang throw checked exception atau other exception
         // Kita bisa mock IOException atau exception lain yang bisa terjadi di service layer
-        when(registrationService.registerCustomer(any(RegistrationRequest.class)))
+        when(registrationService.register(any(RegistrationRequest.class)))
             .thenAnswer(invocation -> {
                 // Simulate service method yang internally catch IOException dan re-throw sebagai Exception
                 throw new Exception("Database connection failed");
@@ -730,15 +799,15 @@ class RegistrationControllerTest {
     }
 
     @Test 
-    void testRegisterCustomer_AuthenticateCustomerException() {
-        // Given - registrasi berhasil tapi authenticate gagal
+    void testRegisterCustomer_TokenIssuanceException() {
+        // Given - registrasi berhasil tapi penerbitan token gagal
         RegistrationResponse registrationResponse = new RegistrationResponse(
             "Silver", "John Doe", "12345678", "PERSONAL", "4101 2345 6789 0123"
         );
 
-        when(registrationService.registerCustomer(any(RegistrationRequest.class)))
-            .thenReturn(registrationResponse);
-        when(registrationService.authenticateCustomer(anyString(), anyString()))
+        when(registrationService.register(any(RegistrationRequest.class)))
+            .thenReturn(new RegistrationService.Registration(customer, registrationResponse));
+        when(registrationService.issueAccessToken(customer))
             .thenAnswer(invocation -> {
                 throw new Exception("Authentication service unavailable");
             });
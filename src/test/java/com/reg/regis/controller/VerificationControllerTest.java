@@ -4,6 +4,7 @@ import com.reg.regis.dto.request.EmailVerificationRequest;
 import com.reg.regis.dto.request.NikVerificationRequest;
 import com.reg.regis.dto.request.PhoneVerificationRequest;
 import com.reg.regis.dto.response.VerificationResponse;
+import com.reg.regis.service.DukcapilUnavailableException;
 import com.reg.regis.service.VerificationService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
@@ -75,6 +76,20 @@ class VerificationControllerTest {
         assertEquals("NIK tidak valid", body.get("message"));
     }
 
+    @Test
+    void testVerifyNik_DukcapilUnavailable_Returns503WithRetryAfter() {
+        when(verificationService.verifyNik(any(NikVerificationRequest.class)))
+            .thenThrow(new DukcapilUnavailableException("Dukcapil Service sedang tidak stabil. Silakan coba lagi beberapa saat lagi.", 12));
+
+        ResponseEntity<?> result = verificationController.verifyNik(nikRequest);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, result.getStatusCode());
+        assertEquals("12", result.getHeaders().getFirst("Retry-After"));
+        Map<String, Object> body = (Map<String, Object>) result.getBody();
+        assertFalse((Boolean) body.get("valid"));
+        assertEquals("dukcapil_unavailable", body.get("type"));
+    }
+
     @Test
     void testVerifyEmail_Available() {
         VerificationResponse response = new VerificationResponse(true, "Email tersedia");
@@ -2,16 +2,20 @@ package com.reg.regis.repository;
 
 import com.reg.regis.model.Customer;
 import com.reg.regis.model.Alamat;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import static org.junit.jupiter.api.Assertions.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Optional;
 import java.util.List;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class CustomerRepositoryTest {
 
     @Autowired
@@ -85,6 +89,33 @@ class CustomerRepositoryTest {
         assertFalse(customerRepository.existsByNik("6543210987654321"));
     }
 
+    @Test
+    void testFindRegistrationConflicts() {
+        Customer customer = createTestCustomer();
+        customer.setEmail("test@example.com");
+        customer.setNomorTelepon("081234567890");
+        customer.setNik("1234567890123456");
+        entityManager.persistAndFlush(customer);
+
+        RegistrationConflicts none = customerRepository.findRegistrationConflicts(
+                "other@example.com", "089876543210", "6543210987654321");
+        assertFalse(none.isEmailTaken());
+        assertFalse(none.isNomorTeleponTaken());
+        assertFalse(none.isNikTaken());
+
+        RegistrationConflicts emailOnly = customerRepository.findRegistrationConflicts(
+                "TEST@EXAMPLE.COM", "089876543210", "6543210987654321");
+        assertTrue(emailOnly.isEmailTaken());
+        assertFalse(emailOnly.isNomorTeleponTaken());
+        assertFalse(emailOnly.isNikTaken());
+
+        RegistrationConflicts phoneAndNik = customerRepository.findRegistrationConflicts(
+                "other@example.com", "081234567890", "1234567890123456");
+        assertFalse(phoneAndNik.isEmailTaken());
+        assertTrue(phoneAndNik.isNomorTeleponTaken());
+        assertTrue(phoneAndNik.isNikTaken());
+    }
+
     @Test
     void testCountTotalCustomers() {
         Customer customer1 = createTestCustomer();
@@ -178,6 +209,48 @@ class CustomerRepositoryTest {
         assertFalse(customerRepository.existsByNomorKartuDebitVirtual("9999-8888-7777-6666"));
     }
 
+    @Test
+    void testKodeRekeningUniqueAndBetween() {
+        Customer customer = createTestCustomer();
+        customer.setKodeRekening(1026105000);
+        entityManager.persistAndFlush(customer);
+
+        assertEquals(List.of(1026105000), customerRepository.findKodeRekeningBetween(1026101000, 1026109999));
+        assertTrue(customerRepository.findKodeRekeningBetween(2026101000, 2026109999).isEmpty());
+
+        Customer duplicate = createTestCustomer();
+        duplicate.setNik("6543210987654321");
+        duplicate.setNomorTelepon("081298765432");
+        duplicate.setEmail("other@example.com");
+        duplicate.setKodeRekening(1026105000);
+        assertThrows(PersistenceException.class,
+                () -> entityManager.persistAndFlush(duplicate));
+    }
+
+    @Test
+    void testSaveAllFlushesInsertsAsJdbcBatch() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Customer customer = createTestCustomer();
+            customer.setNik(String.format("32010000000000%02d", i));
+            customer.setNomorTelepon(String.format("08123456780%02d", i));
+            customer.setEmail("batch" + i + "@example.com");
+            customers.add(customer);
+        }
+        statistics.clear();
+
+        customerRepository.saveAll(customers);
+        customerRepository.flush();
+
+        // 40 insert (alamat + customer); id dari sequence pooled, insert dikirim per tabel sebagai batch
+        assertEquals(40, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 4,
+                "Expected batched inserts, got " + statistics.getPrepareStatementCount() + " statements");
+        assertTrue(customers.stream().allMatch(c -> c.getId() != null && c.getAlamat().getId() != null));
+    }
+
     private Customer createTestCustomer() {
         Customer customer = new Customer();
         customer.setNamaLengkap("Test User");
@@ -0,0 +1,88 @@
+package com.reg.regis.repository;
+
+import com.reg.regis.model.RegistrationJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+
+@DataJpaTest
+class RegistrationJobRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private RegistrationJobRepository registrationJobRepository;
+
+    @Test
+    void testMarkProcessingAndFinish() {
+        entityManager.persistAndFlush(new RegistrationJob("job-1"));
+        entityManager.clear();
+        LocalDateTime now = LocalDateTime.now();
+
+        assertEquals(1, registrationJobRepository.markProcessing("job-1", now));
+        assertEquals(0, registrationJobRepository.markProcessing("job-1", now));
+        assertEquals(1, registrationJobRepository.finish("job-1", RegistrationJob.Status.COMPLETED,
+                7L, "{\"jenisKartu\":\"Silver\"}", null, null, now));
+        entityManager.clear();
+
+        RegistrationJob job = registrationJobRepository.findById("job-1").orElseThrow();
+        assertEquals(RegistrationJob.Status.COMPLETED, job.getStatus());
+        assertEquals(7L, job.getCustomerId());
+        assertNotNull(job.getCompletedAt());
+    }
+
+    @Test
+    void testFailStaleAndFindFinished() {
+        LocalDateTime now = LocalDateTime.now();
+        RegistrationJob stale = new RegistrationJob("stale-job");
+        stale.setUpdatedAt(now.minusMinutes(10));
+        entityManager.persistAndFlush(stale);
+        entityManager.persistAndFlush(new RegistrationJob("fresh-job"));
+        entityManager.clear();
+
+        int failed = registrationJobRepository.failStale(now.minusMinutes(5), "Registrasi terputus", now);
+        entityManager.clear();
+
+        assertEquals(1, failed);
+        List<RegistrationJob> finished = registrationJobRepository.findByIdInAndStatusIn(
+                List.of("stale-job", "fresh-job"),
+                EnumSet.of(RegistrationJob.Status.COMPLETED, RegistrationJob.Status.FAILED));
+        assertEquals(1, finished.size());
+        assertEquals("stale-job", finished.get(0).getId());
+        assertEquals("stale", finished.get(0).getErrorType());
+    }
+
+    @Test
+    void testFinishOverridesStaleFailure() {
+        LocalDateTime now = LocalDateTime.now();
+        RegistrationJob slow = new RegistrationJob("slow-job");
+        slow.setStatus(RegistrationJob.Status.PROCESSING);
+        slow.setUpdatedAt(now.minusMinutes(10));
+        entityManager.persistAndFlush(slow);
+        RegistrationJob done = new RegistrationJob("done-job");
+        done.setStatus(RegistrationJob.Status.FAILED);
+        done.setErrorType("validation_error");
+        entityManager.persistAndFlush(done);
+        entityManager.clear();
+
+        // Sweeper menganggap job macet, lalu worker yang lambat selesai
+        assertEquals(1, registrationJobRepository.failStale(now.minusMinutes(5), "Registrasi terputus", now));
+        assertEquals(1, registrationJobRepository.finish("slow-job", RegistrationJob.Status.COMPLETED,
+                7L, "{\"jenisKartu\":\"Silver\"}", null, null, now));
+        assertEquals(0, registrationJobRepository.finish("done-job", RegistrationJob.Status.COMPLETED,
+                8L, null, null, null, now));
+        entityManager.clear();
+
+        RegistrationJob job = registrationJobRepository.findById("slow-job").orElseThrow();
+        assertEquals(RegistrationJob.Status.COMPLETED, job.getStatus());
+        assertEquals(7L, job.getCustomerId());
+        assertNull(job.getErrorType());
+        assertNull(job.getErrorMessage());
+    }
+}
@@ -0,0 +1,45 @@
+package com.reg.regis.repository;
+
+import com.reg.regis.model.RevokedToken;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@DataJpaTest
+class RevokedTokenRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Test
+    void testFindActive() {
+        LocalDateTime now = LocalDateTime.now();
+        entityManager.persistAndFlush(new RevokedToken("active-jti", "test@example.com", now.plusMinutes(5)));
+        entityManager.persistAndFlush(new RevokedToken("expired-jti", "test@example.com", now.minusMinutes(5)));
+
+        List<RevokedToken> active = revokedTokenRepository.findActive(now);
+        assertEquals(1, active.size());
+        assertEquals("active-jti", active.get(0).getJti());
+    }
+
+    @Test
+    void testDeleteExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        entityManager.persistAndFlush(new RevokedToken("active-jti", "test@example.com", now.plusMinutes(5)));
+        entityManager.persistAndFlush(new RevokedToken("expired-jti", "test@example.com", now.minusMinutes(5)));
+        entityManager.clear();
+
+        int deleted = revokedTokenRepository.deleteExpired(now);
+
+        assertEquals(1, deleted);
+        assertTrue(revokedTokenRepository.existsById("active-jti"));
+        assertFalse(revokedTokenRepository.existsById("expired-jti"));
+    }
+}
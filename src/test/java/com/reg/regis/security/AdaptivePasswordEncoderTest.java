@@ -0,0 +1,88 @@
+package com.reg.regis.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptivePasswordEncoderTest {
+
+    private static final String PASSWORD = "Password123!";
+
+    @Test
+    void legacyUnprefixedBcryptHash_MatchesAndNeedsUpgrade() {
+        // Given - hash lama tersimpan tanpa prefix {bcrypt}
+        AdaptivePasswordEncoder encoder = new AdaptivePasswordEncoder("bcrypt", 4, 2);
+        String legacyHash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+        // When & Then
+        assertTrue(encoder.matches(PASSWORD, legacyHash));
+        assertFalse(encoder.matches("WrongPassword", legacyHash));
+        assertTrue(encoder.upgradeEncoding(legacyHash));
+    }
+
+    @Test
+    void bcryptMode_EncodesWithPrefixAndUpgradesLowerCost() {
+        // Given
+        AdaptivePasswordEncoder weaker = new AdaptivePasswordEncoder("bcrypt", 4, 2);
+        AdaptivePasswordEncoder current = new AdaptivePasswordEncoder("bcrypt", 5, 2);
+
+        // When
+        String weakHash = weaker.encode(PASSWORD);
+        String currentHash = current.encode(PASSWORD);
+
+        // Then
+        assertTrue(currentHash.startsWith("{bcrypt}$2a$05$"));
+        assertTrue(current.matches(PASSWORD, weakHash));
+        assertTrue(current.upgradeEncoding(weakHash));
+        assertFalse(current.upgradeEncoding(currentHash));
+    }
+
+    @Test
+    void argon2Mode_EncodesArgon2idAndUpgradesBcryptAndFewerIterations() {
+        // Given
+        AdaptivePasswordEncoder encoder = new AdaptivePasswordEncoder("argon2id", 4, 3);
+        String bcryptHash = new AdaptivePasswordEncoder("bcrypt", 4, 2).encode(PASSWORD);
+        String olderArgon2Hash = new AdaptivePasswordEncoder("argon2id", 4, 2).encode(PASSWORD);
+
+        // When
+        String hash = encoder.encode(PASSWORD);
+
+        // Then
+        assertTrue(hash.startsWith("{argon2}$argon2id$"));
+        assertTrue(hash.contains("m=" + AdaptivePasswordEncoder.ARGON2_MEMORY_KIB + ",t=3,p=1"));
+        assertTrue(encoder.matches(PASSWORD, hash));
+        assertFalse(encoder.upgradeEncoding(hash));
+
+        // Hash bcrypt tetap bisa login, lalu dipindah ke Argon2id
+        assertTrue(encoder.matches(PASSWORD, bcryptHash));
+        assertTrue(encoder.upgradeEncoding(bcryptHash));
+        assertTrue(encoder.matches(PASSWORD, olderArgon2Hash));
+        assertTrue(encoder.upgradeEncoding(olderArgon2Hash));
+    }
+
+    @Test
+    void calibrated_ClampsToMinimumCostWhenBudgetIsTiny() {
+        // When
+        AdaptivePasswordEncoder bcrypt = AdaptivePasswordEncoder.calibrated("bcrypt", 1);
+        AdaptivePasswordEncoder argon2 = AdaptivePasswordEncoder.calibrated("argon2id", 1);
+
+        // Then
+        assertEquals(AdaptivePasswordEncoder.BCRYPT, bcrypt.getIdForEncode());
+        assertEquals(AdaptivePasswordEncoder.BCRYPT_MIN_STRENGTH, bcrypt.getBcryptStrength());
+        assertEquals(AdaptivePasswordEncoder.ARGON2, argon2.getIdForEncode());
+        assertEquals(AdaptivePasswordEncoder.ARGON2_MIN_ITERATIONS, argon2.getArgon2Iterations());
+    }
+
+    @Test
+    void calibrated_DisabledUsesDefaults() {
+        // When
+        AdaptivePasswordEncoder encoder = AdaptivePasswordEncoder.calibrated(null, 0);
+
+        // Then
+        assertEquals(AdaptivePasswordEncoder.BCRYPT, encoder.getIdForEncode());
+        assertEquals(AdaptivePasswordEncoder.BCRYPT_DEFAULT_STRENGTH, encoder.getBcryptStrength());
+        assertFalse(encoder.upgradeEncoding(null));
+        assertFalse(encoder.upgradeEncoding(""));
+    }
+}
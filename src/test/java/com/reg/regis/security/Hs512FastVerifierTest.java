@@ -0,0 +1,217 @@
+package com.reg.regis.security;
+
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Hs512FastVerifierTest {
+
+    private static final String ISSUER = "Customer-Registration-Service";
+    private static final String AUDIENCE = "customer-app";
+    private static final String EMAIL = "test@example.com";
+
+    private final byte[] keyBytes = "test-secret-for-unit-test-that-is-at-least-64-bytes-long-to-meet-hs512-requirement"
+            .getBytes(StandardCharsets.UTF_8);
+    private final Key key = Keys.hmacShaKeyFor(keyBytes);
+
+    private Hs512FastVerifier verifier;
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        verifier = new Hs512FastVerifier(keyBytes, ISSUER, AUDIENCE);
+
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", Base64.getEncoder().encodeToString(keyBytes));
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "issuer", ISSUER);
+    }
+
+    @Test
+    void testVerify_tokenFromJwtUtil_shouldMatchJjwtResult() {
+        // Arrange
+        String token = jwtUtil.generateToken(EMAIL, 42L, 3L);
+
+        // Act
+        VerifiedToken fast = verifier.verify(token);
+        VerifiedToken slow = verifyWithJjwt(token);
+
+        // Assert
+        assertNotNull(fast);
+        assertNotSame(Hs512FastVerifier.REJECTED, fast);
+        assertEquals(slow.getSubject(), fast.getSubject());
+        assertEquals(slow.getExpiration(), fast.getExpiration());
+        assertEquals(slow.getIssuedAt(), fast.getIssuedAt());
+        assertEquals(slow.getType(), fast.getType());
+        assertEquals(42L, fast.getCustomerId());
+        assertEquals(3L, fast.getCredentialVersion());
+        assertEquals(slow.getTokenId(), fast.getTokenId());
+    }
+
+    @Test
+    void testVerify_tokenWithoutCredentialClaims_shouldHaveNullClaims() {
+        // Act
+        VerifiedToken fast = verifier.verify(jwtUtil.generateToken(EMAIL));
+
+        // Assert
+        assertNotNull(fast);
+        assertFalse(fast.hasCredentialClaims());
+    }
+
+    @Test
+    void testVerify_tamperedSignatureOrPayload_shouldBeRejected() {
+        // Arrange
+        String token = jwtUtil.generateToken(EMAIL);
+        String[] parts = token.split("\\.");
+        String otherPayload = jwtUtil.generateToken("attacker@example.com").split("\\.")[1];
+        char last = parts[2].charAt(10);
+        String tamperedSignature = parts[0] + "." + parts[1] + "."
+                + parts[2].substring(0, 10) + (last == 'A' ? 'B' : 'A') + parts[2].substring(11);
+
+        // Act & Assert
+        assertSame(Hs512FastVerifier.REJECTED, verifier.verify(tamperedSignature));
+        assertSame(Hs512FastVerifier.REJECTED, verifier.verify(parts[0] + "." + otherPayload + "." + parts[2]));
+        assertSame(Hs512FastVerifier.REJECTED, verifier.verify(parts[0] + "." + parts[1] + ".abc"));
+    }
+
+    @Test
+    void testVerify_wrongKey_shouldBeRejected() {
+        // Arrange
+        Hs512FastVerifier otherKey = new Hs512FastVerifier(
+                "another-secret-that-is-also-at-least-64-bytes-long-to-satisfy-hs512-key-length".getBytes(StandardCharsets.UTF_8),
+                ISSUER, AUDIENCE);
+
+        // Act & Assert
+        assertSame(Hs512FastVerifier.REJECTED, otherKey.verify(jwtUtil.generateToken(EMAIL)));
+    }
+
+    @Test
+    void testVerify_claimViolations_shouldBeRejected() {
+        long now = System.currentTimeMillis();
+
+        // Expired
+        assertSame(Hs512FastVerifier.REJECTED, verifier.verify(
+                baseToken(now - 120_000L, now - 60_000L).compact()));
+        // Not yet valid
+        assertSame(Hs512FastVerifier.REJECTED, verifier.verify(
+                baseToken(now, now + 60_000L).setNotBefore(new Date(now + 30_000L)).compact()));
+        // Wrong issuer
+        assertSame(Hs512FastVerifier.REJECTED, verifier.verify(
+                baseToken(now, now + 60_000L).setIssuer("other-issuer").compact()));
+        // Wrong audience
+        assertSame(Hs512FastVerifier.REJECTED, verifier.verify(
+                baseToken(now, now + 60_000L).setAudience("other-app").compact()));
+        // Wrong type
+        assertSame(Hs512FastVerifier.REJECTED, verifier.verify(
+                baseToken(now, now + 60_000L).claim("type", "refresh_token").compact()));
+        // Missing issuer
+        assertSame(Hs512FastVerifier.REJECTED, verifier.verify(
+                baseToken(now, now + 60_000L).setIssuer(null).compact()));
+    }
+
+    @Test
+    void testVerify_unusualShapes_shouldFallBack() {
+        long now = System.currentTimeMillis();
+
+        // Algoritma lain
+        String hs256 = Jwts.builder().setSubject(EMAIL).setExpiration(new Date(now + 60_000L))
+                .signWith(key, SignatureAlgorithm.HS256).compact();
+        assertNull(verifier.verify(hs256));
+
+        // Claim bersarang
+        assertNull(verifier.verify(baseToken(now, now + 60_000L).claim("roles", List.of("a", "b")).compact()));
+        assertNull(verifier.verify(baseToken(now, now + 60_000L).claim("meta", Map.of("k", "v")).compact()));
+
+        // Escape di dalam string
+        assertNull(verifier.verify(baseToken(now, now + 60_000L).setSubject("quote\"user@example.com").compact()));
+
+        // Tanpa exp
+        assertNull(verifier.verify(baseToken(now, now + 60_000L).setExpiration(null).compact()));
+
+        // Bukan JWT
+        assertNull(verifier.verify("not-a-jwt"));
+        assertNull(verifier.verify(null));
+    }
+
+    @Test
+    void testVerify_unknownScalarClaims_shouldBeIgnored() {
+        long now = System.currentTimeMillis();
+
+        // Act
+        VerifiedToken fast = verifier.verify(baseToken(now, now + 60_000L)
+                .claim("flag", true)
+                .claim("nothing", null)
+                .claim("ratio", 0.5)
+                .claim("note", "hello")
+                .compact());
+
+        // Assert
+        assertNotNull(fast);
+        assertNotSame(Hs512FastVerifier.REJECTED, fast);
+        assertEquals(EMAIL, fast.getSubject());
+    }
+
+    @Test
+    void testJwtUtilVerify_fallbackShape_shouldStillVerifyViaJjwt() {
+        long now = System.currentTimeMillis();
+        String withNestedClaim = baseToken(now, now + 60_000L).claim("roles", List.of("a")).compact();
+
+        // Act
+        VerifiedToken verified = jwtUtil.verify(withNestedClaim);
+
+        // Assert
+        assertNotNull(verified);
+        assertEquals(EMAIL, verified.getSubject());
+    }
+
+    @Test
+    void testJwtUtilVerify_fastPathDisabled_shouldGiveSameResult() {
+        // Arrange
+        String token = jwtUtil.generateToken(EMAIL, 7L, 1L);
+        VerifiedToken fast = jwtUtil.verify(token);
+
+        // Act
+        ReflectionTestUtils.setField(jwtUtil, "fastPathEnabled", false);
+        VerifiedToken slow = jwtUtil.verify(token);
+
+        // Assert
+        assertEquals(slow.getSubject(), fast.getSubject());
+        assertEquals(slow.getExpiration(), fast.getExpiration());
+        assertEquals(slow.getCustomerId(), fast.getCustomerId());
+        assertEquals(slow.getCredentialVersion(), fast.getCredentialVersion());
+        assertEquals(slow.getTokenId(), fast.getTokenId());
+    }
+
+    private JwtBuilder baseToken(long issuedAt, long expiresAt) {
+        return Jwts.builder()
+                .setSubject(EMAIL)
+                .setIssuer(ISSUER)
+                .setAudience(AUDIENCE)
+                .setIssuedAt(new Date(issuedAt))
+                .setExpiration(new Date(expiresAt))
+                .claim("type", "access_token")
+                .signWith(key, SignatureAlgorithm.HS512);
+    }
+
+    private VerifiedToken verifyWithJjwt(String token) {
+        ReflectionTestUtils.setField(jwtUtil, "fastPathEnabled", false);
+        try {
+            return jwtUtil.verify(token);
+        } finally {
+            ReflectionTestUtils.setField(jwtUtil, "fastPathEnabled", true);
+        }
+    }
+}
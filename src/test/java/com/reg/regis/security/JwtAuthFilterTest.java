@@ -1,6 +1,8 @@
 package com.reg.regis.security;
 
-import com.reg.regis.service.CustomerUserDetailsService;
+import com.reg.regis.service.CredentialVersionRegistry;
+import com.reg.regis.service.CachingUserDetailsService;
+import com.reg.regis.service.TokenRevocationService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,6 +13,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
@@ -21,10 +24,12 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,7 +39,16 @@ public class JwtAuthFilterTest {
     private JwtUtil jwtUtil;
 
     @Mock
-    private CustomerUserDetailsService userDetailsService;
+    private CachingUserDetailsService userDetailsService;
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Mock
+    private CredentialVersionRegistry credentialVersionRegistry;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
 
     @Mock
     private HttpServletRequest request;
@@ -78,8 +92,7 @@ public class JwtAuthFilterTest {
     void testDoFilterInternal_validTokenAndUser_shouldAuthenticateSuccessfully() throws ServletException, IOException {
         // Arrange
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtUtil.validateToken(validToken)).thenReturn(true);
-        when(jwtUtil.getEmailFromToken(validToken)).thenReturn(validEmail);
+        when(jwtUtil.verify(validToken)).thenReturn(verifiedTokenFor(validEmail));
         when(securityContext.getAuthentication()).thenReturn(null);
         when(userDetailsService.loadUserByUsername(validEmail)).thenReturn(userDetails);
 
@@ -102,8 +115,7 @@ public class JwtAuthFilterTest {
                 .build();
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtUtil.validateToken(validToken)).thenReturn(true);
-        when(jwtUtil.getEmailFromToken(validToken)).thenReturn(validEmail);
+        when(jwtUtil.verify(validToken)).thenReturn(verifiedTokenFor(validEmail));
         when(securityContext.getAuthentication()).thenReturn(null);
         when(userDetailsService.loadUserByUsername(validEmail)).thenReturn(disabledUser);
 
@@ -126,8 +138,7 @@ public class JwtAuthFilterTest {
                 .build();
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtUtil.validateToken(validToken)).thenReturn(true);
-        when(jwtUtil.getEmailFromToken(validToken)).thenReturn(validEmail);
+        when(jwtUtil.verify(validToken)).thenReturn(verifiedTokenFor(validEmail));
         when(securityContext.getAuthentication()).thenReturn(null);
         when(userDetailsService.loadUserByUsername(validEmail)).thenReturn(lockedUser);
 
@@ -149,7 +160,7 @@ public class JwtAuthFilterTest {
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
-        verify(jwtUtil, never()).validateToken(anyString());
+        verify(jwtUtil, never()).verify(anyString());
         verify(userDetailsService, never()).loadUserByUsername(anyString());
         verify(securityContext, never()).setAuthentication(any());
         verify(filterChain).doFilter(request, response);
@@ -164,7 +175,7 @@ public class JwtAuthFilterTest {
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
-        verify(jwtUtil, never()).validateToken(anyString());
+        verify(jwtUtil, never()).verify(anyString());
         verify(userDetailsService, never()).loadUserByUsername(anyString());
         verify(securityContext, never()).setAuthentication(any());
         verify(filterChain).doFilter(request, response);
@@ -174,7 +185,7 @@ public class JwtAuthFilterTest {
     void testDoFilterInternal_invalidToken_shouldSkipAuthentication() throws ServletException, IOException {
         // Arrange
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtUtil.validateToken(validToken)).thenReturn(false);
+        when(jwtUtil.verify(validToken)).thenReturn(null);
 
         // Act
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
@@ -191,8 +202,7 @@ public class JwtAuthFilterTest {
         // Arrange
         String differentEmail = "different@example.com";
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtUtil.validateToken(validToken)).thenReturn(true);
-        when(jwtUtil.getEmailFromToken(validToken)).thenReturn(differentEmail);
+        when(jwtUtil.verify(validToken)).thenReturn(verifiedTokenFor(differentEmail));
         when(securityContext.getAuthentication()).thenReturn(null);
         when(userDetailsService.loadUserByUsername(differentEmail)).thenReturn(userDetails); // userDetails has validEmail
 
@@ -205,13 +215,49 @@ public class JwtAuthFilterTest {
     }
 
     @Test
-    void testDoFilterInternal_tokenValidationFailsOnDoubleCheck_shouldNotAuthenticate() throws ServletException, IOException {
-        // Arrange - Test line 63: double-check token validation fails
+    void testDoFilterInternal_validToken_shouldVerifyTokenOnlyOnce() throws ServletException, IOException {
+        // Arrange
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(jwtUtil.verify(validToken)).thenReturn(verifiedTokenFor(validEmail));
+        when(securityContext.getAuthentication()).thenReturn(null);
+        when(userDetailsService.loadUserByUsername(validEmail)).thenReturn(userDetails);
+
+        // Act
+        jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert - satu kali parse untuk seluruh request
+        verify(jwtUtil, times(1)).verify(validToken);
+        verify(jwtUtil, never()).validateToken(anyString());
+        verify(jwtUtil, never()).getEmailFromToken(anyString());
+        verify(request).setAttribute(eq(JwtAuthFilter.VERIFIED_TOKEN_ATTRIBUTE), any(VerifiedToken.class));
+        verify(securityContext).setAuthentication(any());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void testDoFilterInternal_cachedToken_shouldSkipVerification() throws ServletException, IOException {
+        // Arrange
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(verifiedTokenCache.get(validToken)).thenReturn(verifiedTokenFor(validEmail));
+        when(securityContext.getAuthentication()).thenReturn(null);
+        when(userDetailsService.loadUserByUsername(validEmail)).thenReturn(userDetails);
+
+        // Act
+        jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert - tidak ada verifikasi crypto, user tetap di-load (lockout tetap dicek)
+        verify(jwtUtil, never()).verify(anyString());
+        verify(userDetailsService).loadUserByUsername(validEmail);
+        verify(securityContext).setAuthentication(any());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void testDoFilterInternal_cacheMiss_shouldVerifyAndStore() throws ServletException, IOException {
+        // Arrange
+        VerifiedToken verified = verifiedTokenFor(validEmail);
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtUtil.validateToken(validToken))
-            .thenReturn(true)  // First validation passes (line 46)
-            .thenReturn(false); // Second validation fails (line 63)
-        when(jwtUtil.getEmailFromToken(validToken)).thenReturn(validEmail);
+        when(jwtUtil.verify(validToken)).thenReturn(verified);
         when(securityContext.getAuthentication()).thenReturn(null);
         when(userDetailsService.loadUserByUsername(validEmail)).thenReturn(userDetails);
 
@@ -219,18 +265,71 @@ public class JwtAuthFilterTest {
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
-        verify(jwtUtil, times(2)).validateToken(validToken); // Called twice
+        verify(verifiedTokenCache).put(validToken, verified);
+        verify(securityContext).setAuthentication(any());
+    }
+
+    // ======================= Stateless Principal Tests =======================
+    @Test
+    void testDoFilterInternal_statelessMode_currentVersion_shouldAuthenticateWithoutDbLookup() throws ServletException, IOException {
+        // Arrange
+        ReflectionTestUtils.setField(jwtAuthFilter, "statelessPrincipalEnabled", true);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(jwtUtil.verify(validToken)).thenReturn(verifiedTokenWithClaims(validEmail, 7L, 2L));
+        when(securityContext.getAuthentication()).thenReturn(null);
+        when(credentialVersionRegistry.isCurrent(7L, 2L)).thenReturn(true);
+
+        // Act
+        jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        verify(securityContext).setAuthentication(any());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void testDoFilterInternal_statelessMode_staleVersion_shouldNotAuthenticate() throws ServletException, IOException {
+        // Arrange
+        ReflectionTestUtils.setField(jwtAuthFilter, "statelessPrincipalEnabled", true);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(jwtUtil.verify(validToken)).thenReturn(verifiedTokenWithClaims(validEmail, 7L, 1L));
+        when(securityContext.getAuthentication()).thenReturn(null);
+        when(credentialVersionRegistry.isCurrent(7L, 1L)).thenReturn(false);
+
+        // Act
+        jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
         verify(securityContext, never()).setAuthentication(any());
         verify(filterChain).doFilter(request, response);
     }
 
+    @Test
+    void testDoFilterInternal_statelessMode_tokenWithoutClaims_shouldFallBackToDbLookup() throws ServletException, IOException {
+        // Arrange
+        ReflectionTestUtils.setField(jwtAuthFilter, "statelessPrincipalEnabled", true);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(jwtUtil.verify(validToken)).thenReturn(verifiedTokenFor(validEmail));
+        when(securityContext.getAuthentication()).thenReturn(null);
+        when(userDetailsService.loadUserByUsername(validEmail)).thenReturn(userDetails);
+
+        // Act
+        jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(credentialVersionRegistry, never()).isCurrent(any(), any());
+        verify(userDetailsService).loadUserByUsername(validEmail);
+        verify(securityContext).setAuthentication(any());
+    }
+
     // ======================= Exception Handling Tests =======================
     @Test
     void testDoFilterInternal_userDetailsServiceThrowsException_shouldClearContext() throws ServletException, IOException {
         // Arrange
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtUtil.validateToken(validToken)).thenReturn(true);
-        when(jwtUtil.getEmailFromToken(validToken)).thenReturn(validEmail);
+        when(jwtUtil.verify(validToken)).thenReturn(verifiedTokenFor(validEmail));
         when(securityContext.getAuthentication()).thenReturn(null);
         when(userDetailsService.loadUserByUsername(validEmail)).thenThrow(new UsernameNotFoundException("User not found"));
 
@@ -246,7 +345,7 @@ public class JwtAuthFilterTest {
     void testDoFilterInternal_jwtUtilThrowsException_shouldClearContext() throws ServletException, IOException {
         // Arrange
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtUtil.validateToken(validToken)).thenThrow(new RuntimeException("JWT processing error"));
+        when(jwtUtil.verify(validToken)).thenThrow(new RuntimeException("JWT processing error"));
 
         // Act
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
@@ -262,8 +361,7 @@ public class JwtAuthFilterTest {
     void testDoFilterInternal_existingAuthentication_shouldSkipAuthentication() throws ServletException, IOException {
         // Arrange
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtUtil.validateToken(validToken)).thenReturn(true);
-        when(jwtUtil.getEmailFromToken(validToken)).thenReturn(validEmail);
+        when(jwtUtil.verify(validToken)).thenReturn(verifiedTokenFor(validEmail));
         when(securityContext.getAuthentication()).thenReturn(authentication);
 
         // Act
@@ -516,7 +614,7 @@ public class JwtAuthFilterTest {
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
-        verify(jwtUtil, never()).validateToken(anyString());
+        verify(jwtUtil, never()).verify(anyString());
         verify(filterChain).doFilter(request, response);
     }
 
@@ -524,8 +622,7 @@ public class JwtAuthFilterTest {
     void testDoFilterInternal_userDetailsIsNull_shouldNotAuthenticate() throws ServletException, IOException {
         // Arrange
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtUtil.validateToken(validToken)).thenReturn(true);
-        when(jwtUtil.getEmailFromToken(validToken)).thenReturn(validEmail);
+        when(jwtUtil.verify(validToken)).thenReturn(verifiedTokenFor(validEmail));
         when(securityContext.getAuthentication()).thenReturn(null);
         when(userDetailsService.loadUserByUsername(validEmail)).thenReturn(null);
 
@@ -536,4 +633,49 @@ public class JwtAuthFilterTest {
         verify(securityContext, never()).setAuthentication(any());
         verify(filterChain).doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDoFilterInternal_revokedToken_shouldNotAuthenticate() throws ServletException, IOException {
+        // Arrange
+        VerifiedToken revoked = verifiedTokenFor(validEmail);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(jwtUtil.verify(validToken)).thenReturn(revoked);
+        when(tokenRevocationService.isRevoked(revoked)).thenReturn(true);
+
+        // Act
+        jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        verify(request, never()).setAttribute(eq(JwtAuthFilter.VERIFIED_TOKEN_ATTRIBUTE), any());
+        verify(securityContext, never()).setAuthentication(any());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void testDoFilterInternal_revokedCachedToken_shouldNotAuthenticate() throws ServletException, IOException {
+        // Arrange
+        VerifiedToken revoked = verifiedTokenFor(validEmail);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(verifiedTokenCache.get(validToken)).thenReturn(revoked);
+        when(tokenRevocationService.isRevoked(revoked)).thenReturn(true);
+
+        // Act
+        jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(jwtUtil, never()).verify(anyString());
+        verify(securityContext, never()).setAuthentication(any());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    private VerifiedToken verifiedTokenWithClaims(String email, Long customerId, Long credentialVersion) {
+        Date now = new Date();
+        return new VerifiedToken(email, new Date(now.getTime() + 60_000L), "access_token", now, customerId, credentialVersion);
+    }
+
+    private VerifiedToken verifiedTokenFor(String email) {
+        Date now = new Date();
+        return new VerifiedToken(email, new Date(now.getTime() + 60_000L), "access_token", now);
+    }
+}
@@ -0,0 +1,148 @@
+package com.reg.regis.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeyRingTest {
+
+    @TempDir
+    Path keyDir;
+
+    @Test
+    void testLoad_multipleGenerations_newestWithPrivateKeyIsActive() throws Exception {
+        // Arrange
+        writeKeyPair(keyDir, "2026-01", true);
+        writeKeyPair(keyDir, "2026-02", true);
+        writeKeyPair(keyDir, "2026-03", false); // baru dipublikasikan, belum dipakai signing
+
+        // Act
+        JwtKeyRing keyRing = new JwtKeyRing("ES256", keyDir.toString(), "");
+
+        // Assert
+        assertEquals("2026-02", keyRing.activeSigningKey().getKid());
+        assertNotNull(keyRing.publicKey("2026-01"));
+        assertNotNull(keyRing.publicKey("2026-03"));
+        assertNull(keyRing.publicKey("unknown"));
+        assertNull(keyRing.publicKey(null));
+    }
+
+    @Test
+    void testActiveKid_configured_shouldBeUsed() throws Exception {
+        // Arrange
+        writeKeyPair(keyDir, "2026-01", true);
+        writeKeyPair(keyDir, "2026-02", true);
+
+        // Act
+        JwtKeyRing keyRing = new JwtKeyRing("ES256", keyDir.toString(), "2026-01");
+
+        // Assert
+        assertEquals("2026-01", keyRing.activeSigningKey().getKid());
+    }
+
+    @Test
+    void testReload_newGeneration_isPickedUpWithoutRestart() throws Exception {
+        // Arrange
+        writeKeyPair(keyDir, "2026-01", true);
+        JwtKeyRing keyRing = new JwtKeyRing("ES256", keyDir.toString(), "");
+        assertNull(keyRing.publicKey("2026-02"));
+
+        // Act
+        writeKeyPair(keyDir, "2026-02", true);
+        keyRing.reload();
+
+        // Assert
+        assertNotNull(keyRing.publicKey("2026-02"));
+        assertEquals("2026-02", keyRing.activeSigningKey().getKid());
+    }
+
+    @Test
+    void testReload_emptyDirectory_keepsPreviousKeys() throws Exception {
+        // Arrange
+        writeKeyPair(keyDir, "2026-01", true);
+        JwtKeyRing keyRing = new JwtKeyRing("ES256", keyDir.toString(), "");
+
+        // Act
+        try (var files = Files.list(keyDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        keyRing.reload();
+
+        // Assert
+        assertNotNull(keyRing.publicKey("2026-01"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testJwks_shouldExposePublicKeysOnly() throws Exception {
+        // Arrange
+        writeKeyPair(keyDir, "2026-01", true);
+        JwtKeyRing keyRing = new JwtKeyRing("ES256", keyDir.toString(), "");
+
+        // Act
+        Map<String, Object> jwks = keyRing.jwks();
+
+        // Assert
+        List<Map<String, Object>> keys = (List<Map<String, Object>>) jwks.get("keys");
+        assertEquals(1, keys.size());
+        Map<String, Object> jwk = keys.get(0);
+        assertEquals("EC", jwk.get("kty"));
+        assertEquals("P-256", jwk.get("crv"));
+        assertEquals("ES256", jwk.get("alg"));
+        assertEquals("2026-01", jwk.get("kid"));
+        assertEquals(32, Base64.getUrlDecoder().decode((String) jwk.get("x")).length);
+        assertEquals(32, Base64.getUrlDecoder().decode((String) jwk.get("y")).length);
+        assertFalse(jwk.containsKey("d"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testHs512Mode_shouldBeDisabledWithEmptyJwks() {
+        // Act
+        JwtKeyRing keyRing = new JwtKeyRing("HS512", "", "");
+
+        // Assert
+        assertFalse(keyRing.isEnabled());
+        assertTrue(((List<Object>) keyRing.jwks().get("keys")).isEmpty());
+    }
+
+    @Test
+    void testEs256WithoutKeyDir_shouldUseEphemeralKey() {
+        // Act
+        JwtKeyRing keyRing = new JwtKeyRing("ES256", "", "");
+
+        // Assert
+        JwtKeyRing.KeyGeneration active = keyRing.activeSigningKey();
+        assertTrue(active.getKid().startsWith("ephemeral-"));
+        assertNotNull(keyRing.publicKey(active.getKid()));
+    }
+
+    static void writeKeyPair(Path dir, String kid, boolean withPrivateKey) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair keyPair = generator.generateKeyPair();
+
+        writePem(dir.resolve(kid + ".public.pem"), "PUBLIC KEY", keyPair.getPublic().getEncoded());
+        if (withPrivateKey) {
+            writePem(dir.resolve(kid + ".private.pem"), "PRIVATE KEY", keyPair.getPrivate().getEncoded());
+        }
+    }
+
+    private static void writePem(Path file, String type, byte[] der) throws IOException {
+        String body = Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(der);
+        Files.writeString(file, "-----BEGIN " + type + "-----\n" + body + "\n-----END " + type + "-----\n");
+    }
+}
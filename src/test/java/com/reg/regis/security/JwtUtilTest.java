@@ -5,9 +5,11 @@ import io.jsonwebtoken.security.SignatureException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.file.Path;
 import java.util.Base64;
 import java.util.Date;
 
@@ -134,6 +136,95 @@ public class JwtUtilTest {
         assertTrue(extractedEmail == null || extractedEmail.isEmpty());
     }
 
+    // ======================= verify Tests =======================
+    @Test
+    void testVerify_validToken_shouldReturnVerifiedClaims() {
+        // Arrange
+        String token = jwtUtil.generateToken(validEmail);
+
+        // Act
+        VerifiedToken verified = jwtUtil.verify(token);
+
+        // Assert
+        assertNotNull(verified);
+        assertEquals(validEmail, verified.getSubject());
+        assertEquals("access_token", verified.getType());
+        assertNotNull(verified.getIssuedAt());
+        assertTrue(verified.getExpiration().after(new Date()));
+        assertFalse(verified.isExpired());
+    }
+
+    @Test
+    void testVerify_invalidTokens_shouldReturnNull() {
+        assertNull(jwtUtil.verify(null));
+        assertNull(jwtUtil.verify(""));
+        assertNull(jwtUtil.verify("invalid.malformed.token"));
+    }
+
+    @Test
+    void testVerify_reusesSigningKeyAcrossCalls() throws Exception {
+        // Arrange
+        java.lang.reflect.Method getSigningKeyMethod = JwtUtil.class.getDeclaredMethod("getSigningKey");
+        getSigningKeyMethod.setAccessible(true);
+
+        // Act
+        Object first = getSigningKeyMethod.invoke(jwtUtil);
+        Object second = getSigningKeyMethod.invoke(jwtUtil);
+
+        // Assert - key dibangun sekali, bukan per panggilan
+        assertSame(first, second);
+    }
+
+    @Test
+    void testVerify_secretChanged_shouldRebuildSigningKey() {
+        // Arrange
+        String token = jwtUtil.generateToken(validEmail);
+        String differentSecret = Base64.getEncoder().encodeToString(
+            "different-very-long-secret-key-that-is-at-least-64-bytes-long-for-hs512".getBytes()
+        );
+        ReflectionTestUtils.setField(jwtUtil, "secret", differentSecret);
+
+        // Act & Assert
+        assertNull(jwtUtil.verify(token));
+    }
+
+    @Test
+    void testVerify_tokenWithCredentialClaims_shouldExposeCustomerIdAndVersion() {
+        // Arrange
+        String token = jwtUtil.generateToken(validEmail, 42L, 3L);
+
+        // Act
+        VerifiedToken verified = jwtUtil.verify(token);
+
+        // Assert
+        assertNotNull(verified);
+        assertTrue(verified.hasCredentialClaims());
+        assertEquals(42L, verified.getCustomerId());
+        assertEquals(3L, verified.getCredentialVersion());
+    }
+
+    @Test
+    void testVerify_eachToken_shouldHaveUniqueTokenId() {
+        // Act
+        VerifiedToken first = jwtUtil.verify(jwtUtil.generateToken(validEmail));
+        VerifiedToken second = jwtUtil.verify(jwtUtil.generateToken(validEmail));
+
+        // Assert
+        assertNotNull(first.getTokenId());
+        assertNotNull(second.getTokenId());
+        assertNotEquals(first.getTokenId(), second.getTokenId());
+    }
+
+    @Test
+    void testVerify_tokenWithoutCredentialClaims_shouldHaveNoCredentialClaims() {
+        // Act
+        VerifiedToken verified = jwtUtil.verify(jwtUtil.generateToken(validEmail));
+
+        // Assert
+        assertNotNull(verified);
+        assertFalse(verified.hasCredentialClaims());
+    }
+
     // ======================= getEmailFromToken Tests =======================
     @Test
     void testGetEmailFromToken_validToken_shouldReturnEmail() {
@@ -679,4 +770,71 @@ public class JwtUtilTest {
         assertTrue(validImmediately);
         assertFalse(validAfterExpiration);
     }
-}
\ No newline at end of file
+
+    // ======================= ES256 / Key Rotation Tests =======================
+    @Test
+    void testEs256_generateAndVerify_shouldUseKidHeader(@TempDir Path keyDir) throws Exception {
+        // Arrange
+        JwtKeyRingTest.writeKeyPair(keyDir, "2026-01", true);
+        JwtUtil es256 = es256JwtUtil(new JwtKeyRing("ES256", keyDir.toString(), ""));
+
+        // Act
+        String token = es256.generateToken(validEmail, 42L, 1L);
+        VerifiedToken verified = es256.verify(token);
+
+        // Assert
+        assertNotNull(verified);
+        assertEquals(validEmail, verified.getSubject());
+        assertEquals(42L, verified.getCustomerId());
+        assertTrue(es256.validateToken(token));
+
+        String header = new String(Base64.getUrlDecoder().decode(token.split("\\.")[0]));
+        assertTrue(header.contains("\"alg\":\"ES256\""));
+        assertTrue(header.contains("\"kid\":\"2026-01\""));
+    }
+
+    @Test
+    void testEs256_rotation_oldTokensStillVerifyAndNewTokensUseNewKid(@TempDir Path keyDir) throws Exception {
+        // Arrange
+        JwtKeyRingTest.writeKeyPair(keyDir, "2026-01", true);
+        JwtKeyRing keyRing = new JwtKeyRing("ES256", keyDir.toString(), "");
+        JwtUtil es256 = es256JwtUtil(keyRing);
+        String oldToken = es256.generateToken(validEmail);
+
+        // Act - generasi baru ditambahkan tanpa restart
+        JwtKeyRingTest.writeKeyPair(keyDir, "2026-02", true);
+        keyRing.reload();
+        String newToken = es256.generateToken(validEmail);
+
+        // Assert
+        assertNotNull(es256.verify(oldToken));
+        assertNotNull(es256.verify(newToken));
+        String header = new String(Base64.getUrlDecoder().decode(newToken.split("\\.")[0]));
+        assertTrue(header.contains("\"kid\":\"2026-02\""));
+    }
+
+    @Test
+    void testEs256_unknownKidOrHs512Token_shouldBeRejected(@TempDir Path keyDir) throws Exception {
+        // Arrange
+        JwtKeyRingTest.writeKeyPair(keyDir, "2026-01", true);
+        JwtUtil es256 = es256JwtUtil(new JwtKeyRing("ES256", keyDir.toString(), ""));
+
+        Path otherDir = keyDir.resolve("other");
+        java.nio.file.Files.createDirectory(otherDir);
+        JwtKeyRingTest.writeKeyPair(otherDir, "2026-09", true);
+        JwtUtil foreign = es256JwtUtil(new JwtKeyRing("ES256", otherDir.toString(), ""));
+
+        // Act & Assert
+        assertNull(es256.verify(foreign.generateToken(validEmail))); // kid tidak dikenal
+        assertNull(es256.verify(jwtUtil.generateToken(validEmail))); // HS512 tidak diterima di mode ES256
+    }
+
+    private JwtUtil es256JwtUtil(JwtKeyRing keyRing) {
+        JwtUtil es256 = new JwtUtil(keyRing);
+        ReflectionTestUtils.setField(es256, "secret", validSecret);
+        ReflectionTestUtils.setField(es256, "expiration", expiration);
+        ReflectionTestUtils.setField(es256, "issuer", issuer);
+        ReflectionTestUtils.setField(es256, "signingAlgorithm", "ES256");
+        return es256;
+    }
+}
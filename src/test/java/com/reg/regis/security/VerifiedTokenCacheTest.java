@@ -0,0 +1,105 @@
+package com.reg.regis.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new VerifiedTokenCache(true, 100, meterRegistry);
+    }
+
+    @Test
+    void testPutAndGet_validToken_shouldReturnCachedClaims() {
+        // Arrange
+        VerifiedToken verified = tokenExpiringIn(60_000L);
+
+        // Act
+        cache.put("token-a", verified);
+
+        // Assert
+        assertSame(verified, cache.get("token-a"));
+        assertNull(cache.get("token-b"));
+    }
+
+    @Test
+    void testPut_expiredToken_shouldNotBeCached() {
+        // Act
+        cache.put("token-a", tokenExpiringIn(-1_000L));
+
+        // Assert
+        assertNull(cache.get("token-a"));
+    }
+
+    @Test
+    void testGet_tokenExpiredAfterCaching_shouldReturnNull() throws InterruptedException {
+        // Arrange
+        cache.put("token-a", tokenExpiringIn(30L));
+
+        // Act
+        Thread.sleep(60);
+
+        // Assert
+        assertNull(cache.get("token-a"));
+    }
+
+    @Test
+    void testInvalidate_shouldRemoveEntry() {
+        // Arrange
+        cache.put("token-a", tokenExpiringIn(60_000L));
+
+        // Act
+        cache.invalidate("token-a");
+
+        // Assert
+        assertNull(cache.get("token-a"));
+    }
+
+    @Test
+    void testDisabled_shouldNeverCache() {
+        // Arrange
+        VerifiedTokenCache disabled = new VerifiedTokenCache(false, 100, new SimpleMeterRegistry());
+
+        // Act
+        disabled.put("token-a", tokenExpiringIn(60_000L));
+
+        // Assert
+        assertNull(disabled.get("token-a"));
+    }
+
+    @Test
+    void testNullArguments_shouldBeIgnored() {
+        assertDoesNotThrow(() -> cache.put(null, tokenExpiringIn(60_000L)));
+        assertDoesNotThrow(() -> cache.put("token-a", null));
+        assertNull(cache.get(null));
+    }
+
+    @Test
+    void testMetrics_shouldRecordHitsAndMisses() {
+        // Arrange
+        cache.put("token-a", tokenExpiringIn(60_000L));
+
+        // Act
+        cache.get("token-a");
+        cache.get("token-b");
+
+        // Assert
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "jwtVerification").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "jwtVerification").tag("result", "miss").functionCounter().count());
+    }
+
+    private VerifiedToken tokenExpiringIn(long millis) {
+        Date now = new Date();
+        return new VerifiedToken("test@example.com", new Date(now.getTime() + millis), "access_token", now);
+    }
+}
@@ -0,0 +1,239 @@
+package com.reg.regis.service;
+
+import com.reg.regis.model.AccountNumberRange;
+import com.reg.regis.model.Alamat;
+import com.reg.regis.model.Customer;
+import com.reg.regis.repository.AccountNumberRangeRepository;
+import com.reg.regis.repository.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Blok disewa dari H2 sungguhan; transaksi test dimatikan supaya sewa blok
+ * (REQUIRES_NEW) benar-benar commit seperti di produksi
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AccountNumberAllocatorTest {
+
+    @Autowired
+    private AccountNumberRangeRepository rangeRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        customerRepository.deleteAll();
+        rangeRepository.deleteAll();
+    }
+
+    @Test
+    void next_HandsOutConsecutiveNumbersAndLeasesPerBlock() {
+        // Given
+        AccountNumberAllocator allocator = allocator(2);
+        int base = monthlyBase(10);
+
+        // When
+        int first = allocator.next("Silver");
+        int second = allocator.next("Silver");
+        int third = allocator.next("Silver");
+
+        // Then - format [10][YYMM][1000..], blok ke-2 disewa hanya saat blok pertama habis
+        assertEquals(base + 1000, first);
+        assertEquals(base + 1001, second);
+        assertEquals(base + 1002, third);
+        assertEquals(2.0, meterRegistry.get("account.number.blocks.leased").tag("range", "monthly").counter().count());
+        assertEquals(1.0, meterRegistry.get("account.number.block.remaining").gauge().value());
+        assertEquals(1004, rangeRepository.findNextValue(bucket(10)).orElseThrow());
+    }
+
+    @Test
+    void next_TwoNodesSharingRangeTable_NeverHandOutSameNumber() throws Exception {
+        // Given - dua allocator = dua node dengan blok masing-masing
+        AccountNumberAllocator nodeA = allocator(5);
+        AccountNumberAllocator nodeB = allocator(5);
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+        // When
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 100; i++) {
+                AccountNumberAllocator node = i % 2 == 0 ? nodeA : nodeB;
+                results.add(CompletableFuture.supplyAsync(() -> node.next("Gold"), executor));
+            }
+        }
+
+        // Then
+        Set<Integer> numbers = new HashSet<>();
+        for (CompletableFuture<Integer> result : results) {
+            assertTrue(numbers.add(result.get()), "Duplicate kode rekening " + result.get());
+        }
+        assertEquals(100, numbers.size());
+        assertTrue(numbers.stream().allMatch(n -> n / 10000 == monthlyBase(20) / 10000));
+    }
+
+    @Test
+    void next_BucketCreatedConcurrentlyByOtherNode_RetriesInsteadOfSharingBlock() {
+        // Given - node lain membuat bucket di antara existsById dan INSERT
+        TransactionTemplate otherNode = new TransactionTemplate(transactionManager);
+        otherNode.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicBoolean raced = new AtomicBoolean();
+        NumberBlockLeaser racingLeaser = new NumberBlockLeaser(rangeRepository, transactionManager) {
+            @Override
+            int[] lease(String bucket, int blockSize, int last, IntSupplier startIfNew) {
+                return super.lease(bucket, blockSize, last, () -> {
+                    if (raced.compareAndSet(false, true)) {
+                        otherNode.executeWithoutResult(status ->
+                                rangeRepository.saveAndFlush(new AccountNumberRange(bucket(10), 1005)));
+                    }
+                    return startIfNew.getAsInt();
+                });
+            }
+        };
+        AccountNumberAllocator allocator = new AccountNumberAllocator(racingLeaser, customerRepository, 5, meterRegistry);
+
+        // When
+        int first = allocator.next("Silver");
+
+        // Then - blok 1000..1004 milik node lain, node ini mendapat blok berikutnya
+        assertEquals(monthlyBase(10) + 1005, first);
+        assertEquals(1010, rangeRepository.findNextValue(bucket(10)).orElseThrow());
+    }
+
+    @Test
+    void next_NewBucketWithLegacyAccountNumbers_StartsLowAndSkipsTakenCodes() {
+        // Given - kode rekening acak dari sebelum allocator dipakai, termasuk di dekat 9999
+        customerRepository.save(customer(monthlyBase(10) + 1001));
+        customerRepository.save(customer(monthlyBase(10) + 1002));
+        customerRepository.save(customer(monthlyBase(10) + 9998));
+        AccountNumberAllocator allocator = allocator(3);
+
+        // When
+        int first = allocator.next("Silver");
+        int second = allocator.next("Silver");
+        int third = allocator.next("Silver");
+
+        // Then - bulan ini tidak habis karena nomor lama, nomor lama tidak dibagikan ulang
+        assertEquals(monthlyBase(10) + 1000, first);
+        assertEquals(monthlyBase(10) + 1003, second);
+        assertEquals(monthlyBase(10) + 1004, third);
+        assertEquals(0.0, meterRegistry.get("account.number.range.exhausted").tag("range", "monthly").counter().count());
+    }
+
+    @Test
+    void next_MonthlyRangeExhausted_FallsBackToOverflowRange() {
+        // Given
+        rangeRepository.save(new AccountNumberRange(bucket(30), 10000));
+        AccountNumberAllocator allocator = allocator(10);
+
+        // When
+        int first = allocator.next("Platinum");
+        int second = allocator.next("Platinum");
+
+        // Then - format cadangan [30][6 digit]
+        assertEquals(30100000, first);
+        assertEquals(30100001, second);
+        assertEquals(1.0, meterRegistry.get("account.number.range.exhausted").tag("range", "monthly").counter().count());
+        assertEquals(1.0, meterRegistry.get("account.number.blocks.leased").tag("range", "overflow").counter().count());
+    }
+
+    @Test
+    void next_AllRangesExhausted_ThrowsAndCountsExhaustion() {
+        // Given
+        rangeRepository.save(new AccountNumberRange(bucket(40), 10000));
+        rangeRepository.save(new AccountNumberRange("40-X", 1000000));
+        AccountNumberAllocator allocator = allocator(10);
+
+        // When & Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> allocator.next("Batik Air"));
+        assertTrue(exception.getMessage().contains("habis"));
+        assertEquals(1.0, meterRegistry.get("account.number.range.exhausted").tag("range", "overflow").counter().count());
+    }
+
+    @Test
+    void prefixFor_MapsJenisKartuWithSilverDefault() {
+        assertEquals(10, AccountNumberAllocator.prefixFor("Silver"));
+        assertEquals(20, AccountNumberAllocator.prefixFor("Gold"));
+        assertEquals(30, AccountNumberAllocator.prefixFor("Platinum"));
+        assertEquals(40, AccountNumberAllocator.prefixFor("Batik Air"));
+        assertEquals(10, AccountNumberAllocator.prefixFor(null));
+        assertEquals(10, AccountNumberAllocator.prefixFor("   "));
+        assertEquals(10, AccountNumberAllocator.prefixFor("Unknown"));
+    }
+
+    private AccountNumberAllocator allocator(int blockSize) {
+        return new AccountNumberAllocator(new NumberBlockLeaser(rangeRepository, transactionManager), customerRepository,
+                blockSize, meterRegistry);
+    }
+
+    private static int yearMonth() {
+        LocalDate today = LocalDate.now();
+        return (today.getYear() % 100) * 100 + today.getMonthValue();
+    }
+
+    private static String bucket(int prefix) {
+        return prefix + "-" + String.format("%04d", yearMonth());
+    }
+
+    private static int monthlyBase(int prefix) {
+        return prefix * 100000000 + yearMonth() * 10000;
+    }
+
+    private static Customer customer(int kodeRekening) {
+        Customer customer = new Customer();
+        customer.setNamaLengkap("Test User");
+        customer.setNik(String.format("%016d", kodeRekening));
+        customer.setNamaIbuKandung("Test Mother");
+        customer.setNomorTelepon("08" + kodeRekening);
+        customer.setEmail("test" + kodeRekening + "@example.com");
+        customer.setPassword("password123");
+        customer.setTipeAkun("PERSONAL");
+        customer.setJenisKartu("Silver");
+        customer.setTempatLahir("Jakarta");
+        customer.setTanggalLahir(LocalDate.of(1990, 1, 1));
+        customer.setJenisKelamin("L");
+        customer.setAgama("Islam");
+        customer.setStatusPernikahan("Belum Menikah");
+        customer.setPekerjaan("Software Engineer");
+        customer.setSumberPenghasilan("Gaji");
+        customer.setRentangGaji("5-10 juta");
+        customer.setTujuanPembuatanRekening("Tabungan");
+        customer.setKodeRekening(kodeRekening);
+
+        Alamat alamat = new Alamat();
+        alamat.setNamaAlamat("Jl. Test");
+        alamat.setProvinsi("DKI Jakarta");
+        alamat.setKota("Jakarta");
+        alamat.setKecamatan("Test");
+        alamat.setKelurahan("Test");
+        alamat.setKodePos("12345");
+        customer.setAlamat(alamat);
+        return customer;
+    }
+}
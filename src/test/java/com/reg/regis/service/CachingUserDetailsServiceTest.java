@@ -0,0 +1,134 @@
+package com.reg.regis.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingUserDetailsServiceTest {
+
+    @Mock
+    private CustomerUserDetailsService delegate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CachingUserDetailsService cachingService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cachingService = new CachingUserDetailsService(delegate, true, 60, 100, meterRegistry);
+    }
+
+    @Test
+    void loadUserByUsername_SecondCall_UsesCache() {
+        // Given
+        String email = "test@example.com";
+        UserDetails user = userFor(email);
+        when(delegate.loadUserByUsername(email)).thenReturn(user);
+
+        // When
+        UserDetails first = cachingService.loadUserByUsername(email);
+        UserDetails second = cachingService.loadUserByUsername(email);
+
+        // Then
+        assertSame(user, first);
+        assertSame(user, second);
+        verify(delegate, times(1)).loadUserByUsername(email);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "userDetails").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void loadUserByUsername_DifferentCase_SharesEntry() {
+        // Given
+        UserDetails user = userFor("test@example.com");
+        when(delegate.loadUserByUsername("test@example.com")).thenReturn(user);
+
+        // When
+        cachingService.loadUserByUsername("test@example.com");
+        UserDetails result = cachingService.loadUserByUsername(" TEST@Example.com ");
+
+        // Then
+        assertSame(user, result);
+        verify(delegate, times(1)).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void loadUserByUsername_NotFound_IsNotCached() {
+        // Given
+        String email = "missing@example.com";
+        when(delegate.loadUserByUsername(email))
+                .thenThrow(new UsernameNotFoundException("User not found with email: " + email));
+
+        // When & Then
+        assertThrows(UsernameNotFoundException.class, () -> cachingService.loadUserByUsername(email));
+        assertThrows(UsernameNotFoundException.class, () -> cachingService.loadUserByUsername(email));
+        verify(delegate, times(2)).loadUserByUsername(email);
+    }
+
+    @Test
+    void evict_ReloadsFromDelegate() {
+        // Given
+        String email = "test@example.com";
+        when(delegate.loadUserByUsername(email)).thenReturn(userFor(email));
+        cachingService.loadUserByUsername(email);
+
+        // When
+        cachingService.evict("Test@Example.com");
+        cachingService.loadUserByUsername(email);
+
+        // Then
+        verify(delegate, times(2)).loadUserByUsername(email);
+    }
+
+    @Test
+    void evict_InTransaction_EntryReloadedMidTransactionIsDroppedAfterCommit() {
+        // Given
+        String email = "test@example.com";
+        when(delegate.loadUserByUsername(email)).thenReturn(userFor(email));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When - JwtAuthFilter me-load row lama sebelum transaksi commit
+            cachingService.evict(email);
+            cachingService.loadUserByUsername(email);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        cachingService.loadUserByUsername(email);
+
+        // Then - setelah commit row dibaca ulang dari database
+        verify(delegate, times(2)).loadUserByUsername(email);
+    }
+
+    @Test
+    void disabled_AlwaysDelegates() {
+        // Given
+        CachingUserDetailsService disabled = new CachingUserDetailsService(delegate, false, 60, 100, new SimpleMeterRegistry());
+        String email = "test@example.com";
+        when(delegate.loadUserByUsername(email)).thenReturn(userFor(email));
+
+        // When
+        disabled.loadUserByUsername(email);
+        disabled.loadUserByUsername(email);
+
+        // Then
+        verify(delegate, times(2)).loadUserByUsername(email);
+    }
+
+    private UserDetails userFor(String email) {
+        return new User(email, "hashedPassword", Collections.emptyList());
+    }
+}
@@ -0,0 +1,138 @@
+package com.reg.regis.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardNumberGeneratorTest {
+
+    private static final String KEY = "card-number-test-key-0123456789";
+
+    private final NumberBlockLeaser blockLeaser = mock(NumberBlockLeaser.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void permute_MillionsOfCounters_AllDistinctAndInsideAccountSpace() {
+        // Given
+        CardNumberGenerator generator = generator(KEY);
+        int draws = 2_000_000;
+        long[] outputs = new long[draws];
+
+        // When
+        for (int counter = 0; counter < draws; counter++) {
+            outputs[counter] = generator.permute(counter);
+        }
+
+        // Then
+        long sequentialNeighbours = 0;
+        for (int i = 1; i < draws; i++) {
+            if (Math.abs(outputs[i] - outputs[i - 1]) == 1) {
+                sequentialNeighbours++;
+            }
+        }
+        Arrays.sort(outputs);
+        assertTrue(outputs[0] >= 0);
+        assertTrue(outputs[draws - 1] < CardNumberGenerator.ACCOUNT_SPACE);
+        for (int i = 1; i < draws; i++) {
+            if (outputs[i - 1] == outputs[i]) {
+                fail("Duplicate account number " + outputs[i]);
+            }
+        }
+        // Counter berurutan tidak menghasilkan nomor berurutan
+        assertEquals(0, sequentialNeighbours);
+    }
+
+    @Test
+    void permute_SameKeyIsStable_DifferentKeyGivesDifferentPermutation() {
+        // Given
+        CardNumberGenerator first = generator(KEY);
+        CardNumberGenerator restarted = generator(KEY);
+        CardNumberGenerator otherKey = generator("another-card-number-key-987654");
+
+        // When & Then
+        int differences = 0;
+        for (long counter = 0; counter < 1_000; counter++) {
+            assertEquals(first.permute(counter), restarted.permute(counter));
+            if (first.permute(counter) != otherKey.permute(counter)) {
+                differences++;
+            }
+        }
+        assertTrue(differences > 990);
+        assertThrows(IllegalArgumentException.class, () -> first.permute(CardNumberGenerator.ACCOUNT_SPACE));
+        assertThrows(IllegalArgumentException.class, () -> first.permute(-1));
+    }
+
+    @Test
+    void next_UsesLeasedCounterBlocksAndProducesLuhnValidNumbers() {
+        // Given
+        when(blockLeaser.lease(eq("card-4102"), eq(2), anyInt(), any(IntSupplier.class)))
+                .thenReturn(new int[] {0, 1}, new int[] {2, 3});
+        CardNumberGenerator generator = generator(KEY);
+
+        // When
+        String[] cards = {generator.next("Gold"), generator.next("Gold"), generator.next("Gold")};
+
+        // Then
+        for (int i = 0; i < cards.length; i++) {
+            assertTrue(cards[i].matches("4102 \\d{4} \\d{4} \\d{4}"), cards[i]);
+            assertTrue(CardNumberGenerator.isLuhnValid(cards[i]), cards[i]);
+            assertEquals(CardNumberGenerator.format("4102", generator.permute(i)), cards[i]);
+        }
+        assertEquals(3, Arrays.stream(cards).distinct().count());
+        assertEquals(2.0, meterRegistry.get("card.number.blocks.leased").counter().count());
+        verify(blockLeaser, times(2)).lease(eq("card-4102"), eq(2), anyInt(), any(IntSupplier.class));
+    }
+
+    @Test
+    void next_CounterRangeExhausted_Throws() {
+        // Given
+        when(blockLeaser.lease(eq("card-4105"), anyInt(), anyInt(), any(IntSupplier.class))).thenReturn(null);
+        CardNumberGenerator generator = generator(KEY);
+
+        // When & Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> generator.next("GPN"));
+        assertTrue(exception.getMessage().contains("habis"));
+    }
+
+    @Test
+    void binFor_MapsJenisKartuWithSilverDefault() {
+        assertEquals("4101", CardNumberGenerator.binFor("Silver"));
+        assertEquals("4102", CardNumberGenerator.binFor("Gold"));
+        assertEquals("4103", CardNumberGenerator.binFor("Platinum"));
+        assertEquals("4104", CardNumberGenerator.binFor("Batik Air"));
+        assertEquals("4105", CardNumberGenerator.binFor("GPN"));
+        assertEquals("4101", CardNumberGenerator.binFor("Unknown"));
+        assertEquals("4101", CardNumberGenerator.binFor(null));
+    }
+
+    @Test
+    void luhnAndFormat_KnownNumbers() {
+        assertEquals("4101 0000 0000 0000", CardNumberGenerator.format("4101", 0));
+        assertEquals("4101 1234 5678 9015", CardNumberGenerator.format("4101", 12345678901L));
+        assertEquals(3, CardNumberGenerator.luhnCheckDigit("7992739871"));
+        assertTrue(CardNumberGenerator.isLuhnValid("4539 1488 0343 6467"));
+        assertFalse(CardNumberGenerator.isLuhnValid("4539 1488 0343 6468"));
+        assertFalse(CardNumberGenerator.isLuhnValid("4539 1488 0343 646a"));
+    }
+
+    @Test
+    void constructor_ShortKey_Rejected() {
+        assertThrows(IllegalStateException.class, () -> generator("short"));
+        assertThrows(IllegalStateException.class, () -> generator(null));
+    }
+
+    private CardNumberGenerator generator(String key) {
+        return new CardNumberGenerator(blockLeaser, key, 2, meterRegistry);
+    }
+}
@@ -0,0 +1,84 @@
+package com.reg.regis.service;
+
+import com.reg.regis.repository.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CredentialVersionRegistryTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private CredentialVersionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new CredentialVersionRegistry(customerRepository, 30, 1000, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void isCurrent_MatchingVersion_ReturnsTrueAndCachesLookup() {
+        // Given
+        when(customerRepository.findCredentialVersionById(1L)).thenReturn(Optional.of(2L));
+
+        // When
+        boolean first = registry.isCurrent(1L, 2L);
+        boolean second = registry.isCurrent(1L, 2L);
+
+        // Then
+        assertTrue(first);
+        assertTrue(second);
+        verify(customerRepository, times(1)).findCredentialVersionById(1L);
+    }
+
+    @Test
+    void isCurrent_StaleVersion_ReturnsFalse() {
+        // Given
+        when(customerRepository.findCredentialVersionById(1L)).thenReturn(Optional.of(3L));
+
+        // When & Then
+        assertFalse(registry.isCurrent(1L, 2L));
+    }
+
+    @Test
+    void isCurrent_UnknownCustomer_ReturnsFalse() {
+        // Given
+        when(customerRepository.findCredentialVersionById(99L)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertFalse(registry.isCurrent(99L, 0L));
+    }
+
+    @Test
+    void isCurrent_NullArguments_ReturnsFalseWithoutLookup() {
+        assertFalse(registry.isCurrent(null, 1L));
+        assertFalse(registry.isCurrent(1L, null));
+        verifyNoInteractions(customerRepository);
+    }
+
+    @Test
+    void onCredentialsChanged_ReloadsVersionFromDatabase() {
+        // Given
+        when(customerRepository.findCredentialVersionById(1L))
+                .thenReturn(Optional.of(0L))
+                .thenReturn(Optional.of(1L));
+        assertTrue(registry.isCurrent(1L, 0L));
+
+        // When
+        registry.onCredentialsChanged(1L);
+
+        // Then
+        assertFalse(registry.isCurrent(1L, 0L));
+        assertTrue(registry.isCurrent(1L, 1L));
+    }
+}
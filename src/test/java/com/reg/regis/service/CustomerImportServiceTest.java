@@ -0,0 +1,293 @@
+package com.reg.regis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reg.regis.dto.response.DukcapilResponseDto;
+import com.reg.regis.model.Customer;
+import com.reg.regis.repository.AccountNumberRangeRepository;
+import com.reg.regis.repository.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Import dijalankan terhadap H2 sungguhan supaya insert batch JPA ikut teruji
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomerImportServiceTest {
+
+    private static final String BCRYPT_HASH = new BCryptPasswordEncoder(4).encode("Password123!");
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private AccountNumberRangeRepository rangeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final DukcapilClientService dukcapilClientService = mock(DukcapilClientService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHashingService passwordHashingService;
+    private CustomerImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        passwordHashingService = new PasswordHashingService(new BCryptPasswordEncoder(4), 2, 100, 5_000L, meterRegistry);
+        importService = newImportService(4, 20);
+        when(dukcapilClientService.verifyNikNameAndBirthDate(anyString(), anyString(), any(LocalDate.class)))
+                .thenReturn(new DukcapilResponseDto(true, "NIK valid"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        customerRepository.deleteAll();
+        rangeRepository.deleteAll();
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    void importJsonl_ValidRowsCreated_InvalidAndDuplicateRowsReported() throws Exception {
+        // Given - baris 3 duplikat email baris 1, baris 4 tanpa email, baris 5 bukan JSON
+        String input = String.join("\n",
+                jsonRow("andi@example.com", "081234567801", "3201010101900001", null),
+                jsonRow("budi@example.com", "081234567802", "3201010101900002", null),
+                jsonRow("ANDI@example.com", "081234567803", "3201010101900003", null),
+                jsonRow(null, "081234567804", "3201010101900004", null),
+                "{bukan json",
+                "");
+        List<CustomerImportService.RowResult> results = new ArrayList<>();
+
+        // When
+        CustomerImportService.Summary summary = importService.importCustomers(
+                new StringReader(input), CustomerImportService.Format.JSONL, results::add);
+
+        // Then
+        assertEquals(5, summary.getTotal());
+        assertEquals(2, summary.getCreated());
+        assertEquals(3, summary.getFailed());
+
+        assertEquals(List.of(1, 2, 3, 4, 5), results.stream().map(CustomerImportService.RowResult::getLine).toList());
+        assertEquals("created", results.get(0).getStatus());
+        assertEquals("created", results.get(1).getStatus());
+        assertTrue(results.get(2).getError().contains("lebih dari sekali"));
+        assertEquals("Email wajib diisi", results.get(3).getError());
+        assertEquals("Format JSON tidak valid", results.get(4).getError());
+
+        Customer andi = customerRepository.findByEmailIgnoreCase("andi@example.com").orElseThrow();
+        assertEquals(results.get(0).getCustomerId(), andi.getId());
+        assertEquals("Jakarta Pusat", andi.getAlamat().getKota());
+        assertNotNull(andi.getKodeRekening());
+        assertEquals(results.get(0).getNomorKartuDebitVirtual(), andi.getNomorKartuDebitVirtual());
+        assertTrue(CardNumberGenerator.isLuhnValid(andi.getNomorKartuDebitVirtual()));
+        assertTrue(passwordHashingService.matches("Password123!", andi.getPassword()));
+        assertEquals(2.0, meterRegistry.get("customer.import.rows").tag("outcome", "created").counter().count());
+        assertEquals(3.0, meterRegistry.get("customer.import.rows").tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    void importJsonl_CustomerAlreadyRegistered_RowFailsWithRegistrationMessage() throws Exception {
+        // Given
+        String row = jsonRow("citra@example.com", "081234567805", "3201010101900005", null);
+        importService.importCustomers(new StringReader(row), CustomerImportService.Format.JSONL, result -> { });
+        List<CustomerImportService.RowResult> results = new ArrayList<>();
+
+        // When
+        CustomerImportService.Summary summary = importService.importCustomers(
+                new StringReader(row), CustomerImportService.Format.JSONL, results::add);
+
+        // Then
+        assertEquals(0, summary.getCreated());
+        assertEquals("Email citra@example.com sudah terdaftar. Gunakan email lain.", results.get(0).getError());
+        assertEquals(1, customerRepository.count());
+    }
+
+    @Test
+    void importJsonl_DukcapilRejectsNik_RowFailed() throws Exception {
+        // Given
+        when(dukcapilClientService.verifyNikNameAndBirthDate(eq("3201010101900006"), anyString(), any(LocalDate.class)))
+                .thenReturn(new DukcapilResponseDto(false, "NIK tidak terdaftar"));
+        List<CustomerImportService.RowResult> results = new ArrayList<>();
+
+        // When
+        importService.importCustomers(new StringReader(
+                        jsonRow("dedi@example.com", "081234567806", "3201010101900006", null)),
+                CustomerImportService.Format.JSONL, results::add);
+
+        // Then
+        assertEquals("Verifikasi Dukcapil gagal: NIK tidak terdaftar", results.get(0).getError());
+        assertEquals(0, customerRepository.count());
+    }
+
+    @Test
+    void importJsonl_PasswordHashFromSourceSystem_StoredWithoutRehash() throws Exception {
+        // Given - tanpa password, hanya hash; baris kedua hash tidak dikenal
+        String input = jsonRow("eka@example.com", "081234567807", "3201010101900007", BCRYPT_HASH) + "\n"
+                + jsonRow("fajar@example.com", "081234567808", "3201010101900008", "md5:abc");
+        List<CustomerImportService.RowResult> results = new ArrayList<>();
+
+        // When
+        importService.importCustomers(new StringReader(input), CustomerImportService.Format.JSONL, results::add);
+
+        // Then
+        assertEquals("created", results.get(0).getStatus());
+        assertTrue(results.get(1).getError().startsWith("passwordHash tidak dikenali"));
+        assertEquals(BCRYPT_HASH, customerRepository.findByEmailIgnoreCase("eka@example.com").orElseThrow().getPassword());
+        assertEquals(0, meterRegistry.get("password.hashing.duration").tag("operation", "encode").timer().count());
+    }
+
+    @Test
+    void importCsv_QuotedFieldsAndNestedColumns_Parsed() throws Exception {
+        // Given - nama alamat berisi koma dan baris baru, CRLF, BOM dari Excel
+        String header = "\uFEFFnamaLengkap,nik,namaIbuKandung,nomorTelepon,email,password,tipeAkun,tempatLahir,"
+                + "tanggalLahir,jenisKelamin,agama,statusPernikahan,pekerjaan,sumberPenghasilan,rentangGaji,"
+                + "tujuanPembuatanRekening,alamat.namaAlamat,alamat.provinsi,alamat.kota,alamat.kecamatan,"
+                + "alamat.kelurahan,alamat.kodePos,wali.jenisWali";
+        String row = "\"Gita \"\"G\"\" Putri\",3201010101900009,Siti,081234567809,gita@example.com,Password123!,"
+                + "Tabungan,Bandung,1990-01-01,Perempuan,Islam,Belum Kawin,Karyawan,Gaji,5-10 juta,Tabungan,"
+                + "\"Jl. Merdeka No. 1,\nRT 01\",Jawa Barat,Bandung,Sumur Bandung,Braga,40111,";
+        List<CustomerImportService.RowResult> results = new ArrayList<>();
+
+        // When
+        CustomerImportService.Summary summary = importService.importCustomers(
+                new StringReader(header + "\r\n" + row + "\r\n"), CustomerImportService.Format.CSV, results::add);
+
+        // Then
+        assertEquals(1, summary.getCreated(), () -> results.toString());
+        assertEquals(2, results.get(0).getLine());
+        Customer gita = customerRepository.findByEmailIgnoreCase("gita@example.com").orElseThrow();
+        assertEquals("Gita \"G\" Putri", gita.getNamaLengkap());
+        assertEquals("Jl. Merdeka No. 1,\nRT 01", gita.getAlamat().getNamaAlamat());
+        assertNull(gita.getWali());
+    }
+
+    @Test
+    void importJsonl_DukcapilTemporarilyUnavailable_RowRetriedInsteadOfFailed() throws Exception {
+        // Given - bulkhead penuh sekali, lalu Dukcapil menjawab
+        when(dukcapilClientService.verifyNikNameAndBirthDate(eq("3201010101900010"), anyString(), any(LocalDate.class)))
+                .thenThrow(new DukcapilUnavailableException("Dukcapil Service sedang sibuk.", 1))
+                .thenReturn(new DukcapilResponseDto(true, "NIK valid"));
+        List<CustomerImportService.RowResult> results = new ArrayList<>();
+
+        // When
+        CustomerImportService.Summary summary = importService.importCustomers(new StringReader(
+                        jsonRow("hana@example.com", "081234567810", "3201010101900010", null)),
+                CustomerImportService.Format.JSONL, results::add);
+
+        // Then
+        assertEquals(1, summary.getCreated());
+        assertNull(summary.getAbortReason());
+        assertEquals("created", results.get(0).getStatus());
+        assertEquals(1.0, meterRegistry.get("customer.import.dukcapil.retries").counter().count());
+    }
+
+    @Test
+    void importJsonl_DukcapilStaysUnavailable_AbortsWithSkippedRowsNotFailures() throws Exception {
+        // Given - circuit Dukcapil terus terbuka; batch-size 2, 4 baris
+        when(dukcapilClientService.verifyNikNameAndBirthDate(anyString(), anyString(), any(LocalDate.class)))
+                .thenThrow(new DukcapilUnavailableException("Dukcapil Service sedang tidak stabil.", 30));
+        String input = String.join("\n",
+                jsonRow("indra@example.com", "081234567811", "3201010101900011", BCRYPT_HASH),
+                jsonRow("joko@example.com", "081234567812", "3201010101900012", BCRYPT_HASH),
+                jsonRow("kiki@example.com", "081234567813", "3201010101900013", BCRYPT_HASH),
+                jsonRow("lala@example.com", "081234567814", "3201010101900014", BCRYPT_HASH));
+        List<CustomerImportService.RowResult> results = new ArrayList<>();
+
+        // When
+        CustomerImportService.Summary summary = importService.importCustomers(
+                new StringReader(input), CustomerImportService.Format.JSONL, results::add);
+
+        // Then - batch kedua tidak dibaca; tidak ada baris yang dicatat gagal permanen
+        assertEquals(2, summary.getTotal());
+        assertEquals(0, summary.getFailed());
+        assertEquals(2, summary.getSkipped());
+        assertTrue(summary.getAbortReason().contains("mulai baris 1"));
+        assertEquals(List.of("skipped", "skipped"),
+                results.stream().map(CustomerImportService.RowResult::getStatus).toList());
+        assertEquals(0, customerRepository.count());
+        verify(dukcapilClientService, atMost(2 * 3))
+                .verifyNikNameAndBirthDate(anyString(), anyString(), any(LocalDate.class));
+    }
+
+    @Test
+    void importJsonl_ConcurrencyAboveHalfBulkhead_Capped() throws Exception {
+        // Given - dukcapil-concurrency 4, bulkhead 2: import hanya boleh 1 panggilan bersamaan
+        importService = newImportService(4, 2);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(dukcapilClientService.verifyNikNameAndBirthDate(anyString(), anyString(), any(LocalDate.class)))
+                .thenAnswer(invocation -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    Thread.sleep(50);
+                    inFlight.decrementAndGet();
+                    return new DukcapilResponseDto(true, "NIK valid");
+                });
+        String input = jsonRow("mira@example.com", "081234567815", "3201010101900015", BCRYPT_HASH) + "\n"
+                + jsonRow("nina@example.com", "081234567816", "3201010101900016", BCRYPT_HASH);
+
+        // When
+        CustomerImportService.Summary summary = importService.importCustomers(
+                new StringReader(input), CustomerImportService.Format.JSONL, result -> { });
+
+        // Then
+        assertEquals(2, summary.getCreated());
+        assertEquals(1, maxInFlight.get());
+    }
+
+    private CustomerImportService newImportService(int dukcapilConcurrency, int dukcapilBulkheadSize) {
+        NumberBlockLeaser blockLeaser = new NumberBlockLeaser(rangeRepository, transactionManager);
+        return new CustomerImportService(customerRepository, dukcapilClientService, passwordHashingService,
+                new AccountNumberAllocator(blockLeaser, customerRepository, 20, meterRegistry),
+                new CardNumberGenerator(blockLeaser, "card-number-test-key-0123456789", 20, meterRegistry),
+                transactionManager, new ObjectMapper().findAndRegisterModules(),
+                Validation.buildDefaultValidatorFactory().getValidator(), 2, dukcapilConcurrency, 3, 10L,
+                dukcapilBulkheadSize, meterRegistry);
+    }
+
+    private static String jsonRow(String email, String nomorTelepon, String nik, String passwordHash) {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"namaLengkap\":\"Customer ").append(nik).append("\",");
+        json.append("\"nik\":\"").append(nik).append("\",");
+        json.append("\"namaIbuKandung\":\"Ibu\",");
+        json.append("\"nomorTelepon\":\"").append(nomorTelepon).append("\",");
+        if (email != null) {
+            json.append("\"email\":\"").append(email).append("\",");
+        }
+        if (passwordHash != null) {
+            json.append("\"passwordHash\":\"").append(passwordHash).append("\",");
+        } else {
+            json.append("\"password\":\"Password123!\",");
+        }
+        json.append("\"tipeAkun\":\"Tabungan\",\"tempatLahir\":\"Jakarta\",\"tanggalLahir\":\"1990-01-01\",");
+        json.append("\"jenisKelamin\":\"Laki-laki\",\"agama\":\"Islam\",\"statusPernikahan\":\"Belum Kawin\",");
+        json.append("\"pekerjaan\":\"Karyawan\",\"sumberPenghasilan\":\"Gaji\",\"rentangGaji\":\"5-10 juta\",");
+        json.append("\"tujuanPembuatanRekening\":\"Tabungan\",\"kolomTambahan\":\"diabaikan\",");
+        json.append("\"alamat\":{\"namaAlamat\":\"Jl. Sudirman No. 1\",\"provinsi\":\"DKI Jakarta\",");
+        json.append("\"kota\":\"Jakarta Pusat\",\"kecamatan\":\"Menteng\",\"kelurahan\":\"Menteng\",\"kodePos\":\"10310\"}");
+        return json.append("}").toString();
+    }
+}
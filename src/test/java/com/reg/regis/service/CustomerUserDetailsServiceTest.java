@@ -86,4 +86,24 @@ class CustomerUserDetailsServiceTest {
         assertEquals("test@example.com", userDetails.getUsername());
         verify(customerRepository).findByEmailIgnoreCase(email);
     }
-}
\ No newline at end of file
+
+    @Test
+    void loadUserByUsername_LockedAccount_ReturnsAccountLocked() {
+        // Given
+        String email = "locked@example.com";
+        Customer mockCustomer = new Customer();
+        mockCustomer.setEmail(email);
+        mockCustomer.setPassword("password123");
+        mockCustomer.setAccountLockedUntil(java.time.LocalDateTime.now().plusMinutes(1));
+        
+        when(customerRepository.findByEmailIgnoreCase(email))
+                .thenReturn(Optional.of(mockCustomer));
+
+        // When
+        UserDetails userDetails = customerUserDetailsService.loadUserByUsername(email);
+
+        // Then
+        assertFalse(userDetails.isAccountNonLocked());
+        assertTrue(userDetails.isEnabled());
+    }
+}
@@ -0,0 +1,225 @@
+package com.reg.regis.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DukcapilCircuitBreakerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void execute_FailureRateReached_OpensAndRejectsWithoutCalling() {
+        // Given - window 10, minimal 4 panggilan, 50% gagal
+        DukcapilCircuitBreaker breaker = breaker(60_000, 3_000, 20);
+        succeed(breaker);
+        succeed(breaker);
+        fail(breaker);
+
+        // When - 2/4 gagal
+        fail(breaker);
+
+        // Then
+        assertEquals(DukcapilCircuitBreaker.State.OPEN, breaker.getState());
+        AtomicInteger calls = new AtomicInteger();
+        DukcapilUnavailableException exception = assertThrows(DukcapilUnavailableException.class,
+                () -> breaker.execute(calls::incrementAndGet));
+        assertEquals(0, calls.get());
+        assertTrue(exception.getMessage().contains("coba lagi"));
+        assertTrue(exception.getRetryAfterSeconds() > 0 && exception.getRetryAfterSeconds() <= 60);
+        assertEquals(1.0, meterRegistry.get("dukcapil.calls.rejected").tag("reason", "circuit_open").counter().count());
+        assertEquals(1.0, meterRegistry.get("dukcapil.circuit.state").tag("state", "open").gauge().value());
+        assertEquals(0.0, meterRegistry.get("dukcapil.circuit.state").tag("state", "closed").gauge().value());
+    }
+
+    @Test
+    void execute_BelowMinimumCalls_StaysClosed() {
+        // Given
+        DukcapilCircuitBreaker breaker = breaker(60_000, 3_000, 20);
+
+        // When - 3 gagal, minimum-calls 4
+        fail(breaker);
+        fail(breaker);
+        fail(breaker);
+
+        // Then
+        assertEquals(DukcapilCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(3.0, meterRegistry.get("dukcapil.calls").tag("outcome", "failure").counter().count());
+    }
+
+    @Test
+    void execute_SlowCallRateReached_Opens() {
+        // Given - setiap panggilan >= 0 ms dihitung lambat
+        DukcapilCircuitBreaker breaker = breaker(60_000, 0, 20);
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            succeed(breaker);
+        }
+
+        // Then
+        assertEquals(DukcapilCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(4.0, meterRegistry.get("dukcapil.calls").tag("outcome", "success").counter().count());
+        assertEquals(4.0, meterRegistry.get("dukcapil.calls.slow").counter().count());
+    }
+
+    @Test
+    void execute_ClientErrors_CountAsSuccessExceptTooManyRequests() {
+        // Given
+        DukcapilCircuitBreaker breaker = breaker(60_000, 3_000, 20);
+
+        // When - 400/404: Dukcapil menjawab, hanya datanya ditolak
+        for (int i = 0; i < 6; i++) {
+            assertThrows(HttpClientErrorException.class, () -> breaker.execute(() -> {
+                throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+            }));
+        }
+
+        // Then
+        assertEquals(DukcapilCircuitBreaker.State.CLOSED, breaker.getState());
+        assertFalse(DukcapilCircuitBreaker.isFailure(new HttpClientErrorException(HttpStatus.BAD_REQUEST)));
+        assertTrue(DukcapilCircuitBreaker.isFailure(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS)));
+        assertTrue(DukcapilCircuitBreaker.isFailure(new HttpServerErrorException(HttpStatus.BAD_GATEWAY)));
+        assertTrue(DukcapilCircuitBreaker.isFailure(new ResourceAccessException("Read timed out")));
+    }
+
+    @Test
+    void execute_CallerInterrupted_NotCountedAsFailure() {
+        // Given
+        DukcapilCircuitBreaker breaker = breaker(60_000, 3_000, 20);
+
+        // When - panggilan dibatalkan pemanggil (socket ditutup karena interrupt)
+        for (int i = 0; i < 4; i++) {
+            assertThrows(ResourceAccessException.class, () -> breaker.execute(() -> {
+                Thread.currentThread().interrupt();
+                throw new ResourceAccessException("Closed by interrupt");
+            }));
+            assertTrue(Thread.interrupted());
+        }
+
+        // Then
+        assertEquals(DukcapilCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, meterRegistry.get("dukcapil.calls").tag("outcome", "failure").counter().count());
+        assertEquals(0, breaker.getInFlight());
+    }
+
+    @Test
+    void execute_HalfOpenTrialsSucceed_Closes() {
+        // Given - open-duration 0: panggilan berikutnya langsung percobaan
+        DukcapilCircuitBreaker breaker = breaker(0, 3_000, 20);
+        openCircuit(breaker);
+        assertEquals(DukcapilCircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // When - half-open-calls = 2
+        succeed(breaker);
+        assertEquals(DukcapilCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        succeed(breaker);
+
+        // Then - window baru: satu kegagalan tidak langsung membuka circuit
+        assertEquals(DukcapilCircuitBreaker.State.CLOSED, breaker.getState());
+        fail(breaker);
+        assertEquals(DukcapilCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void execute_HalfOpenTrialFails_OpensAgain() {
+        // Given
+        DukcapilCircuitBreaker breaker = breaker(0, 3_000, 20);
+        openCircuit(breaker);
+
+        // When
+        fail(breaker);
+
+        // Then - open-duration 0, jadi langsung dilaporkan HALF_OPEN lagi
+        assertEquals(DukcapilCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        succeed(breaker);
+        succeed(breaker);
+        assertEquals(DukcapilCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void execute_HalfOpenQuotaInUse_RejectsExtraCalls() throws Exception {
+        // Given
+        DukcapilCircuitBreaker breaker = breaker(0, 3_000, 20);
+        openCircuit(breaker);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When - 2 percobaan masih berjalan
+        CompletableFuture<?> first = CompletableFuture.runAsync(() -> breaker.execute(() -> block(started, release)));
+        CompletableFuture<?> second = CompletableFuture.runAsync(() -> breaker.execute(() -> block(started, release)));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Then
+        assertThrows(DukcapilUnavailableException.class, () -> breaker.execute(() -> "third"));
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(DukcapilCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void execute_BulkheadFull_RejectsFastAndReleasesSlot() throws Exception {
+        // Given - max 1 panggilan bersamaan
+        DukcapilCircuitBreaker breaker = breaker(60_000, 3_000, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<?> inFlight = CompletableFuture.runAsync(() -> breaker.execute(() -> block(started, release)));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When
+        assertEquals(1, breaker.getInFlight());
+        assertEquals(1.0, meterRegistry.get("dukcapil.bulkhead.in.flight").gauge().value());
+        DukcapilUnavailableException exception = assertThrows(DukcapilUnavailableException.class,
+                () -> breaker.execute(() -> "rejected"));
+
+        // Then
+        assertEquals(1, exception.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("dukcapil.calls.rejected").tag("reason", "bulkhead_full").counter().count());
+        release.countDown();
+        inFlight.get(5, TimeUnit.SECONDS);
+        assertEquals(0, breaker.getInFlight());
+        assertEquals("ok", breaker.execute(() -> "ok"));
+    }
+
+    private DukcapilCircuitBreaker breaker(long openDurationMs, long slowCallThresholdMs, int maxConcurrent) {
+        return new DukcapilCircuitBreaker(10, 4, 50, slowCallThresholdMs, 50, openDurationMs, 2,
+                maxConcurrent, 0, meterRegistry);
+    }
+
+    private static void openCircuit(DukcapilCircuitBreaker breaker) {
+        for (int i = 0; i < 4; i++) {
+            fail(breaker);
+        }
+    }
+
+    private static void succeed(DukcapilCircuitBreaker breaker) {
+        assertEquals("OK", breaker.execute(() -> "OK"));
+    }
+
+    private static void fail(DukcapilCircuitBreaker breaker) {
+        assertThrows(ResourceAccessException.class, () -> breaker.execute(() -> {
+            throw new ResourceAccessException("Connection refused");
+        }));
+    }
+
+    private static String block(CountDownLatch started, CountDownLatch release) {
+        started.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "OK";
+    }
+}
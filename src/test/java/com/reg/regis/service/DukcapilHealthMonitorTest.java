@@ -0,0 +1,154 @@
+package com.reg.regis.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DukcapilHealthMonitorTest {
+
+    private static final String HEALTH_URL = "http://localhost:8080/api/dukcapil/health";
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DukcapilCircuitBreaker circuitBreaker =
+            new DukcapilCircuitBreaker(20, 10, 50, 3000, 50, 30000, 3, 20, 100, meterRegistry);
+
+    @Test
+    void probe_HealthOk_PublishesUp() {
+        // Given
+        DukcapilHealthMonitor monitor = monitor(2000);
+        stubHealth(Map.of("status", "OK"));
+
+        // When
+        monitor.probe();
+
+        // Then
+        DukcapilHealthMonitor.Health health = monitor.current();
+        assertEquals(DukcapilHealthMonitor.Status.UP, health.getStatus());
+        assertEquals(0, health.getConsecutiveFailures());
+        assertTrue(health.getLastCheckedAt() > 0);
+        assertTrue(monitor.isAvailable());
+        assertEquals(DukcapilCircuitBreaker.State.CLOSED, health.getCircuitState());
+        assertEquals("CLOSED", health.toMap().get("circuitState"));
+        assertEquals(1.0, meterRegistry.get("dukcapil.health").tag("status", "up").gauge().value());
+        assertEquals(0.0, meterRegistry.get("dukcapil.health").tag("status", "down").gauge().value());
+    }
+
+    @Test
+    void probe_SlowAnswer_PublishesDegraded() {
+        // Given - semua latency dianggap lambat
+        DukcapilHealthMonitor monitor = monitor(-1);
+        stubHealth(Map.of("status", "OK"));
+
+        // When
+        monitor.probe();
+
+        // Then
+        assertEquals(DukcapilHealthMonitor.Status.DEGRADED, monitor.current().getStatus());
+        assertTrue(monitor.isAvailable());
+    }
+
+    @Test
+    void failures_DegradedThenDownAtThreshold_RecoversOnSuccess() {
+        // Given
+        DukcapilHealthMonitor monitor = monitor(2000);
+        when(restTemplate.exchange(eq(HEALTH_URL), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        // When & Then - probe gagal dan panggilan sungguhan yang timeout dihitung bersama
+        monitor.probe();
+        assertEquals(DukcapilHealthMonitor.Status.DEGRADED, monitor.current().getStatus());
+        assertEquals("Connection refused", monitor.current().getLastError());
+
+        monitor.recordFailure(10000, "Read timed out");
+        assertEquals(DukcapilHealthMonitor.Status.DEGRADED, monitor.current().getStatus());
+
+        monitor.probe();
+        assertEquals(DukcapilHealthMonitor.Status.DOWN, monitor.current().getStatus());
+        assertEquals(3, monitor.current().getConsecutiveFailures());
+        assertFalse(monitor.isAvailable());
+
+        monitor.recordSuccess(50);
+        assertEquals(DukcapilHealthMonitor.Status.UP, monitor.current().getStatus());
+        assertEquals(50, monitor.current().getLastLatencyMs());
+        assertEquals(0, monitor.current().getConsecutiveFailures());
+    }
+
+    @Test
+    void probe_WrongStatusOrEmptyBody_CountsAsFailure() {
+        // Given
+        DukcapilHealthMonitor monitor = monitor(2000);
+        when(restTemplate.exchange(eq(HEALTH_URL), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenReturn(new ResponseEntity<>(Map.of("status", "DOWN"), HttpStatus.OK))
+                .thenReturn(new ResponseEntity<>(null, HttpStatus.OK));
+
+        // When
+        monitor.probe();
+        monitor.probe();
+
+        // Then
+        assertEquals(2, monitor.current().getConsecutiveFailures());
+        assertEquals("Health status: tidak ada response", monitor.current().getLastError());
+    }
+
+    @Test
+    void scheduleProbe_DoesNotBlockAndSkipsWhileProbeInFlight() throws Exception {
+        // Given - Dukcapil menggantung
+        DukcapilHealthMonitor monitor = monitor(2000);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(restTemplate.exchange(eq(HEALTH_URL), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenAnswer(invocation -> {
+                    entered.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return new ResponseEntity<>(Map.of("status", "OK"), HttpStatus.OK);
+                });
+
+        // When
+        long start = System.nanoTime();
+        monitor.scheduleProbe();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        monitor.scheduleProbe();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then - pemanggil tidak menunggu; state lama tetap terbaca selama probe berjalan
+        assertTrue(elapsedMs < 2000);
+        assertEquals(DukcapilHealthMonitor.Status.UNKNOWN, monitor.current().getStatus());
+        assertTrue(monitor.isAvailable());
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (monitor.current().getStatus() == DukcapilHealthMonitor.Status.UNKNOWN && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(DukcapilHealthMonitor.Status.UP, monitor.current().getStatus());
+        verify(restTemplate, times(1)).exchange(eq(HEALTH_URL), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class));
+    }
+
+    private DukcapilHealthMonitor monitor(long degradedLatencyMs) {
+        return new DukcapilHealthMonitor(restTemplate, circuitBreaker, "http://localhost:8080/api/dukcapil", degradedLatencyMs, 3, meterRegistry);
+    }
+
+    private void stubHealth(Map<String, Object> body) {
+        when(restTemplate.exchange(eq(HEALTH_URL), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenReturn(new ResponseEntity<>(body, HttpStatus.OK));
+    }
+}
@@ -0,0 +1,210 @@
+package com.reg.regis.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DukcapilRequestCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_ConcurrentSameKey_RunsCallOnceAndSharesResult() throws Exception {
+        // Given
+        DukcapilRequestCoalescer coalescer = new DukcapilRequestCoalescer(true, 5000, meterRegistry);
+        String key = coalescer.key("verify-nik", "1234567890123456", "JOHN DOE", "1990-01-01");
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = async(() -> coalescer.execute("verify-nik", key, () -> {
+            calls.incrementAndGet();
+            await(release);
+            return "VALID";
+        }));
+        awaitInFlight(coalescer);
+
+        // When
+        List<CompletableFuture<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            followers.add(async(() -> coalescer.execute("verify-nik", key, () -> {
+                calls.incrementAndGet();
+                return "SECOND CALL";
+            })));
+        }
+        awaitCoalesced(5);
+        release.countDown();
+
+        // Then
+        assertEquals("VALID", leader.get(5, TimeUnit.SECONDS));
+        for (CompletableFuture<String> follower : followers) {
+            assertEquals("VALID", follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(0, coalescer.inFlightKeys());
+    }
+
+    @Test
+    void execute_LeaderFails_PropagatesSameExceptionToWaitingCallers() throws Exception {
+        // Given
+        DukcapilRequestCoalescer coalescer = new DukcapilRequestCoalescer(true, 5000, meterRegistry);
+        String key = coalescer.key("check-nik", "1234567890123456");
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> leader = async(() -> coalescer.execute("check-nik", key, () -> {
+            await(release);
+            throw new DukcapilUnavailableException("Dukcapil Service sedang tidak stabil.", 30);
+        }));
+        awaitInFlight(coalescer);
+        CompletableFuture<Boolean> follower = async(() -> coalescer.execute("check-nik", key, () -> true));
+        awaitCoalesced(1);
+
+        // When
+        release.countDown();
+
+        // Then
+        ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerError = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DukcapilUnavailableException.class, leaderError.getCause());
+        assertSame(leaderError.getCause(), followerError.getCause());
+        assertEquals(0, coalescer.inFlightKeys());
+    }
+
+    @Test
+    void execute_LeaderCancelled_FollowerRetriesInsteadOfSharingResult() throws Exception {
+        // Given - leader dibatalkan (registrasinya sudah ditolak) di tengah HTTP call
+        DukcapilRequestCoalescer coalescer = new DukcapilRequestCoalescer(true, 5000, meterRegistry);
+        String key = coalescer.key("check-nik", "1234567890123456");
+        Future<Boolean> leader = executor.submit(() -> coalescer.execute("check-nik", key, () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                // Seperti socket yang ditutup karena interrupt: status interrupt tetap set
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }));
+        awaitInFlight(coalescer);
+        CompletableFuture<Boolean> follower = async(() -> coalescer.execute("check-nik", key, () -> true));
+        awaitCoalesced(1);
+
+        // When
+        leader.cancel(true);
+
+        // Then - follower menjalankan call sendiri, bukan memakai hasil leader
+        assertTrue(follower.get(5, TimeUnit.SECONDS));
+        assertEquals(0, coalescer.inFlightKeys());
+    }
+
+    @Test
+    void execute_LeaderSlowerThanMaxWait_FollowerGivesUp() throws Exception {
+        // Given
+        DukcapilRequestCoalescer coalescer = new DukcapilRequestCoalescer(true, 50, meterRegistry);
+        String key = coalescer.key("check-nik", "1234567890123456");
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> leader = async(() -> coalescer.execute("check-nik", key, () -> {
+            await(release);
+            return true;
+        }));
+        awaitInFlight(coalescer);
+
+        // When & Then
+        DukcapilUnavailableException exception = assertThrows(DukcapilUnavailableException.class,
+                () -> coalescer.execute("check-nik", key, () -> false));
+        assertEquals(1, exception.getRetryAfterSeconds());
+        release.countDown();
+        assertTrue(leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_SequentialCalls_NoStaleResult() {
+        // Given
+        DukcapilRequestCoalescer coalescer = new DukcapilRequestCoalescer(true, 5000, meterRegistry);
+        String key = coalescer.key("check-nik", "1234567890123456");
+
+        // When
+        boolean first = coalescer.execute("check-nik", key, () -> true);
+        boolean second = coalescer.execute("check-nik", key, () -> false);
+        assertThrows(ResourceAccessException.class, () -> coalescer.execute("check-nik", key, () -> {
+            throw new ResourceAccessException("Connection refused");
+        }));
+
+        // Then - setiap call yang sudah selesai tidak dibagi lagi
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(0, coalescer.inFlightKeys());
+        assertNull(meterRegistry.find("dukcapil.calls.coalesced").counter());
+    }
+
+    @Test
+    void key_HashedPerOperationAndInput_NullWhenDisabledOrIncomplete() {
+        // Given
+        DukcapilRequestCoalescer coalescer = new DukcapilRequestCoalescer(true, 5000, meterRegistry);
+        DukcapilRequestCoalescer disabled = new DukcapilRequestCoalescer(false, 5000, meterRegistry);
+
+        // When
+        String checkKey = coalescer.key("check-nik", "1234567890123456");
+
+        // Then
+        assertEquals(64, checkKey.length());
+        assertFalse(checkKey.contains("1234567890123456"));
+        assertEquals(checkKey, coalescer.key("check-nik", "1234567890123456"));
+        assertNotEquals(checkKey, coalescer.key("verify-nik", "1234567890123456"));
+        assertNotEquals(checkKey, coalescer.key("check-nik", "1234567890123457"));
+        assertNull(coalescer.key("verify-nik", "1234567890123456", null, "1990-01-01"));
+        assertNull(disabled.key("check-nik", "1234567890123456"));
+        assertEquals("direct", disabled.execute("check-nik", null, () -> "direct"));
+    }
+
+    private void awaitInFlight(DukcapilRequestCoalescer coalescer) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (coalescer.inFlightKeys() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, coalescer.inFlightKeys());
+        assertEquals(1.0, meterRegistry.get("dukcapil.calls.in.flight.keys").gauge().value());
+    }
+
+    private void awaitCoalesced(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (coalescedCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, coalescedCount());
+    }
+
+    private double coalescedCount() {
+        var counter = meterRegistry.find("dukcapil.calls.coalesced").counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private <T> CompletableFuture<T> async(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, executor);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
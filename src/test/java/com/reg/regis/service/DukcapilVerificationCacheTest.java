@@ -0,0 +1,109 @@
+package com.reg.regis.service;
+
+import com.reg.regis.dto.response.DukcapilResponseDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DukcapilVerificationCacheTest {
+
+    private static final LocalDate TANGGAL_LAHIR = LocalDate.of(1990, 1, 1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void key_NormalizesNameAndDoesNotContainNik() {
+        // Given
+        DukcapilVerificationCache cache = cache(600, 60);
+
+        // When
+        String key = cache.key("1234567890123456", "John Doe", TANGGAL_LAHIR);
+
+        // Then
+        assertEquals(key, cache.key(" 1234567890123456 ", "  john   DOE ", TANGGAL_LAHIR));
+        assertNotEquals(key, cache.key("1234567890123457", "John Doe", TANGGAL_LAHIR));
+        assertNotEquals(key, cache.key("1234567890123456", "John Doe", TANGGAL_LAHIR.plusDays(1)));
+        assertFalse(key.contains("1234567890123456"));
+        // Secret per instance: key tidak bisa ditebak dari luar
+        assertNotEquals(key, cache(600, 60).key("1234567890123456", "John Doe", TANGGAL_LAHIR));
+        assertNull(cache.key(null, "John Doe", TANGGAL_LAHIR));
+        assertNull(cache.key("1234567890123456", "John Doe", null));
+    }
+
+    @Test
+    void put_PositiveAndNegativeUseOwnTtl() {
+        // Given - TTL negatif 0: jawaban negatif langsung kedaluwarsa
+        DukcapilVerificationCache cache = cache(600, 0);
+        String positiveKey = cache.key("1111111111111111", "John Doe", TANGGAL_LAHIR);
+        String negativeKey = cache.key("2222222222222222", "John Doe", TANGGAL_LAHIR);
+
+        // When
+        cache.put(positiveKey, new DukcapilResponseDto(true, "Valid"));
+        cache.put(negativeKey, new DukcapilResponseDto(false, "NIK tidak ditemukan"));
+
+        // Then
+        assertTrue(cache.get(positiveKey).isValid());
+        assertNull(cache.get(negativeKey));
+        assertEquals(1.0, meterRegistry.get("dukcapil.verification.cache.stores").tag("result", "positive").counter().count());
+        assertEquals(1.0, meterRegistry.get("dukcapil.verification.cache.stores").tag("result", "negative").counter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "dukcapilVerification").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void put_StoresCopyWithReadOnlyData() {
+        // Given
+        DukcapilVerificationCache cache = cache(600, 60);
+        String key = cache.key("1234567890123456", "John Doe", TANGGAL_LAHIR);
+        Map<String, Object> data = new HashMap<>();
+        data.put("namaLengkap", "JOHN DOE");
+        DukcapilResponseDto response = new DukcapilResponseDto(true, "Valid");
+        response.setData(data);
+
+        // When
+        cache.put(key, response);
+        data.put("namaLengkap", "CHANGED");
+        response.setMessage("changed");
+
+        // Then
+        DukcapilResponseDto cached = cache.get(key);
+        assertEquals("Valid", cached.getMessage());
+        assertEquals("JOHN DOE", cached.getData().get("namaLengkap"));
+        assertThrows(UnsupportedOperationException.class, () -> cached.getData().put("x", "y"));
+    }
+
+    @Test
+    void purge_RemovesAllEntries() {
+        // Given
+        DukcapilVerificationCache cache = cache(600, 60);
+        String key = cache.key("1234567890123456", "John Doe", TANGGAL_LAHIR);
+        cache.put(key, new DukcapilResponseDto(true, "Valid"));
+
+        // When
+        long purged = cache.purge();
+
+        // Then
+        assertEquals(1, purged);
+        assertNull(cache.get(key));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void disabled_NeverProducesKey() {
+        // Given
+        DukcapilVerificationCache cache = new DukcapilVerificationCache(false, 100, 600, 60, meterRegistry);
+
+        // When & Then
+        assertNull(cache.key("1234567890123456", "John Doe", TANGGAL_LAHIR));
+        assertNull(cache.get(null));
+    }
+
+    private DukcapilVerificationCache cache(long positiveTtlSeconds, long negativeTtlSeconds) {
+        return new DukcapilVerificationCache(true, 100, positiveTtlSeconds, negativeTtlSeconds, meterRegistry);
+    }
+}
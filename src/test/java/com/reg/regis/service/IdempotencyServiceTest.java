@@ -0,0 +1,158 @@
+package com.reg.regis.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceTest {
+
+    private static final String SCOPE = "POST /auth/register";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IdempotencyService service = new IdempotencyService(900, 100, 5_000L, meterRegistry);
+
+    @Test
+    void execute_LateRetry_GetsStoredResponseWithoutRunningAgain() throws Exception {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        String fingerprint = service.fingerprint(SCOPE, body("{\"email\":\"a@example.com\"}"));
+
+        // When
+        IdempotencyService.Result first = service.execute(SCOPE, "key-1", fingerprint, () -> response(200, calls));
+        IdempotencyService.Result retry = service.execute(SCOPE, "key-1", fingerprint, () -> response(200, calls));
+
+        // Then
+        assertEquals(1, calls.get());
+        assertFalse(first.isReplayed());
+        assertTrue(retry.isReplayed());
+        assertSame(first.getResponse(), retry.getResponse());
+        assertEquals(1.0, meterRegistry.get("idempotency.requests").tag("outcome", "replayed").counter().count());
+    }
+
+    @Test
+    void execute_ConcurrentDuplicate_WaitsForInFlightResult() throws Exception {
+        // Given - request pertama tertahan di tengah proses
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        String fingerprint = service.fingerprint(SCOPE, body("{}"));
+
+        CompletableFuture<IdempotencyService.Result> first = CompletableFuture.supplyAsync(() -> call(fingerprint, () -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return response(200, calls);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When
+        CompletableFuture<IdempotencyService.Result> duplicate =
+                CompletableFuture.supplyAsync(() -> call(fingerprint, () -> response(200, calls)));
+        Thread.sleep(100);
+        assertFalse(duplicate.isDone());
+        release.countDown();
+
+        // Then
+        assertTrue(duplicate.get(5, TimeUnit.SECONDS).isReplayed());
+        assertSame(first.get(5, TimeUnit.SECONDS).getResponse(), duplicate.get().getResponse());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_SameKeyDifferentBody_IsRejected() throws Exception {
+        // Given
+        service.execute(SCOPE, "key-1", service.fingerprint(SCOPE, body("{\"a\":1}")), () -> response(200, new AtomicInteger()));
+
+        // When & Then
+        IdempotencyKeyConflictException e = assertThrows(IdempotencyKeyConflictException.class,
+                () -> service.execute(SCOPE, "key-1", service.fingerprint(SCOPE, body("{\"a\":2}")),
+                        () -> response(200, new AtomicInteger())));
+        assertEquals(IdempotencyKeyConflictException.Reason.MISMATCH, e.getReason());
+    }
+
+    @Test
+    void execute_ServerErrorOrException_IsNotStored() throws Exception {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        String fingerprint = service.fingerprint(SCOPE, body("{}"));
+
+        // When
+        service.execute(SCOPE, "busy", fingerprint, () -> response(503, calls));
+        IdempotencyService.Result retry = service.execute(SCOPE, "busy", fingerprint, () -> response(200, calls));
+        assertThrows(IllegalStateException.class, () -> service.execute(SCOPE, "boom", fingerprint, () -> {
+            throw new IllegalStateException("boom");
+        }));
+        IdempotencyService.Result afterException = service.execute(SCOPE, "boom", fingerprint, () -> response(200, calls));
+
+        // Then
+        assertFalse(retry.isReplayed());
+        assertEquals(200, retry.getResponse().getStatus());
+        assertFalse(afterException.isReplayed());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void execute_ClientErrorStoredOnlyWhenMarkedReplayable() throws Exception {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        String fingerprint = service.fingerprint(SCOPE, body("{}"));
+
+        // When - 400 biasa (mis. gangguan yang dipetakan ke 400) vs penolakan data yang ditandai
+        service.execute(SCOPE, "plain", fingerprint, () -> response(400, calls));
+        IdempotencyService.Result plainRetry = service.execute(SCOPE, "plain", fingerprint, () -> response(400, calls));
+        service.execute(SCOPE, "rejected", fingerprint, () -> {
+            calls.incrementAndGet();
+            return new IdempotencyService.StoredResponse(400, Map.of(), body("{\"type\":\"validation_error\"}"), true);
+        });
+        IdempotencyService.Result rejectedRetry = service.execute(SCOPE, "rejected", fingerprint, () -> response(200, calls));
+
+        // Then
+        assertFalse(plainRetry.isReplayed());
+        assertTrue(rejectedRetry.isReplayed());
+        assertEquals(400, rejectedRetry.getResponse().getStatus());
+        assertEquals(3, calls.get());
+        assertFalse(new IdempotencyService.StoredResponse(503, Map.of(), body("{}"), true).isReplayable());
+    }
+
+    @Test
+    void execute_KeysAreScopedPerEndpoint() throws Exception {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        service.execute("POST /auth/register", "key-1", service.fingerprint("POST /auth/register", body("{}")),
+                () -> response(200, calls));
+        IdempotencyService.Result login = service.execute("POST /auth/login", "key-1",
+                service.fingerprint("POST /auth/login", body("{}")), () -> response(200, calls));
+
+        // Then
+        assertFalse(login.isReplayed());
+        assertEquals(2, calls.get());
+    }
+
+    private IdempotencyService.Result call(String fingerprint,
+                                           Callable<IdempotencyService.StoredResponse> action) {
+        try {
+            return service.execute(SCOPE, "key-1", fingerprint, action);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static IdempotencyService.StoredResponse response(int status, AtomicInteger calls) {
+        calls.incrementAndGet();
+        return new IdempotencyService.StoredResponse(status, Map.of(), body("{\"success\":true}"));
+    }
+
+    private static byte[] body(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -21,6 +21,12 @@ class LoginAttemptServiceTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private CredentialVersionRegistry credentialVersionRegistry;
+
+    @Mock
+    private CachingUserDetailsService userDetailsCache;
+
     @InjectMocks
     private LoginAttemptService loginAttemptService;
 
@@ -67,7 +73,10 @@ class LoginAttemptServiceTest {
         assertEquals(0, result.getFailedLoginAttempts()); // Reset after lock
         assertNotNull(result.getAccountLockedUntil());
         assertTrue(result.getAccountLockedUntil().isAfter(LocalDateTime.now()));
+        assertEquals(1L, result.getCredentialVersion()); // Token lama tidak berlaku lagi
         verify(customerRepository).save(customer);
+        verify(credentialVersionRegistry).onCredentialsChanged(customer.getId());
+        verify(userDetailsCache).evict(email);
     }
 
     @Test
@@ -128,4 +137,44 @@ class LoginAttemptServiceTest {
         assertNull(result.getAccountLockedUntil());
         verify(customerRepository).save(customer);
     }
+
+    @Test
+    void recordSuccessfulLogin_LockedAccount_ResetsAndUpgradesHash() {
+        // Given
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setEmail("test@example.com");
+        customer.setPassword("oldHash");
+        customer.setFailedLoginAttempts(3);
+        customer.setAccountLockedUntil(LocalDateTime.now().minusMinutes(1));
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+
+        // When
+        loginAttemptService.recordSuccessfulLogin(1L, "oldHash", "newHash");
+
+        // Then
+        assertEquals(0, customer.getFailedLoginAttempts());
+        assertNull(customer.getAccountLockedUntil());
+        assertEquals("newHash", customer.getPassword());
+        verify(customerRepository).save(customer);
+        verify(userDetailsCache).evict("test@example.com");
+    }
+
+    @Test
+    void recordSuccessfulLogin_PasswordChangedMeanwhile_KeepsNewPassword() {
+        // Given - password diganti setelah hash lama diverifikasi
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setPassword("changedHash");
+        customer.setFailedLoginAttempts(1);
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+
+        // When
+        loginAttemptService.recordSuccessfulLogin(1L, "oldHash", "upgradedOldHash");
+
+        // Then
+        assertEquals("changedHash", customer.getPassword());
+        assertEquals(0, customer.getFailedLoginAttempts());
+        verify(userDetailsCache, never()).evict(any());
+    }
 }
\ No newline at end of file
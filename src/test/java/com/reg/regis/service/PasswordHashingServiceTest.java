@@ -0,0 +1,136 @@
+package com.reg.regis.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHashingService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void encodeAndMatches_RunOnPoolAndRecordLatency() {
+        // Given
+        service = new PasswordHashingService(new BCryptPasswordEncoder(4), 2, 4, 5_000L, meterRegistry);
+
+        // When
+        String hash = service.encode("Password123!");
+
+        // Then
+        assertTrue(service.matches("Password123!", hash));
+        assertFalse(service.matches("WrongPassword", hash));
+        assertEquals(1, meterRegistry.get("password.hashing.duration").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("password.hashing.duration").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void encode_QueueFull_FailsFastWithSaturatedException() throws Exception {
+        // Given - 1 thread sibuk, antrian (kapasitas 1) terisi
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        service = new PasswordHashingService(blockingEncoder(started, release), 1, 1, 5_000L, meterRegistry);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> service.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> service.encode("second"));
+        waitForQueueDepth(1);
+
+        try {
+            // When & Then
+            PasswordHashingSaturatedException exception =
+                    assertThrows(PasswordHashingSaturatedException.class, () -> service.encode("third"));
+            assertTrue(exception.getMessage().contains("sibuk"));
+            assertEquals(1.0, meterRegistry.get("password.hashing.rejected").tag("reason", "queue_full").counter().count());
+        } finally {
+            release.countDown();
+        }
+        assertEquals("hash:first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash:second", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void matches_WaitExceedsMaxWait_FailsWithSaturatedException() {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        service = new PasswordHashingService(blockingEncoder(new CountDownLatch(1), release), 1, 4, 50L, meterRegistry);
+
+        try {
+            // When & Then
+            assertThrows(PasswordHashingSaturatedException.class, () -> service.matches("raw", "hash"));
+            assertEquals(1.0, meterRegistry.get("password.hashing.rejected").tag("reason", "timeout").counter().count());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void encode_EncoderThrows_PropagatesOriginalException() {
+        // Given
+        PasswordEncoder failing = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                throw new IllegalArgumentException("rawPassword cannot be null");
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return false;
+            }
+        };
+        service = new PasswordHashingService(failing, 1, 1, 5_000L, meterRegistry);
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> service.encode(null));
+        assertEquals("rawPassword cannot be null", exception.getMessage());
+    }
+
+    private PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                block();
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                block();
+                return true;
+            }
+
+            private void block() {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private void waitForQueueDepth(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000L;
+        while (meterRegistry.get("password.hashing.queue.depth").gauge().value() < expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, meterRegistry.get("password.hashing.queue.depth").gauge().value());
+    }
+}
@@ -0,0 +1,174 @@
+package com.reg.regis.service;
+
+import com.reg.regis.model.Customer;
+import com.reg.regis.model.RefreshToken;
+import com.reg.regis.repository.CustomerRepository;
+import com.reg.regis.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, customerRepository, 60_000L, meterRegistry);
+    }
+
+    @Test
+    void issue_StoresOnlyHashOfOpaqueToken() {
+        // Given
+        Customer customer = customer(1L, 0L);
+
+        // When
+        String rawToken = refreshTokenService.issue(customer);
+
+        // Then
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(captor.capture());
+        RefreshToken saved = captor.getValue();
+
+        assertNotNull(rawToken);
+        assertFalse(rawToken.contains("."), "refresh token harus opaque, bukan JWT");
+        assertNotEquals(rawToken, saved.getTokenHash());
+        assertEquals(RefreshTokenService.hash(rawToken), saved.getTokenHash());
+        assertEquals(1L, saved.getCustomerId());
+        assertNotNull(saved.getFamilyId());
+        assertTrue(saved.getExpiresAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void rotate_ValidToken_MarksUsedAndIssuesTokenInSameFamily() {
+        // Given
+        Customer customer = customer(1L, 0L);
+        RefreshToken current = stored(10L, "family-1", 1L, 0L, LocalDateTime.now().plusMinutes(5));
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("raw-token"))).thenReturn(Optional.of(current));
+        when(refreshTokenRepository.markUsed(eq(10L), any())).thenReturn(1);
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+
+        // When
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate("raw-token");
+
+        // Then
+        assertSame(customer, rotation.getCustomer());
+        assertNotEquals("raw-token", rotation.getRefreshToken());
+
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(captor.capture());
+        assertEquals("family-1", captor.getValue().getFamilyId());
+        verify(refreshTokenRepository, never()).revokeFamily(anyString(), any());
+        assertEquals(1.0, meterRegistry.get("jwt.refresh.rotations").counter().count());
+    }
+
+    @Test
+    void rotate_AlreadyUsedToken_RevokesWholeFamily() {
+        // Given
+        RefreshToken used = stored(10L, "family-1", 1L, 0L, LocalDateTime.now().plusMinutes(5));
+        used.setRevokedAt(LocalDateTime.now().minusSeconds(5));
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("raw-token"))).thenReturn(Optional.of(used));
+
+        // When & Then
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate("raw-token"));
+        verify(refreshTokenRepository).revokeFamily(eq("family-1"), any());
+        verify(refreshTokenRepository, never()).save(any());
+        assertEquals(1.0, meterRegistry.get("jwt.refresh.reuse.detected").counter().count());
+    }
+
+    @Test
+    void rotate_ConcurrentUse_RevokesWholeFamily() {
+        // Given - request lain sudah menandai token terpakai
+        RefreshToken current = stored(10L, "family-1", 1L, 0L, LocalDateTime.now().plusMinutes(5));
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("raw-token"))).thenReturn(Optional.of(current));
+        when(refreshTokenRepository.markUsed(eq(10L), any())).thenReturn(0);
+
+        // When & Then
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate("raw-token"));
+        verify(refreshTokenRepository).revokeFamily(eq("family-1"), any());
+    }
+
+    @Test
+    void rotate_ExpiredToken_ThrowsBadCredentials() {
+        // Given
+        RefreshToken expired = stored(10L, "family-1", 1L, 0L, LocalDateTime.now().minusMinutes(1));
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("raw-token"))).thenReturn(Optional.of(expired));
+
+        // When & Then
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate("raw-token"));
+        verify(refreshTokenRepository, never()).markUsed(anyLong(), any());
+    }
+
+    @Test
+    void rotate_UnknownToken_ThrowsBadCredentials() {
+        // Given
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate("unknown"));
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(null));
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(""));
+    }
+
+    @Test
+    void rotate_CredentialVersionChanged_RevokesFamily() {
+        // Given - akun terkunci sejak token diterbitkan (versi naik)
+        Customer customer = customer(1L, 1L);
+        RefreshToken current = stored(10L, "family-1", 1L, 0L, LocalDateTime.now().plusMinutes(5));
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("raw-token"))).thenReturn(Optional.of(current));
+        when(refreshTokenRepository.markUsed(eq(10L), any())).thenReturn(1);
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+
+        // When & Then
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate("raw-token"));
+        verify(refreshTokenRepository).revokeFamily(eq("family-1"), any());
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void revoke_KnownToken_RevokesFamily() {
+        // Given
+        RefreshToken current = stored(10L, "family-1", 1L, 0L, LocalDateTime.now().plusMinutes(5));
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("raw-token"))).thenReturn(Optional.of(current));
+
+        // When & Then
+        assertTrue(refreshTokenService.revoke("raw-token"));
+        verify(refreshTokenRepository).revokeFamily(eq("family-1"), any());
+        assertFalse(refreshTokenService.revoke(null));
+    }
+
+    private Customer customer(Long id, Long credentialVersion) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setEmail("test@example.com");
+        customer.setCredentialVersion(credentialVersion);
+        return customer;
+    }
+
+    private RefreshToken stored(Long id, String familyId, Long customerId, Long version, LocalDateTime expiresAt) {
+        RefreshToken token = new RefreshToken("hash", familyId, customerId, version, expiresAt);
+        token.setId(id);
+        return token;
+    }
+}
@@ -0,0 +1,207 @@
+package com.reg.regis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reg.regis.dto.request.RegistrationRequest;
+import com.reg.regis.dto.response.RegistrationResponse;
+import com.reg.regis.model.Customer;
+import com.reg.regis.model.RegistrationJob;
+import com.reg.regis.repository.RegistrationJobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegistrationJobServiceTest {
+
+    @Mock
+    private RegistrationJobRepository registrationJobRepository;
+
+    @Mock
+    private RegistrationService registrationService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RegistrationJobService service;
+
+    @BeforeEach
+    void setUp() {
+        service = newService(2, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void submit_SavesPendingJobAndWorkerCompletesIt() {
+        // Given
+        RegistrationRequest request = new RegistrationRequest();
+        when(registrationJobRepository.save(any(RegistrationJob.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(registrationJobRepository.markProcessing(anyString(), any())).thenReturn(1);
+        when(registrationService.register(request)).thenReturn(registration(7L));
+
+        // When
+        RegistrationJob job = service.submit(request);
+
+        // Then
+        assertEquals(RegistrationJob.Status.PENDING, job.getStatus());
+        ArgumentCaptor<String> result = ArgumentCaptor.forClass(String.class);
+        verify(registrationJobRepository, timeout(5_000)).finish(eq(job.getId()), eq(RegistrationJob.Status.COMPLETED),
+                eq(7L), result.capture(), isNull(), isNull(), any());
+        assertTrue(result.getValue().contains("\"kodeRekening\":\"1025010001\""));
+        assertFalse(result.getValue().contains("password"));
+    }
+
+    @Test
+    void process_RegistrationRejected_StoresFailure() {
+        // Given
+        RegistrationRequest request = new RegistrationRequest();
+        when(registrationJobRepository.markProcessing(eq("job-1"), any())).thenReturn(1);
+        when(registrationService.register(request)).thenThrow(new RegistrationRejectedException("Email sudah terdaftar"));
+
+        // When
+        service.process("job-1", request);
+
+        // Then
+        verify(registrationJobRepository).finish(eq("job-1"), eq(RegistrationJob.Status.FAILED), isNull(), isNull(),
+                eq("Email sudah terdaftar"), eq("validation_error"), any());
+        assertEquals(1.0, meterRegistry.get("registration.async.jobs").tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    void process_DatabaseError_StoresSystemErrorNotValidationError() {
+        // Given
+        RegistrationRequest request = new RegistrationRequest();
+        when(registrationJobRepository.markProcessing(eq("job-1"), any())).thenReturn(1);
+        when(registrationService.register(request))
+                .thenThrow(new DataAccessResourceFailureException("Connection is not available"));
+
+        // When
+        service.process("job-1", request);
+
+        // Then
+        verify(registrationJobRepository).finish(eq("job-1"), eq(RegistrationJob.Status.FAILED), isNull(), isNull(),
+                eq("Terjadi kesalahan sistem: Connection is not available"), eq("system_error"), any());
+    }
+
+    @Test
+    void sweep_OnlyPollsSubscribersAndSkipsHousekeeping() {
+        // Given - tidak ada subscriber SSE
+
+        // When
+        service.sweep();
+
+        // Then - sweep per detik tidak menjalankan UPDATE/DELETE housekeeping
+        verifyNoInteractions(registrationJobRepository);
+    }
+
+    @Test
+    void housekeeping_FailsStaleJobsAndDeletesExpiredOnes() {
+        // When
+        service.housekeeping();
+
+        // Then
+        verify(registrationJobRepository).failStale(any(), anyString(), any());
+        verify(registrationJobRepository).deleteCreatedBefore(any());
+    }
+
+    @Test
+    void process_JobAlreadyFailedBySweeper_IsSkipped() {
+        // Given
+        when(registrationJobRepository.markProcessing(eq("job-1"), any())).thenReturn(0);
+
+        // When
+        service.process("job-1", new RegistrationRequest());
+
+        // Then
+        verifyNoInteractions(registrationService);
+        verify(registrationJobRepository, never()).finish(anyString(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void submit_QueueFull_RejectsAndRemovesJob() throws Exception {
+        // Given - 1 worker sibuk, antrian (kapasitas 1) terisi
+        service.shutdown();
+        service = newService(1, 1);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(registrationJobRepository.save(any(RegistrationJob.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(registrationJobRepository.markProcessing(anyString(), any())).thenReturn(1);
+        when(registrationService.register(any())).thenAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return registration(1L);
+        });
+
+        service.submit(new RegistrationRequest());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        service.submit(new RegistrationRequest());
+
+        try {
+            // When & Then
+            assertThrows(RegistrationQueueFullException.class, () -> service.submit(new RegistrationRequest()));
+            verify(registrationJobRepository).deleteById(anyString());
+            assertEquals(1.0, meterRegistry.get("registration.async.jobs").tag("outcome", "rejected").counter().count());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void describe_CompletedJob_ContainsRegistrationData() {
+        // Given
+        RegistrationJob job = new RegistrationJob("job-1");
+        job.setStatus(RegistrationJob.Status.COMPLETED);
+        job.setResult("{\"jenisKartu\":\"Silver\",\"kodeRekening\":\"1025010001\"}");
+
+        // When
+        Map<String, Object> view = service.describe(job);
+
+        // Then
+        assertEquals("job-1", view.get("jobId"));
+        assertEquals("COMPLETED", view.get("status"));
+        assertEquals(true, view.get("success"));
+        assertEquals("1025010001", ((Map<?, ?>) view.get("data")).get("kodeRekening"));
+    }
+
+    @Test
+    void describe_PendingJob_HasNoOutcome() {
+        // When
+        Map<String, Object> view = service.describe(new RegistrationJob("job-1"));
+
+        // Then
+        assertEquals("PENDING", view.get("status"));
+        assertFalse(view.containsKey("success"));
+        assertFalse(view.containsKey("data"));
+    }
+
+    private RegistrationJobService newService(int threads, int queueCapacity) {
+        return new RegistrationJobService(registrationJobRepository, registrationService, objectMapper,
+                threads, queueCapacity, 60_000L, 300_000L, 86_400_000L, meterRegistry);
+    }
+
+    private RegistrationService.Registration registration(Long customerId) {
+        Customer customer = new Customer();
+        customer.setId(customerId);
+        customer.setPassword("{bcrypt}hash");
+        RegistrationResponse response = new RegistrationResponse(
+                "Silver", "John Doe", "1025010001", "BNI Taplus", "4101 2345 6789 0123");
+        return new RegistrationService.Registration(customer, response);
+    }
+}
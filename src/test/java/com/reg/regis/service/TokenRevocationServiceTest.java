@@ -0,0 +1,168 @@
+package com.reg.regis.service;
+
+import com.reg.regis.model.RevokedToken;
+import com.reg.regis.repository.RevokedTokenRepository;
+import com.reg.regis.security.JwtUtil;
+import com.reg.regis.security.VerifiedToken;
+import com.reg.regis.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TokenRevocationService revocationService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        revocationService = new TokenRevocationService(revokedTokenRepository, jwtUtil, verifiedTokenCache, 1000, meterRegistry);
+    }
+
+    @Test
+    void revokeToken_ValidToken_PersistsAndMarksRevoked() {
+        // Given
+        VerifiedToken verified = tokenExpiringIn("jti-1", 60_000L);
+        when(jwtUtil.verify("token-1")).thenReturn(verified);
+
+        // When
+        boolean result = revocationService.revokeToken("token-1");
+
+        // Then
+        assertTrue(result);
+        assertTrue(revocationService.isRevoked(verified));
+        assertTrue(revocationService.isTokenRevoked("token-1"));
+
+        ArgumentCaptor<RevokedToken> captor = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository).save(captor.capture());
+        assertEquals("jti-1", captor.getValue().getJti());
+        assertEquals("test@example.com", captor.getValue().getSubject());
+        verify(verifiedTokenCache).invalidate("token-1");
+    }
+
+    @Test
+    void revokeToken_InvalidToken_ReturnsFalse() {
+        // Given
+        when(jwtUtil.verify("bad-token")).thenReturn(null);
+
+        // When & Then
+        assertFalse(revocationService.revokeToken("bad-token"));
+        assertFalse(revocationService.revokeToken(null));
+        verify(revokedTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void revokeToken_TokenWithoutJti_ReturnsFalse() {
+        // Given
+        when(jwtUtil.verify("legacy-token")).thenReturn(tokenExpiringIn(null, 60_000L));
+
+        // When & Then
+        assertFalse(revocationService.revokeToken("legacy-token"));
+        verify(revokedTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void isRevoked_UnknownJti_ReturnsFalse() {
+        // Given
+        when(jwtUtil.verify("token-1")).thenReturn(tokenExpiringIn("jti-1", 60_000L));
+        revocationService.revokeToken("token-1");
+
+        // When & Then
+        assertFalse(revocationService.isRevoked("jti-2"));
+        assertFalse(revocationService.isRevoked((String) null));
+        assertFalse(revocationService.isRevoked((VerifiedToken) null));
+    }
+
+    @Test
+    void isRevoked_ManyUnknownJtis_MostlyAnsweredByBloomFilter() {
+        // Given
+        for (int i = 0; i < 100; i++) {
+            String token = "token-" + i;
+            when(jwtUtil.verify(token)).thenReturn(tokenExpiringIn("revoked-" + i, 60_000L));
+            revocationService.revokeToken(token);
+        }
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            assertFalse(revocationService.isRevoked(UUID.randomUUID().toString()));
+        }
+        double falsePositives = meterRegistry.get("jwt.revocation.bloom.false.positives").counter().count();
+
+        // Then - target 1% false positive
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void refresh_LoadsActiveRowsAndPrunesExpired() {
+        // Given
+        LocalDateTime future = LocalDateTime.now().plusMinutes(5);
+        when(revokedTokenRepository.findActive(any())).thenReturn(List.of(new RevokedToken("remote-jti", "other@example.com", future)));
+
+        // When
+        revocationService.refresh();
+
+        // Then
+        verify(revokedTokenRepository).deleteExpired(any());
+        assertTrue(revocationService.isRevoked("remote-jti"));
+        assertEquals(1, revocationService.size());
+    }
+
+    @Test
+    void prune_ExpiredEntry_IsRemoved() throws InterruptedException {
+        // Given
+        when(jwtUtil.verify("token-1")).thenReturn(tokenExpiringIn("jti-1", 30L));
+        revocationService.revokeToken("token-1");
+        assertEquals(1, revocationService.size());
+
+        // When
+        Thread.sleep(60);
+        revocationService.prune();
+
+        // Then
+        assertEquals(0, revocationService.size());
+        assertFalse(revocationService.isRevoked("jti-1"));
+    }
+
+    @Test
+    void refresh_RepositoryFailure_KeepsInMemoryState() {
+        // Given
+        when(jwtUtil.verify("token-1")).thenReturn(tokenExpiringIn("jti-1", 60_000L));
+        revocationService.revokeToken("token-1");
+        when(revokedTokenRepository.deleteExpired(any())).thenThrow(new RuntimeException("DB down"));
+
+        // When
+        assertDoesNotThrow(() -> revocationService.refresh());
+
+        // Then
+        assertTrue(revocationService.isRevoked("jti-1"));
+    }
+
+    private VerifiedToken tokenExpiringIn(String jti, long millis) {
+        Date now = new Date();
+        return new VerifiedToken("test@example.com", new Date(now.getTime() + millis), "access_token", now, null, null, jti);
+    }
+}